@@ -0,0 +1,68 @@
+package com.thinhtran.EzPay.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${ezpay.notification.executor.core-size:2}")
+    private int coreSize;
+
+    @Value("${ezpay.notification.executor.max-size:4}")
+    private int maxSize;
+
+    @Value("${ezpay.notification.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${ezpay.export.executor.core-size:2}")
+    private int exportCoreSize;
+
+    @Value("${ezpay.export.executor.max-size:4}")
+    private int exportMaxSize;
+
+    @Value("${ezpay.export.executor.queue-capacity:50}")
+    private int exportQueueCapacity;
+
+    /**
+     * Bounded pool for post-commit notification work. When the queue is full the publishing
+     * thread runs the task itself, which slows producers down instead of dropping notifications.
+     */
+    @Bean(name = "notificationExecutor")
+    public TaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notify-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Threads that write streamed responses (history exports) after the request thread is released.
+     * Each export holds a database connection while it runs, so the pool stays small.
+     */
+    @Bean(name = "exportExecutor")
+    public AsyncTaskExecutor exportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportCoreSize);
+        executor.setMaxPoolSize(exportMaxSize);
+        executor.setQueueCapacity(exportQueueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,29 @@
+package com.thinhtran.EzPay.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor exportExecutor;
+    private final long asyncTimeoutMs;
+
+    public WebMvcConfig(@Qualifier("exportExecutor") AsyncTaskExecutor exportExecutor,
+                        @Value("${ezpay.export.timeout-ms:600000}") long asyncTimeoutMs) {
+        this.exportExecutor = exportExecutor;
+        this.asyncTimeoutMs = asyncTimeoutMs;
+    }
+
+    // Streaming responses run here rather than on an unbounded default executor, and get long enough
+    // to finish a large export (the container default is 30 seconds)
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+}
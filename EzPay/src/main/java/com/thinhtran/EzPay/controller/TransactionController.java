@@ -1,22 +1,46 @@
 package com.thinhtran.EzPay.controller;
 
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
 import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
 import com.thinhtran.EzPay.dto.response.ApiResponse;
+import com.thinhtran.EzPay.dto.response.BatchTransferResponse;
+import com.thinhtran.EzPay.dto.response.RecomputeProgressResponse;
+import com.thinhtran.EzPay.dto.response.SpendingSummaryResponse;
 import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
 import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.exception.AccessDeniedException;
+import com.thinhtran.EzPay.exception.ValidationException;
+import com.thinhtran.EzPay.service.GroupCommitService;
+import com.thinhtran.EzPay.service.HistoryExportService;
+import com.thinhtran.EzPay.service.IdempotencyService;
+import com.thinhtran.EzPay.service.SpendingSummaryService;
+import com.thinhtran.EzPay.service.StatisticsRecomputeService;
+import com.thinhtran.EzPay.service.StatisticsService;
 import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.service.TransferVolumeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 
 @RestController
 @RequestMapping("/v1/api/transactions")
@@ -24,20 +48,89 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectProvider<GroupCommitService> groupCommitService;
+    private final HistoryExportService historyExportService;
+    private final StatisticsService statisticsService;
+    private final TransferVolumeService transferVolumeService;
+    private final StatisticsRecomputeService statisticsRecomputeService;
+    private final SpendingSummaryService spendingSummaryService;
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Void>> transfer(@AuthenticationPrincipal User user,
-                                                     @Valid @RequestBody TransferRequest request) {
-        transactionService.transfer(user.getUserName(), request);
-        return ResponseEntity.ok(ApiResponse.success("Chuyển tiền thành công"));
+    public ResponseEntity<ApiResponse<TransactionResponse>> transfer(@AuthenticationPrincipal User user,
+                                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                                    @Valid @RequestBody TransferRequest request) {
+        // Retried requests carrying the same key get the first result back instead of a second transfer.
+        // Keyed transfers commit together with their idempotency record, so only unkeyed ones are grouped.
+        GroupCommitService groupCommit = groupCommitService.getIfAvailable();
+        TransactionResponse result = idempotencyKey == null
+                ? (groupCommit != null
+                        ? groupCommit.transfer(user.getUserName(), request)
+                        : transactionService.transfer(user.getUserName(), request))
+                : idempotencyService.execute(user.getUserName(), idempotencyKey, fingerprint(request),
+                        TransactionResponse.class, () -> transactionService.transfer(user.getUserName(), request));
+        return ResponseEntity.ok(ApiResponse.success("Chuyển tiền thành công", result));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchTransferResponse>> transferBatch(@AuthenticationPrincipal User user,
+                                                                           @Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResponse result = transactionService.transferBatch(user.getUserName(), request);
+        return ResponseEntity.ok(ApiResponse.success("Chuyển tiền hàng loạt hoàn tất", result));
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<TransactionResponse>>> history(@AuthenticationPrincipal User user) {
-        List<TransactionResponse> history = transactionService.getHistory(user.getUserName());
+    public ResponseEntity<ApiResponse<TransactionPageResponse>> history(@AuthenticationPrincipal User user,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer size,
+                                                                       @RequestParam(required = false)
+                                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                       @RequestParam(required = false)
+                                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                       @RequestParam(required = false) String direction,
+                                                                       @RequestParam(required = false) String counterparty,
+                                                                       @RequestParam(required = false) BigDecimal minAmount,
+                                                                       @RequestParam(required = false) BigDecimal maxAmount) {
+        HistoryFilter filter = HistoryFilter.builder()
+                .from(from)
+                .to(to)
+                .direction(direction == null ? null : HistoryFilter.Direction.parse(direction))
+                .counterparty(counterparty == null || counterparty.isBlank() ? null : counterparty)
+                .minAmount(amountParam("minAmount", minAmount))
+                .maxAmount(amountParam("maxAmount", maxAmount))
+                .build();
+        TransactionPageResponse history = transactionService.getHistory(user.getUserName(), filter, cursor, size);
         return ResponseEntity.ok(ApiResponse.success("Lấy lịch sử giao dịch thành công", history));
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<SpendingSummaryResponse>> summary(@AuthenticationPrincipal User user,
+                                                                        @RequestParam(required = false) String month) {
+        SpendingSummaryResponse summary = spendingSummaryService.getMonthlySummary(user.getId(), monthParam(month));
+        return ResponseEntity.ok(ApiResponse.success("Lấy tổng hợp chi tiêu thành công", summary));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@AuthenticationPrincipal User user,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        // Checked up front: once streaming starts the status is already sent
+        HistoryExportService.Format exportFormat = HistoryExportService.Format.parse(format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException("'from' must be before 'to'");
+        }
+        String username = user.getUserName();
+        StreamingResponseBody body = out -> historyExportService.export(username, exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @PostMapping("/top-up")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<Void>> topUp(@AuthenticationPrincipal User user,
@@ -51,11 +144,74 @@ public class TransactionController {
 
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<StatisticsResponse>> getStatistics(@AuthenticationPrincipal User user) {
+    public ResponseEntity<ApiResponse<StatisticsResponse>> getStatistics(@AuthenticationPrincipal User user,
+                                                                         @RequestParam(defaultValue = "all") String window) {
         if (user.getRole() != Role.ADMIN) {
             throw new AccessDeniedException("Access denied. Admin role required.");
         }
-        StatisticsResponse statistics = transactionService.getStatistics();
+        StatisticsResponse statistics = statisticsService.getStatistics(StatisticsService.Window.parse(window));
         return ResponseEntity.ok(ApiResponse.success("Lấy thống kê thành công", statistics));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/statistics/series")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<VolumeSeriesResponse>> getVolumeSeries(@AuthenticationPrincipal User user,
+                                                                            @RequestParam(defaultValue = "hour") String granularity,
+                                                                            @RequestParam(required = false)
+                                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                            @RequestParam(required = false)
+                                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied. Admin role required.");
+        }
+        VolumeSeriesResponse series = transferVolumeService.getVolumeSeries(
+                TransferVolumeService.Granularity.parse(granularity), from, to);
+        return ResponseEntity.ok(ApiResponse.success("Lấy thống kê theo thời gian thành công", series));
+    }
+
+    @PostMapping("/statistics/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RecomputeProgressResponse>> recomputeStatistics(@AuthenticationPrincipal User user) {
+        if (user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied. Admin role required.");
+        }
+        RecomputeProgressResponse progress = statisticsRecomputeService.start();
+        return ResponseEntity.accepted().body(ApiResponse.success("Đã bắt đầu tính lại thống kê", progress));
+    }
+
+    @GetMapping("/statistics/recompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RecomputeProgressResponse>> getRecomputeProgress(@AuthenticationPrincipal User user) {
+        if (user.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied. Admin role required.");
+        }
+        RecomputeProgressResponse progress = statisticsRecomputeService.getProgress();
+        return ResponseEntity.ok(ApiResponse.success("Lấy tiến độ tính lại thống kê thành công", progress));
+    }
+
+    private static Money amountParam(String name, BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Money.of(value);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("'" + name + "' " + e.getMessage());
+        }
+    }
+
+    private static YearMonth monthParam(String month) {
+        if (month == null || month.isBlank()) {
+            return YearMonth.now();
+        }
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("'month' must be in the form yyyy-MM");
+        }
+    }
+
+    private static String fingerprint(TransferRequest request) {
+        return request.getReceiverUsername() + '\n' + request.getAmount().minorUnits() + '\n' + request.getMessage();
+    }
+}
@@ -2,8 +2,14 @@ package com.thinhtran.EzPay.controller;
 
 import com.thinhtran.EzPay.dto.request.UpdateProfileRequest;
 import com.thinhtran.EzPay.dto.response.ApiResponse;
+import com.thinhtran.EzPay.dto.response.RecipientResponse;
 import com.thinhtran.EzPay.dto.response.UserResponse;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.exception.ValidationException;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.RecipientIndex;
 import com.thinhtran.EzPay.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,14 +17,20 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/v1/api/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final UserService userService;
+    private final LedgerService ledgerService;
+    private final RecipientIndex recipientIndex;
 
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserResponse>> getMe(@AuthenticationPrincipal User user) {
@@ -27,7 +39,7 @@ public class UserController {
         res.setFullName(user.getFullName());
         res.setEmail(user.getEmail());
         res.setPhone(user.getPhone());
-        res.setBalance(user.getBalance());
+        res.setBalance(ledgerService.balanceOf(user));
         res.setRole(user.getRole().name());
         return ResponseEntity.ok(ApiResponse.success("Lấy thông tin người dùng thành công", res));
     }
@@ -42,7 +54,7 @@ public class UserController {
         res.setFullName(updatedUser.getFullName());
         res.setEmail(updatedUser.getEmail());
         res.setPhone(updatedUser.getPhone());
-        res.setBalance(updatedUser.getBalance());
+        res.setBalance(ledgerService.balanceOf(updatedUser));
         res.setRole(updatedUser.getRole().name());
         
         return ResponseEntity.ok(ApiResponse.success("Cập nhật thông tin thành công", res));
@@ -51,6 +63,7 @@ public class UserController {
     @GetMapping
     public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers() {
         List<User> users = userService.getAllUsers();
+        Map<Long, Money> balances = ledgerService.balancesOf(users);
         List<UserResponse> userResponses = users.stream()
                 .map(user -> {
                     var res = new UserResponse();
@@ -58,7 +71,7 @@ public class UserController {
                     res.setFullName(user.getFullName());
                     res.setEmail(user.getEmail());
                     res.setPhone(user.getPhone());
-                    res.setBalance(user.getBalance());
+                    res.setBalance(balances.get(user.getId()));
                     res.setRole(user.getRole().name());
                     return res;
                 })
@@ -69,20 +82,34 @@ public class UserController {
 
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<UserResponse>>> searchUsers(@RequestParam String q) {
-        List<User> users = userService.searchUsers(q);
-        List<UserResponse> userResponses = users.stream()
-                .map(user -> {
+        List<UserSearchRow> rows = userService.searchUsers(q);
+        Map<Long, Money> settled = new HashMap<>();
+        rows.forEach(row -> settled.put(row.id(), row.balance()));
+        Map<Long, Money> balances = ledgerService.balancesOfSettled(settled);
+        List<UserResponse> userResponses = rows.stream()
+                .map(row -> {
                     var res = new UserResponse();
-                    res.setUserName(user.getUserName());
-                    res.setFullName(user.getFullName());
-                    res.setEmail(user.getEmail());
-                    res.setPhone(user.getPhone());
-                    res.setBalance(user.getBalance());
-                    res.setRole(user.getRole().name());
+                    res.setUserName(row.userName());
+                    res.setFullName(row.fullName());
+                    res.setEmail(row.email());
+                    res.setPhone(row.phone());
+                    res.setBalance(balances.get(row.id()));
+                    res.setRole(row.role().name());
                     return res;
                 })
                 .toList();
         
         return ResponseEntity.ok(ApiResponse.success("Tìm kiếm người dùng thành công", userResponses));
     }
+
+    // Recipient picker: answered from the in-memory index on every keystroke, so no balances
+    @GetMapping("/autocomplete")
+    public ResponseEntity<ApiResponse<List<RecipientResponse>>> autocomplete(@RequestParam String q,
+                                                                             @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("'limit' must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        List<RecipientResponse> suggestions = recipientIndex.suggest(q, limit);
+        return ResponseEntity.ok(ApiResponse.success("Gợi ý người nhận thành công", suggestions));
+    }
 }
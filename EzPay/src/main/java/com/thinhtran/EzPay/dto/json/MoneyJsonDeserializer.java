@@ -0,0 +1,37 @@
+package com.thinhtran.EzPay.dto.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.thinhtran.EzPay.entity.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads {@link Money} from a JSON number or numeric string without going through {@code double},
+ * rejecting values with more than two decimal places.
+ */
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        try {
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return Money.of(p.getDecimalValue());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                return Money.of(new BigDecimal(p.getText().trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), e.getMessage());
+        }
+        return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+    }
+}
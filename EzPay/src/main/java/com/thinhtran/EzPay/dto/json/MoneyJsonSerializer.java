@@ -0,0 +1,23 @@
+package com.thinhtran.EzPay.dto.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.thinhtran.EzPay.entity.Money;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link Money} as a plain JSON number with two fraction digits, e.g. {@code 1500.00}.
+ */
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeNumber(value.toBigDecimal());
+    }
+}
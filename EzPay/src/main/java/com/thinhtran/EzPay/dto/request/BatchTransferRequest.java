@@ -0,0 +1,19 @@
+package com.thinhtran.EzPay.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 500, message = "A batch can contain at most 500 transfers")
+    private List<@Valid TransferRequest> transfers;
+}
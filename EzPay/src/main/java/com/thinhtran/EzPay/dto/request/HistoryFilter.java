@@ -0,0 +1,56 @@
+package com.thinhtran.EzPay.dto.request;
+
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.exception.ValidationException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Optional narrowing of a history listing. Every field may be null; {@code from} is inclusive and
+ * {@code to} exclusive, the amount bounds are both inclusive.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryFilter {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Direction direction;
+    private String counterparty;
+    private Money minAmount;
+    private Money maxAmount;
+
+    public boolean isEmpty() {
+        return from == null && to == null && direction == null && counterparty == null
+                && minAmount == null && maxAmount == null;
+    }
+
+    public void validate() {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException("'from' must be before 'to'");
+        }
+        if (minAmount != null && maxAmount != null && minAmount.isGreaterThan(maxAmount)) {
+            throw new ValidationException("'minAmount' must not exceed 'maxAmount'");
+        }
+    }
+
+    public enum Direction {
+        SENT, RECEIVED;
+
+        public static Direction parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Direction must be 'sent' or 'received'");
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.thinhtran.EzPay.dto.request;
 
+import com.thinhtran.EzPay.dto.validation.MoneyRange;
+import com.thinhtran.EzPay.entity.Money;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 
@@ -11,10 +13,8 @@ public class TransferRequest {
     private String receiverUsername;
 
     @NotNull(message = "Amount is required")
-    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
-    @DecimalMax(value = "999999999.99", message = "Amount cannot exceed 999,999,999.99")
-    @Digits(integer = 9, fraction = 2, message = "Amount must have at most 9 integer digits and 2 decimal places")
-    private Double amount;
+    @MoneyRange(min = "0.01", max = "999999999.99", message = "Amount must be between 0.01 and 999,999,999.99")
+    private Money amount;
 
     @Size(max = 500, message = "Message must not exceed 500 characters")
     private String message;
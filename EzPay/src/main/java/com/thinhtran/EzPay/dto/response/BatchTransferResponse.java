@@ -0,0 +1,33 @@
+package com.thinhtran.EzPay.dto.response;
+
+import com.thinhtran.EzPay.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private Integer succeeded;
+    private Integer failed;
+    private Money totalTransferred;
+    private List<LegResult> results;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LegResult {
+        private Integer index;
+        private String receiverUsername;
+        private Money amount;
+        private Boolean success;
+        private Long transactionId;
+        private String error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.thinhtran.EzPay.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// A recipient suggestion: what the transfer screen shows, without the balance
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipientResponse {
+    private String userName;
+    private String fullName;
+    private String email;
+    private String phone;
+}
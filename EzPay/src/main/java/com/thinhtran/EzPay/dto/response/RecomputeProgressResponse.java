@@ -0,0 +1,25 @@
+package com.thinhtran.EzPay.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecomputeProgressResponse {
+    // RUNNING, COMPLETED or FAILED; null when no recompute has ever run
+    private String status;
+    private Long chunksDone;
+    private Long chunkCount;
+    private Long rowsRead;
+    private Double percentDone;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
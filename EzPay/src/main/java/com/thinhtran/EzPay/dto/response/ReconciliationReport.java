@@ -0,0 +1,25 @@
+package com.thinhtran.EzPay.dto.response;
+
+import com.thinhtran.EzPay.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    private LocalDateTime checkedAt;
+    private Long transfersChecked;
+    private Money transferPostingTotal;
+    private List<Long> unbalancedTransactionIds;
+
+    public boolean isBalanced() {
+        return transferPostingTotal.minorUnits() == 0 && unbalancedTransactionIds.isEmpty();
+    }
+}
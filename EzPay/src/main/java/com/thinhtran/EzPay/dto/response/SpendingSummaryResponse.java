@@ -0,0 +1,35 @@
+package com.thinhtran.EzPay.dto.response;
+
+import com.thinhtran.EzPay.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingSummaryResponse {
+    // yyyy-MM
+    private String month;
+    private Money totalSent;
+    private Long sentCount;
+    private Money totalReceived;
+    private Long receivedCount;
+    private List<CounterpartyResponse> topCounterparties;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CounterpartyResponse {
+        private String username;
+        private String fullName;
+        private Money sent;
+        private Money received;
+        private Long transferCount;
+    }
+}
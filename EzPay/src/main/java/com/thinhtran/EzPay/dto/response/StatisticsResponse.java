@@ -1,5 +1,7 @@
 package com.thinhtran.EzPay.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.thinhtran.EzPay.entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,7 +14,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class StatisticsResponse {
-    private Double totalTransferred;
+    private Money totalTransferred;
     private Integer totalTransactions;
     private List<TopReceiverResponse> topReceivers;
 
@@ -23,7 +25,14 @@ public class StatisticsResponse {
     public static class TopReceiverResponse {
         private String username;
         private String fullName;
-        private Double totalReceived;
+        private Money totalReceived;
         private Integer transactionCount;
+        // Set when totalReceived is an estimate: the most it may exceed the real total
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Money maxOvercount;
+
+        public TopReceiverResponse(String username, String fullName, Money totalReceived, Integer transactionCount) {
+            this(username, fullName, totalReceived, transactionCount, null);
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.thinhtran.EzPay.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionResponse> items;
+    // Pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+}
@@ -1,5 +1,6 @@
 package com.thinhtran.EzPay.dto.response;
 
+import com.thinhtran.EzPay.entity.Money;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -8,7 +9,7 @@ import java.time.LocalDateTime;
 public class TransactionResponse {
     private String senderUsername;
     private String receiverUsername;
-    private Double amount;
+    private Money amount;
     private String message;
     private LocalDateTime createdAt;
 }
@@ -1,5 +1,6 @@
 package com.thinhtran.EzPay.dto.response;
 
+import com.thinhtran.EzPay.entity.Money;
 import lombok.Data;
 
 @Data
@@ -8,6 +9,6 @@ public class UserResponse {
     private String fullName;
     private String email;
     private String phone;
-    private Double balance;
+    private Money balance;
     private String role;
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.thinhtran.EzPay.dto.response;
+
+import com.thinhtran.EzPay.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolumeSeriesResponse {
+    private String granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // One entry per bucket in [from, to), oldest first; buckets without transfers are zero
+    private List<Bucket> buckets;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private LocalDateTime start;
+        private Money volume;
+        private Long transferCount;
+    }
+}
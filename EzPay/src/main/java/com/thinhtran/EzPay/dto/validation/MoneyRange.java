@@ -0,0 +1,30 @@
+package com.thinhtran.EzPay.dto.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Inclusive range check for {@link com.thinhtran.EzPay.entity.Money} fields, the counterpart of
+ * {@code @DecimalMin}/{@code @DecimalMax} for numbers. {@code null} is valid; combine with {@code @NotNull}.
+ */
+@Documented
+@Constraint(validatedBy = MoneyRangeValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MoneyRange {
+    String min();
+
+    String max();
+
+    String message() default "Amount is out of range";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,21 @@
+package com.thinhtran.EzPay.dto.validation;
+
+import com.thinhtran.EzPay.entity.Money;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MoneyRangeValidator implements ConstraintValidator<MoneyRange, Money> {
+    private Money min;
+    private Money max;
+
+    @Override
+    public void initialize(MoneyRange constraint) {
+        this.min = Money.parse(constraint.min());
+        this.max = Money.parse(constraint.max());
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || (!value.isLessThan(min) && !value.isGreaterThan(max));
+    }
+}
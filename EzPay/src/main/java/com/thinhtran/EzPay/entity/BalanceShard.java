@@ -0,0 +1,48 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One of the K sub-balance rows of a hot account. Credits to a hot account are applied to a random
+ * shard as they are written, so concurrent receivers of the same account spread over K rows; the
+ * account's balance is its settled balance plus the sum of its shards plus its unsettled postings.
+ */
+@Entity
+@Table(name = "tbl_balance_shard", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_shard_account_shard", columnNames = {"account_id", "shard_no"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Money balance = Money.ZERO;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BalanceShard shard = (BalanceShard) obj;
+        return id != null && id.equals(shard.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
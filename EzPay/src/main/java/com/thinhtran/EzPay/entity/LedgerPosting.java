@@ -0,0 +1,66 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One append-only ledger line: a signed amount against an account. A transfer writes a debit and a
+ * credit that sum to zero, a top-up writes a single credit. {@code snapshotId} stays null until a
+ * snapshot folds the posting into the account's settled {@link User#getBalance() balance}. Credits to a
+ * hot account are applied to one of its {@link BalanceShard shards} as they are written and carry
+ * {@link LedgerSnapshot#APPLIED_TO_SHARD} instead.
+ */
+@Entity
+@Table(name = "tbl_ledger_posting", indexes = {
+        @Index(name = "idx_posting_account_snapshot", columnList = "account_id, snapshot_id"),
+        @Index(name = "idx_posting_transaction", columnList = "transaction_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_posting_seq")
+    @SequenceGenerator(name = "ledger_posting_seq", sequenceName = "tbl_ledger_posting_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "transaction_id")
+    private Long transactionId; // null for top-ups
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PostingType type;
+
+    @Column(nullable = false)
+    private Money amount;
+
+    @Builder.Default
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "snapshot_id")
+    private Long snapshotId;
+
+    @Column(name = "shard_no")
+    private Integer shardNo; // balance shard a hot-account credit was applied to
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        LedgerPosting posting = (LedgerPosting) obj;
+        return id != null && id.equals(posting.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A settlement run that folded unsettled postings into account balances.
+ */
+@Entity
+@Table(name = "tbl_ledger_snapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerSnapshot {
+
+    // Snapshot id of postings applied to a balance shard when written; no snapshot ever folds them
+    public static final long APPLIED_TO_SHARD = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Builder.Default
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Builder.Default
+    @Column(name = "account_count", nullable = false)
+    private Integer accountCount = 0;
+
+    @Builder.Default
+    @Column(name = "posting_count", nullable = false)
+    private Long postingCount = 0L;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        LedgerSnapshot snapshot = (LedgerSnapshot) obj;
+        return id != null && id.equals(snapshot.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
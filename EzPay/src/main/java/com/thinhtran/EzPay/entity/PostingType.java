@@ -0,0 +1,7 @@
+package com.thinhtran.EzPay.entity;
+
+public enum PostingType {
+    TRANSFER_DEBIT,
+    TRANSFER_CREDIT,
+    TOP_UP
+}
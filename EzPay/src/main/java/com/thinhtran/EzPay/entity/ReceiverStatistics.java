@@ -0,0 +1,45 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running totals received by one account. Indexed by amount so the top receivers are the first
+ * rows of an index scan.
+ */
+@Entity
+@Table(name = "tbl_receiver_statistics", indexes = {
+        @Index(name = "idx_receiver_statistics_total", columnList = "total_received DESC")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReceiverStatistics {
+
+    @Id
+    @Column(name = "receiver_id")
+    private Long receiverId;
+
+    @Builder.Default
+    @Column(name = "total_received", nullable = false)
+    private Money totalReceived = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount = 0L;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ReceiverStatistics statistics = (ReceiverStatistics) obj;
+        return receiverId != null && receiverId.equals(statistics.receiverId);
+    }
+
+    @Override
+    public int hashCode() {
+        return receiverId != null ? receiverId.hashCode() : 0;
+    }
+}
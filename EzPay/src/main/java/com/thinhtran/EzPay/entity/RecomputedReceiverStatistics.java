@@ -0,0 +1,41 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Per-receiver totals being rebuilt by the statistics recompute job; replaces tbl_receiver_statistics
+ * when the job finishes.
+ */
+@Entity
+@Table(name = "tbl_statistics_recompute_receiver")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecomputedReceiverStatistics {
+
+    @Id
+    @Column(name = "receiver_id")
+    private Long receiverId;
+
+    @Column(name = "total_received", nullable = false)
+    private Money totalReceived;
+
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RecomputedReceiverStatistics statistics = (RecomputedReceiverStatistics) obj;
+        return receiverId != null && receiverId.equals(statistics.receiverId);
+    }
+
+    @Override
+    public int hashCode() {
+        return receiverId != null ? receiverId.hashCode() : 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Hourly volume being rebuilt by the statistics recompute job; replaces tbl_transfer_volume_hourly
+ * when the job finishes.
+ */
+@Entity
+@Table(name = "tbl_statistics_recompute_hourly")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecomputedTransferVolume {
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_amount", nullable = false)
+    private Money totalAmount;
+
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RecomputedTransferVolume volume = (RecomputedTransferVolume) obj;
+        return bucketStart != null && bucketStart.equals(volume.bucketStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return bucketStart != null ? bucketStart.hashCode() : 0;
+    }
+}
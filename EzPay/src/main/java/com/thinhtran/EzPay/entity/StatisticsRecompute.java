@@ -0,0 +1,84 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * State of the statistics recompute job, one row. Transactions with ids up to {@code maxId} created before
+ * {@code cutoff} are read in chunks of {@code chunkSize} ids; chunks before {@code nextChunk} are already
+ * added to the staging totals, so an interrupted job resumes from there.
+ */
+@Entity
+@Table(name = "tbl_statistics_recompute")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatisticsRecompute {
+
+    public static final long JOB = 1L;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // Node running the job; it keeps heartbeatAt fresh, and a stale heartbeat lets another node take over
+    @Column(name = "owner_id", nullable = false, length = 128)
+    private String ownerId;
+
+    @Column(name = "max_id", nullable = false)
+    private Long maxId;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "chunk_count", nullable = false)
+    private Long chunkCount;
+
+    @Column(name = "next_chunk", nullable = false)
+    private Long nextChunk;
+
+    @Column(name = "rows_read", nullable = false)
+    private Long rowsRead;
+
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    // Highest outbox event id before the cutoff; later events are checked against the cutoff when finishing
+    @Column(name = "outbox_watermark", nullable = false)
+    private Long outboxWatermark;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        StatisticsRecompute recompute = (StatisticsRecompute) obj;
+        return id != null && id.equals(recompute.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running all-time transfer totals, kept in a single row that relayed transfer events add to. The
+ * row's lock also serializes every statistics update, so per-receiver rows need no locks of their own.
+ */
+@Entity
+@Table(name = "tbl_statistics_total")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatisticsTotal {
+
+    public static final long GLOBAL = 1L;
+
+    @Id
+    private Long id;
+
+    @Builder.Default
+    @Column(name = "total_transferred", nullable = false)
+    private Money totalTransferred = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount = 0L;
+
+    @Builder.Default
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        StatisticsTotal total = (StatisticsTotal) obj;
+        return id != null && id.equals(total.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
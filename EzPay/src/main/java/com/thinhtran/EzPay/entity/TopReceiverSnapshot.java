@@ -0,0 +1,66 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * One node's top-receiver summary of one window slot, as of its last snapshot. Nodes restore their own
+ * slots on restart and merge the other nodes' slots into what they report.
+ */
+@Entity
+@Table(name = "tbl_top_receiver_snapshot", indexes = {
+        @Index(name = "idx_top_receiver_snapshot_window", columnList = "window_name, expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopReceiverSnapshot {
+
+    // node id, window and slot number
+    @Id
+    @Column(length = 160)
+    private String id;
+
+    @Column(name = "node_id", nullable = false, length = 128)
+    private String nodeId;
+
+    @Column(name = "window_name", nullable = false, length = 16)
+    private String windowName;
+
+    // Start of the slot in slot lengths since the epoch
+    @Column(name = "slot_no", nullable = false)
+    private Long slotNo;
+
+    @Column(name = "total_amount", nullable = false)
+    private Money totalAmount;
+
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount;
+
+    @Column(name = "absent_bound", nullable = false)
+    private Long absentBound;
+
+    // JSON array of SpaceSaving.Estimate
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String counters;
+
+    // Once the slot has slid out of its window
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        TopReceiverSnapshot snapshot = (TopReceiverSnapshot) obj;
+        return id != null && id.equals(snapshot.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
@@ -6,7 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tbl_transaction")
+// History is read per party and newest first; id trails created_at so keyset seeks stay inside the index
+@Table(name = "tbl_transaction", indexes = {
+        @Index(name = "idx_transaction_sender_created", columnList = "sender_id, created_at DESC, id DESC"),
+        @Index(name = "idx_transaction_receiver_created", columnList = "receiver_id, created_at DESC, id DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,8 +18,10 @@ import java.time.LocalDateTime;
 @Builder
 @ToString
 public class Transaction {
+    // Sequence ids (allocated 50 at a time) let Hibernate batch inserts; IDENTITY forces one insert per round trip
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "tbl_transaction_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -24,10 +30,12 @@ public class Transaction {
     @ManyToOne
     private User receiver;
 
-    private Double amount;
+    private Money amount;
 
     private String message;
 
+    // Partition key of tbl_transaction when it is partitioned by month
+    @Column(nullable = false)
     private LocalDateTime createdAt;
     
     @Override
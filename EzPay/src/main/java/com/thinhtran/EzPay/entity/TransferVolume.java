@@ -0,0 +1,44 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Volume and number of transfers created in one hour, added to as transfer events are relayed.
+ * Coarser series are summed from these rows, so a year at any granularity reads at most 8,784 of them.
+ */
+@Entity
+@Table(name = "tbl_transfer_volume_hourly")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferVolume {
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Builder.Default
+    @Column(name = "total_amount", nullable = false)
+    private Money totalAmount = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount = 0L;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        TransferVolume volume = (TransferVolume) obj;
+        return bucketStart != null && bucketStart.equals(volume.bucketStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return bucketStart != null ? bucketStart.hashCode() : 0;
+    }
+}
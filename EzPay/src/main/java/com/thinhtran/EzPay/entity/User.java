@@ -36,7 +36,7 @@ public class User {
     private Role role = Role.USER;
 
     @Builder.Default
-    private Double balance = 0.0;
+    private Money balance = Money.ZERO;
 
     // Email verification fields
     @Builder.Default
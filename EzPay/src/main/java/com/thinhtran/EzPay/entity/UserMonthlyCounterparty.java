@@ -0,0 +1,62 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * What a user sent to and received from one counterparty in a calendar month. The unique key leads
+ * with the user and month, so a month's counterparties are one index range.
+ */
+@Entity
+@Table(name = "tbl_user_monthly_counterparty", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_monthly_counterparty_user_month_counterparty",
+                columnNames = {"user_id", "month_start", "counterparty_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserMonthlyCounterparty {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "counterparty_id", nullable = false)
+    private Long counterpartyId;
+
+    @Builder.Default
+    @Column(name = "sent_amount", nullable = false)
+    private Money sentAmount = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "received_amount", nullable = false)
+    private Money receivedAmount = Money.ZERO;
+
+    // Transfers either way
+    @Builder.Default
+    @Column(name = "transfer_count", nullable = false)
+    private Long transferCount = 0L;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        UserMonthlyCounterparty counterparty = (UserMonthlyCounterparty) obj;
+        return id != null && id.equals(counterparty.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
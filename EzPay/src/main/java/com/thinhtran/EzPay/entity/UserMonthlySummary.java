@@ -0,0 +1,61 @@
+package com.thinhtran.EzPay.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * A user's sent and received totals for one calendar month, added to by the outbox relay as it
+ * relays each transfer. {@code monthStart} is the first day of the month the transfer was created in.
+ */
+@Entity
+@Table(name = "tbl_user_monthly_summary", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_monthly_summary_user_month", columnNames = {"user_id", "month_start"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserMonthlySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Builder.Default
+    @Column(name = "sent_amount", nullable = false)
+    private Money sentAmount = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "sent_count", nullable = false)
+    private Long sentCount = 0L;
+
+    @Builder.Default
+    @Column(name = "received_amount", nullable = false)
+    private Money receivedAmount = Money.ZERO;
+
+    @Builder.Default
+    @Column(name = "received_count", nullable = false)
+    private Long receivedCount = 0L;
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        UserMonthlySummary summary = (UserMonthlySummary) obj;
+        return id != null && id.equals(summary.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+}
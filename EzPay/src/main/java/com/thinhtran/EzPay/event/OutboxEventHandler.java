@@ -0,0 +1,18 @@
+package com.thinhtran.EzPay.event;
+
+/**
+ * Consumer of one outbox event type. Events are relayed in batches, one transaction per batch and one
+ * savepoint per event, and the handlers run inside it, so their writes commit together with the event
+ * being marked published; they must tolerate redelivery of events whose relay transaction rolled back,
+ * and defer anything that cannot be rolled back (a push to a client) until it commits. An event type
+ * may have several handlers; each event is dispatched to all of them in the same savepoint, in their
+ * {@code @Order}.
+ */
+public interface OutboxEventHandler<T> {
+
+    String eventType();
+
+    Class<T> payloadType();
+
+    void handle(T payload);
+}
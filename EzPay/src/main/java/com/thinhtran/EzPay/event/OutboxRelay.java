@@ -0,0 +1,94 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.service.OutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in batches. Polling is the safety net that picks up events left behind by a
+ * crash or by another node; a committed transfer also wakes the relay so notifications go out
+ * without waiting for the next poll. Relays on several nodes can run at once because batches are
+ * claimed with {@code FOR UPDATE SKIP LOCKED}.
+ */
+@Component
+@ConditionalOnProperty(name = "ezpay.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxService outboxService;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Value("${ezpay.outbox.batch-size:100}")
+    private int batchSize;
+
+    public OutboxRelay(OutboxService outboxService, MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        Gauge.builder("ezpay.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox events not yet published")
+                .register(meterRegistry);
+        Gauge.builder("ezpay.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ezpay.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        drain();
+        pending.set(outboxService.countPending());
+        lagMillis.set(outboxService.oldestPendingAge().map(age -> age.toMillis()).orElse(0L));
+    }
+
+    @Async("notificationExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        wakeUp();
+    }
+
+    @Async("notificationExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransferBatchCompleted(TransferBatchCompletedEvent event) {
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        wakeUpRequested.set(true);
+        // Coalesce wake-ups: one drain on this node at a time picks up everything committed so far.
+        // A wake-up racing with the end of a drain waits for the next poll at worst.
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (wakeUpRequested.getAndSet(false)) {
+                drain();
+            }
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            int published;
+            do {
+                published = outboxService.relayBatch(batchSize);
+            } while (published == batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+}
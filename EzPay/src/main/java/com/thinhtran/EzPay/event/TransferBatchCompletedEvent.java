@@ -0,0 +1,14 @@
+package com.thinhtran.EzPay.event;
+
+import java.util.List;
+
+/**
+ * Published once per batch transfer with every leg that went through, so the whole batch is
+ * relayed as a single outbox row per consumer and notified in bulk.
+ */
+public record TransferBatchCompletedEvent(List<TransferCompletedEvent> transfers) {
+
+    // Counted into the statistics, as TransferCompletedEvent.TYPE
+    public static final String TYPE = "TRANSFER_BATCH_COMPLETED";
+    public static final String NOTIFICATION_TYPE = "TRANSFER_BATCH_NOTIFICATION";
+}
@@ -0,0 +1,66 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Notification;
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifies every receiver of a batch transfer and sends the sender one summary, all in a single
+ * bulk call instead of one notification round trip per leg.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferBatchNotificationHandler implements OutboxEventHandler<TransferBatchCompletedEvent> {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public String eventType() {
+        return TransferBatchCompletedEvent.NOTIFICATION_TYPE;
+    }
+
+    @Override
+    public Class<TransferBatchCompletedEvent> payloadType() {
+        return TransferBatchCompletedEvent.class;
+    }
+
+    @Override
+    public void handle(TransferBatchCompletedEvent event) {
+        if (event.transfers().isEmpty()) {
+            return;
+        }
+        List<Notification> notifications = new ArrayList<>(event.transfers().size() + 1);
+        long totalMinor = 0;
+        for (TransferCompletedEvent transfer : event.transfers()) {
+            totalMinor += transfer.amount().minorUnits();
+            notifications.add(Notification.builder()
+                    .userId(transfer.receiverId())
+                    .type(NotificationType.TRANSFER_RECEIVED)
+                    .title("Nhận tiền")
+                    .message(String.format("Bạn đã nhận %.0f VND từ %s",
+                            transfer.amount().toBigDecimal(), transfer.senderFullName()))
+                    .relatedId(transfer.transactionId())
+                    .isRead(false)
+                    .build());
+        }
+
+        TransferCompletedEvent first = event.transfers().get(0);
+        notifications.add(Notification.builder()
+                .userId(first.senderId())
+                .type(NotificationType.TRANSFER_SENT)
+                .title("Chuyển tiền thành công")
+                .message(String.format("Bạn đã chuyển %.0f VND cho %d người nhận",
+                        Money.ofMinor(totalMinor).toBigDecimal(), event.transfers().size()))
+                .relatedId(first.transactionId())
+                .isRead(false)
+                .build());
+
+        notificationService.createAndSendNotifications(notifications);
+    }
+}
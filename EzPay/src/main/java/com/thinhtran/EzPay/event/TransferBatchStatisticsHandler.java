@@ -0,0 +1,31 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.service.StatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds every leg of a relayed batch transfer to the running statistics in one update per receiver.
+ * Its event is relayed apart from the notification event, as for single transfers.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferBatchStatisticsHandler implements OutboxEventHandler<TransferBatchCompletedEvent> {
+
+    private final StatisticsService statisticsService;
+
+    @Override
+    public String eventType() {
+        return TransferBatchCompletedEvent.TYPE;
+    }
+
+    @Override
+    public Class<TransferBatchCompletedEvent> payloadType() {
+        return TransferBatchCompletedEvent.class;
+    }
+
+    @Override
+    public void handle(TransferBatchCompletedEvent event) {
+        statisticsService.recordTransfers(event.transfers());
+    }
+}
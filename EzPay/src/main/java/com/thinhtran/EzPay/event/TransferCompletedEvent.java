@@ -0,0 +1,30 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.entity.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by a transfer once its balance updates and transaction row are written.
+ * Carries everything the notification side needs, so handlers never reload the parties.
+ */
+public record TransferCompletedEvent(
+        Long transactionId,
+        Long senderId,
+        String senderFullName,
+        Long receiverId,
+        String receiverFullName,
+        Money amount,
+        // Null in events written before it was added
+        LocalDateTime createdAt,
+        // Null in events written before they were added
+        String senderUsername,
+        String receiverUsername
+) {
+
+    // Counted into the statistics; the type predates the notification events, so rows written before
+    // the two were split are still counted
+    public static final String TYPE = "TRANSFER_COMPLETED";
+    // Notified to both parties, in an outbox row of its own so the statistics never wait on notifications
+    public static final String NOTIFICATION_TYPE = "TRANSFER_NOTIFICATION";
+}
@@ -0,0 +1,50 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the sender/receiver notifications for a relayed transfer event.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferNotificationHandler implements OutboxEventHandler<TransferCompletedEvent> {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public String eventType() {
+        return TransferCompletedEvent.NOTIFICATION_TYPE;
+    }
+
+    @Override
+    public Class<TransferCompletedEvent> payloadType() {
+        return TransferCompletedEvent.class;
+    }
+
+    @Override
+    public void handle(TransferCompletedEvent event) {
+        String senderMessage = String.format("Bạn đã chuyển %.0f VND cho %s",
+                event.amount().toBigDecimal(), event.receiverFullName());
+        String receiverMessage = String.format("Bạn đã nhận %.0f VND từ %s",
+                event.amount().toBigDecimal(), event.senderFullName());
+
+        notificationService.createAndSendNotification(
+                event.senderId(),
+                NotificationType.TRANSFER_SENT,
+                "Chuyển tiền thành công",
+                senderMessage,
+                event.transactionId()
+        );
+
+        notificationService.createAndSendNotification(
+                event.receiverId(),
+                NotificationType.TRANSFER_RECEIVED,
+                "Nhận tiền",
+                receiverMessage,
+                event.transactionId()
+        );
+    }
+}
@@ -0,0 +1,33 @@
+package com.thinhtran.EzPay.event;
+
+import com.thinhtran.EzPay.service.StatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adds a relayed transfer to the running statistics. Its event is relayed apart from the
+ * notification event, so a failing notification neither holds back nor repeats the count.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferStatisticsHandler implements OutboxEventHandler<TransferCompletedEvent> {
+
+    private final StatisticsService statisticsService;
+
+    @Override
+    public String eventType() {
+        return TransferCompletedEvent.TYPE;
+    }
+
+    @Override
+    public Class<TransferCompletedEvent> payloadType() {
+        return TransferCompletedEvent.class;
+    }
+
+    @Override
+    public void handle(TransferCompletedEvent event) {
+        statisticsService.recordTransfers(List.of(event));
+    }
+}
@@ -1,9 +1,11 @@
 package com.thinhtran.EzPay.exception;
 
+import com.thinhtran.EzPay.entity.Money;
+
 public class InsufficientBalanceException extends BusinessException {
-    public InsufficientBalanceException(Double currentBalance, Double requiredAmount) {
+    public InsufficientBalanceException(Money currentBalance, Money requiredAmount) {
         super("INSUFFICIENT_BALANCE", 
-              String.format("Số dư không đủ. Số dư hiện tại: %.2f, Số tiền cần: %.2f", 
+              String.format("Số dư không đủ. Số dư hiện tại: %s, Số tiền cần: %s", 
                           currentBalance, requiredAmount));
     }
 
@@ -0,0 +1,35 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.BalanceShard;
+import com.thinhtran.EzPay.repository.projection.AccountTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+// Amounts are BIGINT minor units (see MoneyConverter); sums and credits run natively on plain longs
+public interface BalanceShardRepository extends JpaRepository<BalanceShard, Long> {
+
+    List<BalanceShard> findByAccountId(Long accountId);
+
+    // Shard count per hot account, as an AccountTotal whose total is the number of shards
+    @Query(value = "SELECT account_id AS accountId, COUNT(*) AS total FROM tbl_balance_shard GROUP BY account_id",
+            nativeQuery = true)
+    List<AccountTotal> countShardsByAccount();
+
+    @Modifying
+    @Query(value = "UPDATE tbl_balance_shard SET balance = balance + :amount " +
+            "WHERE account_id = :accountId AND shard_no = :shardNo", nativeQuery = true)
+    int addToShard(@Param("accountId") Long accountId, @Param("shardNo") int shardNo, @Param("amount") long amountMinor);
+
+    @Query(value = "SELECT COALESCE(SUM(balance), 0) FROM tbl_balance_shard WHERE account_id = :accountId",
+            nativeQuery = true)
+    long sumByAccount(@Param("accountId") Long accountId);
+
+    @Query(value = "SELECT account_id AS accountId, SUM(balance) AS total FROM tbl_balance_shard " +
+            "WHERE account_id IN (:accountIds) GROUP BY account_id", nativeQuery = true)
+    List<AccountTotal> sumByAccountIn(@Param("accountIds") Collection<Long> accountIds);
+}
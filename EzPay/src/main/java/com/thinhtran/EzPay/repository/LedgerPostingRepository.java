@@ -0,0 +1,50 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.LedgerPosting;
+import com.thinhtran.EzPay.repository.projection.AccountTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+// Amounts are BIGINT minor units (see MoneyConverter); sums run natively on plain longs
+public interface LedgerPostingRepository extends JpaRepository<LedgerPosting, Long> {
+
+    List<LedgerPosting> findByTransactionId(Long transactionId);
+
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM tbl_ledger_posting " +
+            "WHERE account_id = :accountId AND snapshot_id IS NULL", nativeQuery = true)
+    long sumUnsettled(@Param("accountId") Long accountId);
+
+    @Query(value = "SELECT account_id AS accountId, SUM(amount) AS total FROM tbl_ledger_posting " +
+            "WHERE account_id IN (:accountIds) AND snapshot_id IS NULL GROUP BY account_id", nativeQuery = true)
+    List<AccountTotal> sumUnsettledByAccount(@Param("accountIds") Collection<Long> accountIds);
+
+    @Query(value = "SELECT DISTINCT account_id FROM tbl_ledger_posting WHERE snapshot_id IS NULL", nativeQuery = true)
+    List<Long> findAccountIdsWithUnsettledPostings();
+
+    @Modifying
+    @Query(value = "UPDATE tbl_ledger_posting SET snapshot_id = :snapshotId " +
+            "WHERE account_id = :accountId AND snapshot_id IS NULL", nativeQuery = true)
+    int assignSnapshot(@Param("accountId") Long accountId, @Param("snapshotId") Long snapshotId);
+
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM tbl_ledger_posting " +
+            "WHERE account_id = :accountId AND snapshot_id = :snapshotId", nativeQuery = true)
+    long sumSnapshot(@Param("accountId") Long accountId, @Param("snapshotId") Long snapshotId);
+
+    // Reconciliation: every transfer must be exactly one debit and one credit summing to zero
+    @Query(value = "SELECT transaction_id FROM tbl_ledger_posting WHERE transaction_id IS NOT NULL " +
+            "GROUP BY transaction_id HAVING SUM(amount) <> 0 OR COUNT(*) <> 2", nativeQuery = true)
+    List<Long> findUnbalancedTransactionIds();
+
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM tbl_ledger_posting " +
+            "WHERE type IN ('TRANSFER_DEBIT', 'TRANSFER_CREDIT')", nativeQuery = true)
+    long sumTransferPostings();
+
+    @Query(value = "SELECT COUNT(DISTINCT transaction_id) FROM tbl_ledger_posting WHERE transaction_id IS NOT NULL",
+            nativeQuery = true)
+    long countTransfers();
+}
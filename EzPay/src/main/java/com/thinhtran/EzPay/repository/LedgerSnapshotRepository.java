@@ -0,0 +1,7 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, Long> {
+}
@@ -0,0 +1,50 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks up to {@code limit} of the oldest pending events. Rows already locked by another relay are
+     * skipped rather than waited on, so relays on several nodes claim different batches.
+     */
+    @Query(value = "SELECT * FROM tbl_outbox_event WHERE published_at IS NULL AND attempts < :maxAttempts " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimPendingBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    // Events a relay will still dispatch, oldest first
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL AND e.attempts < :maxAttempts " +
+            "AND e.eventType IN :eventTypes ORDER BY e.id")
+    List<OutboxEvent> findRelayable(@Param("maxAttempts") int maxAttempts,
+                                    @Param("eventTypes") Collection<String> eventTypes);
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt >= :since AND e.eventType IN :eventTypes " +
+            "ORDER BY e.publishedAt, e.id")
+    List<OutboxEvent> findPublishedSince(@Param("since") LocalDateTime since,
+                                         @Param("eventTypes") Collection<String> eventTypes);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM OutboxEvent e")
+    long findMaxId();
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.publishedAt IS NULL")
+    long countPending();
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.publishedAt IS NULL")
+    LocalDateTime findOldestPendingCreatedAt();
+}
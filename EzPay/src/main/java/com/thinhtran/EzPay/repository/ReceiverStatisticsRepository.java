@@ -0,0 +1,41 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.ReceiverStatistics;
+import com.thinhtran.EzPay.repository.projection.ReceiverTotalRow;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+// Amounts are BIGINT minor units (see MoneyConverter); totals are added to natively on plain longs
+public interface ReceiverStatisticsRepository extends JpaRepository<ReceiverStatistics, Long> {
+
+    @Modifying
+    @Query(value = "UPDATE tbl_receiver_statistics SET total_received = total_received + :amount, " +
+            "transfer_count = transfer_count + :count WHERE receiver_id = :receiverId", nativeQuery = true)
+    int addTransfers(@Param("receiverId") Long receiverId, @Param("amount") long amountMinor, @Param("count") long count);
+
+    // Reads the first :limit entries of the amount index and joins only those to tbl_user
+    @Query(value = """
+            SELECT u.user_name AS username, u.full_name AS fullName,
+                   r.total_received AS totalReceived, r.transfer_count AS transferCount
+            FROM (SELECT * FROM tbl_receiver_statistics ORDER BY total_received DESC LIMIT :limit) r
+            JOIN tbl_user u ON u.id = r.receiver_id
+            ORDER BY r.total_received DESC
+            """, nativeQuery = true)
+    List<ReceiverTotalRow> findTopReceivers(@Param("limit") int limit);
+
+    // Seeds every receiver's totals from tbl_transaction in one statement, without loading a row
+    @Modifying
+    @Query(value = "INSERT INTO tbl_receiver_statistics (receiver_id, total_received, transfer_count) " +
+            "SELECT t.receiver_id, SUM(t.amount), COUNT(*) FROM tbl_transaction t GROUP BY t.receiver_id",
+            nativeQuery = true)
+    int insertFromTransactions();
+
+    @Query(value = "SELECT COALESCE(SUM(total_received), 0) AS total, COALESCE(SUM(transfer_count), 0) AS count " +
+            "FROM tbl_receiver_statistics", nativeQuery = true)
+    TransferTotals sumAll();
+}
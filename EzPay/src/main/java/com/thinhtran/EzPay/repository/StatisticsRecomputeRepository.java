@@ -0,0 +1,34 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.StatisticsRecompute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+// Every write after the claim is conditional on the owner, so a node that lost the job cannot advance it
+public interface StatisticsRecomputeRepository extends JpaRepository<StatisticsRecompute, Long> {
+
+    // Takes the job unless another node is running it with a fresh heartbeat; the row lock settles races
+    @Modifying
+    @Query(value = "UPDATE tbl_statistics_recompute SET owner_id = :owner, status = 'RUNNING', heartbeat_at = :now, " +
+            "last_error = NULL WHERE id = :id AND (status <> 'RUNNING' OR heartbeat_at < :staleBefore OR owner_id = :owner)",
+            nativeQuery = true)
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_statistics_recompute SET next_chunk = :nextChunk, rows_read = rows_read + :rows, " +
+            "heartbeat_at = :now WHERE id = :id AND owner_id = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("nextChunk") long nextChunk,
+                   @Param("rows") long rows, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_statistics_recompute SET status = :status, heartbeat_at = :now, finished_at = :finishedAt, " +
+            "last_error = :error WHERE id = :id AND owner_id = :owner AND status = 'RUNNING'", nativeQuery = true)
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") String status,
+               @Param("now") LocalDateTime now, @Param("finishedAt") LocalDateTime finishedAt,
+               @Param("error") String error);
+}
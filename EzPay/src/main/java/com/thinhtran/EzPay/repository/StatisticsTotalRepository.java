@@ -0,0 +1,34 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.StatisticsTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface StatisticsTotalRepository extends JpaRepository<StatisticsTotal, Long> {
+
+    // 0 means the totals have not been seeded
+    @Modifying
+    @Query(value = "UPDATE tbl_statistics_total SET total_transferred = total_transferred + :amount, " +
+            "transfer_count = transfer_count + :count, updated_at = :now WHERE id = :id", nativeQuery = true)
+    int addTransfers(@Param("id") Long id, @Param("amount") long amountMinor, @Param("count") long count,
+                     @Param("now") LocalDateTime now);
+
+    // Holds off relays until the surrounding transaction ends; empty when the totals have not been seeded
+    @Query(value = "SELECT id FROM tbl_statistics_total WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockForUpdate(@Param("id") Long id);
+
+    // PostgreSQL only: shared by relays, and with their updates of the row, but not with lockForUpdate
+    @Query(value = "SELECT id FROM tbl_statistics_total WHERE id = :id FOR KEY SHARE", nativeQuery = true)
+    Optional<Long> lockForKeyShare(@Param("id") Long id);
+
+    // Fails on the primary key if the row exists, unlike save(), which would overwrite it
+    @Modifying
+    @Query(value = "INSERT INTO tbl_statistics_total (id, total_transferred, transfer_count, updated_at) " +
+            "VALUES (:id, 0, 0, :now)", nativeQuery = true)
+    int insertEmpty(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,22 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.TopReceiverSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TopReceiverSnapshotRepository extends JpaRepository<TopReceiverSnapshot, String> {
+
+    List<TopReceiverSnapshot> findByNodeIdAndExpiresAtAfter(String nodeId, LocalDateTime now);
+
+    List<TopReceiverSnapshot> findByWindowNameAndNodeIdNotAndExpiresAtAfter(String windowName, String nodeId,
+                                                                          LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM TopReceiverSnapshot s WHERE s.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,21 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.util.HistoryCursor;
+
+import java.util.List;
+
+/**
+ * Filtered history, built as native SQL so that only the requested predicates end up in the
+ * statement, in the shape of {@link TransactionRepository#HISTORY_FIRST_PAGE}. Mixed into
+ * {@link TransactionRepository}.
+ */
+public interface TransactionHistoryRepository {
+
+    /**
+     * Up to {@code limit} of the user's transfers matching {@code filter}, newest first, starting
+     * after {@code after} when it is not null.
+     */
+    List<HistoryRow> findHistory(String username, HistoryFilter filter, HistoryCursor after, int limit);
+}
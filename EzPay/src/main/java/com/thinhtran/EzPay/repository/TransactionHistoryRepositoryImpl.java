@@ -0,0 +1,102 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
+import com.thinhtran.EzPay.repository.projection.HistoryEntry;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.util.HistoryCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    // One side of the history, as in TransactionRepository.HISTORY_FIRST_PAGE: rows where the user is
+    // the %1$s, read newest first along the (%1$s_id, created_at, id) index and cut at the limit
+    private static final String SIDE = """
+            (SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+             FROM tbl_transaction t
+             WHERE t.%1$s_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)%2$s
+             ORDER BY t.%1$s_id, t.created_at DESC, t.id DESC LIMIT :limit)""";
+    private static final String HISTORY = """
+            SELECT h.id AS id, h.created_at AS createdAt, s.user_name AS senderUsername,
+                   r.user_name AS receiverUsername, h.amount AS amount, h.message AS message
+            FROM (%s) h
+            JOIN tbl_user s ON s.id = h.sender_id
+            JOIN tbl_user r ON r.id = h.receiver_id
+            ORDER BY h.created_at DESC, h.id DESC LIMIT :limit
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<HistoryRow> findHistory(String username, HistoryFilter filter, HistoryCursor after, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("username", username);
+        parameters.put("limit", limit);
+        // Conditions shared by both sides
+        StringBuilder where = new StringBuilder();
+        if (filter.getFrom() != null) {
+            where.append(" AND t.created_at >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            where.append(" AND t.created_at < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (filter.getMinAmount() != null) {
+            where.append(" AND t.amount >= :minAmount");
+            parameters.put("minAmount", filter.getMinAmount().minorUnits());
+        }
+        if (filter.getMaxAmount() != null) {
+            where.append(" AND t.amount <= :maxAmount");
+            parameters.put("maxAmount", filter.getMaxAmount().minorUnits());
+        }
+        if (after != null) {
+            // The plain bound is a condition on the partition key, usable for pruning monthly partitions
+            where.append(" AND t.created_at <= :createdAt AND (t.created_at, t.id) < (:createdAt, :id)");
+            parameters.put("createdAt", after.createdAt());
+            parameters.put("id", after.id());
+        }
+        String counterparty = "";
+        if (filter.getCounterparty() != null) {
+            counterparty = " AND t.%s_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :counterparty)";
+            parameters.put("counterparty", filter.getCounterparty());
+        }
+
+        // Each side is read along its own index and cut at the limit before the two are merged, rather
+        // than an OR over both party columns that no single index serves
+        List<String> sides = new ArrayList<>(2);
+        if (filter.getDirection() != HistoryFilter.Direction.RECEIVED) {
+            sides.add(SIDE.formatted("sender", counterparty.formatted("receiver") + where));
+        }
+        if (filter.getDirection() != HistoryFilter.Direction.SENT) {
+            sides.add(SIDE.formatted("receiver",
+                    " AND t.sender_id <> t.receiver_id" + counterparty.formatted("sender") + where));
+        }
+
+        NativeQuery<?> query = entityManager
+                .createNativeQuery(HISTORY.formatted(String.join("\nUNION ALL\n", sides)))
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("createdAt", LocalDateTime.class)
+                .addScalar("senderUsername", String.class)
+                .addScalar("receiverUsername", String.class)
+                .addScalar("amount", Long.class)
+                .addScalar("message", String.class);
+        parameters.forEach(query::setParameter);
+        return query.getResultList().stream()
+                .<HistoryRow>map(result -> {
+                    Object[] row = (Object[]) result;
+                    return new HistoryEntry((Long) row[0], (LocalDateTime) row[1], (String) row[2],
+                            (String) row[3], (Long) row[4], (String) row[5]);
+                })
+                .toList();
+    }
+}
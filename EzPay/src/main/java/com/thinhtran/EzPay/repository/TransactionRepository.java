@@ -1,11 +1,138 @@
 package com.thinhtran.EzPay.repository;
 
 import com.thinhtran.EzPay.entity.Transaction;
-import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.repository.projection.ReceiverTotalRow;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findBySenderOrReceiverOrderByCreatedAtDesc(User sender, User receiver);
-}
\ No newline at end of file
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionHistoryRepository {
+
+    // An OR over sender_id and receiver_id cannot be served by either index, so history is two
+    // index-ordered scans (each stopping after :limit rows) merged by created_at. Self-transfers
+    // are left out of the receiver side so they are listed once. Newest first; id breaks ties between
+    // transfers created in the same instant (batch legs). Each side also orders by its (constant) party
+    // column so the ORDER BY spells out the full index prefix; H2 only skips the sort when it does.
+    // The user is resolved by a scalar subquery and only the page's rows are joined back for the
+    // usernames, so a page is one statement and never loads User entities.
+    String HISTORY_FIRST_PAGE = """
+            SELECT h.id AS id, h.created_at AS createdAt, s.user_name AS senderUsername,
+                   r.user_name AS receiverUsername, h.amount AS amount, h.message AS message
+            FROM (
+                (SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                 FROM tbl_transaction t
+                 WHERE t.sender_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                 ORDER BY t.sender_id, t.created_at DESC, t.id DESC LIMIT :limit)
+                UNION ALL
+                (SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                 FROM tbl_transaction t
+                 WHERE t.receiver_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                   AND t.sender_id <> t.receiver_id
+                 ORDER BY t.receiver_id, t.created_at DESC, t.id DESC LIMIT :limit)
+            ) h
+            JOIN tbl_user s ON s.id = h.sender_id
+            JOIN tbl_user r ON r.id = h.receiver_id
+            ORDER BY h.created_at DESC, h.id DESC LIMIT :limit
+            """;
+
+    // Keyset continuation: each side seeks past the cursor row instead of skipping an offset, so deep
+    // pages cost the same as the first one. The plain created_at bound repeats the row-value comparison
+    // as a condition on the partition key, which PostgreSQL can use to prune monthly partitions.
+    String HISTORY_AFTER = """
+            SELECT h.id AS id, h.created_at AS createdAt, s.user_name AS senderUsername,
+                   r.user_name AS receiverUsername, h.amount AS amount, h.message AS message
+            FROM (
+                (SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                 FROM tbl_transaction t
+                 WHERE t.sender_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                   AND t.created_at <= :createdAt AND (t.created_at, t.id) < (:createdAt, :id)
+                 ORDER BY t.sender_id, t.created_at DESC, t.id DESC LIMIT :limit)
+                UNION ALL
+                (SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                 FROM tbl_transaction t
+                 WHERE t.receiver_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                   AND t.sender_id <> t.receiver_id
+                   AND t.created_at <= :createdAt AND (t.created_at, t.id) < (:createdAt, :id)
+                 ORDER BY t.receiver_id, t.created_at DESC, t.id DESC LIMIT :limit)
+            ) h
+            JOIN tbl_user s ON s.id = h.sender_id
+            JOIN tbl_user r ON r.id = h.receiver_id
+            ORDER BY h.created_at DESC, h.id DESC LIMIT :limit
+            """;
+
+    // Whole history in a date range, oldest first, for exports that stream it row by row
+    String HISTORY_EXPORT = """
+            SELECT h.id AS id, h.created_at AS createdAt, s.user_name AS senderUsername,
+                   r.user_name AS receiverUsername, h.amount AS amount, h.message AS message
+            FROM (
+                SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                FROM tbl_transaction t
+                WHERE t.sender_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                  AND t.created_at >= :from AND t.created_at < :to
+                UNION ALL
+                SELECT t.id, t.sender_id, t.receiver_id, t.amount, t.message, t.created_at
+                FROM tbl_transaction t
+                WHERE t.receiver_id = (SELECT u.id FROM tbl_user u WHERE u.user_name = :username)
+                  AND t.sender_id <> t.receiver_id
+                  AND t.created_at >= :from AND t.created_at < :to
+            ) h
+            JOIN tbl_user s ON s.id = h.sender_id
+            JOIN tbl_user r ON r.id = h.receiver_id
+            ORDER BY h.created_at, h.id
+            """;
+
+    // Receivers ranked in the database: the GROUP BY, ORDER BY and LIMIT run before the join, so only
+    // :limit rows reach tbl_user and the application. Amounts are minor units.
+    String TOP_RECEIVERS = """
+            SELECT u.user_name AS username, u.full_name AS fullName,
+                   r.total_received AS totalReceived, r.transfer_count AS transferCount
+            FROM (
+                SELECT t.receiver_id, SUM(t.amount) AS total_received, COUNT(*) AS transfer_count
+                FROM tbl_transaction t
+                GROUP BY t.receiver_id
+                ORDER BY SUM(t.amount) DESC LIMIT :limit
+            ) r
+            JOIN tbl_user u ON u.id = r.receiver_id
+            ORDER BY r.total_received DESC
+            """;
+
+    @Query(value = HISTORY_FIRST_PAGE, nativeQuery = true)
+    List<HistoryRow> findHistoryFirstPage(@Param("username") String username, @Param("limit") int limit);
+
+    @Query(value = HISTORY_AFTER, nativeQuery = true)
+    List<HistoryRow> findHistoryAfter(@Param("username") String username,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      @Param("limit") int limit);
+
+    @Query(value = "SELECT COALESCE(SUM(t.amount), 0) AS total, COUNT(*) AS count FROM tbl_transaction t",
+            nativeQuery = true)
+    TransferTotals sumTransfers();
+
+    @Query(value = TOP_RECEIVERS, nativeQuery = true)
+    List<ReceiverTotalRow> findTopReceivers(@Param("limit") int limit);
+
+    @Query("SELECT t.createdAt FROM Transaction t WHERE t.id = :id")
+    Optional<LocalDateTime> findCreatedAtById(@Param("id") Long id);
+
+    // The fetch size lets the driver page through a cursor instead of buffering the whole result
+    // (PostgreSQL only does so inside a transaction); the stream must be closed by the caller
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = HISTORY_EXPORT, nativeQuery = true)
+    Stream<HistoryRow> streamHistory(@Param("username") String username,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+}
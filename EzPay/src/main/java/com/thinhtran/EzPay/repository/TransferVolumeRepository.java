@@ -0,0 +1,31 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.TransferVolume;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Amounts are BIGINT minor units (see MoneyConverter); buckets are added to natively on plain longs
+public interface TransferVolumeRepository extends JpaRepository<TransferVolume, LocalDateTime> {
+
+    // A primary key range scan over the rollup; tbl_transaction is never read
+    List<TransferVolume> findByBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query(value = "UPDATE tbl_transfer_volume_hourly SET total_amount = total_amount + :amount, " +
+            "transfer_count = transfer_count + :count WHERE bucket_start = :bucketStart", nativeQuery = true)
+    int addTransfers(@Param("bucketStart") LocalDateTime bucketStart, @Param("amount") long amountMinor,
+                     @Param("count") long count);
+
+    // Seeds every hour from tbl_transaction in one statement; DATE_TRUNC is understood by PostgreSQL and H2
+    @Modifying
+    @Query(value = "INSERT INTO tbl_transfer_volume_hourly (bucket_start, total_amount, transfer_count) " +
+            "SELECT DATE_TRUNC('hour', t.created_at), SUM(t.amount), COUNT(*) FROM tbl_transaction t " +
+            "GROUP BY DATE_TRUNC('hour', t.created_at)", nativeQuery = true)
+    int insertFromTransactions();
+}
@@ -0,0 +1,51 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.UserMonthlyCounterparty;
+import com.thinhtran.EzPay.repository.projection.CounterpartyTotalRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Amounts are BIGINT minor units (see MoneyConverter); totals are added to natively on plain longs
+public interface UserMonthlyCounterpartyRepository extends JpaRepository<UserMonthlyCounterparty, Long> {
+
+    @Modifying
+    @Query(value = "UPDATE tbl_user_monthly_counterparty SET sent_amount = sent_amount + :sent, " +
+            "received_amount = received_amount + :received, transfer_count = transfer_count + :count " +
+            "WHERE user_id = :userId AND month_start = :month AND counterparty_id = :counterpartyId",
+            nativeQuery = true)
+    int addTransfers(@Param("userId") Long userId, @Param("month") LocalDate month,
+                     @Param("counterpartyId") Long counterpartyId, @Param("sent") long sentMinor,
+                     @Param("received") long receivedMinor, @Param("count") long count);
+
+    // One range of the unique key: only the user's counterparties of that month are sorted
+    @Query(value = """
+            SELECT u.user_name AS username, u.full_name AS fullName, c.sent_amount AS sent,
+                   c.received_amount AS received, c.transfer_count AS transferCount
+            FROM tbl_user_monthly_counterparty c
+            JOIN tbl_user u ON u.id = c.counterparty_id
+            WHERE c.user_id = :userId AND c.month_start = :month AND c.transfer_count > 0
+            ORDER BY c.sent_amount + c.received_amount DESC, c.counterparty_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<CounterpartyTotalRow> findTopCounterparties(@Param("userId") Long userId, @Param("month") LocalDate month,
+                                                     @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO tbl_user_monthly_counterparty (user_id, month_start, counterparty_id, sent_amount, received_amount, transfer_count)
+            SELECT p.user_id, p.month_start, p.counterparty_id, SUM(p.sent), SUM(p.received), COUNT(*)
+            FROM (SELECT t.sender_id AS user_id, CAST(DATE_TRUNC('month', t.created_at) AS DATE) AS month_start,
+                         t.receiver_id AS counterparty_id, t.amount AS sent, 0 AS received
+                  FROM tbl_transaction t
+                  UNION ALL
+                  SELECT t.receiver_id, CAST(DATE_TRUNC('month', t.created_at) AS DATE), t.sender_id, 0, t.amount
+                  FROM tbl_transaction t) p
+            GROUP BY p.user_id, p.month_start, p.counterparty_id
+            """, nativeQuery = true)
+    int insertFromTransactions();
+}
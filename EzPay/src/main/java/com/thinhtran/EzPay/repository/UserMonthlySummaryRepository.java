@@ -0,0 +1,44 @@
+package com.thinhtran.EzPay.repository;
+
+import com.thinhtran.EzPay.entity.UserMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+// Amounts are BIGINT minor units (see MoneyConverter); totals are added to natively on plain longs
+public interface UserMonthlySummaryRepository extends JpaRepository<UserMonthlySummary, Long> {
+
+    Optional<UserMonthlySummary> findByUserIdAndMonthStart(Long userId, LocalDate monthStart);
+
+    // Stops at the first row, where COUNT(*) would scan the table
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM tbl_user_monthly_summary)", nativeQuery = true)
+    boolean existsAny();
+
+    @Modifying
+    @Query(value = "UPDATE tbl_user_monthly_summary SET sent_amount = sent_amount + :sent, " +
+            "sent_count = sent_count + :sentCount, received_amount = received_amount + :received, " +
+            "received_count = received_count + :receivedCount WHERE user_id = :userId AND month_start = :month",
+            nativeQuery = true)
+    int addTransfers(@Param("userId") Long userId, @Param("month") LocalDate month,
+                     @Param("sent") long sentMinor, @Param("sentCount") long sentCount,
+                     @Param("received") long receivedMinor, @Param("receivedCount") long receivedCount);
+
+    // Seeds every user's months from tbl_transaction in one statement; each transfer counts for both parties
+    @Modifying
+    @Query(value = """
+            INSERT INTO tbl_user_monthly_summary (user_id, month_start, sent_amount, sent_count, received_amount, received_count)
+            SELECT p.user_id, p.month_start, SUM(p.sent), SUM(p.sent_count), SUM(p.received), SUM(p.received_count)
+            FROM (SELECT t.sender_id AS user_id, CAST(DATE_TRUNC('month', t.created_at) AS DATE) AS month_start,
+                         t.amount AS sent, 1 AS sent_count, 0 AS received, 0 AS received_count
+                  FROM tbl_transaction t
+                  UNION ALL
+                  SELECT t.receiver_id, CAST(DATE_TRUNC('month', t.created_at) AS DATE), 0, 0, t.amount, 1
+                  FROM tbl_transaction t) p
+            GROUP BY p.user_id, p.month_start
+            """, nativeQuery = true)
+    int insertFromTransactions();
+}
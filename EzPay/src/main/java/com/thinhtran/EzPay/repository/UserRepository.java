@@ -1,8 +1,18 @@
 package com.thinhtran.EzPay.repository;
 
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.projection.AccountRef;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -24,4 +34,51 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Password reset methods  
     Optional<User> findByResetPasswordToken(String resetPasswordToken);
 
-}
+    // Money movement resolves accounts with projections; balances live in the ledger (see LedgerService).
+    @Query("SELECT u.id FROM User u WHERE u.userName = :userName")
+    Optional<Long> findIdByUserName(@Param("userName") String userName);
+
+    @Query("SELECT new com.thinhtran.EzPay.repository.projection.AccountRef(u.id, u.userName, u.fullName) " +
+            "FROM User u WHERE u.userName IN :userNames")
+    List<AccountRef> findAccountRefsByUserNameIn(@Param("userNames") Collection<String> userNames);
+
+    @Query("SELECT new com.thinhtran.EzPay.repository.projection.AccountRef(u.id, u.userName, u.fullName) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<AccountRef> findAccountRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Matches the lower-cased columns, which carry trigram expression indexes on PostgreSQL
+    // (see UserSearchIndexInitializer). The pattern must be lower-case with LIKE wildcards escaped by '!'.
+    // Unordered, so the page size stops the scan at the first hits.
+    @Query("SELECT new com.thinhtran.EzPay.repository.projection.UserSearchRow(" +
+            "u.id, u.userName, u.fullName, u.email, u.phone, u.role, u.balance) FROM User u " +
+            "WHERE u.role <> :excluded AND (LOWER(u.userName) LIKE :pattern ESCAPE '!' " +
+            "OR LOWER(u.fullName) LIKE :pattern ESCAPE '!' OR LOWER(u.email) LIKE :pattern ESCAPE '!' " +
+            "OR LOWER(u.phone) LIKE :pattern ESCAPE '!')")
+    List<UserSearchRow> search(@Param("pattern") String pattern, @Param("excluded") Role excluded, Pageable page);
+
+    // Every account without the excluded role, for the in-memory recipient index
+    @Query("SELECT new com.thinhtran.EzPay.repository.projection.UserSearchRow(" +
+            "u.id, u.userName, u.fullName, u.email, u.phone, u.role, u.balance) FROM User u " +
+            "WHERE u.role <> :excluded")
+    List<UserSearchRow> findSearchRows(@Param("excluded") Role excluded);
+
+    // Settled balance as of the account's last ledger snapshot
+    @Query("SELECT u.balance FROM User u WHERE u.id = :id")
+    Optional<Money> findBalanceById(@Param("id") Long id);
+
+    // Locks the account row and returns the available balance in minor units: the settled balance,
+    // the balance shards of a hot account and the postings no snapshot has folded in yet. Shards are
+    // read without locking them; concurrent credits can only raise them.
+    @Query(value = "SELECT u.balance " +
+            "+ COALESCE((SELECT SUM(s.balance) FROM tbl_balance_shard s WHERE s.account_id = u.id), 0) " +
+            "+ COALESCE((SELECT SUM(p.amount) FROM tbl_ledger_posting p " +
+            "WHERE p.account_id = u.id AND p.snapshot_id IS NULL), 0) FROM tbl_user u WHERE u.id = :id FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> findAvailableBalanceForUpdate(@Param("id") Long id);
+
+    // Balances are BIGINT minor units (see MoneyConverter), so the arithmetic runs in SQL on plain longs
+    @Modifying
+    @Query(value = "UPDATE tbl_user SET balance = balance + :amount WHERE id = :id", nativeQuery = true)
+    int addToSettledBalance(@Param("id") Long id, @Param("amount") long amountMinor);
+
+}
\ No newline at end of file
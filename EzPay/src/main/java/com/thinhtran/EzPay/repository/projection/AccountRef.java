@@ -0,0 +1,8 @@
+package com.thinhtran.EzPay.repository.projection;
+
+/**
+ * Lightweight view of a user account for money movement: enough to address the row and
+ * build notifications without hydrating the full {@code User} entity.
+ */
+public record AccountRef(Long id, String userName, String fullName) {
+}
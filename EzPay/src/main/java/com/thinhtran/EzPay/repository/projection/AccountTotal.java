@@ -0,0 +1,10 @@
+package com.thinhtran.EzPay.repository.projection;
+
+/**
+ * Per-account sum of posting amounts in minor units, read by native queries.
+ */
+public interface AccountTotal {
+    Long getAccountId();
+
+    Long getTotal();
+}
@@ -0,0 +1,17 @@
+package com.thinhtran.EzPay.repository.projection;
+
+/**
+ * A user's monthly totals with one counterparty joined to the counterparty's names. Amounts are in
+ * minor units.
+ */
+public interface CounterpartyTotalRow {
+    String getUsername();
+
+    String getFullName();
+
+    Long getSent();
+
+    Long getReceived();
+
+    Long getTransferCount();
+}
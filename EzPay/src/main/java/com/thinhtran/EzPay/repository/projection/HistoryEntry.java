@@ -0,0 +1,46 @@
+package com.thinhtran.EzPay.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detached {@link HistoryRow} for rows built outside a native query: the filtered history query and
+ * the recent-history cache.
+ */
+public record HistoryEntry(Long id, LocalDateTime createdAt, String senderUsername, String receiverUsername,
+                           Long amount, String message) implements HistoryRow {
+
+    public static HistoryEntry of(HistoryRow row) {
+        return row instanceof HistoryEntry entry ? entry : new HistoryEntry(row.getId(), row.getCreatedAt(),
+                row.getSenderUsername(), row.getReceiverUsername(), row.getAmount(), row.getMessage());
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String getSenderUsername() {
+        return senderUsername;
+    }
+
+    @Override
+    public String getReceiverUsername() {
+        return receiverUsername;
+    }
+
+    @Override
+    public Long getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
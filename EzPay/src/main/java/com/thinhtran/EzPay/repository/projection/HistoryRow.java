@@ -0,0 +1,22 @@
+package com.thinhtran.EzPay.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * One history entry as read by the native history queries: only the columns a
+ * {@code TransactionResponse} needs plus the id for the cursor, with both parties reduced to their
+ * usernames. The amount is in minor units.
+ */
+public interface HistoryRow {
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+
+    String getSenderUsername();
+
+    String getReceiverUsername();
+
+    Long getAmount();
+
+    String getMessage();
+}
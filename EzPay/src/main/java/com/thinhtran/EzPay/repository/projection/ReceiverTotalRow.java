@@ -0,0 +1,15 @@
+package com.thinhtran.EzPay.repository.projection;
+
+/**
+ * A receiver's running totals joined to the names the statistics response shows. The amount is in
+ * minor units.
+ */
+public interface ReceiverTotalRow {
+    String getUsername();
+
+    String getFullName();
+
+    Long getTotalReceived();
+
+    Long getTransferCount();
+}
@@ -0,0 +1,10 @@
+package com.thinhtran.EzPay.repository.projection;
+
+/**
+ * Sum in minor units and number of a set of transfers, read by native queries.
+ */
+public interface TransferTotals {
+    Long getTotal();
+
+    Long getCount();
+}
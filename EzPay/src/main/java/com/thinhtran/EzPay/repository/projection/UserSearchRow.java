@@ -0,0 +1,12 @@
+package com.thinhtran.EzPay.repository.projection;
+
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+
+/**
+ * A user search hit: the fields the recipient picker shows, with the settled balance for
+ * {@code LedgerService} to add the unsettled postings to.
+ */
+public record UserSearchRow(Long id, String userName, String fullName, String email, String phone,
+                            Role role, Money balance) {
+}
@@ -0,0 +1,19 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface GroupCommitService {
+
+    /**
+     * Queue a transfer to be committed together with other pending transfers
+     */
+    CompletableFuture<TransactionResponse> submit(String senderUsername, TransferRequest request);
+
+    /**
+     * Queue a transfer and wait for its outcome, rethrowing the exception it failed with
+     */
+    TransactionResponse transfer(String senderUsername, TransferRequest request);
+}
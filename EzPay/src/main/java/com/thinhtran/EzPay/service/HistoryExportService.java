@@ -0,0 +1,48 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+public interface HistoryExportService {
+
+    /**
+     * Streams the user's transfers, oldest first, to {@code out} as they are read from the database,
+     * so memory use does not grow with the history. {@code from} is inclusive and {@code to}
+     * exclusive; either may be null for an open range. Returns the number of rows written.
+     */
+    long export(String username, Format format, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException;
+
+    enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unsupported export format: " + value);
+            }
+        }
+    }
+}
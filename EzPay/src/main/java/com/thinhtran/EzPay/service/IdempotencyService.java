@@ -0,0 +1,14 @@
+package com.thinhtran.EzPay.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Run action once per (userName, idempotencyKey). The action runs in a transaction that also stores
+     * its result; a repeated key with the same request fingerprint returns the stored result without
+     * running the action, and a repeated key with a different fingerprint is rejected.
+     */
+    <T> T execute(String userName, String idempotencyKey, String requestFingerprint,
+                  Class<T> resultType, Supplier<T> action);
+}
@@ -0,0 +1,58 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.ReconciliationReport;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface LedgerService {
+
+    /**
+     * Lock an account against concurrent debits and return its available balance
+     */
+    Money lockAvailableBalance(Long accountId);
+
+    /**
+     * Append the debit and credit postings of saved transfers
+     */
+    void postTransfers(List<Transaction> transactions);
+
+    /**
+     * Append the credit posting of a top-up
+     */
+    void postTopUp(Long accountId, Money amount);
+
+    /**
+     * Available balance: settled balance plus unsettled postings
+     */
+    Money balanceOf(User user);
+
+    /**
+     * Available balances for several accounts, keyed by user id
+     */
+    Map<Long, Money> balancesOf(Collection<User> users);
+
+    /**
+     * Available balances from settled balances already read with a projection, keyed by user id
+     */
+    Map<Long, Money> balancesOfSettled(Map<Long, Money> settledBalances);
+
+    /**
+     * Split an account's future credits across the given number of balance shards
+     */
+    void enableHotAccount(Long accountId, int shards);
+
+    /**
+     * Fold unsettled postings into settled balances under a new snapshot; returns the number of accounts settled
+     */
+    int snapshot();
+
+    /**
+     * Check that every transfer is a debit and a credit summing to zero
+     */
+    ReconciliationReport reconcile();
+}
@@ -12,6 +12,11 @@ public interface NotificationService {
      */
     void createAndSendNotification(Long userId, NotificationType type, String title, String message, Long relatedId);
     
+    /**
+     * Create and send several notifications at once, with one unread count update per user
+     */
+    void createAndSendNotifications(List<Notification> notifications);
+    
     /**
      * Get all notifications for a user
      */
@@ -0,0 +1,37 @@
+package com.thinhtran.EzPay.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxService {
+
+    /**
+     * Append an event to the outbox; must run inside the transaction that makes the change
+     */
+    void append(String eventType, Long aggregateId, Object payload);
+
+    /**
+     * Append the same payload once per event type, in a single statement; each row is relayed, retried
+     * and published on its own. Must run inside the transaction that makes the change.
+     */
+    void append(List<String> eventTypes, Long aggregateId, Object payload);
+
+    /**
+     * Claim up to batchSize pending events in one transaction, dispatch each to its handlers in a
+     * savepoint of its own and mark the batch published. An event whose handlers fail is rolled back
+     * to its savepoint and charged an attempt without holding up the rest. Returns the number of
+     * events published.
+     */
+    int relayBatch(int batchSize);
+
+    /**
+     * Number of events not yet published
+     */
+    long countPending();
+
+    /**
+     * Age of the oldest unpublished event, empty when the outbox is drained
+     */
+    Optional<Duration> oldestPendingAge();
+}
@@ -0,0 +1,28 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+public interface RecentHistoryCache {
+
+    /**
+     * The user's newest {@code limit} history rows, newest first. Served from the user's cached
+     * entries when they cover the request, otherwise loaded with {@code loader} (given the number of
+     * rows to read) and cached.
+     */
+    List<HistoryRow> firstPage(String username, int limit, IntFunction<List<HistoryRow>> loader);
+
+    /**
+     * Adds a transfer to both parties' cached entries once the surrounding transaction commits;
+     * nothing happens if it rolls back.
+     */
+    void recordAfterCommit(HistoryRow transfer);
+
+    /**
+     * Drops the cached entries of both parties to every transfer relayed since the last call, made
+     * through this node or another, unless the entry already shows the transfer.
+     */
+    void applyRelayedTransfers();
+}
@@ -0,0 +1,25 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.RecipientResponse;
+import com.thinhtran.EzPay.entity.User;
+
+import java.util.List;
+
+public interface RecipientIndex {
+
+    /**
+     * Up to {@code limit} users whose user name, email, phone or any word of the full name starts with
+     * the term, ignoring case and Vietnamese accents. Answered from memory; admins are not listed.
+     */
+    List<RecipientResponse> suggest(String term, int limit);
+
+    /**
+     * Adds or refreshes the user once the surrounding transaction commits; nothing happens if it rolls back
+     */
+    void updateAfterCommit(User user);
+
+    /**
+     * Reloads every user from the database, picking up changes made through other nodes
+     */
+    void rebuild();
+}
@@ -0,0 +1,30 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.SpendingSummaryResponse;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface SpendingSummaryService {
+
+    /**
+     * Add relayed transfers to both parties' monthly rollups; must run inside the relay transaction,
+     * after it has locked the statistics totals row
+     */
+    void recordTransfers(List<TransferCompletedEvent> transfers);
+
+    /**
+     * What the user sent and received in {@code month} and their top counterparties, read from the
+     * monthly rollup (through a cache), never from the user's history
+     */
+    SpendingSummaryResponse getMonthlySummary(Long userId, YearMonth month);
+
+    /**
+     * Rebuild the rollups from tbl_transaction, leaving out {@code pending} transfers the relay has yet
+     * to add; must run holding the statistics totals row FOR UPDATE
+     */
+    void seed(List<TransferCompletedEvent> pending);
+
+    boolean isSeeded();
+}
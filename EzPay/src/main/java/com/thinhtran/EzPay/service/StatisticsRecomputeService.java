@@ -0,0 +1,20 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.RecomputeProgressResponse;
+
+public interface StatisticsRecomputeService {
+
+    /**
+     * Starts rebuilding the statistics from tbl_transaction in the background, resuming an interrupted
+     * run where it stopped. Does nothing if a run is in progress. Returns the progress so far.
+     */
+    RecomputeProgressResponse start();
+
+    /**
+     * Rebuilds the statistics in the calling thread, resuming an interrupted run where it stopped;
+     * fails if another node is running it
+     */
+    RecomputeProgressResponse recompute();
+
+    RecomputeProgressResponse getProgress();
+}
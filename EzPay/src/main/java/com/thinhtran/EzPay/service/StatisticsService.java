@@ -0,0 +1,73 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.exception.ValidationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+public interface StatisticsService {
+
+    /**
+     * Add relayed transfers to the running totals and every rollup kept with them; must run inside the
+     * relay transaction that marks their event published
+     */
+    void recordTransfers(List<TransferCompletedEvent> transfers);
+
+    /**
+     * All-time totals and the top receivers, read from the running totals
+     */
+    StatisticsResponse getStatistics();
+
+    /**
+     * Totals and top receivers of the transfers created in {@code window}. {@link Window#ALL} is
+     * {@link #getStatistics()}; the shorter windows rank receivers approximately (see
+     * {@link TopReceiverSketch}), and each of their receivers carries the most its total may be overstated.
+     */
+    StatisticsResponse getStatistics(Window window);
+
+    /**
+     * Statistics aggregated in the database straight from tbl_transaction, including transfers the
+     * relay has not counted yet; costs a scan of the table instead of a row read
+     */
+    StatisticsResponse aggregateFromTransactions();
+
+    /**
+     * Seed the running totals, the hourly volume and the monthly rollups from tbl_transaction unless
+     * they exist; returns whether it seeded any
+     */
+    boolean seedIfAbsent();
+
+    enum Window {
+        // The sliding windows advance one slot at a time, so they cover between n-1 and n slots
+        HOUR(Duration.ofMinutes(5), 12),
+        DAY(Duration.ofHours(1), 24),
+        ALL(null, 0);
+
+        private final Duration slotLength;
+        private final int slots;
+
+        Window(Duration slotLength, int slots) {
+            this.slotLength = slotLength;
+            this.slots = slots;
+        }
+
+        public Duration getSlotLength() {
+            return slotLength;
+        }
+
+        public int getSlots() {
+            return slots;
+        }
+
+        public static Window parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unsupported statistics window: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+
+import java.util.List;
+
+public interface TopReceiverService {
+
+    /**
+     * Add relayed transfers to their receivers' running totals, and to the window summaries once the
+     * relay commits; must run inside the relay transaction, after it has locked the statistics totals row
+     */
+    void recordTransfers(List<TransferCompletedEvent> transfers);
+
+    /**
+     * The receivers with the most received of all time, read from the head of the receiver index
+     */
+    List<StatisticsResponse.TopReceiverResponse> getTopReceivers();
+
+    /**
+     * The same ranking aggregated straight from tbl_transaction
+     */
+    List<StatisticsResponse.TopReceiverResponse> aggregateFromTransactions();
+
+    /**
+     * Totals and approximate top receivers of the transfers created in {@code window}, which is not
+     * {@link StatisticsService.Window#ALL}; see {@link TopReceiverSketch}
+     */
+    StatisticsResponse getStatistics(StatisticsService.Window window);
+
+    /**
+     * Rebuild the receiver totals from tbl_transaction, leaving out {@code pending} transfers the relay
+     * has yet to add, and return their sum; must run holding the statistics totals row FOR UPDATE
+     */
+    TransferTotals seed(List<TransferCompletedEvent> pending);
+}
@@ -0,0 +1,27 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.util.SpaceSaving;
+
+import java.util.List;
+
+public interface TopReceiverSketch {
+
+    /**
+     * Adds relayed transfers to the window summaries once the surrounding transaction commits;
+     * nothing happens if it rolls back
+     */
+    void recordAfterCommit(List<TransferCompletedEvent> transfers);
+
+    /**
+     * Amount received per receiver over the transfers created in {@code window}, keyed by receiver id,
+     * merged from this node's summaries and the latest snapshots of the other nodes. Its totals are
+     * exact over the transfers it has seen.
+     */
+    SpaceSaving summarize(StatisticsService.Window window);
+
+    /**
+     * Persists the summaries changed since the last snapshot, so a restart resumes from them
+     */
+    void snapshot();
+}
@@ -0,0 +1,32 @@
+package com.thinhtran.EzPay.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface TransactionPartitionService {
+
+    /**
+     * Whether tbl_transaction is range-partitioned by month on created_at
+     */
+    boolean isPartitioned();
+
+    /**
+     * Turn a plain tbl_transaction into a partitioned one, copying its rows into monthly partitions;
+     * transfers wait for the copy. Does nothing if it is already partitioned, including when another
+     * node converts it first.
+     */
+    void convertToPartitioned();
+
+    /**
+     * Create the monthly partitions from {@code from} through {@code through} that do not exist yet;
+     * returns the names of the partitions created
+     */
+    List<String> createPartitions(YearMonth from, YearMonth through);
+
+    /**
+     * Detach the partitions of months before {@code cutoff} and keep them as standalone archive tables;
+     * returns the names of the archive tables. Their transfers leave everything that reads
+     * tbl_transaction (history, exports, statistics recomputes) until the tables are attached again.
+     */
+    List<String> detachPartitionsBefore(YearMonth cutoff);
+}
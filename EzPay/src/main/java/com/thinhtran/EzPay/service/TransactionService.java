@@ -1,16 +1,32 @@
 package com.thinhtran.EzPay.service;
 
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
 import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.BatchTransferResponse;
 import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
 import com.thinhtran.EzPay.dto.response.TransactionResponse;
 
-import java.util.List;
-
 public interface TransactionService {
-    void transfer(String senderUsername, TransferRequest request);
+    TransactionResponse transfer(String senderUsername, TransferRequest request);
+
+    /**
+     * {@link #transfer} inside the caller's transaction, for callers that run several transfers in one
+     * (group commit). A transfer rejected by a business rule throws before writing anything and leaves
+     * that transaction able to commit the others; {@link #transfer} rolls back on it like any failure.
+     */
+    TransactionResponse transferWithinTransaction(String senderUsername, TransferRequest request);
+
+    BatchTransferResponse transferBatch(String senderUsername, BatchTransferRequest request);
 
-    List<TransactionResponse> getHistory(String username);
+    /**
+     * One page of the user's transfers, newest first. {@code cursor} is the {@code nextCursor} of the
+     * previous page (null for the first); {@code size} defaults to 20 and is capped at 100.
+     * {@code filter} may be null; a cursor must be reused with the filter it was issued for.
+     */
+    TransactionPageResponse getHistory(String username, HistoryFilter filter, String cursor, Integer size);
 
     void topUp(TopUpRequest request);
 
@@ -0,0 +1,67 @@
+package com.thinhtran.EzPay.service;
+
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.exception.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+public interface TransferVolumeService {
+
+    /**
+     * Add relayed transfers to the hourly rollup; must run inside the relay transaction, after it has
+     * locked the statistics totals row
+     */
+    void recordTransfers(List<TransferCompletedEvent> transfers);
+
+    /**
+     * Transfer volume and count per hour or day, read from the hourly rollup. {@code from} is rounded
+     * down and {@code to} up to whole buckets, {@code from} inclusive and {@code to} exclusive; when
+     * null, {@code to} is now and {@code from} is {@link Granularity#getDefaultSpan()} before it.
+     * Every bucket in the range is returned, with zeros where nothing was transferred.
+     */
+    VolumeSeriesResponse getVolumeSeries(Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Rebuild the hourly rollup from tbl_transaction, leaving out {@code pending} transfers the relay
+     * has yet to add; must run holding the statistics totals row FOR UPDATE
+     */
+    void seed(List<TransferCompletedEvent> pending);
+
+    enum Granularity {
+        HOUR(ChronoUnit.HOURS, Duration.ofHours(24)),
+        DAY(ChronoUnit.DAYS, Duration.ofDays(30));
+
+        private final ChronoUnit unit;
+        private final Duration defaultSpan;
+
+        Granularity(ChronoUnit unit, Duration defaultSpan) {
+            this.unit = unit;
+            this.defaultSpan = defaultSpan;
+        }
+
+        public ChronoUnit getUnit() {
+            return unit;
+        }
+
+        public Duration getDefaultSpan() {
+            return defaultSpan;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public static Granularity parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unsupported granularity: " + value);
+            }
+        }
+    }
+}
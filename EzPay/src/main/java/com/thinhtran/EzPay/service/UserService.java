@@ -2,6 +2,7 @@ package com.thinhtran.EzPay.service;
 
 import com.thinhtran.EzPay.dto.request.UpdateProfileRequest;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
 
 import java.util.List;
 
@@ -9,5 +10,5 @@ public interface UserService {
     User updateProfile(String userName, UpdateProfileRequest request);
     List<User> getAllUsers();
     User getUserByUserName(String userName);
-    List<User> searchUsers(String searchTerm);
+    List<UserSearchRow> searchUsers(String searchTerm);
 } 
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.thinhtran.EzPay.dto.request.RegisterRequest;
 import com.thinhtran.EzPay.dto.response.AuthResponse;
 import com.thinhtran.EzPay.dto.response.OTPResponse;
 import com.thinhtran.EzPay.dto.response.OTPVerifyResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.exception.AuthenticationException;
@@ -18,6 +19,7 @@ import com.thinhtran.EzPay.repository.UserRepository;
 import com.thinhtran.EzPay.security.JwtTokenProvider;
 import com.thinhtran.EzPay.service.AuthService;
 import com.thinhtran.EzPay.service.EmailService;
+import com.thinhtran.EzPay.service.RecipientIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -35,6 +37,7 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtProvider;
     private final EmailService emailService;
+    private final RecipientIndex recipientIndex;
 
     // In-memory storage for OTP codes (in production, use Redis or database)
     private final Map<String, String> otpStorage = new HashMap<>();
@@ -63,13 +66,14 @@ public class AuthServiceImpl implements AuthService {
                 .fullName(request.getFullName())
                 .phone(request.getPhone())
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .emailVerified(false)
                 .verificationToken(verificationToken)
                 .verificationTokenExpiry(LocalDateTime.now().plusDays(1)) // 24 hours
                 .build();
 
         userRepository.save(user);
+        recipientIndex.updateAfterCommit(user);
 
         // Send verification email
         emailService.sendEmailVerification(user.getEmail(), verificationToken, user.getFullName());
@@ -183,6 +187,7 @@ public class AuthServiceImpl implements AuthService {
         user.setVerificationTokenExpiry(LocalDateTime.now().plusDays(1));
 
         userRepository.save(user);
+        recipientIndex.updateAfterCommit(user);
 
         // Send verification email
         emailService.sendEmailVerification(user.getEmail(), verificationToken, user.getFullName());
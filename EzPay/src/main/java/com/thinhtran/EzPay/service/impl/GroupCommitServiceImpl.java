@@ -0,0 +1,212 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.exception.BusinessException;
+import com.thinhtran.EzPay.service.GroupCommitService;
+import com.thinhtran.EzPay.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for single transfers. Callers queue their transfer and wait on a future; a worker
+ * drains up to {@code batch-size} queued transfers, waiting at most {@code linger-ms} for the batch
+ * to fill, runs them in order inside one database transaction and commits once.
+ *
+ * <p>A transfer rejected by a business rule (insufficient balance, unknown receiver...) fails
+ * before writing anything, so it is reported to its caller without rolling back the others; later
+ * transfers in the batch see the earlier ones, exactly as if they had run one after another. If the
+ * batch itself fails, every transfer in it is retried in its own transaction.
+ *
+ * <p>Transfers are partitioned over {@code workers} queues by sender, so batches running at the
+ * same time never debit the same account and cannot block each other on the sender lock.
+ */
+@Service
+@ConditionalOnProperty(name = "ezpay.transfer.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class GroupCommitServiceImpl implements GroupCommitService {
+
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BlockingQueue<PendingTransfer>> queues;
+    private final List<Thread> workers;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Counter commitCounter;
+    private final Counter transferCounter;
+    private volatile boolean running = true;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public GroupCommitServiceImpl(TransactionService transactionService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ezpay.transfer.group-commit.batch-size:64}") int batchSize,
+                                  @Value("${ezpay.transfer.group-commit.linger-ms:2}") long lingerMillis,
+                                  @Value("${ezpay.transfer.group-commit.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${ezpay.transfer.group-commit.workers:4}") int workerCount) {
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.commitCounter = meterRegistry.counter("ezpay.transfer.group-commit.commits");
+        this.transferCounter = meterRegistry.counter("ezpay.transfer.group-commit.transfers");
+        this.queues = new ArrayList<>(workerCount);
+        this.workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> drain(queue), "group-commit-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        workers.forEach(Thread::start);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Whatever was still queued runs on its own
+        for (BlockingQueue<PendingTransfer> queue : queues) {
+            PendingTransfer pending;
+            while ((pending = queue.poll()) != null) {
+                commitAlone(pending);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransactionResponse> submit(String senderUsername, TransferRequest request) {
+        PendingTransfer pending = new PendingTransfer(senderUsername, request, new CompletableFuture<>());
+        // A sender always maps to the same worker: its transfers stay in order and concurrent
+        // batches never lock the same debited account. A full queue or a stopping worker pushes
+        // back on the caller, who commits on its own.
+        BlockingQueue<PendingTransfer> queue = queues.get(Math.floorMod(senderUsername.hashCode(), queues.size()));
+        if (!running || !queue.offer(pending)) {
+            commitAlone(pending);
+        }
+        return pending.result();
+    }
+
+    @Override
+    public TransactionResponse transfer(String senderUsername, TransferRequest request) {
+        try {
+            return submit(senderUsername, request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void drain(BlockingQueue<PendingTransfer> queue) {
+        List<PendingTransfer> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                queue.drainTo(batch, batchSize - batch.size());
+                while (batch.size() < batchSize) {
+                    PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(this::commitAlone);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outcomes.clear();
+                for (PendingTransfer pending : batch) {
+                    try {
+                        TransactionResponse response = transactionService.transferWithinTransaction(
+                                pending.senderUsername(), pending.request());
+                        outcomes.add(new Outcome(response, null));
+                        // Written rows are not read back, so keep flush-time dirty checking flat
+                        entityManager.flush();
+                        entityManager.clear();
+                    } catch (BusinessException e) {
+                        outcomes.add(new Outcome(null, e));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} transfers failed, retrying them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::commitAlone);
+            return;
+        }
+
+        commitCounter.increment();
+        transferCounter.increment(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.failure() != null) {
+                batch.get(i).result().completeExceptionally(outcome.failure());
+            } else {
+                batch.get(i).result().complete(outcome.response());
+            }
+        }
+    }
+
+    private void commitAlone(PendingTransfer pending) {
+        try {
+            pending.result().complete(transactionService.transfer(pending.senderUsername(), pending.request()));
+            commitCounter.increment();
+            transferCounter.increment();
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingTransfer(String senderUsername, TransferRequest request,
+                                   CompletableFuture<TransactionResponse> result) {
+    }
+
+    private record Outcome(TransactionResponse response, BusinessException failure) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.service.HistoryExportService;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class HistoryExportServiceImpl implements HistoryExportService {
+
+    // Stand-ins for an open range, inside what both H2 and PostgreSQL timestamps can hold
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String CSV_HEADER = "id,createdAt,senderUsername,receiverUsername,amount,message\n";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectWriter jsonLineWriter;
+
+    public HistoryExportServiceImpl(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        // One object per line, whatever indentation the shared mapper is configured with
+        this.jsonLineWriter = objectMapper.writerFor(ExportLine.class).without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    // The result stream is a server-side cursor that only lives as long as the transaction
+    @Override
+    @Transactional
+    public long export(String username, Format format, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long rows = 0;
+        try (Stream<HistoryRow> history = transactionRepository.streamHistory(
+                username, from != null ? from : EARLIEST, to != null ? to : LATEST)) {
+            for (Iterator<HistoryRow> it = history.iterator(); it.hasNext(); rows++) {
+                HistoryRow row = it.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(jsonLineWriter.writeValueAsString(ExportLine.of(row)));
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, HistoryRow row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getCreatedAt().toString());
+        writer.write(',');
+        writer.write(csvText(row.getSenderUsername()));
+        writer.write(',');
+        writer.write(csvText(row.getReceiverUsername()));
+        writer.write(',');
+        writer.write(Money.ofMinor(row.getAmount()).toString());
+        writer.write(',');
+        writer.write(csvText(row.getMessage()));
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting, plus a leading apostrophe on user text that a spreadsheet would run as a formula
+    private static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record ExportLine(Long id, LocalDateTime createdAt, String senderUsername, String receiverUsername,
+                              Money amount, String message) {
+
+        static ExportLine of(HistoryRow row) {
+            return new ExportLine(row.getId(), row.getCreatedAt(), row.getSenderUsername(),
+                    row.getReceiverUsername(), Money.ofMinor(row.getAmount()), row.getMessage());
+        }
+    }
+}
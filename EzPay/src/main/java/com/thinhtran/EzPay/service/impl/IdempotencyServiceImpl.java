@@ -0,0 +1,152 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.thinhtran.EzPay.entity.IdempotencyRecord;
+import com.thinhtran.EzPay.exception.ValidationException;
+import com.thinhtran.EzPay.repository.IdempotencyRecordRepository;
+import com.thinhtran.EzPay.service.IdempotencyService;
+import com.thinhtran.EzPay.util.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final LruCache<String, StoredResult> cache;
+    private final Duration ttl;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${ezpay.idempotency.cache-size:10000}") int cacheSize,
+                                  @Value("${ezpay.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.reader = objectMapper.reader();
+        this.cache = new LruCache<>(cacheSize);
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Override
+    public <T> T execute(String userName, String idempotencyKey, String requestFingerprint,
+                         Class<T> resultType, Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = sha256(requestFingerprint);
+
+        Optional<StoredResult> stored = lookup(userName, idempotencyKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), requestHash, resultType);
+        }
+
+        try {
+            StoredResult result = transactionTemplate.execute(status -> {
+                T value = action.get();
+                IdempotencyRecord record = idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .userName(userName)
+                        .idempotencyKey(idempotencyKey)
+                        .requestHash(requestHash)
+                        .responseBody(serialize(value))
+                        .build());
+                return new StoredResult(record.getRequestHash(), record.getResponseBody());
+            });
+            cache.put(cacheKey(userName, idempotencyKey), result);
+            return deserialize(result.responseBody(), resultType);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed first; ours rolled back, so answer with theirs
+            return lookup(userName, idempotencyKey)
+                    .map(winner -> replay(winner, requestHash, resultType))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    @Scheduled(cron = "${ezpay.idempotency.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        int deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Optional<StoredResult> lookup(String userName, String idempotencyKey) {
+        String cacheKey = cacheKey(userName, idempotencyKey);
+        StoredResult cached = cache.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<StoredResult> stored = idempotencyRecordRepository
+                .findByUserNameAndIdempotencyKey(userName, idempotencyKey)
+                .map(record -> new StoredResult(record.getRequestHash(), record.getResponseBody()));
+        stored.ifPresent(result -> cache.put(cacheKey, result));
+        return stored;
+    }
+
+    private <T> T replay(StoredResult stored, String requestHash, Class<T> resultType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new ValidationException("Idempotency-Key was already used for a different request");
+        }
+        log.debug("Replaying stored result for idempotent request");
+        return deserialize(stored.responseBody(), resultType);
+    }
+
+    private String serialize(Object value) {
+        try {
+            return writer.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent result", e);
+        }
+    }
+
+    private <T> T deserialize(String json, Class<T> resultType) {
+        try {
+            return reader.readValue(json, resultType);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read stored idempotent result", e);
+        }
+    }
+
+    private static String cacheKey(String userName, String idempotencyKey) {
+        return userName + '\n' + idempotencyKey;
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record StoredResult(String requestHash, String responseBody) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.response.ReconciliationReport;
+import com.thinhtran.EzPay.entity.BalanceShard;
+import com.thinhtran.EzPay.entity.LedgerPosting;
+import com.thinhtran.EzPay.entity.LedgerSnapshot;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.PostingType;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.UserNotFoundException;
+import com.thinhtran.EzPay.repository.BalanceShardRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.LedgerSnapshotRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.AccountTotal;
+import com.thinhtran.EzPay.service.LedgerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Balances are an append-only ledger on top of periodic snapshots. A debit locks the debited
+ * account's row to check funds; a credit is a plain insert, so receivers never contend on their
+ * row. {@link #snapshot()} folds unsettled postings into {@code tbl_user.balance} one account at a
+ * time under that same row lock.
+ *
+ * <p>Hot accounts (opt-in through {@code ezpay.ledger.hot-accounts}) also apply each credit to one of
+ * K {@link BalanceShard} rows as it is written, so their balance reads and debits aggregate K rows
+ * instead of every posting since the last snapshot, while concurrent credits spread over K row locks.
+ * The shard counts are cached per instance; an instance that has not seen a hot account yet simply
+ * writes ordinary unsettled postings, which the balance formula counts just the same.
+ */
+@Service
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerPostingRepository ledgerPostingRepository;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final BalanceShardRepository balanceShardRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter unbalancedCounter;
+    private final List<String> hotAccounts;
+    private final int hotAccountShards;
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+
+    public LedgerServiceImpl(LedgerPostingRepository ledgerPostingRepository,
+                             LedgerSnapshotRepository ledgerSnapshotRepository,
+                             BalanceShardRepository balanceShardRepository,
+                             UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${ezpay.ledger.hot-accounts:}") List<String> hotAccounts,
+                             @Value("${ezpay.ledger.hot-account-shards:8}") int hotAccountShards) {
+        this.ledgerPostingRepository = ledgerPostingRepository;
+        this.ledgerSnapshotRepository = ledgerSnapshotRepository;
+        this.balanceShardRepository = balanceShardRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.unbalancedCounter = meterRegistry.counter("ezpay.ledger.unbalanced");
+        this.hotAccounts = hotAccounts;
+        this.hotAccountShards = hotAccountShards;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHotAccounts() {
+        for (String userName : hotAccounts) {
+            userRepository.findIdByUserName(userName).ifPresentOrElse(
+                    accountId -> transactionTemplate.executeWithoutResult(
+                            status -> enableHotAccount(accountId, hotAccountShards)),
+                    () -> log.warn("Hot account {} does not exist", userName));
+        }
+        balanceShardRepository.countShardsByAccount()
+                .forEach(count -> shardCounts.put(count.getAccountId(), count.getTotal().intValue()));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Money lockAvailableBalance(Long accountId) {
+        return userRepository.findAvailableBalanceForUpdate(accountId)
+                .map(Money::ofMinor)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + accountId, accountId));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void postTransfers(List<Transaction> transactions) {
+        List<LedgerPosting> postings = new ArrayList<>(transactions.size() * 2);
+        LocalDateTime now = LocalDateTime.now();
+        for (Transaction transaction : transactions) {
+            postings.add(LedgerPosting.builder()
+                    .accountId(transaction.getSender().getId())
+                    .transactionId(transaction.getId())
+                    .type(PostingType.TRANSFER_DEBIT)
+                    .amount(transaction.getAmount().negate())
+                    .createdAt(now)
+                    .build());
+            postings.add(LedgerPosting.builder()
+                    .accountId(transaction.getReceiver().getId())
+                    .transactionId(transaction.getId())
+                    .type(PostingType.TRANSFER_CREDIT)
+                    .amount(transaction.getAmount())
+                    .createdAt(now)
+                    .build());
+        }
+        postings.forEach(this::assignShard);
+        ledgerPostingRepository.saveAll(postings);
+        postings.forEach(this::applyToShard);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void postTopUp(Long accountId, Money amount) {
+        LedgerPosting posting = LedgerPosting.builder()
+                .accountId(accountId)
+                .type(PostingType.TOP_UP)
+                .amount(amount)
+                .build();
+        assignShard(posting);
+        ledgerPostingRepository.save(posting);
+        applyToShard(posting);
+    }
+
+    @Override
+    public Money balanceOf(User user) {
+        if (shardCounts.containsKey(user.getId())) {
+            return user.getBalance()
+                    .plus(Money.ofMinor(balanceShardRepository.sumByAccount(user.getId())))
+                    .plus(Money.ofMinor(ledgerPostingRepository.sumUnsettled(user.getId())));
+        }
+        return user.getBalance().plus(Money.ofMinor(ledgerPostingRepository.sumUnsettled(user.getId())));
+    }
+
+    @Override
+    public Map<Long, Money> balancesOf(Collection<User> users) {
+        Map<Long, Money> settled = new HashMap<>();
+        users.forEach(user -> settled.put(user.getId(), user.getBalance()));
+        return balancesOfSettled(settled);
+    }
+
+    @Override
+    public Map<Long, Money> balancesOfSettled(Map<Long, Money> settledBalances) {
+        if (settledBalances.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> accountIds = List.copyOf(settledBalances.keySet());
+        Map<Long, Long> unsettled = ledgerPostingRepository.sumUnsettledByAccount(accountIds).stream()
+                .collect(Collectors.toMap(AccountTotal::getAccountId, AccountTotal::getTotal, Long::sum));
+        List<Long> hotAccountIds = accountIds.stream().filter(shardCounts::containsKey).toList();
+        if (!hotAccountIds.isEmpty()) {
+            balanceShardRepository.sumByAccountIn(hotAccountIds)
+                    .forEach(total -> unsettled.merge(total.getAccountId(), total.getTotal(), Long::sum));
+        }
+        Map<Long, Money> balances = new HashMap<>();
+        settledBalances.forEach((accountId, balance) -> balances.put(accountId,
+                balance.plus(Money.ofMinor(unsettled.getOrDefault(accountId, 0L)))));
+        return balances;
+    }
+
+    @Override
+    @Transactional
+    public void enableHotAccount(Long accountId, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A hot account needs at least one shard");
+        }
+        // Shards are only ever added: removing one would strand its balance
+        userRepository.findAvailableBalanceForUpdate(accountId)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + accountId, accountId));
+        List<BalanceShard> existing = balanceShardRepository.findByAccountId(accountId);
+        List<BalanceShard> added = new ArrayList<>();
+        for (int shardNo = existing.size(); shardNo < shards; shardNo++) {
+            added.add(BalanceShard.builder().accountId(accountId).shardNo(shardNo).build());
+        }
+        balanceShardRepository.saveAll(added);
+        shardCounts.put(accountId, Math.max(shards, existing.size()));
+    }
+
+    @Override
+    public int snapshot() {
+        List<Long> accountIds = ledgerPostingRepository.findAccountIdsWithUnsettledPostings();
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+        LedgerSnapshot snapshot = ledgerSnapshotRepository.save(new LedgerSnapshot());
+
+        // One short transaction per account, so a hot account's row is only locked while its own postings fold
+        long postings = 0;
+        for (Long accountId : accountIds) {
+            postings += transactionTemplate.execute(status -> {
+                userRepository.findAvailableBalanceForUpdate(accountId);
+                int assigned = ledgerPostingRepository.assignSnapshot(accountId, snapshot.getId());
+                long total = ledgerPostingRepository.sumSnapshot(accountId, snapshot.getId());
+                userRepository.addToSettledBalance(accountId, total);
+                return (long) assigned;
+            });
+        }
+
+        snapshot.setAccountCount(accountIds.size());
+        snapshot.setPostingCount(postings);
+        ledgerSnapshotRepository.save(snapshot);
+        log.info("Ledger snapshot {} settled {} postings across {} accounts", snapshot.getId(), postings, accountIds.size());
+        return accountIds.size();
+    }
+
+    @Override
+    public ReconciliationReport reconcile() {
+        List<Long> unbalanced = ledgerPostingRepository.findUnbalancedTransactionIds();
+        ReconciliationReport report = new ReconciliationReport(
+                LocalDateTime.now(),
+                ledgerPostingRepository.countTransfers(),
+                Money.ofMinor(ledgerPostingRepository.sumTransferPostings()),
+                unbalanced);
+        if (!report.isBalanced()) {
+            unbalancedCounter.increment();
+            log.error("Ledger reconciliation failed: transfer postings sum to {}, unbalanced transactions {}",
+                    report.getTransferPostingTotal(), unbalanced);
+        }
+        return report;
+    }
+
+    private void assignShard(LedgerPosting posting) {
+        Integer shards = shardCounts.get(posting.getAccountId());
+        if (shards != null && posting.getAmount().isPositive()) {
+            posting.setShardNo(ThreadLocalRandom.current().nextInt(shards));
+            posting.setSnapshotId(LedgerSnapshot.APPLIED_TO_SHARD);
+        }
+    }
+
+    // Runs after the postings are queued for insert so they still go out as one JDBC batch
+    private void applyToShard(LedgerPosting posting) {
+        if (posting.getShardNo() != null) {
+            balanceShardRepository.addToShard(posting.getAccountId(), posting.getShardNo(),
+                    posting.getAmount().minorUnits());
+        }
+    }
+
+    @Scheduled(cron = "${ezpay.ledger.snapshot-cron:0 */5 * * * *}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    @Scheduled(cron = "${ezpay.ledger.reconciliation-cron:0 30 2 * * *}")
+    public void scheduledReconciliation() {
+        ReconciliationReport report = reconcile();
+        if (report.isBalanced()) {
+            log.info("Ledger reconciliation passed for {} transfers", report.getTransfersChecked());
+        }
+    }
+}
@@ -5,12 +5,15 @@ import com.thinhtran.EzPay.entity.NotificationType;
 import com.thinhtran.EzPay.exception.UserNotFoundException;
 import com.thinhtran.EzPay.repository.NotificationRepository;
 import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -40,6 +43,21 @@ public class NotificationServiceImpl implements NotificationService {
         log.info("Notification created and sent to user {}: {}", userId, title);
     }
     
+    @Override
+    public void createAndSendNotifications(List<Notification> notifications) {
+        List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
+        
+        // Push every notification, then refresh each user's unread count once
+        Set<Long> userIds = new LinkedHashSet<>();
+        savedNotifications.forEach(notification -> {
+            pushNotification(notification.getUserId(), notification);
+            userIds.add(notification.getUserId());
+        });
+        userIds.forEach(this::sendUnreadCountUpdate);
+        
+        log.info("{} notifications created and sent to {} users", savedNotifications.size(), userIds.size());
+    }
+    
     @Override
     public List<Notification> getUserNotifications(Long userId) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
@@ -91,34 +109,43 @@ public class NotificationServiceImpl implements NotificationService {
     }
     
     private void sendRealtimeNotification(Long userId, Notification notification) {
-        try {
-            // Send to specific user's private channel
-            messagingTemplate.convertAndSendToUser(
-                    userId.toString(),
-                    "/queue/notifications",
-                    notification
-            );
-            
-            // Also send unread count update
-            sendUnreadCountUpdate(userId);
-            
-        } catch (Exception e) {
-            log.error("Error sending realtime notification to user {}: {}", userId, e.getMessage());
-        }
+        pushNotification(userId, notification);
+        
+        // Also send unread count update
+        sendUnreadCountUpdate(userId);
+    }
+    
+    private void pushNotification(Long userId, Notification notification) {
+        // Pushed once the notification row commits, so a rolled-back relay never reaches the client
+        AfterCommit.run(() -> {
+            try {
+                // Send to specific user's private channel
+                messagingTemplate.convertAndSendToUser(
+                        userId.toString(),
+                        "/queue/notifications",
+                        notification
+                );
+                
+            } catch (Exception e) {
+                log.error("Error sending realtime notification to user {}: {}", userId, e.getMessage());
+            }
+        });
     }
     
     private void sendUnreadCountUpdate(Long userId) {
-        try {
-            Long unreadCount = getUnreadCount(userId);
-            
-            messagingTemplate.convertAndSendToUser(
-                    userId.toString(),
-                    "/queue/unread-count",
-                    unreadCount
-            );
-            
-        } catch (Exception e) {
-            log.error("Error sending unread count update to user {}: {}", userId, e.getMessage());
-        }
+        // Counted inside the transaction, so it includes its own changes; pushed once they commit
+        Long unreadCount = getUnreadCount(userId);
+        AfterCommit.run(() -> {
+            try {
+                messagingTemplate.convertAndSendToUser(
+                        userId.toString(),
+                        "/queue/unread-count",
+                        unreadCount
+                );
+                
+            } catch (Exception e) {
+                log.error("Error sending unread count update to user {}: {}", userId, e.getMessage());
+            }
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.event.OutboxEventHandler;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final String INSERT_EVENT = "INSERT INTO tbl_outbox_event "
+            + "(event_type, aggregate_id, payload, created_at, attempts) VALUES ";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final Map<String, List<OutboxEventHandler<?>>> handlers;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ezpay.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository,
+                             List<OutboxEventHandler<?>> handlers,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers.stream()
+                .collect(Collectors.groupingBy(OutboxEventHandler::eventType));
+        // Payloads are stored, not shown to anyone: keep them compact whatever the HTTP output settings are
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.reader = objectMapper.reader();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.publishedCounter = meterRegistry.counter("ezpay.outbox.published");
+        this.failedCounter = meterRegistry.counter("ezpay.outbox.failed");
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(String eventType, Long aggregateId, Object payload) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .payload(serialize(eventType, payload))
+                .build());
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void append(List<String> eventTypes, Long aggregateId, Object payload) {
+        String json = serialize(eventTypes.get(0), payload);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> args = new ArrayList<>(eventTypes.size() * 4);
+        for (String eventType : eventTypes) {
+            args.addAll(Arrays.asList(eventType, aggregateId, json, now));
+        }
+        jdbcTemplate.update(INSERT_EVENT + String.join(", ", Collections.nCopies(eventTypes.size(), "(?, ?, ?, ?, 0)")),
+                args.toArray());
+    }
+
+    @Override
+    public int relayBatch(int batchSize) {
+        Set<Long> skipped = new HashSet<>();
+        while (true) {
+            Relayed relayed;
+            try {
+                relayed = transactionTemplate.execute(status -> relayClaimed(status, batchSize, skipped));
+            } catch (DispatchException e) {
+                // The failure left the relay transaction rollback-only, as any JPA error does, so the whole
+                // batch rolled back: charge the event on its own and relay the others again without it
+                transactionTemplate.executeWithoutResult(status -> recordFailure(e));
+                failedCounter.increment();
+                skipped.add(e.eventId);
+                continue;
+            }
+            publishedCounter.increment(relayed.published());
+            failedCounter.increment(relayed.failed());
+            return relayed.published();
+        }
+    }
+    @Override
+    public long countPending() {
+        return outboxEventRepository.countPending();
+    }
+
+    @Override
+    public Optional<Duration> oldestPendingAge() {
+        return Optional.ofNullable(outboxEventRepository.findOldestPendingCreatedAt())
+                .map(createdAt -> Duration.between(createdAt, LocalDateTime.now()));
+    }
+
+    // One transaction claims the batch; each event's handlers run in a savepoint, so a failing event is
+    // rolled back and charged an attempt on its own while the others are published with the batch
+    private Relayed relayClaimed(TransactionStatus status, int batchSize, Set<Long> skipped) {
+        List<OutboxEvent> events = outboxEventRepository.claimPendingBatch(maxAttempts, batchSize);
+        List<Long> published = new ArrayList<>();
+        int failed = 0;
+        for (OutboxEvent event : events) {
+            if (skipped.contains(event.getId())) {
+                continue;
+            }
+            try {
+                dispatchInSavepoint(event);
+                published.add(event.getId());
+            } catch (DispatchException e) {
+                if (status.isRollbackOnly()) {
+                    throw e;
+                }
+                recordFailure(e);
+                failed++;
+            }
+        }
+        if (!published.isEmpty()) {
+            outboxEventRepository.markPublished(published, LocalDateTime.now());
+        }
+        return new Relayed(published.size(), failed);
+    }
+
+    // JPA has no savepoints, so this one is set on the transaction's connection. Pending JPA writes are
+    // flushed on both sides of it to land in the right scope, and on rollback the persistence context and
+    // the after-commit work the event's handlers registered are discarded along with its rows.
+    private void dispatchInSavepoint(OutboxEvent event) {
+        entityManager.flush();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+        try {
+            dispatch(event);
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                connection.rollback(savepoint);
+                return null;
+            });
+            entityManager.clear();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            synchronizations.forEach(TransactionSynchronizationManager::registerSynchronization);
+            throw e instanceof DispatchException dispatchException ? dispatchException
+                    : new DispatchException(event.getId(), e);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private String serialize(String eventType, Object payload) {
+        try {
+            return writer.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox event " + eventType, e);
+        }
+    }
+
+    private void recordFailure(DispatchException e) {
+        String error = String.valueOf(e.getCause().getMessage());
+        outboxEventRepository.recordFailure(e.eventId, error.length() > 500 ? error.substring(0, 500) : error);
+        log.error("Outbox event {} failed, will retry: {}", e.eventId, error);
+    }
+
+    private void dispatch(OutboxEvent event) {
+        List<OutboxEventHandler<?>> eventHandlers = handlers.get(event.getEventType());
+        if (eventHandlers == null) {
+            throw new DispatchException(event.getId(),
+                    new IllegalStateException("No handler for event type " + event.getEventType()));
+        }
+        try {
+            for (OutboxEventHandler<?> handler : eventHandlers) {
+                handle(handler, event.getPayload());
+            }
+        } catch (Exception e) {
+            throw new DispatchException(event.getId(), e);
+        }
+    }
+
+    private <T> void handle(OutboxEventHandler<T> handler, String payload) throws Exception {
+        handler.handle(reader.readValue(payload, handler.payloadType()));
+    }
+
+    private record Relayed(int published, int failed) {
+    }
+
+    private static final class DispatchException extends RuntimeException {
+        private final Long eventId;
+
+        private DispatchException(Long eventId, Exception cause) {
+            super(cause);
+            this.eventId = eventId;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.projection.HistoryEntry;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.service.RecentHistoryCache;
+import com.thinhtran.EzPay.util.AfterCommit;
+import com.thinhtran.EzPay.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps each active user's newest {@code capacity} history rows, plus one to tell whether older
+ * rows exist, for at most {@code ttl-seconds}. A user with fewer rows than that has them all cached,
+ * so any first page up to {@code capacity} is answered without a query.
+ *
+ * <p>Transfers update the cached entries only after they commit, so a rolled-back transfer is never
+ * shown. A load that raced a committed transfer (it may have read the database before the commit)
+ * is not cached: every write bumps a stamp for its users first, and a load is only stored if its
+ * users' stamp is unchanged since it started.
+ *
+ * <p>The entries are this node's own, so transfers made through other nodes reach them through the
+ * outbox instead: every {@code sync-interval-ms} the statistics events relayed since the last pass
+ * are read back, and both parties' entries are dropped unless they already show the transfer. Such
+ * a transfer therefore appears here after the relay delay plus one interval, at most {@code ttl-seconds}
+ * late if the relay is down. Each pass re-reads {@code sync-slack-ms} before the previous one, so a
+ * relay that committed after its publish time, or a relaying node whose clock lags, is still seen.
+ */
+@Service
+@Slf4j
+public class RecentHistoryCacheImpl implements RecentHistoryCache {
+
+    private static final int STAMP_STRIPES = 1024;
+    private static final Comparator<HistoryRow> NEWEST_FIRST = Comparator
+            .comparing(HistoryRow::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(HistoryRow::getId, Comparator.reverseOrder());
+    private static final List<String> TRANSFER_TYPES = List.of(TransferCompletedEvent.TYPE, TransferBatchCompletedEvent.TYPE);
+
+    private final boolean enabled;
+    private final int rowsPerUser;
+    private final long ttlNanos;
+    private final LruCache<String, Entry> entries;
+    private final long[] stamps = new long[STAMP_STRIPES];
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectReader reader;
+    private final Duration syncSlack;
+    private final Object syncLock = new Object();
+    // Where the next pass reads from, less the slack, and the events the last pass already applied
+    private LocalDateTime syncedFrom = LocalDateTime.now();
+    private Set<Long> appliedEvents = Set.of();
+
+    public RecentHistoryCacheImpl(MeterRegistry meterRegistry,
+                                  OutboxEventRepository outboxEventRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${ezpay.history.cache.enabled:true}") boolean enabled,
+                                  @Value("${ezpay.history.cache.capacity:20}") int capacity,
+                                  @Value("${ezpay.history.cache.max-users:10000}") int maxUsers,
+                                  @Value("${ezpay.history.cache.ttl-seconds:60}") long ttlSeconds,
+                                  @Value("${ezpay.history.cache.sync-slack-ms:10000}") long syncSlackMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.reader = objectMapper.reader();
+        this.syncSlack = Duration.ofMillis(syncSlackMs);
+        this.enabled = enabled;
+        this.rowsPerUser = capacity + 1;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LruCache<>(maxUsers);
+        this.hitCounter = meterRegistry.counter("ezpay.history.cache.hits");
+        this.missCounter = meterRegistry.counter("ezpay.history.cache.misses");
+        Gauge.builder("ezpay.history.cache.users", entries, LruCache::size).register(meterRegistry);
+    }
+
+    @Override
+    public List<HistoryRow> firstPage(String username, int limit, IntFunction<List<HistoryRow>> loader) {
+        if (!enabled || limit > rowsPerUser) {
+            return loader.apply(limit);
+        }
+        Entry entry = entries.get(username);
+        if (entry != null && !entry.isExpired(ttlNanos) && entry.covers(limit, rowsPerUser)) {
+            hitCounter.increment();
+            return entry.head(limit);
+        }
+        missCounter.increment();
+
+        long stamp = stamp(username);
+        List<HistoryRow> rows = loader.apply(rowsPerUser);
+        Entry loaded = new Entry(rows.stream().<HistoryRow>map(HistoryEntry::of).toList(), System.nanoTime());
+        synchronized (this) {
+            if (stamp(username) == stamp) {
+                entries.put(username, loaded);
+            }
+        }
+        return loaded.head(limit);
+    }
+
+    @Override
+    public void recordAfterCommit(HistoryRow transfer) {
+        if (!enabled) {
+            return;
+        }
+        HistoryEntry row = HistoryEntry.of(transfer);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                record(row.getSenderUsername(), row);
+                if (!row.getReceiverUsername().equals(row.getSenderUsername())) {
+                    record(row.getReceiverUsername(), row);
+                }
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ezpay.history.cache.sync-interval-ms:1000}")
+    public void applyRelayedTransfers() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (syncLock) {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<OutboxEvent> events = outboxEventRepository.findPublishedSince(syncedFrom.minus(syncSlack), TRANSFER_TYPES);
+            Set<Long> applied = new HashSet<>();
+            for (OutboxEvent event : events) {
+                applied.add(event.getId());
+                if (!appliedEvents.contains(event.getId())) {
+                    for (TransferCompletedEvent transfer : transfers(event)) {
+                        apply(transfer);
+                    }
+                }
+            }
+            appliedEvents = applied;
+            syncedFrom = startedAt;
+        }
+    }
+
+    private List<TransferCompletedEvent> transfers(OutboxEvent event) {
+        try {
+            return TransferCompletedEvent.TYPE.equals(event.getEventType())
+                    ? List.of(reader.readValue(event.getPayload(), TransferCompletedEvent.class))
+                    : reader.readValue(event.getPayload(), TransferBatchCompletedEvent.class).transfers();
+        } catch (IOException e) {
+            // Its parties' entries expire with the ttl instead
+            log.warn("Cannot read transfer event {} for the history cache: {}", event.getId(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void apply(TransferCompletedEvent transfer) {
+        // Events written before the usernames were added expire with the ttl
+        if (transfer.senderUsername() == null || transfer.receiverUsername() == null) {
+            return;
+        }
+        synchronized (this) {
+            evictUnlessShown(transfer.senderUsername(), transfer.transactionId());
+            evictUnlessShown(transfer.receiverUsername(), transfer.transactionId());
+        }
+    }
+
+    // Transfers made through this node were recorded at commit, so their entries are kept
+    private void evictUnlessShown(String username, Long transactionId) {
+        bumpStamp(username);
+        Entry entry = entries.get(username);
+        if (entry != null && entry.rows().stream().noneMatch(row -> row.getId().equals(transactionId))) {
+            entries.remove(username);
+        }
+    }
+
+    private void record(String username, HistoryEntry row) {
+        bumpStamp(username);
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return;
+        }
+        // The cached load may already have read this transfer if it committed before the load ran
+        if (entry.rows().stream().anyMatch(cached -> cached.getId().equals(row.getId()))) {
+            return;
+        }
+        List<HistoryRow> rows = new ArrayList<>(entry.rows().size() + 1);
+        rows.addAll(entry.rows());
+        rows.add(row);
+        rows.sort(NEWEST_FIRST);
+        if (rows.size() > rowsPerUser) {
+            rows.remove(rows.size() - 1);
+        }
+        entries.put(username, new Entry(List.copyOf(rows), entry.loadedAt()));
+    }
+
+    private long stamp(String username) {
+        synchronized (this) {
+            return stamps[stripe(username)];
+        }
+    }
+
+    private void bumpStamp(String username) {
+        stamps[stripe(username)]++;
+    }
+
+    private static int stripe(String username) {
+        return Math.floorMod(username.hashCode(), STAMP_STRIPES);
+    }
+
+    /**
+     * Up to {@code rowsPerUser} newest rows; fewer means these are all of the user's rows.
+     */
+    private record Entry(List<HistoryRow> rows, long loadedAt) {
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt > ttlNanos;
+        }
+
+        boolean covers(int limit, int rowsPerUser) {
+            return rows.size() >= limit || rows.size() < rowsPerUser;
+        }
+
+        List<HistoryRow> head(int limit) {
+            return rows.size() <= limit ? rows : rows.subList(0, limit);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.response.RecipientResponse;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.RecipientIndex;
+import com.thinhtran.EzPay.util.AfterCommit;
+import com.thinhtran.EzPay.util.PrefixIndex;
+import com.thinhtran.EzPay.util.TextFolding;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recipient autocomplete from a {@link PrefixIndex} over every non-admin user: the folded user name,
+ * full name and email, and the phone number. Built on startup, so it is ready before requests arrive,
+ * and kept current by registrations and profile edits on this node once they commit. Other nodes'
+ * changes arrive with the full rebuild every {@code rebuild-interval-ms}; edits made while a rebuild
+ * reads the table are replayed onto the new index before it replaces the old one.
+ */
+@Service
+@Slf4j
+public class RecipientIndexImpl implements RecipientIndex {
+
+    private final UserRepository userRepository;
+    private final int deltaLimit;
+    private final Object rebuildLock = new Object();
+    private volatile PrefixIndex<Recipient> index;
+    // Users changed since the running rebuild started reading, null for those no longer listed
+    private Map<Long, Recipient> changedDuringRebuild;
+
+    public RecipientIndexImpl(UserRepository userRepository,
+                              @Value("${ezpay.recipients.index.delta-limit:4096}") int deltaLimit) {
+        this.userRepository = userRepository;
+        this.deltaLimit = deltaLimit;
+        this.index = newIndex();
+    }
+
+    @PostConstruct
+    public void build() {
+        rebuild();
+        log.info("Indexed {} recipients for autocomplete", index.size());
+    }
+
+    @Override
+    public List<RecipientResponse> suggest(String term, int limit) {
+        return index.search(TextFolding.fold(term), limit).stream()
+                .map(recipient -> new RecipientResponse(
+                        recipient.userName(), recipient.fullName(), recipient.email(), recipient.phone()))
+                .toList();
+    }
+
+    @Override
+    public void updateAfterCommit(User user) {
+        Long id = user.getId();
+        if (id == null) {
+            return;
+        }
+        Recipient recipient = user.getRole() == Role.ADMIN ? null
+                : new Recipient(id, user.getUserName(), user.getFullName(), user.getEmail(), user.getPhone());
+        AfterCommit.run(() -> apply(id, recipient));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ezpay.recipients.index.rebuild-interval-ms:600000}",
+            initialDelayString = "${ezpay.recipients.index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashMap<>();
+            }
+            PrefixIndex<Recipient> rebuilt = newIndex();
+            try {
+                rebuilt.putAll(userRepository.findSearchRows(Role.ADMIN).stream()
+                        .map(row -> new Recipient(row.id(), row.userName(), row.fullName(), row.email(), row.phone()))
+                        .toList());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                changedDuringRebuild.forEach((id, recipient) -> applyTo(rebuilt, id, recipient));
+                changedDuringRebuild = null;
+                index = rebuilt;
+            }
+        }
+    }
+
+    private synchronized void apply(Long id, Recipient recipient) {
+        applyTo(index, id, recipient);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(id, recipient);
+        }
+    }
+
+    private static void applyTo(PrefixIndex<Recipient> target, Long id, Recipient recipient) {
+        if (recipient == null) {
+            target.remove(id);
+        } else {
+            target.put(recipient);
+        }
+    }
+
+    private PrefixIndex<Recipient> newIndex() {
+        return new PrefixIndex<>(Recipient::id, Recipient::texts, deltaLimit);
+    }
+
+    private record Recipient(long id, String userName, String fullName, String email, String phone) {
+
+        String[] texts() {
+            return new String[]{TextFolding.fold(userName), TextFolding.fold(fullName), TextFolding.fold(email),
+                    TextFolding.fold(phone)};
+        }
+    }
+}
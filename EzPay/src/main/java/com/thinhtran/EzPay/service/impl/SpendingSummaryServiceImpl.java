@@ -0,0 +1,240 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.response.SpendingSummaryResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.UserMonthlySummary;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserMonthlyCounterpartyRepository;
+import com.thinhtran.EzPay.repository.UserMonthlySummaryRepository;
+import com.thinhtran.EzPay.service.SpendingSummaryService;
+import com.thinhtran.EzPay.util.AfterCommit;
+import com.thinhtran.EzPay.util.CounterRows;
+import com.thinhtran.EzPay.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user monthly rollups, added to by the outbox relay like the statistics: one row per user and
+ * month with the sent and received totals, and one per counterparty for the ranking. Relays write
+ * them side by side, in key order, and insert a row none of them has created yet in a savepoint (see
+ * {@link CounterRows}). A summary is one row read plus the head of one unique-key range, and lags
+ * commits by the relay delay.
+ *
+ * <p>Summaries are cached per user and month for at most {@code ttl-seconds}. A relay commit evicts
+ * the months it changed; as in {@link RecentHistoryCacheImpl}, a load that raced such a commit is not
+ * stored, since every eviction bumps a stamp for its user first.
+ */
+@Service
+public class SpendingSummaryServiceImpl implements SpendingSummaryService {
+
+    private static final int TOP_COUNTERPARTIES = 5;
+    private static final int STAMP_STRIPES = 1024;
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::userId).thenComparing(Key::month);
+    private static final Comparator<PairKey> PAIR_ORDER = Comparator.comparing(PairKey::userId)
+            .thenComparing(PairKey::month).thenComparing(PairKey::counterpartyId);
+    private static final String INSERT_MONTH = "INSERT INTO tbl_user_monthly_summary "
+            + "(user_id, month_start, sent_amount, sent_count, received_amount, received_count) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PAIR = "INSERT INTO tbl_user_monthly_counterparty "
+            + "(user_id, month_start, counterparty_id, sent_amount, received_amount, transfer_count) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final UserMonthlySummaryRepository summaryRepository;
+    private final UserMonthlyCounterpartyRepository counterpartyRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean cacheEnabled;
+    private final long ttlNanos;
+    private final LruCache<Key, Entry> entries;
+    private final long[] stamps = new long[STAMP_STRIPES];
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SpendingSummaryServiceImpl(UserMonthlySummaryRepository summaryRepository,
+                                      UserMonthlyCounterpartyRepository counterpartyRepository,
+                                      TransactionRepository transactionRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${ezpay.summary.cache.enabled:true}") boolean cacheEnabled,
+                                      @Value("${ezpay.summary.cache.max-entries:10000}") int maxEntries,
+                                      @Value("${ezpay.summary.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.summaryRepository = summaryRepository;
+        this.counterpartyRepository = counterpartyRepository;
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEnabled = cacheEnabled;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LruCache<>(maxEntries);
+        this.hitCounter = meterRegistry.counter("ezpay.summary.cache.hits");
+        this.missCounter = meterRegistry.counter("ezpay.summary.cache.misses");
+        Gauge.builder("ezpay.summary.cache.entries", entries, LruCache::size).register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordTransfers(List<TransferCompletedEvent> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        Set<Key> changed = add(transfers, 1);
+        AfterCommit.run(() -> evict(changed));
+    }
+
+    @Override
+    public SpendingSummaryResponse getMonthlySummary(Long userId, YearMonth month) {
+        Key key = new Key(userId, month.atDay(1));
+        if (!cacheEnabled) {
+            return load(key);
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(ttlNanos)) {
+            hitCounter.increment();
+            return entry.summary();
+        }
+        missCounter.increment();
+
+        long stamp = stamp(userId);
+        SpendingSummaryResponse summary = load(key);
+        synchronized (this) {
+            if (stamp(userId) == stamp) {
+                entries.put(key, new Entry(summary, System.nanoTime()));
+            }
+        }
+        return summary;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void seed(List<TransferCompletedEvent> pending) {
+        summaryRepository.deleteAllInBatch();
+        summaryRepository.insertFromTransactions();
+        counterpartyRepository.deleteAllInBatch();
+        counterpartyRepository.insertFromTransactions();
+        // Taken back out; the relay adds them when it relays them
+        add(pending, -1);
+        AfterCommit.run(this::evictAll);
+    }
+
+    @Override
+    public boolean isSeeded() {
+        return summaryRepository.existsAny();
+    }
+
+    private SpendingSummaryResponse load(Key key) {
+        UserMonthlySummary totals = summaryRepository.findByUserIdAndMonthStart(key.userId(), key.month())
+                .orElse(null);
+        List<SpendingSummaryResponse.CounterpartyResponse> top = totals == null ? List.of()
+                : counterpartyRepository.findTopCounterparties(key.userId(), key.month(), TOP_COUNTERPARTIES).stream()
+                .map(row -> new SpendingSummaryResponse.CounterpartyResponse(
+                        row.getUsername(),
+                        row.getFullName(),
+                        Money.ofMinor(row.getSent()),
+                        Money.ofMinor(row.getReceived()),
+                        row.getTransferCount()))
+                .toList();
+        return new SpendingSummaryResponse(
+                YearMonth.from(key.month()).toString(),
+                totals == null ? Money.ZERO : totals.getSentAmount(),
+                totals == null ? 0L : totals.getSentCount(),
+                totals == null ? Money.ZERO : totals.getReceivedAmount(),
+                totals == null ? 0L : totals.getReceivedCount(),
+                top);
+    }
+
+    // Adds (sign 1) or removes (sign -1) the transfers; returns the user months changed
+    private Set<Key> add(List<TransferCompletedEvent> transfers, int sign) {
+        // sent, sent count, received, received count per user and month; sent, received, count per pair
+        Map<Key, long[]> totals = new TreeMap<>(KEY_ORDER);
+        Map<PairKey, long[]> pairs = new TreeMap<>(PAIR_ORDER);
+        for (TransferCompletedEvent transfer : transfers) {
+            LocalDate month = monthOf(transfer);
+            long amount = sign * transfer.amount().minorUnits();
+            long[] sender = totals.computeIfAbsent(new Key(transfer.senderId(), month), key -> new long[4]);
+            sender[0] += amount;
+            sender[1] += sign;
+            long[] receiver = totals.computeIfAbsent(new Key(transfer.receiverId(), month), key -> new long[4]);
+            receiver[2] += amount;
+            receiver[3] += sign;
+            long[] sent = pairs.computeIfAbsent(new PairKey(transfer.senderId(), month, transfer.receiverId()),
+                    key -> new long[3]);
+            sent[0] += amount;
+            sent[2] += sign;
+            long[] received = pairs.computeIfAbsent(new PairKey(transfer.receiverId(), month, transfer.senderId()),
+                    key -> new long[3]);
+            received[1] += amount;
+            received[2] += sign;
+        }
+        totals.forEach(this::addToMonth);
+        pairs.forEach(this::addToPair);
+        return totals.keySet();
+    }
+
+    private void addToMonth(Key key, long[] totals) {
+        CounterRows.addOrInsert(jdbcTemplate,
+                () -> summaryRepository.addTransfers(key.userId(), key.month(), totals[0], totals[1], totals[2], totals[3]),
+                INSERT_MONTH, key.userId(), key.month(), totals[0], totals[1], totals[2], totals[3]);
+    }
+
+    private void addToPair(PairKey key, long[] totals) {
+        CounterRows.addOrInsert(jdbcTemplate,
+                () -> counterpartyRepository.addTransfers(key.userId(), key.month(), key.counterpartyId(),
+                        totals[0], totals[1], totals[2]),
+                INSERT_PAIR, key.userId(), key.month(), key.counterpartyId(), totals[0], totals[1], totals[2]);
+    }
+
+    // Events written before they carried createdAt are looked up; a row that is gone counts as now
+    private LocalDate monthOf(TransferCompletedEvent transfer) {
+        LocalDateTime createdAt = transfer.createdAt() != null ? transfer.createdAt()
+                : transactionRepository.findCreatedAtById(transfer.transactionId()).orElseGet(LocalDateTime::now);
+        return createdAt.toLocalDate().withDayOfMonth(1);
+    }
+
+    private synchronized void evict(Set<Key> keys) {
+        for (Key key : keys) {
+            stamps[stripe(key.userId())]++;
+            entries.remove(key);
+        }
+    }
+
+    private synchronized void evictAll() {
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i]++;
+        }
+        entries.clear();
+    }
+
+    private synchronized long stamp(Long userId) {
+        return stamps[stripe(userId)];
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), STAMP_STRIPES);
+    }
+
+    private record Key(Long userId, LocalDate month) {
+    }
+
+    private record PairKey(Long userId, LocalDate month, Long counterpartyId) {
+    }
+
+    private record Entry(SpendingSummaryResponse summary, long loadedAt) {
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.thinhtran.EzPay.dto.response.RecomputeProgressResponse;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.entity.StatisticsRecompute;
+import com.thinhtran.EzPay.entity.StatisticsTotal;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsRecomputeRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+import com.thinhtran.EzPay.service.StatisticsRecomputeService;
+import com.thinhtran.EzPay.util.LongSumMap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+
+/**
+ * Rebuilds the statistics (totals, per-receiver totals and hourly volume) from tbl_transaction, for
+ * backfills after a migration or a fix. Ids up to the highest one at the start are split into chunks of
+ * {@code chunk-size}. Each wave of {@code chunks-per-checkpoint} chunks is read on a ForkJoinPool of
+ * {@code parallelism} threads: every chunk is aggregated by one thread into primitive maps, and the
+ * results are merged pairwise as the fork-join tasks return. A wave is added to staging tables in the
+ * transaction that advances the job's next chunk, so an interrupted run resumes after the last wave it
+ * committed and memory is bounded by one wave's aggregates. Every reader holds a database connection,
+ * so {@code parallelism} has to stay below the connection pool size.
+ *
+ * <p>The relay keeps counting while the job runs. The job only reads transfers created before its
+ * cutoff, and starts reading {@code grace-ms} later, once those have committed. It finishes holding
+ * the totals row FOR UPDATE, which holds the relay back (see {@link StatisticsServiceImpl}). Transfers read by the chunks whose events are still
+ * pending come out, as the relay adds them when it relays them. Transfers created after the cutoff whose
+ * events were already relayed go in, read from the outbox. The staging tables then replace the live ones.
+ */
+@Service
+@Slf4j
+public class StatisticsRecomputeServiceImpl implements StatisticsRecomputeService {
+
+    private static final String RECEIVER_STAGING = "tbl_statistics_recompute_receiver";
+    private static final String HOURLY_STAGING = "tbl_statistics_recompute_hourly";
+    private static final List<String> TRANSFER_EVENTS = List.of(TransferCompletedEvent.TYPE, TransferBatchCompletedEvent.TYPE);
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final StatisticsRecomputeRepository recomputeRepository;
+    private final StatisticsTotalRepository statisticsTotalRepository;
+    private final ReceiverStatisticsRepository receiverStatisticsRepository;
+    private final TransferVolumeRepository transferVolumeRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate chunkReader;
+    private final ObjectReader reader;
+    private final TransactionTemplate transactionTemplate;
+    private final String ownerId;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int chunksPerCheckpoint;
+    private final long graceMs;
+    private final Duration staleAfter;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "statistics-recompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${ezpay.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public StatisticsRecomputeServiceImpl(StatisticsRecomputeRepository recomputeRepository,
+                                          StatisticsTotalRepository statisticsTotalRepository,
+                                          ReceiverStatisticsRepository receiverStatisticsRepository,
+                                          TransferVolumeRepository transferVolumeRepository,
+                                          OutboxEventRepository outboxEventRepository,
+                                          TransactionRepository transactionRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          DataSource dataSource,
+                                          ObjectMapper objectMapper,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${ezpay.statistics.recompute.chunk-size:50000}") int chunkSize,
+                                          @Value("${ezpay.statistics.recompute.parallelism:0}") int parallelism,
+                                          @Value("${ezpay.statistics.recompute.chunks-per-checkpoint:0}") int chunksPerCheckpoint,
+                                          @Value("${ezpay.statistics.recompute.grace-ms:5000}") long graceMs,
+                                          @Value("${ezpay.statistics.recompute.stale-after-ms:120000}") long staleAfterMs) {
+        this.recomputeRepository = recomputeRepository;
+        this.statisticsTotalRepository = statisticsTotalRepository;
+        this.receiverStatisticsRepository = receiverStatisticsRepository;
+        this.transferVolumeRepository = transferVolumeRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkReader = new JdbcTemplate(dataSource);
+        this.chunkReader.setFetchSize(1000);
+        this.reader = objectMapper.reader();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ownerId = hostName() + ':' + ProcessHandle.current().pid();
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunksPerCheckpoint = chunksPerCheckpoint > 0 ? chunksPerCheckpoint : this.parallelism * 4;
+        this.graceMs = graceMs;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted run resumes from its last checkpoint once its heartbeat goes stale
+        coordinator.shutdownNow();
+    }
+
+    @Override
+    public RecomputeProgressResponse start() {
+        if (running.compareAndSet(false, true)) {
+            coordinator.execute(() -> {
+                try {
+                    run();
+                } catch (RuntimeException e) {
+                    log.error("Statistics recompute failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+        return getProgress();
+    }
+
+    @Override
+    public RecomputeProgressResponse recompute() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Statistics recompute is already running on this node");
+        }
+        try {
+            run();
+            return getProgress();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public RecomputeProgressResponse getProgress() {
+        return recomputeRepository.findById(StatisticsRecompute.JOB)
+                .map(StatisticsRecomputeServiceImpl::progressOf)
+                .orElseGet(() -> new RecomputeProgressResponse(null, 0L, 0L, 0L, 0.0, null, null, null, null));
+    }
+
+    private void run() {
+        StatisticsRecompute job = claim();
+        try {
+            readChunks(job);
+            finish(job);
+        } catch (RuntimeException e) {
+            String error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+            transactionTemplate.executeWithoutResult(status -> recomputeRepository.finish(StatisticsRecompute.JOB,
+                    ownerId, StatisticsRecompute.Status.FAILED.name(), LocalDateTime.now(), null,
+                    error.substring(0, Math.min(error.length(), 500))));
+            throw e;
+        }
+    }
+
+    // Takes the job row, then starts a new run or resumes the interrupted one
+    private StatisticsRecompute claim() {
+        LocalDateTime now = LocalDateTime.now();
+        StatisticsRecompute existing = recomputeRepository.findById(StatisticsRecompute.JOB).orElse(null);
+        if (existing == null) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> recomputeRepository.save(StatisticsRecompute.builder()
+                        .id(StatisticsRecompute.JOB)
+                        .status(StatisticsRecompute.Status.RUNNING)
+                        .ownerId(ownerId)
+                        .maxId(-1L)
+                        .chunkSize(chunkSize)
+                        .chunkCount(0L)
+                        .nextChunk(0L)
+                        .rowsRead(0L)
+                        .cutoff(now)
+                        .outboxWatermark(0L)
+                        .startedAt(now)
+                        .heartbeatAt(now)
+                        .build()));
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalStateException("Statistics recompute was started by another node", e);
+            }
+        } else if (transactionTemplate.execute(status -> recomputeRepository.claim(StatisticsRecompute.JOB, ownerId,
+                now, now.minus(staleAfter))) == 0) {
+            throw new IllegalStateException("Statistics recompute is running on another node");
+        }
+
+        // A job that never got past setup has no staging totals worth keeping
+        if (existing == null || existing.getStatus() == StatisticsRecompute.Status.COMPLETED || existing.getMaxId() < 0) {
+            initialize();
+        } else {
+            log.info("Resuming statistics recompute at chunk {} of {}", existing.getNextChunk(), existing.getChunkCount());
+        }
+        return recomputeRepository.findById(StatisticsRecompute.JOB).orElseThrow();
+    }
+
+    private void initialize() {
+        // Events up to the watermark were written before the cutoff, so the chunks read their transfers
+        long outboxWatermark = outboxEventRepository.findMaxId();
+        LocalDateTime cutoff = LocalDateTime.now();
+        try {
+            Thread.sleep(graceMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting the statistics recompute", e);
+        }
+        // Every transfer created before the cutoff has committed by now, so its id is at most this
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tbl_transaction", Long.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            StatisticsRecompute job = recomputeRepository.findById(StatisticsRecompute.JOB).orElseThrow();
+            if (!ownerId.equals(job.getOwnerId())) {
+                throw new IllegalStateException("Statistics recompute was taken over by another node");
+            }
+            jdbcTemplate.update("DELETE FROM " + RECEIVER_STAGING);
+            jdbcTemplate.update("DELETE FROM " + HOURLY_STAGING);
+            LocalDateTime now = LocalDateTime.now();
+            job.setMaxId(maxId);
+            job.setChunkSize(chunkSize);
+            job.setChunkCount(maxId / chunkSize + 1);
+            job.setNextChunk(0L);
+            job.setRowsRead(0L);
+            job.setCutoff(cutoff);
+            job.setOutboxWatermark(outboxWatermark);
+            job.setStartedAt(now);
+            job.setHeartbeatAt(now);
+            job.setFinishedAt(null);
+            job.setLastError(null);
+        });
+        log.info("Started statistics recompute of transaction ids up to {} created before {}", maxId, cutoff);
+    }
+
+    private void readChunks(StatisticsRecompute job) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long next = job.getNextChunk();
+            long rowsRead = job.getRowsRead();
+            long startedAt = System.nanoTime();
+            while (next < job.getChunkCount()) {
+                long waveEnd = Math.min(job.getChunkCount(), next + chunksPerCheckpoint);
+                Partial wave = pool.invoke(new ChunkTask(job, next, waveEnd));
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (recomputeRepository.checkpoint(StatisticsRecompute.JOB, ownerId, waveEnd, wave.rows,
+                            LocalDateTime.now()) == 0) {
+                        throw new IllegalStateException("Statistics recompute was taken over by another node");
+                    }
+                    addToStaging(wave.receivers, wave.hours);
+                });
+                next = waveEnd;
+                rowsRead += wave.rows;
+                double seconds = Math.max(1e-3, (System.nanoTime() - startedAt) / 1e9);
+                log.info("Statistics recompute: {}/{} chunks, {} rows read ({} rows/s)",
+                        next, job.getChunkCount(), rowsRead, Math.round((rowsRead - job.getRowsRead()) / seconds));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Partial readChunk(StatisticsRecompute job, long chunk) {
+        long fromId = chunk * job.getChunkSize();
+        long toId = Math.min(fromId + job.getChunkSize(), job.getMaxId() + 1);
+        Partial partial = new Partial();
+        // A range scan of the primary key; only three columns cross the wire
+        chunkReader.query("SELECT receiver_id, amount, created_at FROM tbl_transaction "
+                        + "WHERE id >= ? AND id < ? AND created_at < ?",
+                (RowCallbackHandler) rs -> partial.add(rs.getLong(1), rs.getLong(2),
+                        hourOf(rs.getObject(3, LocalDateTime.class))),
+                fromId, toId, job.getCutoff());
+        return partial;
+    }
+
+    private void finish(StatisticsRecompute job) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            // Waits for the relays in flight and holds new ones back until the rebuilt statistics replace the live ones
+            if (statisticsTotalRepository.lockForUpdate(StatisticsTotal.GLOBAL).isEmpty()) {
+                statisticsTotalRepository.insertEmpty(StatisticsTotal.GLOBAL, now);
+            }
+            LongSumMap receivers = new LongSumMap();
+            LongSumMap hours = new LongSumMap();
+            // Read by the chunks, but still to be added by the relay
+            for (OutboxEvent event : outboxEventRepository.findRelayable(maxAttempts, TRANSFER_EVENTS)) {
+                for (TransferCompletedEvent transfer : transfersOf(event.getEventType(), event.getPayload())) {
+                    LocalDateTime createdAt = createdAtOf(transfer);
+                    if (createdAt != null && createdAt.isBefore(job.getCutoff())) {
+                        receivers.add(transfer.receiverId(), -transfer.amount().minorUnits(), -1);
+                        hours.add(hourOf(createdAt), -transfer.amount().minorUnits(), -1);
+                    }
+                }
+            }
+            // Created after the cutoff, so no chunk read them, but already added by the relay
+            chunkReader.query("SELECT event_type, payload FROM tbl_outbox_event WHERE id > ? "
+                            + "AND published_at IS NOT NULL AND event_type IN (?, ?) ORDER BY id",
+                    (RowCallbackHandler) rs -> {
+                        for (TransferCompletedEvent transfer : transfersOf(rs.getString(1), rs.getString(2))) {
+                            LocalDateTime createdAt = createdAtOf(transfer);
+                            if (createdAt != null && !createdAt.isBefore(job.getCutoff())) {
+                                receivers.add(transfer.receiverId(), transfer.amount().minorUnits());
+                                hours.add(hourOf(createdAt), transfer.amount().minorUnits());
+                            }
+                        }
+                    },
+                    job.getOutboxWatermark(), TRANSFER_EVENTS.get(0), TRANSFER_EVENTS.get(1));
+            addToStaging(receivers, hours);
+
+            receiverStatisticsRepository.deleteAllInBatch();
+            jdbcTemplate.update("INSERT INTO tbl_receiver_statistics (receiver_id, total_received, transfer_count) "
+                    + "SELECT receiver_id, total_received, transfer_count FROM " + RECEIVER_STAGING
+                    + " WHERE transfer_count <> 0");
+            transferVolumeRepository.deleteAllInBatch();
+            jdbcTemplate.update("INSERT INTO tbl_transfer_volume_hourly (bucket_start, total_amount, transfer_count) "
+                    + "SELECT bucket_start, total_amount, transfer_count FROM " + HOURLY_STAGING
+                    + " WHERE transfer_count <> 0");
+            TransferTotals totals = receiverStatisticsRepository.sumAll();
+            StatisticsTotal current = statisticsTotalRepository.findById(StatisticsTotal.GLOBAL).orElseThrow();
+            statisticsTotalRepository.addTransfers(StatisticsTotal.GLOBAL,
+                    totals.getTotal() - current.getTotalTransferred().minorUnits(),
+                    totals.getCount() - current.getTransferCount(), now);
+            jdbcTemplate.update("DELETE FROM " + RECEIVER_STAGING);
+            jdbcTemplate.update("DELETE FROM " + HOURLY_STAGING);
+
+            if (recomputeRepository.finish(StatisticsRecompute.JOB, ownerId, StatisticsRecompute.Status.COMPLETED.name(),
+                    now, now, null) == 0) {
+                throw new IllegalStateException("Statistics recompute was taken over by another node");
+            }
+            log.info("Statistics recompute finished: {} transfers, {} in minor units", totals.getCount(), totals.getTotal());
+        });
+    }
+
+    private void addToStaging(LongSumMap receivers, LongSumMap hours) {
+        addToStaging(RECEIVER_STAGING, "receiver_id", "total_received", receivers, receiverId -> receiverId);
+        addToStaging(HOURLY_STAGING, "bucket_start", "total_amount", hours,
+                hour -> LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC));
+    }
+
+    // Only the job writes the staging tables, so keys the batched update missed can simply be inserted
+    private void addToStaging(String table, String keyColumn, String amountColumn, LongSumMap totals,
+                              LongFunction<Object> key) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((k, sum, count) -> rows.add(new Object[]{sum, count, key.apply(k)}));
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE " + table + " SET " + amountColumn + " = " + amountColumn
+                + " + ?, transfer_count = transfer_count + ? WHERE " + keyColumn + " = ?", rows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] row = rows.get(i);
+                missing.add(new Object[]{row[2], row[0], row[1]});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + keyColumn + ", " + amountColumn
+                    + ", transfer_count) VALUES (?, ?, ?)", missing);
+        }
+    }
+
+    private List<TransferCompletedEvent> transfersOf(String eventType, String payload) {
+        try {
+            return TransferCompletedEvent.TYPE.equals(eventType)
+                    ? List.of(reader.readValue(payload, TransferCompletedEvent.class))
+                    : reader.readValue(payload, TransferBatchCompletedEvent.class).transfers();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read transfer event", e);
+        }
+    }
+
+    // Events written before they carried createdAt are looked up
+    private LocalDateTime createdAtOf(TransferCompletedEvent transfer) {
+        return transfer.createdAt() != null ? transfer.createdAt()
+                : transactionRepository.findCreatedAtById(transfer.transactionId()).orElse(null);
+    }
+
+    private static long hourOf(LocalDateTime createdAt) {
+        return Math.floorDiv(createdAt.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static RecomputeProgressResponse progressOf(StatisticsRecompute job) {
+        boolean completed = job.getStatus() == StatisticsRecompute.Status.COMPLETED;
+        double percentDone = completed ? 100.0
+                : job.getChunkCount() == 0 ? 0.0 : 100.0 * job.getNextChunk() / job.getChunkCount();
+        return new RecomputeProgressResponse(job.getStatus().name(), job.getNextChunk(), job.getChunkCount(),
+                job.getRowsRead(), percentDone, job.getStartedAt(), job.getHeartbeatAt(), job.getFinishedAt(),
+                job.getLastError());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    /**
+     * Reads the chunks [from, to) by splitting the range until each task holds one chunk
+     */
+    private final class ChunkTask extends RecursiveTask<Partial> {
+
+        private final StatisticsRecompute job;
+        private final long from;
+        private final long to;
+
+        private ChunkTask(StatisticsRecompute job, long from, long to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from == 1) {
+                return readChunk(job, from);
+            }
+            long middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(job, from, middle);
+            left.fork();
+            Partial right = new ChunkTask(job, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Amount and number of transfers per receiver id and per hour (hours since the epoch)
+     */
+    private static final class Partial {
+        private final LongSumMap receivers = new LongSumMap(1024);
+        private final LongSumMap hours = new LongSumMap(64);
+        private long rows;
+
+        private void add(long receiverId, long amountMinor, long hour) {
+            receivers.add(receiverId, amountMinor);
+            hours.add(hour, amountMinor);
+            rows++;
+        }
+
+        // Folds the smaller maps into the larger ones
+        private Partial merge(Partial other) {
+            if (other.receivers.size() > receivers.size()) {
+                return other.merge(this);
+            }
+            receivers.addAll(other.receivers);
+            hours.addAll(other.hours);
+            rows += other.rows;
+            return this;
+        }
+    }
+}
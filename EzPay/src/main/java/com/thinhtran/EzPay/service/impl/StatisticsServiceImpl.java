@@ -0,0 +1,228 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.entity.StatisticsTotal;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+import com.thinhtran.EzPay.service.SpendingSummaryService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TopReceiverService;
+import com.thinhtran.EzPay.service.TransferVolumeService;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics are running totals that the outbox relay adds each committed transfer to, inside the
+ * transaction that marks its statistics event published, so every transfer is counted exactly once
+ * and transfers themselves never touch a shared row. Reading them is one row plus the head of the
+ * receiver index. Totals lag commits by the relay delay; a transfer whose event exhausts its relay
+ * attempts is not counted until the event is retried.
+ *
+ * <p>This class keeps the one totals row and the order the relay writes in; the per-receiver totals
+ * and window rankings ({@link TopReceiverService}), the hourly volume ({@link TransferVolumeService})
+ * and the monthly rollups ({@link SpendingSummaryService}) are added to by their own services.
+ *
+ * <p>Relays do not queue behind one another for the whole of their statistics writes. Each takes a
+ * shared lock on the totals row first (FOR KEY SHARE; H2 has no shared row locks, so there it is FOR
+ * UPDATE and relays take turns), writes the per-receiver, monthly and hourly rows in key order, and
+ * updates the totals row last, so the one row every relay writes is held only until its commit.
+ *
+ * <p>Seeding and the recompute job (see {@link StatisticsRecomputeServiceImpl}) lock the totals row
+ * FOR UPDATE, which waits for the relays in flight and holds back new ones until they commit. The
+ * totals are seeded from tbl_transaction before this node starts relaying, leaving out the transfers
+ * whose events are still waiting for the relay: those are added when they are relayed. The table and
+ * the pending events are read in one SERIALIZABLE snapshot, so a transfer committing in between is
+ * either in the table and already relayed, or in neither and left to the relay.
+ */
+@Service
+@Slf4j
+public class StatisticsServiceImpl implements StatisticsService {
+
+    // A relay that commits its update of the totals row while a seed waits for it fails the seed's
+    // transaction; the seed then starts over behind it
+    private static final int SEED_ATTEMPTS = 5;
+
+    private final StatisticsTotalRepository statisticsTotalRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionRepository transactionRepository;
+    private final TopReceiverService topReceiverService;
+    private final TransferVolumeService transferVolumeService;
+    private final SpendingSummaryService spendingSummaryService;
+    private final ObjectReader reader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate seedTemplate;
+    private boolean keyShareLocks;
+
+    @Value("${ezpay.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public StatisticsServiceImpl(StatisticsTotalRepository statisticsTotalRepository,
+                                 OutboxEventRepository outboxEventRepository,
+                                 TransactionRepository transactionRepository,
+                                 TopReceiverService topReceiverService,
+                                 TransferVolumeService transferVolumeService,
+                                 SpendingSummaryService spendingSummaryService,
+                                 ObjectMapper objectMapper,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
+        this.statisticsTotalRepository = statisticsTotalRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionRepository = transactionRepository;
+        this.topReceiverService = topReceiverService;
+        this.transferVolumeService = transferVolumeService;
+        this.spendingSummaryService = spendingSummaryService;
+        this.reader = objectMapper.reader();
+        this.jdbcTemplate = jdbcTemplate;
+        // Its own transaction, even when a relay finds the totals missing, so the relay's event still reads as pending
+        this.seedTemplate = new TransactionTemplate(transactionManager);
+        this.seedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // H2 takes its REPEATABLE READ snapshot of each table as it is first read; SERIALIZABLE takes one of
+        // everything at the first statement, as PostgreSQL does at both levels, and any failure it raises is retried
+        this.seedTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    // Runs before scheduling starts, so no relay on this node is adding to the totals yet
+    @PostConstruct
+    public void seedOnStartup() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        keyShareLocks = "PostgreSQL".equals(product);
+        if (seedIfAbsent()) {
+            log.info("Seeded transfer statistics from tbl_transaction");
+        }
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordTransfers(List<TransferCompletedEvent> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        if (!lockTotalsForRelay()) {
+            // These events are still unpublished, so the seed leaves them out and they are added below
+            seedIfAbsent();
+            if (!lockTotalsForRelay()) {
+                throw new IllegalStateException("Transfer statistics totals are missing after seeding");
+            }
+        }
+        // Every relay writes the rows in this order, so relays sharing rows wait for each other but never deadlock
+        topReceiverService.recordTransfers(transfers);
+        spendingSummaryService.recordTransfers(transfers);
+        transferVolumeService.recordTransfers(transfers);
+        long totalMinor = transfers.stream().mapToLong(transfer -> transfer.amount().minorUnits()).sum();
+        statisticsTotalRepository.addTransfers(StatisticsTotal.GLOBAL, totalMinor, transfers.size(), LocalDateTime.now());
+    }
+
+    @Override
+    public StatisticsResponse getStatistics() {
+        StatisticsTotal totals = statisticsTotalRepository.findById(StatisticsTotal.GLOBAL).orElse(null);
+        if (totals == null) {
+            // Not seeded (yet): answer from the table rather than write on a read
+            return aggregateFromTransactions();
+        }
+        return new StatisticsResponse(totals.getTotalTransferred(), totals.getTransferCount().intValue(),
+                topReceiverService.getTopReceivers());
+    }
+
+    @Override
+    public StatisticsResponse getStatistics(Window window) {
+        return window == Window.ALL ? getStatistics() : topReceiverService.getStatistics(window);
+    }
+
+    @Override
+    public StatisticsResponse aggregateFromTransactions() {
+        TransferTotals totals = transactionRepository.sumTransfers();
+        return new StatisticsResponse(Money.ofMinor(totals.getTotal()), totals.getCount().intValue(),
+                topReceiverService.aggregateFromTransactions());
+    }
+
+    @Override
+    public boolean seedIfAbsent() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return Boolean.TRUE.equals(seedTemplate.execute(status -> seedUnderLock()));
+            } catch (DataIntegrityViolationException e) {
+                // Another node inserted the totals row first and seeded them
+                return false;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == SEED_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Statistics seed raced a relay, retrying: {}", e.getMessage());
+            }
+        }
+    }
+
+    // The lock is the first statement, so every read after it sees the one snapshot taken once relays are held off
+    private boolean seedUnderLock() {
+        if (statisticsTotalRepository.lockForUpdate(StatisticsTotal.GLOBAL).isEmpty()) {
+            seed();
+            return true;
+        }
+        // Rollups added after the totals were seeded are seeded on their own
+        if (spendingSummaryService.isSeeded()) {
+            return false;
+        }
+        spendingSummaryService.seed(pendingTransfers());
+        return true;
+    }
+
+    private boolean lockTotalsForRelay() {
+        return (keyShareLocks
+                ? statisticsTotalRepository.lockForKeyShare(StatisticsTotal.GLOBAL)
+                : statisticsTotalRepository.lockForUpdate(StatisticsTotal.GLOBAL)).isPresent();
+    }
+
+    private void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        // Inserting the row first makes a concurrent seed fail on the primary key instead of double counting
+        statisticsTotalRepository.insertEmpty(StatisticsTotal.GLOBAL, now);
+        List<TransferCompletedEvent> pending = pendingTransfers();
+        TransferTotals totals = topReceiverService.seed(pending);
+        transferVolumeService.seed(pending);
+        spendingSummaryService.seed(pending);
+        statisticsTotalRepository.addTransfers(StatisticsTotal.GLOBAL, totals.getTotal(), totals.getCount(), now);
+    }
+
+    private List<TransferCompletedEvent> pendingTransfers() {
+        List<TransferCompletedEvent> transfers = new ArrayList<>();
+        List<OutboxEvent> events = outboxEventRepository.findRelayable(maxAttempts,
+                List.of(TransferCompletedEvent.TYPE, TransferBatchCompletedEvent.TYPE));
+        try {
+            for (OutboxEvent event : events) {
+                if (TransferCompletedEvent.TYPE.equals(event.getEventType())) {
+                    transfers.add(reader.readValue(event.getPayload(), TransferCompletedEvent.class));
+                } else {
+                    transfers.addAll(reader.readValue(event.getPayload(), TransferBatchCompletedEvent.class).transfers());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read pending transfer events", e);
+        }
+        return transfers;
+    }
+}
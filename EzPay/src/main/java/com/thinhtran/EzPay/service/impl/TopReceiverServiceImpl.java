@@ -0,0 +1,115 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.AccountRef;
+import com.thinhtran.EzPay.repository.projection.ReceiverTotalRow;
+import com.thinhtran.EzPay.repository.projection.TransferTotals;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TopReceiverService;
+import com.thinhtran.EzPay.service.TopReceiverSketch;
+import com.thinhtran.EzPay.util.CounterRows;
+import com.thinhtran.EzPay.util.SpaceSaving;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * All-time totals per receiver, added to by the relay one row per receiver in key order, so the
+ * ranking is the head of the receiver index. The shorter windows are ranked approximately by
+ * {@link TopReceiverSketch}, which the relay feeds after it commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class TopReceiverServiceImpl implements TopReceiverService {
+
+    private static final int TOP_RECEIVERS = 10;
+    private static final String INSERT_RECEIVER = "INSERT INTO tbl_receiver_statistics "
+            + "(receiver_id, total_received, transfer_count) VALUES (?, ?, ?)";
+
+    private final ReceiverStatisticsRepository receiverStatisticsRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final TopReceiverSketch topReceiverSketch;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordTransfers(List<TransferCompletedEvent> transfers) {
+        byReceiver(transfers).forEach((receiverId, received) -> CounterRows.addOrInsert(jdbcTemplate,
+                () -> receiverStatisticsRepository.addTransfers(receiverId, received[0], received[1]),
+                INSERT_RECEIVER, receiverId, received[0], received[1]));
+        topReceiverSketch.recordAfterCommit(transfers);
+    }
+
+    @Override
+    public List<StatisticsResponse.TopReceiverResponse> getTopReceivers() {
+        return topReceivers(receiverStatisticsRepository.findTopReceivers(TOP_RECEIVERS));
+    }
+
+    @Override
+    public List<StatisticsResponse.TopReceiverResponse> aggregateFromTransactions() {
+        return topReceivers(transactionRepository.findTopReceivers(TOP_RECEIVERS));
+    }
+
+    @Override
+    public StatisticsResponse getStatistics(StatisticsService.Window window) {
+        SpaceSaving summary = topReceiverSketch.summarize(window);
+        List<SpaceSaving.Estimate> top = summary.top(TOP_RECEIVERS);
+        Map<Long, AccountRef> accounts = userRepository
+                .findAccountRefsByIdIn(top.stream().map(SpaceSaving.Estimate::key).toList()).stream()
+                .collect(Collectors.toMap(AccountRef::id, Function.identity()));
+        List<StatisticsResponse.TopReceiverResponse> receivers = top.stream()
+                .filter(estimate -> accounts.containsKey(estimate.key()))
+                .map(estimate -> new StatisticsResponse.TopReceiverResponse(
+                        accounts.get(estimate.key()).userName(),
+                        accounts.get(estimate.key()).fullName(),
+                        Money.ofMinor(estimate.weight()),
+                        (int) estimate.count(),
+                        Money.ofMinor(estimate.error())))
+                .toList();
+        return new StatisticsResponse(Money.ofMinor(summary.totalWeight()), (int) summary.totalCount(), receivers);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public TransferTotals seed(List<TransferCompletedEvent> pending) {
+        receiverStatisticsRepository.deleteAllInBatch();
+        receiverStatisticsRepository.insertFromTransactions();
+        byReceiver(pending).forEach((receiverId, received) ->
+                receiverStatisticsRepository.addTransfers(receiverId, -received[0], -received[1]));
+        return receiverStatisticsRepository.sumAll();
+    }
+
+    // Sorted by receiver id, the order every relay writes the rows in
+    private static Map<Long, long[]> byReceiver(List<TransferCompletedEvent> transfers) {
+        Map<Long, long[]> byReceiver = new TreeMap<>();
+        for (TransferCompletedEvent transfer : transfers) {
+            long[] received = byReceiver.computeIfAbsent(transfer.receiverId(), id -> new long[2]);
+            received[0] += transfer.amount().minorUnits();
+            received[1]++;
+        }
+        return byReceiver;
+    }
+
+    private static List<StatisticsResponse.TopReceiverResponse> topReceivers(List<ReceiverTotalRow> rows) {
+        return rows.stream()
+                .map(row -> new StatisticsResponse.TopReceiverResponse(
+                        row.getUsername(),
+                        row.getFullName(),
+                        Money.ofMinor(row.getTotalReceived()),
+                        row.getTransferCount().intValue()))
+                .toList();
+    }
+}
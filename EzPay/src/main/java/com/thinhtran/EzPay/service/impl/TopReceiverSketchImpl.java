@@ -0,0 +1,248 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.TopReceiverSnapshot;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.TopReceiverSnapshotRepository;
+import com.thinhtran.EzPay.service.StatisticsService.Window;
+import com.thinhtran.EzPay.service.TopReceiverSketch;
+import com.thinhtran.EzPay.util.AfterCommit;
+import com.thinhtran.EzPay.util.SpaceSaving;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a {@link SpaceSaving} summary of the amount received per receiver for every slot of the hour
+ * and day windows; a window is the merge of its live slots. With {@code capacity} counters a receiver's
+ * total over a window is overstated by at most the window's volume / capacity, and every receiver with
+ * more than that share of the volume is listed. Each transfer costs one O(log capacity) update per window.
+ *
+ * <p>A node only sees the transfers it relays. Changed slots are written to tbl_top_receiver_snapshot
+ * every {@code snapshot-interval-ms} and on shutdown. On start a node restores its own slots, so after
+ * a crash it misses at most the transfers relayed since its last snapshot. A window merges in the other
+ * nodes' snapshots, which lag by up to one interval. The node id has to stay the same across restarts;
+ * it defaults to the host name.
+ */
+@Service
+@Slf4j
+public class TopReceiverSketchImpl implements TopReceiverSketch {
+
+    private static final List<Window> WINDOWS = List.of(Window.HOUR, Window.DAY);
+    private static final TypeReference<List<SpaceSaving.Estimate>> ESTIMATES = new TypeReference<>() {
+    };
+
+    private final TopReceiverSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final String nodeId;
+    private final Map<Window, Slot[]> slots = new EnumMap<>(Window.class);
+
+    public TopReceiverSketchImpl(TopReceiverSnapshotRepository snapshotRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${ezpay.statistics.sketch.capacity:1000}") int capacity,
+                                 @Value("${ezpay.statistics.sketch.node-id:}") String nodeId) {
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.nodeId = nodeId.isBlank() ? hostName() : nodeId;
+        for (Window window : WINDOWS) {
+            Slot[] ring = new Slot[window.getSlots()];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Slot();
+            }
+            slots.put(window, ring);
+        }
+    }
+
+    // Runs before scheduling starts, so the relay is not adding to the slots yet
+    @PostConstruct
+    public void restore() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TopReceiverSnapshot> saved = snapshotRepository.findByNodeIdAndExpiresAtAfter(nodeId, now);
+        synchronized (this) {
+            for (TopReceiverSnapshot snapshot : saved) {
+                Window window = Window.valueOf(snapshot.getWindowName());
+                Slot slot = slotFor(window, snapshot.getSlotNo(), slotNo(window, now));
+                if (slot != null) {
+                    slot.summary = summaryOf(snapshot);
+                }
+            }
+        }
+        if (!saved.isEmpty()) {
+            log.info("Restored {} top receiver summary slots of node {}", saved.size(), nodeId);
+        }
+    }
+
+    @Override
+    public void recordAfterCommit(List<TransferCompletedEvent> transfers) {
+        List<TransferCompletedEvent> relayed = List.copyOf(transfers);
+        AfterCommit.run(() -> record(relayed));
+    }
+
+    @Override
+    public SpaceSaving summarize(Window window) {
+        if (!slots.containsKey(window)) {
+            throw new IllegalArgumentException("No summary is kept for window " + window);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<SpaceSaving> parts = new ArrayList<>();
+        for (TopReceiverSnapshot snapshot : snapshotRepository
+                .findByWindowNameAndNodeIdNotAndExpiresAtAfter(window.name(), nodeId, now)) {
+            parts.add(summaryOf(snapshot));
+        }
+        long current = slotNo(window, now);
+        // Merged under the lock: the live summaries keep changing
+        synchronized (this) {
+            for (Slot slot : slots.get(window)) {
+                if (isLive(window, slot.no, current)) {
+                    parts.add(slot.summary);
+                }
+            }
+            return SpaceSaving.merge(capacity, parts);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ezpay.statistics.sketch.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        List<TopReceiverSnapshot> changed = new ArrayList<>();
+        List<Copied> copied = new ArrayList<>();
+        synchronized (this) {
+            for (Window window : WINDOWS) {
+                for (Slot slot : slots.get(window)) {
+                    if (slot.changes != slot.savedChanges) {
+                        changed.add(snapshotOf(window, slot));
+                        copied.add(new Copied(slot, slot.no, slot.changes));
+                    }
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            snapshotRepository.saveAll(changed);
+            snapshotRepository.deleteExpired(LocalDateTime.now());
+        });
+        synchronized (this) {
+            for (Copied written : copied) {
+                // A slot reused since it was copied stays due for the next snapshot, as do later additions
+                if (written.slot().no == written.no()) {
+                    written.slot().savedChanges = written.changes();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Could not snapshot top receiver summaries on shutdown", e);
+        }
+    }
+
+    private synchronized void record(List<TransferCompletedEvent> transfers) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Window window : WINDOWS) {
+            long current = slotNo(window, now);
+            for (TransferCompletedEvent transfer : transfers) {
+                // Events written before they carried createdAt count as created now
+                LocalDateTime createdAt = transfer.createdAt() != null ? transfer.createdAt() : now;
+                Slot slot = slotFor(window, Math.min(slotNo(window, createdAt), current), current);
+                if (slot != null) {
+                    slot.summary.add(transfer.receiverId(), transfer.amount().minorUnits());
+                    slot.changes++;
+                }
+            }
+        }
+    }
+
+    // The ring slot holding slot number no, emptied first if it held an older slot; null once no has left the window
+    private Slot slotFor(Window window, long no, long current) {
+        if (!isLive(window, no, current)) {
+            return null;
+        }
+        Slot slot = slots.get(window)[(int) Math.floorMod(no, (long) window.getSlots())];
+        if (slot.no != no) {
+            slot.no = no;
+            slot.summary = new SpaceSaving(capacity);
+            slot.changes = 0;
+            slot.savedChanges = 0;
+        }
+        return slot;
+    }
+
+    private static boolean isLive(Window window, long no, long current) {
+        return no <= current && no > current - window.getSlots();
+    }
+
+    private static long slotNo(Window window, LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), window.getSlotLength().toSeconds());
+    }
+
+    private TopReceiverSnapshot snapshotOf(Window window, Slot slot) {
+        long slotSeconds = window.getSlotLength().toSeconds();
+        try {
+            return TopReceiverSnapshot.builder()
+                    .id(nodeId + ':' + window.name() + ':' + slot.no)
+                    .nodeId(nodeId)
+                    .windowName(window.name())
+                    .slotNo(slot.no)
+                    .totalAmount(Money.ofMinor(slot.summary.totalWeight()))
+                    .transferCount(slot.summary.totalCount())
+                    .absentBound(slot.summary.maxError())
+                    .counters(objectMapper.writeValueAsString(slot.summary.estimates()))
+                    .expiresAt(LocalDateTime.ofEpochSecond((slot.no + window.getSlots()) * slotSeconds, 0, ZoneOffset.UTC))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize top receiver summary", e);
+        }
+    }
+
+    private SpaceSaving summaryOf(TopReceiverSnapshot snapshot) {
+        try {
+            return SpaceSaving.restore(capacity, snapshot.getTotalAmount().minorUnits(), snapshot.getTransferCount(),
+                    snapshot.getAbsentBound(), objectMapper.readValue(snapshot.getCounters(), ESTIMATES));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read top receiver snapshot " + snapshot.getId(), e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    private record Copied(Slot slot, long no, long changes) {
+    }
+
+    private static final class Slot {
+        private long no = Long.MIN_VALUE;
+        private SpaceSaving summary;
+        private long changes;
+        private long savedChanges;
+    }
+}
@@ -0,0 +1,228 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.service.TransactionPartitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps tbl_transaction range-partitioned by month on created_at (PostgreSQL only). Hibernate cannot
+ * create a partitioned table, so the plain table it creates has to be converted once; after that
+ * partitions are created {@code months-ahead} in advance and, when {@code retention-months} is set,
+ * months older than that are detached into archive tables. Inserts into a month without a partition
+ * fail, which is why the daily job runs ahead.
+ *
+ * <p>The conversion copies every row while holding an exclusive lock on tbl_transaction, so transfers
+ * and history reads wait for the whole copy. It is a migration step: it only runs on startup when
+ * {@code convert-on-startup} is set, meant for one node started in a maintenance window; otherwise
+ * an unpartitioned table is reported and left alone. Conversion and maintenance take a transaction
+ * level advisory lock and re-check the table under it, so nodes starting or running the daily job
+ * together take turns, and only the first converts.
+ *
+ * <p>The primary key becomes (id, created_at), as PostgreSQL requires the partition key in every
+ * unique constraint. Ids still come from the sequence, so they stay unique.
+ *
+ * <p>A detached month is no longer part of tbl_transaction. Its rows stay in the archive table,
+ * but history pages, exports, the SQL statistics aggregation and the statistics recompute job all
+ * read tbl_transaction, so for them those transfers are gone. Running totals already counted stay
+ * as they are; a recompute afterwards leaves the archived months out. Balances are unaffected, as
+ * they come from the ledger postings. Re-attaching an archive table brings the month back.
+ */
+@Service
+@ConditionalOnProperty(name = "ezpay.transaction.partitioning.enabled", havingValue = "true")
+@Slf4j
+public class TransactionPartitionServiceImpl implements TransactionPartitionService {
+
+    static final String TABLE = "tbl_transaction";
+    private static final String LEGACY_TABLE = "tbl_transaction_unpartitioned";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{4})_(\\d{2})");
+    // Arbitrary key shared by every node for partition DDL on tbl_transaction
+    private static final long DDL_LOCK = 0x657a_7061_7274L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean convertOnStartup;
+
+    public TransactionPartitionServiceImpl(JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${ezpay.transaction.partitioning.months-ahead:3}") int monthsAhead,
+                                           @Value("${ezpay.transaction.partitioning.retention-months:0}") int retentionMonths,
+                                           @Value("${ezpay.transaction.partitioning.convert-on-startup:false}") boolean convertOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.convertOnStartup = convertOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepare() {
+        if (!isPostgres()) {
+            log.warn("Transaction partitioning needs PostgreSQL; leaving {} unpartitioned", TABLE);
+            return;
+        }
+        if (convertOnStartup) {
+            convertToPartitioned();
+        } else if (!isPartitioned()) {
+            log.warn("{} is not partitioned; convert it by starting one node with "
+                    + "ezpay.transaction.partitioning.convert-on-startup=true in a maintenance window", TABLE);
+            return;
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${ezpay.transaction.partitioning.cron:0 15 1 * * *}")
+    public void maintain() {
+        if (!isPostgres() || !isPartitioned()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lockDdl();
+            YearMonth now = YearMonth.now();
+            List<String> created = createPartitions(now, now.plusMonths(monthsAhead));
+            if (!created.isEmpty()) {
+                log.info("Created transaction partitions {}", created);
+            }
+            if (retentionMonths > 0) {
+                List<String> archived = detachPartitionsBefore(now.minusMonths(retentionMonths));
+                if (!archived.isEmpty()) {
+                    log.info("Archived transaction partitions as {}", archived);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)",
+                Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public void convertToPartitioned() {
+        if (isPartitioned()) {
+            return;
+        }
+        // One transaction: PostgreSQL DDL is transactional, so a failed copy leaves the plain table as it was.
+        // Transfers block on the table lock until the copy commits.
+        transactionTemplate.executeWithoutResult(status -> {
+            lockDdl();
+            // Another node may have converted the table while this one waited for the lock
+            if (isPartitioned()) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + TABLE + "_pkey RENAME TO " + LEGACY_TABLE + "_pkey");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_transaction_sender_created");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_transaction_receiver_created");
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE + " INCLUDING DEFAULTS,"
+                    + " PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD FOREIGN KEY (sender_id) REFERENCES tbl_user (id)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD FOREIGN KEY (receiver_id) REFERENCES tbl_user (id)");
+            // Indexes on the parent are created on every partition, current and future
+            jdbcTemplate.execute("CREATE INDEX idx_transaction_sender_created ON " + TABLE
+                    + " (sender_id, created_at DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_transaction_receiver_created ON " + TABLE
+                    + " (receiver_id, created_at DESC, id DESC)");
+
+            Timestamp oldest = jdbcTemplate.queryForObject("SELECT min(created_at) FROM " + LEGACY_TABLE, Timestamp.class);
+            YearMonth now = YearMonth.now();
+            YearMonth from = oldest == null ? now : YearMonth.from(oldest.toLocalDateTime());
+            createPartitions(from, now.plusMonths(monthsAhead));
+            int copied = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + LEGACY_TABLE);
+            jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+            log.info("Partitioned {} by month, {} rows copied", TABLE, copied);
+        });
+    }
+
+    @Override
+    public List<String> createPartitions(YearMonth from, YearMonth through) {
+        Set<YearMonth> existing = attachedMonths();
+        List<String> created = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(through); month = month.plusMonths(1)) {
+            if (existing.contains(month)) {
+                continue;
+            }
+            String partition = partitionName(month);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            created.add(partition);
+        }
+        return created;
+    }
+
+    @Override
+    public List<String> detachPartitionsBefore(YearMonth cutoff) {
+        List<String> archived = new ArrayList<>();
+        for (YearMonth month : attachedMonths()) {
+            if (!month.isBefore(cutoff)) {
+                break;
+            }
+            String archive = TABLE + "_archive_" + month.format(SUFFIX);
+            // Plain DETACH briefly takes an exclusive lock on the parent; the month's rows are untouched
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partitionName(month));
+                jdbcTemplate.execute("ALTER TABLE " + partitionName(month) + " RENAME TO " + archive);
+            });
+            log.warn("Detached {} as {}: its transfers no longer appear in history, exports or statistics recomputes",
+                    partitionName(month), archive);
+            archived.add(archive);
+        }
+        return archived;
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(SUFFIX);
+    }
+
+    private Set<YearMonth> attachedMonths() {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, TABLE);
+        Set<YearMonth> months = new TreeSet<>();
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+
+    // Held until the surrounding transaction ends
+    private void lockDdl() {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {
+        }, DDL_LOCK);
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+}
@@ -1,114 +1,286 @@
 package com.thinhtran.EzPay.service.impl;
 
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
 import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.BatchTransferResponse;
 import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
 import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.exception.BusinessException;
 import com.thinhtran.EzPay.exception.InsufficientBalanceException;
 import com.thinhtran.EzPay.exception.UserNotFoundException;
 import com.thinhtran.EzPay.exception.ValidationException;
-import com.thinhtran.EzPay.entity.NotificationType;
 import com.thinhtran.EzPay.repository.TransactionRepository;
 import com.thinhtran.EzPay.repository.UserRepository;
-import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.repository.projection.AccountRef;
+import com.thinhtran.EzPay.repository.projection.HistoryEntry;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.RecentHistoryCache;
+import com.thinhtran.EzPay.service.StatisticsService;
 import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.util.HistoryCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final Money MAX_TOP_UP_AMOUNT = Money.ofMajor(10_000_000); // 10 million
+    private static final Money MAX_BALANCE = Money.parse("999999999.99");
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
-    private final NotificationService notificationService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecentHistoryCache recentHistoryCache;
+    private final StatisticsService statisticsService;
 
     @Override
     @Transactional
-    public void transfer(String senderUsername, TransferRequest request) {
+    public TransactionResponse transfer(String senderUsername, TransferRequest request) {
+        return doTransfer(senderUsername, request);
+    }
+
+    // Business rule violations are all raised before the first write, so the caller's transaction
+    // can report a rejected transfer and keep the others
+    @Override
+    @Transactional(value = Transactional.TxType.MANDATORY, dontRollbackOn = BusinessException.class)
+    public TransactionResponse transferWithinTransaction(String senderUsername, TransferRequest request) {
+        return doTransfer(senderUsername, request);
+    }
+
+    private TransactionResponse doTransfer(String senderUsername, TransferRequest request) {
         // Business validation
         if (request.getAmount() == null) {
             throw new ValidationException("Amount cannot be null");
         }
-        if (request.getAmount() <= 0) {
+        Money amount = request.getAmount();
+        if (!amount.isPositive()) {
             throw new ValidationException("Amount must be positive");
         }
         
-        var sender = userRepository.findByUserName(senderUsername)
-                .orElseThrow(() -> new UserNotFoundException(senderUsername));
-        var receiver = userRepository.findByUserName(request.getReceiverUsername())
-                .orElseThrow(() -> new UserNotFoundException(request.getReceiverUsername()));
+        // One round trip resolves both parties
+        var accounts = userRepository.findAccountRefsByUserNameIn(
+                        List.of(senderUsername, request.getReceiverUsername())).stream()
+                .collect(Collectors.toMap(AccountRef::userName, Function.identity()));
+        AccountRef sender = accounts.get(senderUsername);
+        if (sender == null) {
+            throw new UserNotFoundException(senderUsername);
+        }
+        AccountRef receiver = accounts.get(request.getReceiverUsername());
+        if (receiver == null) {
+            throw new UserNotFoundException(request.getReceiverUsername());
+        }
 
         // Validate sender cannot transfer to themselves
-        if (sender.getId().equals(receiver.getId())) {
+        if (sender.id().equals(receiver.id())) {
             throw new ValidationException("Cannot transfer to yourself");
         }
 
-        // Check balance
-        if (sender.getBalance() < request.getAmount()) {
-            throw new InsufficientBalanceException(sender.getBalance(), request.getAmount());
+        // Only the sender's row is locked to check funds; the credit is an appended posting, so a
+        // popular receiver never becomes a point of contention
+        Money available = ledgerService.lockAvailableBalance(sender.id());
+        if (available.isLessThan(amount)) {
+            throw new InsufficientBalanceException(available, amount);
         }
 
-        // Perform transfer
-        sender.setBalance(sender.getBalance() - request.getAmount());
-        receiver.setBalance(receiver.getBalance() + request.getAmount());
-
         var transaction = Transaction.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(request.getAmount())
+                .sender(userRepository.getReferenceById(sender.id()))
+                .receiver(userRepository.getReferenceById(receiver.id()))
+                .amount(amount)
                 .message(request.getMessage())
                 .createdAt(LocalDateTime.now())
                 .build();
 
         Transaction savedTransaction = transactionRepository.save(transaction);
-        userRepository.save(sender);
-        userRepository.save(receiver);
-
-        // Send notifications
-        String senderMessage = String.format("Bạn đã chuyển %.0f VND cho %s", 
-                request.getAmount(), receiver.getFullName());
-        String receiverMessage = String.format("Bạn đã nhận %.0f VND từ %s", 
-                request.getAmount(), sender.getFullName());
-
-        notificationService.createAndSendNotification(
-                sender.getId(),
-                NotificationType.TRANSFER_SENT,
-                "Chuyển tiền thành công",
-                senderMessage,
-                savedTransaction.getId()
-        );
+        ledgerService.postTransfers(List.of(savedTransaction));
 
-        notificationService.createAndSendNotification(
-                receiver.getId(),
-                NotificationType.TRANSFER_RECEIVED,
-                "Nhận tiền",
-                receiverMessage,
-                savedTransaction.getId()
+        // The outbox rows commit or roll back with the transfer; the relay counts it and delivers the notifications
+        var event = new TransferCompletedEvent(
+                savedTransaction.getId(),
+                sender.id(),
+                sender.fullName(),
+                receiver.id(),
+                receiver.fullName(),
+                amount,
+                savedTransaction.getCreatedAt(),
+                sender.userName(),
+                receiver.userName()
         );
+        outboxService.append(List.of(TransferCompletedEvent.TYPE, TransferCompletedEvent.NOTIFICATION_TYPE),
+                savedTransaction.getId(), event);
+        eventPublisher.publishEvent(event);
+        recentHistoryCache.recordAfterCommit(historyEntry(savedTransaction, sender, receiver));
+
+        var response = new TransactionResponse();
+        response.setSenderUsername(sender.userName());
+        response.setReceiverUsername(receiver.userName());
+        response.setAmount(amount);
+        response.setMessage(transaction.getMessage());
+        response.setCreatedAt(transaction.getCreatedAt());
+        return response;
     }
 
     @Override
-    public List<TransactionResponse> getHistory(String username) {
-        var user = userRepository.findByUserName(username)
-                .orElseThrow(() -> new UserNotFoundException(username));
-        var list = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(user, user);
+    @Transactional
+    public BatchTransferResponse transferBatch(String senderUsername, BatchTransferRequest request) {
+        List<TransferRequest> legs = request.getTransfers();
+        if (legs == null || legs.isEmpty()) {
+            throw new ValidationException("At least one transfer is required");
+        }
+
+        // One statement resolves the sender and every receiver; only the sender's row is locked
+        Set<String> userNames = new HashSet<>();
+        userNames.add(senderUsername);
+        legs.forEach(leg -> userNames.add(leg.getReceiverUsername()));
+        Map<String, AccountRef> accounts = userRepository.findAccountRefsByUserNameIn(userNames).stream()
+                .collect(Collectors.toMap(AccountRef::userName, Function.identity()));
+        AccountRef sender = accounts.get(senderUsername);
+        if (sender == null) {
+            throw new UserNotFoundException(senderUsername);
+        }
+        Money balance = ledgerService.lockAvailableBalance(sender.id());
+
+        // Legs are applied in order against the locked balance; a failing leg is reported and skipped
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchTransferResponse.LegResult> results = new ArrayList<>(legs.size());
+        List<BatchTransferResponse.LegResult> succeeded = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<AccountRef> receivers = new ArrayList<>();
+        long totalMinor = 0;
+        for (int i = 0; i < legs.size(); i++) {
+            TransferRequest leg = legs.get(i);
+            Money amount = leg.getAmount();
+            AccountRef receiver = accounts.get(leg.getReceiverUsername());
+            var result = new BatchTransferResponse.LegResult(i, leg.getReceiverUsername(), amount, false, null, null);
+            results.add(result);
+
+            if (amount == null || !amount.isPositive()) {
+                result.setError("Amount must be positive");
+            } else if (receiver == null) {
+                result.setError(new UserNotFoundException(leg.getReceiverUsername()).getMessage());
+            } else if (receiver.id().equals(sender.id())) {
+                result.setError("Cannot transfer to yourself");
+            } else if (balance.isLessThan(amount)) {
+                result.setError(new InsufficientBalanceException(balance, amount).getMessage());
+            } else {
+                balance = balance.minus(amount);
+                totalMinor += amount.minorUnits();
+                result.setSuccess(true);
+                succeeded.add(result);
+                receivers.add(receiver);
+                transactions.add(Transaction.builder()
+                        .sender(userRepository.getReferenceById(sender.id()))
+                        .receiver(userRepository.getReferenceById(receiver.id()))
+                        .amount(amount)
+                        .message(leg.getMessage())
+                        .createdAt(now)
+                        .build());
+            }
+        }
+
+        if (!transactions.isEmpty()) {
+            // Sequence ids let the transaction and posting inserts go out as JDBC batches at flush
+            List<Transaction> saved = transactionRepository.saveAll(transactions);
+            ledgerService.postTransfers(saved);
+            List<TransferCompletedEvent> events = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                Transaction transaction = saved.get(i);
+                AccountRef receiver = receivers.get(i);
+                succeeded.get(i).setTransactionId(transaction.getId());
+                events.add(new TransferCompletedEvent(
+                        transaction.getId(),
+                        sender.id(),
+                        sender.fullName(),
+                        receiver.id(),
+                        receiver.fullName(),
+                        transaction.getAmount(),
+                        transaction.getCreatedAt(),
+                        sender.userName(),
+                        receiver.userName()
+                ));
+                recentHistoryCache.recordAfterCommit(historyEntry(transaction, sender, receiver));
+            }
+            var event = new TransferBatchCompletedEvent(events);
+            outboxService.append(List.of(TransferBatchCompletedEvent.TYPE, TransferBatchCompletedEvent.NOTIFICATION_TYPE),
+                    sender.id(), event);
+            eventPublisher.publishEvent(event);
+        }
 
-        return list.stream().map(tx -> {
+        return new BatchTransferResponse(succeeded.size(), legs.size() - succeeded.size(),
+                Money.ofMinor(totalMinor), results);
+    }
+
+    @Override
+    public TransactionPageResponse getHistory(String username, HistoryFilter filter, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_HISTORY_PAGE_SIZE : size;
+        if (pageSize < 1) {
+            throw new ValidationException("Page size must be positive");
+        }
+        pageSize = Math.min(pageSize, MAX_HISTORY_PAGE_SIZE);
+        if (filter != null) {
+            filter.validate();
+        }
+
+        // One row past the page tells us whether there is a next page without a count query
+        int limit = pageSize + 1;
+        HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
+        List<HistoryRow> rows;
+        if (filter != null && !filter.isEmpty()) {
+            // Only the requested predicates are compiled into the statement
+            rows = transactionRepository.findHistory(username, filter, after, limit);
+        } else if (after == null) {
+            rows = recentHistoryCache.firstPage(username, limit,
+                    n -> transactionRepository.findHistoryFirstPage(username, n));
+        } else {
+            rows = transactionRepository.findHistoryAfter(username, after.createdAt(), after.id(), limit);
+        }
+        // The query resolves the user itself; only an empty page needs to know whether it exists
+        if (rows.isEmpty() && !userRepository.existsByUserName(username)) {
+            throw new UserNotFoundException(username);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<HistoryRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            HistoryRow last = page.get(page.size() - 1);
+            nextCursor = new HistoryCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        var items = page.stream().map(row -> {
             var res = new TransactionResponse();
-            res.setSenderUsername(tx.getSender().getUserName());
-            res.setReceiverUsername(tx.getReceiver().getUserName());
-            res.setAmount(tx.getAmount());
-            res.setMessage(tx.getMessage());
-            res.setCreatedAt(tx.getCreatedAt());
+            res.setSenderUsername(row.getSenderUsername());
+            res.setReceiverUsername(row.getReceiverUsername());
+            res.setAmount(Money.ofMinor(row.getAmount()));
+            res.setMessage(row.getMessage());
+            res.setCreatedAt(row.getCreatedAt());
             return res;
         }).toList();
+        return new TransactionPageResponse(items, nextCursor);
     }
 
     @Override
@@ -118,68 +290,34 @@ public class TransactionServiceImpl implements TransactionService {
         if (request.getAmount() == null) {
             throw new ValidationException("Amount cannot be null");
         }
-        if (request.getAmount() <= 0) {
+        Money amount = request.getAmount();
+        if (!amount.isPositive()) {
             throw new ValidationException("Amount must be positive");
         }
 
-        var targetUser = userRepository.findByUserName(request.getTargetUsername())
-                .orElseThrow(() -> new UserNotFoundException(request.getTargetUsername()));
-
         // Additional validation: check for reasonable top-up limits
-        double maxTopUpAmount = 10_000_000.0; // 10 million
-        if (request.getAmount() > maxTopUpAmount) {
-            throw new ValidationException("Top-up amount exceeds maximum limit of " + maxTopUpAmount);
+        if (amount.isGreaterThan(MAX_TOP_UP_AMOUNT)) {
+            throw new ValidationException("Top-up amount exceeds maximum limit of " + MAX_TOP_UP_AMOUNT);
         }
 
-        // Check if resulting balance would exceed maximum allowed
-        double maxBalance = 999_999_999.99;
-        if (targetUser.getBalance() + request.getAmount() > maxBalance) {
+        Long targetId = userRepository.findIdByUserName(request.getTargetUsername())
+                .orElseThrow(() -> new UserNotFoundException(request.getTargetUsername()));
+
+        // Check if resulting balance would exceed maximum allowed, under the account lock
+        if (ledgerService.lockAvailableBalance(targetId).plus(amount).isGreaterThan(MAX_BALANCE)) {
             throw new ValidationException("Top-up would exceed maximum account balance limit");
         }
-
-        targetUser.setBalance(targetUser.getBalance() + request.getAmount());
-        userRepository.save(targetUser);
+        ledgerService.postTopUp(targetId, amount);
     }
 
     @Override
     public StatisticsResponse getStatistics() {
-        List<Transaction> allTransactions = transactionRepository.findAll();
-        
-        // Calculate total transferred amount
-        Double totalTransferred = allTransactions.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-
-        // Calculate total number of transactions
-        Integer totalTransactions = allTransactions.size();
-
-        // Calculate top receivers
-        var topReceiversMap = allTransactions.stream()
-                .collect(Collectors.groupingBy(
-                        tx -> tx.getReceiver().getUserName(),
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                transactions -> {
-                                    var receiver = transactions.get(0).getReceiver();
-                                    var totalReceived = transactions.stream()
-                                            .mapToDouble(Transaction::getAmount)
-                                            .sum();
-                                    return new StatisticsResponse.TopReceiverResponse(
-                                            receiver.getUserName(),
-                                            receiver.getFullName(),
-                                            totalReceived,
-                                            transactions.size()
-                                    );
-                                }
-                        )
-                ));
-
-        List<StatisticsResponse.TopReceiverResponse> topReceivers = topReceiversMap.values()
-                .stream()
-                .sorted((a, b) -> Double.compare(b.getTotalReceived(), a.getTotalReceived()))
-                .limit(10)
-                .collect(Collectors.toList());
+        // Running totals maintained by the outbox relay; nothing here scans tbl_transaction
+        return statisticsService.getStatistics();
+    }
 
-        return new StatisticsResponse(totalTransferred, totalTransactions, topReceivers);
+    private static HistoryEntry historyEntry(Transaction transaction, AccountRef sender, AccountRef receiver) {
+        return new HistoryEntry(transaction.getId(), transaction.getCreatedAt(), sender.userName(),
+                receiver.userName(), transaction.getAmount().minorUnits(), transaction.getMessage());
     }
-}
\ No newline at end of file
+}
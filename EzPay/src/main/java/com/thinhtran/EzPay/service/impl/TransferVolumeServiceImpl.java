@@ -0,0 +1,108 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.TransferVolume;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.exception.ValidationException;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.service.TransferVolumeService;
+import com.thinhtran.EzPay.util.CounterRows;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Volume over time, kept by the relay as one row per hour the transfers were created in; daily series
+ * are summed from the hours, so a series never reads tbl_transaction. Relays add to the hours in key
+ * order and insert an hour none of them has created yet in a savepoint (see {@link CounterRows}).
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferVolumeServiceImpl implements TransferVolumeService {
+
+    // A little over a year of hours; bounds the response and the rollup rows read for it
+    private static final long MAX_BUCKETS = 10_000;
+    private static final String INSERT_HOUR = "INSERT INTO tbl_transfer_volume_hourly "
+            + "(bucket_start, total_amount, transfer_count) VALUES (?, ?, ?)";
+
+    private final TransferVolumeRepository transferVolumeRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordTransfers(List<TransferCompletedEvent> transfers) {
+        byHour(transfers).forEach((hour, volume) -> CounterRows.addOrInsert(jdbcTemplate,
+                () -> transferVolumeRepository.addTransfers(hour, volume[0], volume[1]),
+                INSERT_HOUR, hour, volume[0], volume[1]));
+    }
+
+    @Override
+    public VolumeSeriesResponse getVolumeSeries(Granularity granularity,
+                                                LocalDateTime from, LocalDateTime to) {
+        ChronoUnit unit = granularity.getUnit();
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = granularity.truncate(from != null ? from : end.minus(granularity.getDefaultSpan()));
+        if (!granularity.truncate(end).equals(end)) {
+            end = granularity.truncate(end).plus(1, unit);
+        }
+        if (!start.isBefore(end)) {
+            throw new ValidationException("'from' must be before 'to'");
+        }
+        long bucketCount = unit.between(start, end);
+        if (bucketCount > MAX_BUCKETS) {
+            throw new ValidationException("Range covers " + bucketCount + " buckets; at most " + MAX_BUCKETS + " allowed");
+        }
+
+        long[] volumes = new long[(int) bucketCount];
+        long[] counts = new long[(int) bucketCount];
+        for (TransferVolume hour : transferVolumeRepository
+                .findByBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(start, end)) {
+            int bucket = (int) unit.between(start, granularity.truncate(hour.getBucketStart()));
+            volumes[bucket] += hour.getTotalAmount().minorUnits();
+            counts[bucket] += hour.getTransferCount();
+        }
+        List<VolumeSeriesResponse.Bucket> buckets = new ArrayList<>(volumes.length);
+        for (int i = 0; i < volumes.length; i++) {
+            buckets.add(new VolumeSeriesResponse.Bucket(start.plus(i, unit), Money.ofMinor(volumes[i]), counts[i]));
+        }
+        return new VolumeSeriesResponse(granularity.name().toLowerCase(Locale.ROOT), start, end, buckets);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void seed(List<TransferCompletedEvent> pending) {
+        transferVolumeRepository.deleteAllInBatch();
+        transferVolumeRepository.insertFromTransactions();
+        byHour(pending).forEach((hour, volume) -> transferVolumeRepository.addTransfers(hour, -volume[0], -volume[1]));
+    }
+
+    // Sorted by hour, the order every relay writes the rows in
+    private Map<LocalDateTime, long[]> byHour(List<TransferCompletedEvent> transfers) {
+        Map<LocalDateTime, long[]> byHour = new TreeMap<>();
+        for (TransferCompletedEvent transfer : transfers) {
+            long[] volume = byHour.computeIfAbsent(hourOf(transfer), h -> new long[2]);
+            volume[0] += transfer.amount().minorUnits();
+            volume[1]++;
+        }
+        return byHour;
+    }
+
+    // Events written before they carried createdAt are looked up; a row that is gone counts as now
+    private LocalDateTime hourOf(TransferCompletedEvent transfer) {
+        LocalDateTime createdAt = transfer.createdAt() != null ? transfer.createdAt()
+                : transactionRepository.findCreatedAtById(transfer.transactionId()).orElseGet(LocalDateTime::now);
+        return createdAt.truncatedTo(ChronoUnit.HOURS);
+    }
+}
@@ -0,0 +1,54 @@
+package com.thinhtran.EzPay.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes behind user search on tbl_user (PostgreSQL only; Hibernate cannot declare
+ * expression indexes). Search matches the lower-cased columns anywhere in the value, so each gets a
+ * trigram GIN index when the pg_trgm extension can be installed. Terms shorter than a trigram read
+ * the whole index, which is still smaller than the table. Without pg_trgm searches still work but
+ * scan the table.
+ */
+@Component
+@Slf4j
+public class UserSearchIndexInitializer {
+
+    private static final List<String> COLUMNS = List.of("user_name", "full_name", "email", "phone");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserSearchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!isPostgres()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (DataAccessException e) {
+            log.warn("pg_trgm is not available, user search will scan tbl_user: {}", e.getMessage());
+            return;
+        }
+        for (String column : COLUMNS) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_" + column + "_trgm ON tbl_user "
+                    + "USING gin (LOWER(" + column + ") gin_trgm_ops)");
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+}
@@ -1,22 +1,30 @@
 package com.thinhtran.EzPay.service.impl;
 
 import com.thinhtran.EzPay.dto.request.UpdateProfileRequest;
+import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.exception.UserNotFoundException;
 import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
+import com.thinhtran.EzPay.service.RecipientIndex;
 import com.thinhtran.EzPay.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_RESULTS = 10;
+
     private final UserRepository userRepository;
+    private final RecipientIndex recipientIndex;
 
     @Override
     public User updateProfile(String userName, UpdateProfileRequest request) {
@@ -26,7 +34,9 @@ public class UserServiceImpl implements UserService {
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        recipientIndex.updateAfterCommit(saved);
+        return saved;
     }
 
     @Override
@@ -44,22 +54,15 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<User> searchUsers(String searchTerm) {
+    public List<UserSearchRow> searchUsers(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return List.of();
         }
-        
-        String trimmedTerm = searchTerm.trim().toLowerCase();
-        
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRole() != com.thinhtran.EzPay.entity.Role.ADMIN) // Exclude admin users
-                .filter(user -> 
-                    user.getUserName().toLowerCase().contains(trimmedTerm) ||
-                    user.getFullName().toLowerCase().contains(trimmedTerm) ||
-                    user.getEmail().toLowerCase().contains(trimmedTerm) ||
-                    (user.getPhone() != null && user.getPhone().contains(trimmedTerm))
-                )
-                .limit(10) // Limit results to 10 for performance
-                .toList();
+
+        String term = searchTerm.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return userRepository.search("%" + term + "%", Role.ADMIN, PageRequest.of(0, MAX_RESULTS));
     }
-} 
\ No newline at end of file
+}
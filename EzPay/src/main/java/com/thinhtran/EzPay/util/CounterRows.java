@@ -0,0 +1,56 @@
+package com.thinhtran.EzPay.util;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.function.IntSupplier;
+
+/**
+ * Adds to rollup rows that relays running side by side may both be the first to create. The insert
+ * runs in a savepoint on the transaction's connection, so losing the race to another relay's insert
+ * of the same key rolls back only the insert, and the update is run again against the row the other
+ * relay committed. Inserts go through JDBC: a failed JPA statement would mark the whole transaction
+ * rollback-only, and JPA offers no savepoints.
+ */
+public final class CounterRows {
+
+    private CounterRows() {
+    }
+
+    /**
+     * Runs {@code add}, an UPDATE returning the rows it matched, and {@code insertSql} with {@code args}
+     * when it matched none
+     */
+    public static void addOrInsert(JdbcTemplate jdbcTemplate, IntSupplier add, String insertSql, Object... args) {
+        if (add.getAsInt() > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> insert(connection, insertSql, args));
+        } catch (DuplicateKeyException e) {
+            if (add.getAsInt() == 0) {
+                throw e;
+            }
+        }
+    }
+
+    private static int insert(Connection connection, String sql, Object[] args) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            int inserted = statement.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+            return inserted;
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.thinhtran.EzPay.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a long key to a running sum and count, on parallel primitive arrays, so
+ * accumulating millions of rows neither boxes keys nor allocates an entry per key. {@link Long#MIN_VALUE}
+ * marks an empty slot and cannot be used as a key. Not thread-safe: aggregate per thread and {@link #addAll merge}.
+ */
+public class LongSumMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] sums;
+    private long[] counts;
+    private int size;
+
+    public LongSumMap() {
+        this(16);
+    }
+
+    public LongSumMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedKeys / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Adds {@code amount} to the key's sum and one to its count
+     */
+    public void add(long key, long amount) {
+        add(key, amount, 1);
+    }
+
+    public void add(long key, long amount, long count) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + EMPTY + " is reserved");
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+            if (size > keys.length * LOAD_FACTOR) {
+                sums[slot] = amount;
+                counts[slot] = count;
+                grow();
+                return;
+            }
+        }
+        sums[slot] += amount;
+        counts[slot] += count;
+    }
+
+    public void addAll(LongSumMap other) {
+        other.forEach(this::add);
+    }
+
+    public long sum(long key) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? 0 : sums[slot];
+    }
+
+    public long count(long key) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? 0 : counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(Entry consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], sums[slot], counts[slot]);
+            }
+        }
+    }
+
+    // The key's slot, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldSums = sums;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int to = slotOf(oldKeys[slot]);
+                keys[to] = oldKeys[slot];
+                sums[to] = oldSums[slot];
+                counts[to] = oldCounts[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        sums = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    // Sequential ids would otherwise fill runs of adjacent slots
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, long sum, long count);
+    }
+}
@@ -0,0 +1,352 @@
+package com.thinhtran.EzPay.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Prefix search over the words of a few short texts per value, for autocomplete. Every word start of
+ * every text is one entry, packed into a long (slot of the value, text number, offset) and kept in a
+ * sorted array, so an entry costs eight bytes and a search is a binary search plus a scan of the matches.
+ * Entries added since the last merge sit in a small sorted delta array that is merged into the main one
+ * once it holds {@code deltaLimit} entries. Replaced and removed values are only marked; the merge drops
+ * their entries, and runs early once marked values outnumber live ones.
+ *
+ * <p>Texts are matched as given, so callers fold case and accents themselves. Matches come in the order
+ * of the matched text, shortest completion first. Writers are serialized; searches read an immutable
+ * snapshot and never block.
+ */
+public class PrefixIndex<T> {
+
+    private static final int TEXT_BITS = 8;
+    private static final int OFFSET_BITS = 16;
+    private static final int MAX_TEXTS = 1 << TEXT_BITS;
+    private static final int MAX_OFFSET = (1 << OFFSET_BITS) - 1;
+    private static final int HEAD_CHARS = 3;
+    private static final int CHAR_BITS = 21;
+    private static final long CHAR_MASK = (1L << CHAR_BITS) - 1;
+    private static final int INSERTION_SORT_MAX = 16;
+    private static final long[] NO_ENTRIES = new long[0];
+
+    private final ToLongFunction<T> idOf;
+    private final Function<T, String[]> textsOf;
+    private final int deltaLimit;
+    private final Map<Long, Slot<T>> slotsById = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new Slot<?>[16], NO_ENTRIES, NO_ENTRIES);
+    private int slotCount;
+    private int removedSlots;
+
+    public PrefixIndex(ToLongFunction<T> idOf, Function<T, String[]> textsOf, int deltaLimit) {
+        if (deltaLimit < 1) {
+            throw new IllegalArgumentException("Delta limit must be positive");
+        }
+        this.idOf = idOf;
+        this.textsOf = textsOf;
+        this.deltaLimit = deltaLimit;
+    }
+
+    /**
+     * Adds the value, replacing the one with the same id
+     */
+    public synchronized void put(T value) {
+        putAll(List.of(value));
+    }
+
+    /**
+     * Adds the values with one sort and merge, so loading many at once costs O(n log n)
+     */
+    public synchronized void putAll(Collection<T> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        Slot<?>[] slots = current.slots();
+        if (slotCount + values.size() > slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, slotCount + values.size()));
+        }
+        long[] added = new long[0];
+        int addedCount = 0;
+        for (T value : values) {
+            long id = idOf.applyAsLong(value);
+            markRemoved(id);
+            Slot<T> slot = new Slot<>(value, textsOf.apply(value));
+            slotsById.put(id, slot);
+            int slotNo = slotCount++;
+            slots[slotNo] = slot;
+            for (int textNo = 0; textNo < Math.min(slot.texts.length, MAX_TEXTS); textNo++) {
+                String text = slot.texts[textNo];
+                if (text == null) {
+                    continue;
+                }
+                for (int offset = 0; offset < Math.min(text.length(), MAX_OFFSET + 1); offset++) {
+                    if (isWordStart(text, offset)) {
+                        if (addedCount == added.length) {
+                            added = Arrays.copyOf(added, Math.max(8, addedCount * 2));
+                        }
+                        added[addedCount++] = entry(slotNo, textNo, offset);
+                    }
+                }
+            }
+        }
+        long[] delta = merge(current.delta(), sort(Arrays.copyOf(added, addedCount), slots), slots, null);
+        publish(slots, current.main(), delta);
+    }
+
+    public synchronized void remove(long id) {
+        if (markRemoved(id)) {
+            Snapshot current = snapshot;
+            publish(current.slots(), current.main(), current.delta());
+        }
+    }
+
+    /**
+     * Up to {@code limit} values with a word starting with {@code prefix}, each once
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String prefix, int limit) {
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        Slot<?>[] slots = current.slots();
+        long[] main = current.main();
+        long[] delta = current.delta();
+        int i = lowerBound(main, prefix, slots);
+        int j = lowerBound(delta, prefix, slots);
+        List<Slot<?>> found = new ArrayList<>(limit);
+        while (found.size() < limit) {
+            boolean inMain = i < main.length && startsWith(main[i], prefix, slots);
+            boolean inDelta = j < delta.length && startsWith(delta[j], prefix, slots);
+            if (!inMain && !inDelta) {
+                break;
+            }
+            long entry = inMain && (!inDelta || compare(main[i], delta[j], slots) <= 0) ? main[i++] : delta[j++];
+            Slot<?> slot = slots[slotOf(entry)];
+            if (!slot.removed && !found.contains(slot)) {
+                found.add(slot);
+            }
+        }
+        List<T> values = new ArrayList<>(found.size());
+        found.forEach(slot -> values.add((T) slot.value));
+        return values;
+    }
+
+    public synchronized int size() {
+        return slotsById.size();
+    }
+
+    private boolean markRemoved(long id) {
+        Slot<T> previous = slotsById.remove(id);
+        if (previous == null) {
+            return false;
+        }
+        previous.removed = true;
+        removedSlots++;
+        return true;
+    }
+
+    private void publish(Slot<?>[] slots, long[] main, long[] delta) {
+        if (delta.length < deltaLimit && removedSlots <= slotsById.size()) {
+            snapshot = new Snapshot(slots, main, delta);
+            return;
+        }
+        // Renumbers the live slots while merging, so removed values stop taking space
+        int[] remap = new int[slotCount];
+        Slot<?>[] live = new Slot<?>[Math.max(16, slotsById.size() * 2)];
+        int liveCount = 0;
+        for (int slotNo = 0; slotNo < slotCount; slotNo++) {
+            if (slots[slotNo].removed) {
+                remap[slotNo] = -1;
+            } else {
+                remap[slotNo] = liveCount;
+                live[liveCount++] = slots[slotNo];
+            }
+        }
+        long[] merged = merge(main, delta, slots, remap);
+        slotCount = liveCount;
+        removedSlots = 0;
+        snapshot = new Snapshot(live, merged, NO_ENTRIES);
+    }
+
+    // Merges two sorted runs, dropping the entries of removed values and renumbering slots if remap is given
+    private static long[] merge(long[] a, long[] b, Slot<?>[] slots, int[] remap) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long entry = j == b.length || (i < a.length && compare(a[i], b[j], slots) <= 0) ? a[i++] : b[j++];
+            int slotNo = slotOf(entry);
+            if (!slots[slotNo].removed) {
+                merged[n++] = remap == null ? entry : withSlot(entry, remap[slotNo]);
+            }
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    // Three-way radix quicksort (Bentley and Sedgewick) taking three chars at a time. The chars are
+    // packed into a parallel array of heads, so partitioning reads memory in order; texts are only read
+    // again when a run of equal heads moves three chars deeper, and identical texts stop once they end.
+    private static long[] sort(long[] entries, Slot<?>[] slots) {
+        long[] heads = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            heads[i] = headOf(entries[i], 0, slots);
+        }
+        sort(entries, heads, 0, entries.length, 0, slots);
+        return entries;
+    }
+
+    // Sorts [lo, hi), whose texts agree on their first depth chars and whose heads start at depth
+    private static void sort(long[] entries, long[] heads, int lo, int hi, int depth, Slot<?>[] slots) {
+        while (hi - lo > INSERTION_SORT_MAX) {
+            long pivot = medianOf3(heads[lo], heads[(lo + hi) >>> 1], heads[hi - 1]);
+            int lt = lo;
+            int gt = hi - 1;
+            int i = lo;
+            while (i <= gt) {
+                if (heads[i] < pivot) {
+                    swap(entries, heads, lt++, i++);
+                } else if (heads[i] > pivot) {
+                    swap(entries, heads, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            sort(entries, heads, lo, lt, depth, slots);
+            // The last char of a head is zero only once the text has ended: the run is one text
+            if ((pivot & CHAR_MASK) != 0) {
+                for (int k = lt; k <= gt; k++) {
+                    heads[k] = headOf(entries[k], depth + HEAD_CHARS, slots);
+                }
+                sort(entries, heads, lt, gt + 1, depth + HEAD_CHARS, slots);
+            }
+            lo = gt + 1;
+        }
+        for (int i = lo + 1; i < hi; i++) {
+            for (int j = i; j > lo && (heads[j - 1] > heads[j]
+                    || heads[j - 1] == heads[j] && compare(entries[j - 1], entries[j], slots) > 0); j--) {
+                swap(entries, heads, j - 1, j);
+            }
+        }
+    }
+
+    // HEAD_CHARS chars of the entry's text from depth, each stored plus one so that zero marks its end
+    private static long headOf(long entry, int depth, Slot<?>[] slots) {
+        String text = textOf(entry, slots);
+        int index = offsetOf(entry) + depth;
+        long head = 0;
+        for (int k = 0; k < HEAD_CHARS; k++, index++) {
+            head = (head << CHAR_BITS) | (index < text.length() ? text.charAt(index) + 1 : 0);
+        }
+        return head;
+    }
+
+    private static long medianOf3(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(long[] entries, long[] heads, int i, int j) {
+        long entry = entries[i];
+        entries[i] = entries[j];
+        entries[j] = entry;
+        long head = heads[i];
+        heads[i] = heads[j];
+        heads[j] = head;
+    }
+
+    // First entry whose text is not below the prefix
+    private static int lowerBound(long[] entries, String prefix, Slot<?>[] slots) {
+        int lo = 0;
+        int hi = entries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(entries[mid], prefix, slots) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int compare(long a, long b, Slot<?>[] slots) {
+        String textA = textOf(a, slots);
+        String textB = textOf(b, slots);
+        int offsetA = offsetOf(a);
+        int offsetB = offsetOf(b);
+        int length = Math.min(textA.length() - offsetA, textB.length() - offsetB);
+        for (int k = 0; k < length; k++) {
+            int diff = textA.charAt(offsetA + k) - textB.charAt(offsetB + k);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (textA.length() - offsetA) - (textB.length() - offsetB);
+    }
+
+    private static int compare(long entry, String key, Slot<?>[] slots) {
+        String text = textOf(entry, slots);
+        int offset = offsetOf(entry);
+        int length = Math.min(text.length() - offset, key.length());
+        for (int k = 0; k < length; k++) {
+            int diff = text.charAt(offset + k) - key.charAt(k);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (text.length() - offset) - key.length();
+    }
+
+    private static boolean startsWith(long entry, String prefix, Slot<?>[] slots) {
+        return textOf(entry, slots).startsWith(prefix, offsetOf(entry));
+    }
+
+    private static boolean isWordStart(String text, int offset) {
+        return !Character.isWhitespace(text.charAt(offset))
+                && (offset == 0 || Character.isWhitespace(text.charAt(offset - 1)));
+    }
+
+    private static long entry(int slotNo, int textNo, int offset) {
+        return ((long) slotNo << (TEXT_BITS + OFFSET_BITS)) | ((long) textNo << OFFSET_BITS) | offset;
+    }
+
+    private static long withSlot(long entry, int slotNo) {
+        return entry(slotNo, textNoOf(entry), offsetOf(entry));
+    }
+
+    private static int slotOf(long entry) {
+        return (int) (entry >>> (TEXT_BITS + OFFSET_BITS));
+    }
+
+    private static int textNoOf(long entry) {
+        return (int) (entry >>> OFFSET_BITS) & (MAX_TEXTS - 1);
+    }
+
+    private static int offsetOf(long entry) {
+        return (int) entry & MAX_OFFSET;
+    }
+
+    private static String textOf(long entry, Slot<?>[] slots) {
+        return slots[slotOf(entry)].texts[textNoOf(entry)];
+    }
+
+    private static final class Slot<T> {
+        private final T value;
+        private final String[] texts;
+        // Written under the index lock, read by searches of older snapshots
+        private volatile boolean removed;
+
+        private Slot(T value, String[] texts) {
+            this.value = value;
+            this.texts = texts;
+        }
+    }
+
+    private record Snapshot(Slot<?>[] slots, long[] main, long[] delta) {
+    }
+}
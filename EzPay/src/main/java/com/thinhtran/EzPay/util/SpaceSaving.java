@@ -0,0 +1,193 @@
+package com.thinhtran.EzPay.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) of the heaviest keys in a stream, in at most
+ * {@code capacity} counters. A key without a counter takes over the lightest one and inherits its
+ * weight as error, so with N the total weight added:
+ * <ul>
+ *     <li>an estimate never undercounts and overcounts by at most its {@code error}, itself at most N / capacity;</li>
+ *     <li>every key heavier than N / capacity has a counter, and a key without one weighs at most {@link #maxError()}.</li>
+ * </ul>
+ * Summaries over disjoint streams merge with the same bound over their combined weight (Agarwal et al.,
+ * "Mergeable Summaries"). Adding is O(log capacity). Not thread-safe.
+ */
+public class SpaceSaving {
+
+    private static final Comparator<Counter> LIGHTEST_FIRST = Comparator
+            .comparingLong((Counter counter) -> counter.weight)
+            .thenComparingLong(counter -> counter.key);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byWeight = new TreeSet<>(LIGHTEST_FIRST);
+    private long totalWeight;
+    private long totalCount;
+    // Weight a key without a counter may have beyond what the counters show; only merges raise it
+    private long absentBound;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long key, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative");
+        }
+        totalWeight += weight;
+        totalCount++;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byWeight.remove(counter);
+            counter.weight += weight;
+            counter.count++;
+            byWeight.add(counter);
+            return;
+        }
+        long inherited = 0;
+        if (counters.size() == capacity) {
+            Counter lightest = byWeight.pollFirst();
+            counters.remove(lightest.key);
+            inherited = lightest.weight;
+        }
+        put(new Counter(key, inherited + weight, inherited, 1));
+    }
+
+    /**
+     * The {@code limit} heaviest estimates, heaviest first
+     */
+    public List<Estimate> top(int limit) {
+        List<Estimate> top = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Counter counter : byWeight.descendingSet()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(counter.estimate());
+        }
+        return top;
+    }
+
+    /**
+     * Every counter, heaviest first; with the totals this is the whole state (see {@link #restore})
+     */
+    public List<Estimate> estimates() {
+        return top(counters.size());
+    }
+
+    /**
+     * The most a key's weight can exceed its estimate (or, without a counter, its whole weight)
+     */
+    public long maxError() {
+        long lightest = counters.size() == capacity ? byWeight.first().weight : 0;
+        return Math.max(lightest, absentBound);
+    }
+
+    public long totalWeight() {
+        return totalWeight;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public static SpaceSaving restore(int capacity, long totalWeight, long totalCount, long absentBound,
+                                      Collection<Estimate> estimates) {
+        SpaceSaving summary = new SpaceSaving(capacity);
+        summary.totalWeight = totalWeight;
+        summary.totalCount = totalCount;
+        summary.absentBound = absentBound;
+        estimates.stream()
+                .sorted(Comparator.comparingLong(Estimate::weight).reversed())
+                .limit(capacity)
+                .forEach(estimate -> summary.put(
+                        new Counter(estimate.key(), estimate.weight(), estimate.error(), estimate.count())));
+        return summary;
+    }
+
+    /**
+     * One summary of the union of the streams {@code parts} summarize. A key missing from a full part
+     * may still have weighed up to that part's {@link #maxError()} there, so that much is added to both
+     * its estimate and its error; only the {@code capacity} heaviest results are kept.
+     */
+    public static SpaceSaving merge(int capacity, Collection<SpaceSaving> parts) {
+        long totalWeight = 0;
+        long totalCount = 0;
+        long missingEverywhere = 0;
+        for (SpaceSaving part : parts) {
+            totalWeight += part.totalWeight;
+            totalCount += part.totalCount;
+            missingEverywhere += part.maxError();
+        }
+        // weight, error, count, and the maxError of the parts that had a counter for the key
+        Map<Long, long[]> merged = new HashMap<>();
+        for (SpaceSaving part : parts) {
+            long partError = part.maxError();
+            for (Counter counter : part.counters.values()) {
+                long[] sums = merged.computeIfAbsent(counter.key, key -> new long[4]);
+                sums[0] += counter.weight;
+                sums[1] += counter.error;
+                sums[2] += counter.count;
+                sums[3] += partError;
+            }
+        }
+        List<Estimate> estimates = new ArrayList<>(merged.size());
+        for (Map.Entry<Long, long[]> entry : merged.entrySet()) {
+            long[] sums = entry.getValue();
+            long absentFromParts = missingEverywhere - sums[3];
+            estimates.add(new Estimate(
+                    entry.getKey(), sums[0] + absentFromParts, sums[1] + absentFromParts, sums[2]));
+        }
+        estimates.sort(Comparator.comparingLong(Estimate::weight).reversed());
+        // A key dropped here, or in no part at all, weighs at most the heaviest estimate not kept
+        long dropped = estimates.size() > capacity ? estimates.get(capacity).weight() : 0;
+        return restore(capacity, totalWeight, totalCount, Math.max(missingEverywhere, dropped), estimates);
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.key, counter);
+        byWeight.add(counter);
+    }
+
+    /**
+     * {@code weight} is an upper bound on the key's weight and {@code weight - error} a lower bound;
+     * {@code count} is the number of additions since the key last took a counter, so a lower bound too.
+     */
+    public record Estimate(long key, long weight, long error, long count) {
+
+        public long guaranteedWeight() {
+            return weight - error;
+        }
+    }
+
+    private static final class Counter {
+        private final long key;
+        private long weight;
+        private final long error;
+        private long count;
+
+        private Counter(long key, long weight, long error, long count) {
+            this.key = key;
+            this.weight = weight;
+            this.error = error;
+            this.count = count;
+        }
+
+        private Estimate estimate() {
+            return new Estimate(key, weight, error, count);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.thinhtran.EzPay.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text for matching as users type it: lower case, no accents, single spaces. Vietnamese tone and
+ * vowel marks decompose into combining marks, which are dropped; đ is a letter of its own and is mapped
+ * to d, so "Trần Đức" and "tran duc" fold to the same text.
+ */
+public final class TextFolding {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private TextFolding() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return SPACES.matcher(folded).replaceAll(" ").trim();
+    }
+}
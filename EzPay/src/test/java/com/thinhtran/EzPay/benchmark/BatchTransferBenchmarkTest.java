@@ -0,0 +1,125 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payroll of {@value #LEGS} transfers sent as one batch versus {@value #LEGS} single transfers.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class BatchTransferBenchmarkTest {
+
+    private static final int LEGS = 500;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(newUser("payer", Money.ofMajor(1_000_000_000)));
+        for (int i = 0; i < LEGS; i++) {
+            userRepository.save(newUser("employee" + i, Money.ZERO));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void batchVersusSingleTransfers() {
+        List<TransferRequest> legs = new ArrayList<>(LEGS);
+        for (int i = 0; i < LEGS; i++) {
+            TransferRequest leg = new TransferRequest();
+            leg.setReceiverUsername("employee" + i);
+            leg.setAmount(Money.ofMajor(1_000));
+            legs.add(leg);
+        }
+
+        // Warm up both paths before measuring
+        legs.forEach(leg -> transactionService.transfer("payer", leg));
+        transactionService.transferBatch("payer", new BatchTransferRequest(legs));
+
+        long singleNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startedAt = System.nanoTime();
+            legs.forEach(leg -> transactionService.transfer("payer", leg));
+            singleNanos = Math.min(singleNanos, System.nanoTime() - startedAt);
+
+            startedAt = System.nanoTime();
+            transactionService.transferBatch("payer", new BatchTransferRequest(legs));
+            batchNanos = Math.min(batchNanos, System.nanoTime() - startedAt);
+        }
+
+        System.out.printf(">>> %d transfers: %d single calls %.1f ms, one batch %.1f ms (%.1fx)%n",
+                LEGS, LEGS, singleNanos / 1e6, batchNanos / 1e6, (double) singleNanos / batchNanos);
+        assertEquals(2L * (ROUNDS + 1) * LEGS, transactionRepository.count());
+        assertTrue(batchNanos < singleNanos, "Batch transfer should beat single calls");
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.GroupCommitService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@value #THREADS} clients sending single transfers, each committed on its own versus group
+ * committed by the micro-batching workers. Uses a file-backed database with {@code WRITE_DELAY=0},
+ * so every commit writes the store.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/group-commit-benchmark;WRITE_DELAY=0;LOCK_TIMEOUT=30000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.maximum-pool-size=40",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.ledger.snapshot-cron=-",
+        "ezpay.transfer.group-commit.enabled=true",
+        "ezpay.transfer.group-commit.batch-size=64",
+        "ezpay.transfer.group-commit.linger-ms=2",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class GroupCommitBenchmarkTest {
+
+    private static final int THREADS = 32;
+    private static final int TRANSFERS_PER_THREAD = 50;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private GroupCommitService groupCommitService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        // Every client pays its own payee, so the transfers never contend for a row
+        for (int i = 0; i < THREADS; i++) {
+            userRepository.save(newUser("client" + i, Money.ofMajor(1_000_000)));
+            userRepository.save(newUser("payee" + i, Money.ZERO));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void groupCommitVersusOneCommitPerTransfer() throws Exception {
+        // Warm up both paths before measuring
+        run(transactionService::transfer);
+        run(groupCommitService::transfer);
+
+        double directSeconds = run(transactionService::transfer);
+        double commitsBefore = meterRegistry.counter("ezpay.transfer.group-commit.commits").count();
+        double groupSeconds = run(groupCommitService::transfer);
+        double groupCommits = meterRegistry.counter("ezpay.transfer.group-commit.commits").count() - commitsBefore;
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        System.out.printf(">>> one commit per transfer: %.0f transfers/sec, %.0f commits/sec%n",
+                transfers / directSeconds, transfers / directSeconds);
+        System.out.printf(">>> group commit:            %.0f transfers/sec, %.0f commits/sec (%.1f transfers per commit)%n",
+                transfers / groupSeconds, groupCommits / groupSeconds, transfers / groupCommits);
+        assertEquals(4L * transfers, transactionRepository.count());
+        assertTrue(groupCommits < transfers, "Transfers should share commits");
+    }
+
+    private double run(BiConsumer<String, TransferRequest> transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String client = "client" + t;
+            TransferRequest request = new TransferRequest();
+            request.setReceiverUsername("payee" + t);
+            request.setAmount(Money.ofMajor(1));
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    transfer.accept(client, request);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+        return seconds;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
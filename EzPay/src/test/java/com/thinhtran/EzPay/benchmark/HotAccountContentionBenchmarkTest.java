@@ -0,0 +1,161 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.BalanceShardRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@value #THREADS} threads pay one hot merchant at once, with the merchant's credits spread over
+ * K balance shards. With one shard every credit queues on the same row lock; throughput should grow
+ * with K. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hot-account-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.ledger.snapshot-cron=-",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class HotAccountContentionBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final int[] SHARD_COUNTS = {1, 4, 16};
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private BalanceShardRepository balanceShardRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < THREADS; i++) {
+            userRepository.save(newUser("customer" + i, Money.ofMajor(1_000_000)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        balanceShardRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void throughputScalesWithShards() throws Exception {
+        // Warm up the transfer path before measuring
+        User warmUp = userRepository.save(newUser("merchant-warmup", Money.ZERO));
+        ledgerService.enableHotAccount(warmUp.getId(), 1);
+        payConcurrently(warmUp.getUserName());
+
+        Map<Integer, Double> throughput = new LinkedHashMap<>();
+        for (int shards : SHARD_COUNTS) {
+            User merchant = userRepository.save(newUser("merchant" + shards, Money.ZERO));
+            ledgerService.enableHotAccount(merchant.getId(), shards);
+
+            throughput.put(shards, payConcurrently(merchant.getUserName()));
+
+            Money received = ledgerService.balanceOf(userRepository.findById(merchant.getId()).orElseThrow());
+            assertEquals(Money.ofMajor((long) THREADS * TRANSFERS_PER_THREAD), received);
+        }
+
+        throughput.forEach((shards, perSecond) -> System.out.printf(
+                ">>> hot merchant with %2d shards, %d paying threads: %.0f transfers/sec%n", shards, THREADS, perSecond));
+        assertTrue(throughput.get(16) > throughput.get(1), "Sharded credits should beat a single balance row");
+    }
+
+    private double payConcurrently(String merchant) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String customer = "customer" + t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    TransferRequest request = new TransferRequest();
+                    request.setReceiverUsername(merchant);
+                    request.setAmount(Money.ofMajor(1));
+                    transactionService.transfer(customer, request);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+        return THREADS * TRANSFERS_PER_THREAD / seconds;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
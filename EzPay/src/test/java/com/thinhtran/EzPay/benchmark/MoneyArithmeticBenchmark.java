@@ -0,0 +1,101 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.entity.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old boxed {@code Double} amount arithmetic with {@link Money}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.thinhtran.EzPay.benchmark.MoneyArithmeticBenchmark}, or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    @Param({"10000"})
+    private int size;
+
+    private List<Double> doubleAmounts;
+    private List<Money> moneyAmounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        doubleAmounts = new ArrayList<>(size);
+        moneyAmounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long minor = 1 + random.nextInt(100_000_00);
+            doubleAmounts.add(minor / 100.0);
+            moneyAmounts.add(Money.ofMinor(minor));
+        }
+    }
+
+    // ======= STATISTICS SUM =======
+
+    @Benchmark
+    public double sumDouble() {
+        return doubleAmounts.stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    @Benchmark
+    public long sumMoney() {
+        return moneyAmounts.stream().mapToLong(Money::minorUnits).sum();
+    }
+
+    // ======= TRANSFER BALANCE UPDATES =======
+
+    @Benchmark
+    public Double transferDouble() {
+        Double sender = 1_000_000_000.0;
+        Double receiver = 0.0;
+        for (Double amount : doubleAmounts) {
+            if (sender >= amount) {
+                sender = sender - amount;
+                receiver = receiver + amount;
+            }
+        }
+        return sender + receiver;
+    }
+
+    @Benchmark
+    public Money transferMoney() {
+        Money sender = Money.ofMajor(1_000_000_000);
+        Money receiver = Money.ZERO;
+        for (Money amount : moneyAmounts) {
+            if (!sender.isLessThan(amount)) {
+                sender = sender.minus(amount);
+                receiver = receiver.plus(amount);
+            }
+        }
+        return sender.plus(receiver);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyArithmeticBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.util.PrefixIndex;
+import com.thinhtran.EzPay.util.TextFolding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recipient autocomplete over {@code users} accounts: a {@link PrefixIndex} lookup per keystroke against
+ * a contains-scan of the same records in memory, plus the cost of adding a registration to the index.
+ * Expect single-digit microseconds per lookup, against milliseconds for the scan.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.thinhtran.EzPay.benchmark.RecipientAutocompleteBenchmark}, or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RecipientAutocompleteBenchmark {
+
+    private static final String[] FAMILY_NAMES = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Vũ", "Đặng", "Bùi"};
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Minh", "Đức", "Ngọc"};
+    private static final String[] GIVEN_NAMES = {"Anh", "Bình", "Chi", "Dũng", "Giang", "Hương", "Khoa", "Linh",
+            "Minh", "Nam", "Phương", "Quân", "Thảo", "Thịnh", "Trang", "Tuấn"};
+    // Keystrokes of the picker: common and rare name prefixes, a user name and a phone prefix
+    private static final String[] TERMS = {"ng", "nguyen van", "thinh", "user0999", "0900123", "zz"};
+    private static final int LIMIT = 10;
+
+    @Param({"1000000"})
+    private int users;
+
+    private List<Candidate> candidates;
+    private PrefixIndex<Candidate> index;
+    private int term;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        candidates = new ArrayList<>(users);
+        for (int n = 0; n < users; n++) {
+            candidates.add(candidate(n));
+        }
+        index = new PrefixIndex<>(Candidate::id, Candidate::texts, 4096);
+        index.putAll(candidates);
+        nextId = users;
+    }
+
+    @Benchmark
+    public List<Candidate> suggestFromIndex() {
+        return index.search(TextFolding.fold(nextTerm()), LIMIT);
+    }
+
+    // What answering from memory costs without an index
+    @Benchmark
+    public List<Candidate> suggestByScan() {
+        String folded = TextFolding.fold(nextTerm());
+        List<Candidate> found = new ArrayList<>(LIMIT);
+        for (Candidate candidate : candidates) {
+            for (String text : candidate.texts()) {
+                if (text.contains(folded)) {
+                    found.add(candidate);
+                    break;
+                }
+            }
+            if (found.size() == LIMIT) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public void register() {
+        index.put(candidate(nextId++));
+    }
+
+    private String nextTerm() {
+        term = (term + 1) % TERMS.length;
+        return TERMS[term];
+    }
+
+    private static Candidate candidate(long n) {
+        String fullName = FAMILY_NAMES[(int) (n % FAMILY_NAMES.length)] + " "
+                + MIDDLE_NAMES[(int) (n / 8 % MIDDLE_NAMES.length)] + " "
+                + GIVEN_NAMES[(int) (n / 40 % GIVEN_NAMES.length)];
+        String userName = String.format("user%07d", n);
+        String phone = String.format("09%08d", n);
+        return new Candidate(n, userName, fullName, phone,
+                new String[]{TextFolding.fold(userName), TextFolding.fold(fullName), phone});
+    }
+
+    // Texts are folded once, as the recipient index does, so the scan only pays for the matching
+    public record Candidate(long id, String userName, String fullName, String phone, String[] texts) {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecipientAutocompleteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,185 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statistics over {@value #TRANSACTIONS} transactions three ways: the old in-heap pipeline
+ * (findAll plus Collectors.groupingBy), SUM/COUNT and GROUP BY ... LIMIT pushed into the database,
+ * and the running totals. Reports latency and the bytes each allocates on the calling thread.
+ * Run with {@code mvn test -Pbenchmark}; the in-heap pipeline needs a heap of a few GB.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statistics-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class StatisticsAggregationBenchmarkTest {
+
+    private static final int TRANSACTIONS = 1_000_000;
+    private static final int USERS = 1_000;
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private StatisticsTotalRepository statisticsTotalRepository;
+
+    @Autowired
+    private ReceiverStatisticsRepository receiverStatisticsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(newUser("user" + i));
+        }
+        List<Long> ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+
+        // Skewed receivers (user i receives about 1/(i+1) of the traffic) so the ranking is meaningful
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int from = 0; from < TRANSACTIONS; from += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int n = from; n < from + INSERT_CHUNK; n++) {
+                int receiver = (int) Math.min(USERS - 1, Math.floor(Math.pow(USERS, (n * 7919L % 1000) / 1000.0)) - 1);
+                rows.add(new Object[]{n + 1L, ids.get(n % USERS), ids.get(receiver), 100L + n % 10_000,
+                        Timestamp.valueOf(start.plusSeconds(n))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO tbl_transaction (id, sender_id, receiver_id, amount, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?)", rows);
+        }
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        statisticsService.seedIfAbsent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        jdbcTemplate.execute("DELETE FROM tbl_transaction");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void inHeapVersusDatabaseAggregation() {
+        Measured<StatisticsResponse> inHeap = measure(this::aggregateInHeap);
+        Measured<StatisticsResponse> inDatabase = measure(statisticsService::aggregateFromTransactions);
+        Measured<StatisticsResponse> runningTotals = measure(statisticsService::getStatistics);
+
+        print("findAll + groupingBy", inHeap);
+        print("SQL GROUP BY + LIMIT", inDatabase);
+        print("running totals", runningTotals);
+
+        assertSameStatistics(inHeap.result(), inDatabase.result());
+        assertSameStatistics(inHeap.result(), runningTotals.result());
+        assertEquals(TRANSACTIONS, inDatabase.result().getTotalTransactions());
+        assertTrue(inDatabase.nanos() < inHeap.nanos(), "Database aggregation should beat the in-heap pipeline");
+        assertTrue(inDatabase.allocatedBytes() * 100 < inHeap.allocatedBytes(),
+                "Database aggregation should allocate a small fraction of the in-heap pipeline");
+    }
+
+    // The pipeline getStatistics ran before statistics were aggregated outside the heap
+    private StatisticsResponse aggregateInHeap() {
+        List<Transaction> all = transactionRepository.findAll();
+        Money total = Money.ofMinor(all.stream().mapToLong(tx -> tx.getAmount().minorUnits()).sum());
+        List<StatisticsResponse.TopReceiverResponse> top = all.stream()
+                .collect(Collectors.groupingBy(tx -> tx.getReceiver().getUserName()))
+                .values().stream()
+                .map(received -> new StatisticsResponse.TopReceiverResponse(
+                        received.get(0).getReceiver().getUserName(),
+                        received.get(0).getReceiver().getFullName(),
+                        Money.ofMinor(received.stream().mapToLong(tx -> tx.getAmount().minorUnits()).sum()),
+                        received.size()))
+                .sorted(Comparator.comparing(StatisticsResponse.TopReceiverResponse::getTotalReceived).reversed())
+                .limit(10)
+                .toList();
+        return new StatisticsResponse(total, all.size(), top);
+    }
+
+    private static <T> Measured<T> measure(Supplier<T> work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        work.get(); // warm up
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long startedAt = System.nanoTime();
+        T result = work.get();
+        long nanos = System.nanoTime() - startedAt;
+        return new Measured<>(result, nanos, threads.getThreadAllocatedBytes(thread) - allocatedBefore);
+    }
+
+    private static void print(String label, Measured<?> measured) {
+        System.out.printf(">>> %d transactions, %-22s %8.1f ms %10.1f MB allocated%n",
+                TRANSACTIONS, label, measured.nanos() / 1e6, measured.allocatedBytes() / 1e6);
+    }
+
+    private static void assertSameStatistics(StatisticsResponse expected, StatisticsResponse actual) {
+        assertEquals(expected.getTotalTransferred(), actual.getTotalTransferred());
+        assertEquals(expected.getTotalTransactions(), actual.getTotalTransactions());
+        assertEquals(expected.getTopReceivers().stream().map(StatisticsResponse.TopReceiverResponse::getTotalReceived).toList(),
+                actual.getTopReceivers().stream().map(StatisticsResponse.TopReceiverResponse::getTotalReceived).toList());
+    }
+
+    private record Measured<T>(T result, long nanos, long allocatedBytes) {
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ZERO)
+                .build();
+    }
+}
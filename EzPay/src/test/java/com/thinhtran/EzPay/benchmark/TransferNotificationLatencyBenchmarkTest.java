@@ -0,0 +1,160 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@value #THREADS} clients sending transfers while each notification costs
+ * {@value #NOTIFICATION_DELAY_MS} ms: the mean transfer latency with the notifications sent inline
+ * by the request thread, as before they moved out of the transfer, versus relayed after commit.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:notification-latency-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.ledger.snapshot-cron=-",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class TransferNotificationLatencyBenchmarkTest {
+
+    private static final long NOTIFICATION_DELAY_MS = 50;
+    private static final int THREADS = 4;
+    private static final int TRANSFERS_PER_THREAD = 25;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        // Simulate the notification row insert, STOMP push and unread count query
+        doAnswer(invocation -> {
+            Thread.sleep(NOTIFICATION_DELAY_MS);
+            return null;
+        }).when(notificationService).createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+
+        // Each client pays its own payee, so the comparison is not about row contention
+        for (int i = 0; i < THREADS; i++) {
+            userRepository.save(newUser("client" + i, Money.ofMajor(1_000_000)));
+            userRepository.save(newUser("payee" + i, Money.ZERO));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void inlineNotificationsVersusRelayedAfterCommit() throws Exception {
+        BiConsumer<String, TransferRequest> inline = (client, request) -> {
+            transactionService.transfer(client, request);
+            notificationService.createAndSendNotification(1L, NotificationType.TRANSFER_SENT, "", "", 1L);
+            notificationService.createAndSendNotification(2L, NotificationType.TRANSFER_RECEIVED, "", "", 1L);
+        };
+        // Warm up both paths before measuring
+        meanLatencyMs(inline);
+        meanLatencyMs(transactionService::transfer);
+
+        double inlineMs = meanLatencyMs(inline);
+        double relayedMs = meanLatencyMs(transactionService::transfer);
+
+        System.out.printf(">>> %d clients, %d ms per notification: inline %.1f ms, relayed after commit %.1f ms per transfer%n",
+                THREADS, NOTIFICATION_DELAY_MS, inlineMs, relayedMs);
+        assertTrue(relayedMs < inlineMs, "Relaying notifications should take them out of the transfer latency");
+    }
+
+    private double meanLatencyMs(BiConsumer<String, TransferRequest> transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String client = "client" + t;
+            TransferRequest request = new TransferRequest();
+            request.setReceiverUsername("payee" + t);
+            request.setAmount(Money.ofMajor(1));
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    long startedAt = System.nanoTime();
+                    transfer.accept(client, request);
+                    latencies.add(System.nanoTime() - startedAt);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return latencies.stream().mapToLong(Long::longValue).average().orElseThrow() / 1_000_000.0;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
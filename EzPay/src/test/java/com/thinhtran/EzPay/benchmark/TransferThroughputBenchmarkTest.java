@@ -0,0 +1,154 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@value #THREADS} threads move money between {@value #ACCOUNTS} hot accounts, so most transfers
+ * queue on the account row locks; reports transfers per second. The conservation checks for the same
+ * load run in the default suite (TransferConcurrencyIntegrationTest).
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-throughput-benchmark;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.ledger.snapshot-cron=-",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class TransferThroughputBenchmarkTest {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final Money INITIAL_BALANCE = Money.ofMajor(10_000);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private final List<User> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(userRepository.save(User.builder()
+                    .userName("hot" + i)
+                    .email("hot" + i + "@example.com")
+                    .password("password")
+                    .fullName("Hot Account " + i)
+                    .role(Role.USER)
+                    .balance(INITIAL_BALANCE)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transfersBetweenHotAccounts() throws Exception {
+        // Warm up the transfer path before measuring
+        transferConcurrently();
+
+        double seconds = transferConcurrently();
+
+        System.out.printf(">>> %d threads over %d hot accounts: %.0f transfers/sec%n",
+                THREADS, ACCOUNTS, THREADS * TRANSFERS_PER_THREAD / seconds);
+        long total = ledgerService.balancesOf(userRepository.findAllById(accounts.stream().map(User::getId).toList()))
+                .values().stream().mapToLong(Money::minorUnits).sum();
+        assertEquals(ACCOUNTS * INITIAL_BALANCE.minorUnits(), total);
+    }
+
+    // Rejections for insufficient balance count as attempts; they take the same locks
+    private double transferConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    TransferRequest request = new TransferRequest();
+                    request.setReceiverUsername("hot" + to);
+                    request.setAmount(Money.ofMajor(1 + random.nextInt(500)));
+                    try {
+                        transactionService.transfer("hot" + from, request);
+                    } catch (InsufficientBalanceException e) {
+                        // Expected now and then on a random walk
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        executor.shutdown();
+        return seconds;
+    }
+}
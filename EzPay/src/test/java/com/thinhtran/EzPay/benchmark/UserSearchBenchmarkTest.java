@@ -0,0 +1,140 @@
+package com.thinhtran.EzPay.benchmark;
+
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recipient search over {@value #USERS} users two ways: the old pipeline (findAll, then a
+ * case-insensitive contains over every column) and the query with the ADMIN filter and the limit
+ * pushed into the database. Each term is one keystroke of the picker; rare terms are the worst case
+ * for the query, as it has to look at every row to find fewer than ten hits. H2 has no trigram
+ * indexes, so on PostgreSQL infix terms do better than reported here.
+ * Run with {@code mvn test -Pbenchmark}; the old pipeline needs a heap of a few GB.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-search-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class UserSearchBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int INSERT_CHUNK = 10_000;
+    private static final int QUERY_RUNS = 20;
+    private static final String[] FAMILY_NAMES = {"Nguyen", "Tran", "Le", "Pham", "Hoang", "Vu", "Dang", "Bui"};
+    private static final String[] GIVEN_NAMES = {"Anh", "Binh", "Chi", "Dung", "Giang", "Huong", "Khoa", "Linh",
+            "Minh", "Nam", "Phuong", "Quan", "Thao", "Thinh", "Trang", "Tuan"};
+    private static final List<String> TERMS = List.of("ng", "nguyen", "thinh", "user0999", "0900123", "nobody");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        for (int from = 0; from < USERS; from += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int n = from; n < from + INSERT_CHUNK; n++) {
+                String userName = String.format("user%07d", n);
+                String fullName = FAMILY_NAMES[n % FAMILY_NAMES.length] + " "
+                        + GIVEN_NAMES[n / FAMILY_NAMES.length % GIVEN_NAMES.length];
+                rows.add(new Object[]{userName, userName + "@example.com", "password",
+                        String.format("09%08d", n), fullName, n % 1000 == 0 ? "ADMIN" : "USER", 0L, false});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO tbl_user (user_name, email, password, phone, full_name, role, "
+                    + "balance, email_verified) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM tbl_user");
+    }
+
+    @Test
+    void findAllVersusIndexedQuery() {
+        for (String term : TERMS) {
+            Measured<List<User>> scan = measure(() -> searchInHeap(term), 1);
+            Measured<List<UserSearchRow>> query = measure(() -> userService.searchUsers(term), QUERY_RUNS);
+
+            System.out.printf(">>> %d users, term %-10s findAll %9.1f ms   query %7.2f ms   %d hits%n",
+                    USERS, "'" + term + "'", scan.nanos() / 1e6, query.nanos() / 1e6, query.result().size());
+
+            String lowered = term.toLowerCase(Locale.ROOT);
+            for (UserSearchRow row : query.result()) {
+                assertNotEquals(Role.ADMIN, row.role());
+                assertTrue(matches(row.userName(), lowered) || matches(row.fullName(), lowered)
+                        || matches(row.email(), lowered) || matches(row.phone(), lowered), row::userName);
+            }
+            assertEquals(scan.result().size(), query.result().size(), term);
+            assertTrue(query.nanos() < scan.nanos(), "The query should beat findAll for '" + term + "'");
+        }
+    }
+
+    // The pipeline searchUsers ran before the search was pushed into the database
+    private List<User> searchInHeap(String term) {
+        String lowered = term.toLowerCase();
+        return userRepository.findAll().stream()
+                .filter(user -> user.getRole() != Role.ADMIN)
+                .filter(user ->
+                        user.getUserName().toLowerCase().contains(lowered) ||
+                        user.getFullName().toLowerCase().contains(lowered) ||
+                        user.getEmail().toLowerCase().contains(lowered) ||
+                        (user.getPhone() != null && user.getPhone().contains(lowered)))
+                .limit(10)
+                .toList();
+    }
+
+    private static boolean matches(String column, String term) {
+        return column != null && column.toLowerCase(Locale.ROOT).contains(term);
+    }
+
+    // Mean over the runs, after one warm-up run
+    private static <T> Measured<T> measure(Supplier<T> work, int runs) {
+        work.get();
+        T result = null;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            result = work.get();
+        }
+        return new Measured<>(result, (System.nanoTime() - startedAt) / runs);
+    }
+
+    private record Measured<T>(T result, long nanos) {
+    }
+}
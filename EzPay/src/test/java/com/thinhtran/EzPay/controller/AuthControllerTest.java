@@ -9,6 +9,7 @@ import com.thinhtran.EzPay.dto.response.ApiResponse;
 import com.thinhtran.EzPay.dto.response.AuthResponse;
 import com.thinhtran.EzPay.dto.response.OTPResponse;
 import com.thinhtran.EzPay.dto.response.OTPVerifyResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.exception.*;
@@ -73,7 +74,7 @@ class AuthControllerTest {
                 .fullName("Test User")
                 .phone("0123456789")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
     }
 
@@ -1,18 +1,30 @@
 package com.thinhtran.EzPay.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
 import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.RecomputeProgressResponse;
+import com.thinhtran.EzPay.dto.response.SpendingSummaryResponse;
 import com.thinhtran.EzPay.dto.response.StatisticsResponse;
 import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.Transaction;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.repository.TransactionRepository;
 import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.AccountRef;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
 import com.thinhtran.EzPay.security.JwtTokenProvider;
+import com.thinhtran.EzPay.service.SpendingSummaryService;
+import com.thinhtran.EzPay.service.StatisticsRecomputeService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TransferVolumeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -20,16 +32,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,7 +62,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 @TestPropertySource(properties = {
     "jwt.secret=testSecretKeyForJWTThatIsAtLeast256BitsLong!",
-    "jwt.expirationMs=86400000"
+    "jwt.expirationMs=86400000",
+    "ezpay.history.cache.enabled=false"
 })
 class TransactionControllerTest {
 
@@ -54,6 +79,18 @@ class TransactionControllerTest {
     @MockBean
     private TransactionRepository transactionRepository;
 
+    @MockBean
+    private StatisticsService statisticsService;
+
+    @MockBean
+    private TransferVolumeService transferVolumeService;
+
+    @MockBean
+    private StatisticsRecomputeService statisticsRecomputeService;
+
+    @MockBean
+    private SpendingSummaryService spendingSummaryService;
+
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
@@ -76,7 +113,7 @@ class TransactionControllerTest {
                 .password("encodedPassword")
                 .fullName("Regular User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
 
         adminUser = User.builder()
@@ -86,7 +123,7 @@ class TransactionControllerTest {
                 .password("encodedPassword")
                 .fullName("Admin User")
                 .role(Role.ADMIN)
-                .balance(5000.0)
+                .balance(Money.ofMajor(5000))
                 .build();
 
         receiver = User.builder()
@@ -96,7 +133,7 @@ class TransactionControllerTest {
                 .password("encodedPassword")
                 .fullName("Receiver User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .build();
 
         targetUser = User.builder()
@@ -106,17 +143,17 @@ class TransactionControllerTest {
                 .password("encodedPassword")
                 .fullName("Target User")
                 .role(Role.USER)
-                .balance(100.0)
+                .balance(Money.ofMajor(100))
                 .build();
 
         transferRequest = new TransferRequest();
         transferRequest.setReceiverUsername("receiver");
-        transferRequest.setAmount(200.0);
+        transferRequest.setAmount(Money.ofMajor(200));
         transferRequest.setMessage("Test transfer");
 
         topUpRequest = new TopUpRequest();
         topUpRequest.setTargetUsername("target");
-        topUpRequest.setAmount(500.0);
+        topUpRequest.setAmount(Money.ofMajor(500));
 
         userToken = jwtTokenProvider.generateToken("user");
         adminToken = jwtTokenProvider.generateToken("admin");
@@ -125,7 +162,7 @@ class TransactionControllerTest {
                 .id(1L)
                 .sender(regularUser)
                 .receiver(receiver)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("Test transfer")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -136,7 +173,7 @@ class TransactionControllerTest {
     void transfer_Success() throws Exception {
         // Arrange
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        stubTransferParties();
         when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
 
         // Act & Assert
@@ -148,8 +185,8 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Chuyển tiền thành công"));
 
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findByUserName("user"); // JWT filter
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("user", "receiver"));
         verify(transactionRepository).save(any(Transaction.class));
     }
 
@@ -179,9 +216,9 @@ class TransactionControllerTest {
     @Test
     void transfer_InsufficientBalance() throws Exception {
         // Arrange
-        transferRequest.setAmount(1500.0); // More than user's balance
+        transferRequest.setAmount(Money.ofMajor(1500)); // More than user's balance
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        stubTransferParties();
 
         // Act & Assert
         mockMvc.perform(post("/v1/api/transactions")
@@ -190,8 +227,8 @@ class TransactionControllerTest {
                 .content(objectMapper.writeValueAsString(transferRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findByUserName("user"); // JWT filter
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("user", "receiver"));
         verifyNoInteractions(transactionRepository);
     }
 
@@ -199,7 +236,8 @@ class TransactionControllerTest {
     void transfer_ReceiverNotFound() throws Exception {
         // Arrange
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.empty());
+        when(userRepository.findAccountRefsByUserNameIn(anyList()))
+                .thenReturn(List.of(new AccountRef(1L, "user", "Regular User")));
 
         // Act & Assert
         mockMvc.perform(post("/v1/api/transactions")
@@ -208,8 +246,8 @@ class TransactionControllerTest {
                 .content(objectMapper.writeValueAsString(transferRequest)))
                 .andExpect(status().isNotFound());
 
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findByUserName("user"); // JWT filter
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("user", "receiver"));
         verifyNoInteractions(transactionRepository);
     }
 
@@ -218,6 +256,8 @@ class TransactionControllerTest {
         // Arrange
         transferRequest.setReceiverUsername("user"); // Same as sender
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        when(userRepository.findAccountRefsByUserNameIn(anyList()))
+                .thenReturn(List.of(new AccountRef(1L, "user", "Regular User")));
 
         // Act & Assert
         mockMvc.perform(post("/v1/api/transactions")
@@ -226,7 +266,8 @@ class TransactionControllerTest {
                 .content(objectMapper.writeValueAsString(transferRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(userRepository, times(3)).findByUserName("user"); // JWT filter + service (2 calls for self-transfer check)
+        verify(userRepository).findByUserName("user"); // JWT filter
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("user", "user"));
         verifyNoInteractions(transactionRepository);
     }
 
@@ -235,7 +276,7 @@ class TransactionControllerTest {
         // Arrange
         transferRequest.setMessage(null);
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        stubTransferParties();
         when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
 
         // Act & Assert
@@ -247,34 +288,80 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Chuyển tiền thành công"));
 
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findByUserName("user"); // JWT filter
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("user", "receiver"));
         verify(transactionRepository).save(any(Transaction.class));
     }
 
+    @Test
+    void transfer_WithIdempotencyKey_ReplaysFirstResult() throws Exception {
+        // Arrange
+        String idempotencyKey = UUID.randomUUID().toString();
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        stubTransferParties();
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
+
+        // Act & Assert - the retry gets the stored result back
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/v1/api/transactions")
+                    .header("Authorization", "Bearer " + userToken)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value("SUCCESS"))
+                    .andExpect(jsonPath("$.data.receiverUsername").value("receiver"))
+                    .andExpect(jsonPath("$.data.amount").value(200.0));
+        }
+
+        verify(userRepository, times(2)).findByUserName("user"); // JWT filter, once per request
+        verify(userRepository, times(1)).findAccountRefsByUserNameIn(anyList());
+        verify(userRepository, times(1)).findAvailableBalanceForUpdate(1L);
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
+    @Test
+    void transfer_WithIdempotencyKey_RejectsDifferentRequest() throws Exception {
+        // Arrange
+        String idempotencyKey = UUID.randomUUID().toString();
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        stubTransferParties();
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
+
+        mockMvc.perform(post("/v1/api/transactions")
+                .header("Authorization", "Bearer " + userToken)
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isOk());
+
+        transferRequest.setAmount(Money.ofMajor(300));
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/api/transactions")
+                .header("Authorization", "Bearer " + userToken)
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key was already used for a different request"));
+
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
     // ======= GET HISTORY TESTS =======
     @Test
     void getHistory_Success() throws Exception {
         // Arrange
-        List<Transaction> transactions = Arrays.asList(
-                Transaction.builder()
-                        .sender(regularUser)
-                        .receiver(receiver)
-                        .amount(200.0)
-                        .message("First transfer")
-                        .createdAt(LocalDateTime.of(2025, 7, 13, 17, 26, 10))
-                        .build(),
-                Transaction.builder()
-                        .sender(receiver)
-                        .receiver(regularUser)
-                        .amount(100.0)
-                        .message("Second transfer")
-                        .createdAt(LocalDateTime.of(2025, 7, 14, 17, 26, 10))
-                        .build()
+        List<HistoryRow> rows = Arrays.asList(
+                historyRow(2L, "user", "receiver", Money.ofMajor(200), "First transfer",
+                        LocalDateTime.of(2025, 7, 14, 17, 26, 10)),
+                historyRow(1L, "receiver", "user", Money.ofMajor(100), "Second transfer",
+                        LocalDateTime.of(2025, 7, 13, 17, 26, 10))
         );
 
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(regularUser, regularUser)).thenReturn(transactions);
+        when(transactionRepository.findHistoryFirstPage(eq("user"), anyInt())).thenReturn(rows);
 
         // Act & Assert
         mockMvc.perform(get("/v1/api/transactions")
@@ -283,19 +370,20 @@ class TransactionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Lấy lịch sử giao dịch thành công"))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(2))
-                .andExpect(jsonPath("$.data[0].senderUsername").value("user"))
-                .andExpect(jsonPath("$.data[0].receiverUsername").value("receiver"))
-                .andExpect(jsonPath("$.data[0].amount").value(200.0))
-                .andExpect(jsonPath("$.data[0].message").value("First transfer"))
-                .andExpect(jsonPath("$.data[1].senderUsername").value("receiver"))
-                .andExpect(jsonPath("$.data[1].receiverUsername").value("user"))
-                .andExpect(jsonPath("$.data[1].amount").value(100.0))
-                .andExpect(jsonPath("$.data[1].message").value("Second transfer"));
-
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(transactionRepository).findBySenderOrReceiverOrderByCreatedAtDesc(regularUser, regularUser);
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items.length()").value(2))
+                .andExpect(jsonPath("$.data.items[0].senderUsername").value("user"))
+                .andExpect(jsonPath("$.data.items[0].receiverUsername").value("receiver"))
+                .andExpect(jsonPath("$.data.items[0].amount").value(200.0))
+                .andExpect(jsonPath("$.data.items[0].message").value("First transfer"))
+                .andExpect(jsonPath("$.data.items[1].senderUsername").value("receiver"))
+                .andExpect(jsonPath("$.data.items[1].receiverUsername").value("user"))
+                .andExpect(jsonPath("$.data.items[1].amount").value(100.0))
+                .andExpect(jsonPath("$.data.items[1].message").value("Second transfer"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+
+        verify(userRepository).findByUserName("user"); // JWT filter only
+        verify(transactionRepository).findHistoryFirstPage(eq("user"), anyInt());
     }
 
     @Test
@@ -312,7 +400,8 @@ class TransactionControllerTest {
     void getHistory_EmptyHistory() throws Exception {
         // Arrange
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
-        when(transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(regularUser, regularUser)).thenReturn(Collections.emptyList());
+        when(transactionRepository.findHistoryFirstPage(eq("user"), anyInt())).thenReturn(Collections.emptyList());
+        when(userRepository.existsByUserName("user")).thenReturn(true);
 
         // Act & Assert
         mockMvc.perform(get("/v1/api/transactions")
@@ -321,11 +410,171 @@ class TransactionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Lấy lịch sử giao dịch thành công"))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(0));
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items.length()").value(0));
 
-        verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
-        verify(transactionRepository).findBySenderOrReceiverOrderByCreatedAtDesc(regularUser, regularUser);
+        verify(userRepository).findByUserName("user"); // JWT filter only
+        verify(transactionRepository).findHistoryFirstPage(eq("user"), anyInt());
+    }
+
+    @Test
+    void getSummary_Success() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        when(spendingSummaryService.getMonthlySummary(1L, YearMonth.of(2026, 9))).thenReturn(new SpendingSummaryResponse(
+                "2026-09", Money.ofMajor(300), 2L, Money.ofMajor(50), 1L, List.of(
+                new SpendingSummaryResponse.CounterpartyResponse("receiver", "Receiver User",
+                        Money.ofMajor(300), Money.ofMajor(50), 3L))));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/summary")
+                .header("Authorization", "Bearer " + userToken)
+                .param("month", "2026-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Lấy tổng hợp chi tiêu thành công"))
+                .andExpect(jsonPath("$.data.month").value("2026-09"))
+                .andExpect(jsonPath("$.data.totalSent").value(300.0))
+                .andExpect(jsonPath("$.data.receivedCount").value(1))
+                .andExpect(jsonPath("$.data.topCounterparties[0].username").value("receiver"))
+                .andExpect(jsonPath("$.data.topCounterparties[0].transferCount").value(3));
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getSummary_DefaultsToCurrentMonth() throws Exception {
+        // Arrange
+        YearMonth month = YearMonth.now();
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        when(spendingSummaryService.getMonthlySummary(eq(1L), any(YearMonth.class))).thenReturn(new SpendingSummaryResponse(
+                month.toString(), Money.ZERO, 0L, Money.ZERO, 0L, List.of()));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/summary")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.topCounterparties.length()").value(0));
+
+        ArgumentCaptor<YearMonth> requested = ArgumentCaptor.forClass(YearMonth.class);
+        verify(spendingSummaryService).getMonthlySummary(eq(1L), requested.capture());
+        assertTrue(!requested.getValue().isBefore(month));
+    }
+
+    @Test
+    void getSummary_InvalidMonth() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/summary")
+                .header("Authorization", "Bearer " + userToken)
+                .param("month", "2026-13"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(spendingSummaryService);
+    }
+
+    @Test
+    void getHistory_WithFilters() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        when(transactionRepository.findHistory(eq("user"), any(HistoryFilter.class), isNull(), anyInt()))
+                .thenReturn(Collections.emptyList());
+        when(userRepository.existsByUserName("user")).thenReturn(true);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions")
+                .param("direction", "sent")
+                .param("counterparty", "receiver")
+                .param("minAmount", "10.50")
+                .param("from", "2025-07-01T00:00:00")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(0));
+
+        ArgumentCaptor<HistoryFilter> filter = ArgumentCaptor.forClass(HistoryFilter.class);
+        verify(transactionRepository).findHistory(eq("user"), filter.capture(), isNull(), anyInt());
+        assertEquals(HistoryFilter.Direction.SENT, filter.getValue().getDirection());
+        assertEquals("receiver", filter.getValue().getCounterparty());
+        assertEquals(Money.ofMinor(1050), filter.getValue().getMinAmount());
+        assertEquals(LocalDateTime.of(2025, 7, 1, 0, 0), filter.getValue().getFrom());
+        assertNull(filter.getValue().getMaxAmount());
+    }
+
+    @Test
+    void getHistory_InvalidFilter() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions")
+                .param("direction", "sideways")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/api/transactions")
+                .param("minAmount", "0.001")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private static HistoryRow historyRow(Long id, String senderUsername, String receiverUsername, Money amount,
+                                         String message, LocalDateTime createdAt) {
+        HistoryRow row = mock(HistoryRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getSenderUsername()).thenReturn(senderUsername);
+        when(row.getReceiverUsername()).thenReturn(receiverUsername);
+        when(row.getAmount()).thenReturn(amount.minorUnits());
+        when(row.getMessage()).thenReturn(message);
+        when(row.getCreatedAt()).thenReturn(createdAt);
+        return row;
+    }
+
+    // ======= EXPORT TESTS =======
+    @Test
+    void export_StreamsCsv() throws Exception {
+        // Arrange
+        HistoryRow row = historyRow(7L, "user", "receiver", Money.ofMajor(200), "Rent",
+                LocalDateTime.of(2025, 7, 14, 17, 26, 10));
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+        when(transactionRepository.streamHistory(eq("user"), any(), any())).thenReturn(Stream.of(row));
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/v1/api/transactions/export")
+                        .param("format", "csv")
+                        .param("from", "2025-07-01T00:00:00")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""))
+                .andExpect(content().string("id,createdAt,senderUsername,receiverUsername,amount,message\n"
+                        + "7,2025-07-14T17:26:10,user,receiver,200.00,Rent\n"));
+        verify(transactionRepository).streamHistory(eq("user"), eq(LocalDateTime.of(2025, 7, 1, 0, 0)), any());
+    }
+
+    @Test
+    void export_RejectsUnknownFormatAndEmptyRange() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/export")
+                        .param("format", "xlsx")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/api/transactions/export")
+                        .param("from", "2025-07-02T00:00:00")
+                        .param("to", "2025-07-01T00:00:00")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(transactionRepository);
     }
 
     // ======= TOP UP TESTS =======
@@ -333,7 +582,8 @@ class TransactionControllerTest {
     void topUp_Success() throws Exception {
         // Arrange
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
-        when(userRepository.findByUserName("target")).thenReturn(Optional.of(targetUser));
+        when(userRepository.findIdByUserName("target")).thenReturn(Optional.of(4L));
+        when(userRepository.findAvailableBalanceForUpdate(4L)).thenReturn(Optional.of(0L));
 
         // Act & Assert
         mockMvc.perform(post("/v1/api/transactions/top-up")
@@ -344,8 +594,9 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Nạp tiền thành công"));
 
-        verify(userRepository, atLeastOnce()).findByUserName("admin"); // JWT filter + service
-        verify(userRepository, atLeastOnce()).findByUserName("target");
+        verify(userRepository).findByUserName("admin"); // JWT filter
+        verify(userRepository).findIdByUserName("target");
+        verify(userRepository).findAvailableBalanceForUpdate(4L);
     }
 
     @Test
@@ -380,7 +631,7 @@ class TransactionControllerTest {
         // Arrange
         topUpRequest.setTargetUsername("nonexistent");
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
-        when(userRepository.findByUserName("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.findIdByUserName("nonexistent")).thenReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(post("/v1/api/transactions/top-up")
@@ -389,14 +640,14 @@ class TransactionControllerTest {
                 .content(objectMapper.writeValueAsString(topUpRequest)))
                 .andExpect(status().isNotFound());
 
-        verify(userRepository, times(2)).findByUserName("admin"); // JWT filter + service
-        verify(userRepository).findByUserName("nonexistent");
+        verify(userRepository).findByUserName("admin"); // JWT filter
+        verify(userRepository).findIdByUserName("nonexistent");
     }
 
     @Test
     void topUp_ExceedsMaximumAmount() throws Exception {
         // Arrange
-        topUpRequest.setAmount(15_000_000.0); // Exceeds maximum
+        topUpRequest.setAmount(Money.ofMajor(15_000_000)); // Exceeds maximum
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
 
         // Act & Assert
@@ -415,21 +666,15 @@ class TransactionControllerTest {
     void getStatistics_Success() throws Exception {
         // Arrange
         StatisticsResponse statisticsResponse = new StatisticsResponse();
-        statisticsResponse.setTotalTransferred(1000.0);
+        statisticsResponse.setTotalTransferred(Money.ofMajor(1000));
         statisticsResponse.setTotalTransactions(5);
         statisticsResponse.setTopReceivers(Arrays.asList(
-                new StatisticsResponse.TopReceiverResponse("receiver", "Receiver User", 600.0, 3),
-                new StatisticsResponse.TopReceiverResponse("target", "Target User", 400.0, 2)
+                new StatisticsResponse.TopReceiverResponse("receiver", "Receiver User", Money.ofMajor(600), 3),
+                new StatisticsResponse.TopReceiverResponse("target", "Target User", Money.ofMajor(400), 2)
         ));
 
-        List<Transaction> allTransactions = Arrays.asList(
-                Transaction.builder().sender(regularUser).receiver(receiver).amount(300.0).build(),
-                Transaction.builder().sender(adminUser).receiver(receiver).amount(300.0).build(),
-                Transaction.builder().sender(regularUser).receiver(targetUser).amount(400.0).build()
-        );
-
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
-        when(transactionRepository.findAll()).thenReturn(allTransactions);
+        when(statisticsService.getStatistics(StatisticsService.Window.ALL)).thenReturn(statisticsResponse);
 
         // Act & Assert
         mockMvc.perform(get("/v1/api/transactions/statistics")
@@ -439,11 +684,13 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
                 .andExpect(jsonPath("$.message").value("Lấy thống kê thành công"))
                 .andExpect(jsonPath("$.data.totalTransferred").value(1000.0))
-                .andExpect(jsonPath("$.data.totalTransactions").value(3))
-                .andExpect(jsonPath("$.data.topReceivers").isArray());
+                .andExpect(jsonPath("$.data.totalTransactions").value(5))
+                .andExpect(jsonPath("$.data.topReceivers").isArray())
+                .andExpect(jsonPath("$.data.topReceivers[0].username").value("receiver"));
 
         verify(userRepository, times(2)).findByUserName("admin"); // JWT filter + service
-        verify(transactionRepository).findAll();
+        verify(statisticsService).getStatistics(StatisticsService.Window.ALL);
+        verify(transactionRepository, never()).findAll();
     }
 
     @Test
@@ -469,13 +716,15 @@ class TransactionControllerTest {
 
         verify(userRepository, times(2)).findByUserName("user"); // JWT filter + service
         verifyNoInteractions(transactionRepository);
+        verify(statisticsService, never()).getStatistics(any(StatisticsService.Window.class));
     }
 
     @Test
     void getStatistics_EmptyTransactions() throws Exception {
         // Arrange
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
-        when(transactionRepository.findAll()).thenReturn(Collections.emptyList());
+        when(statisticsService.getStatistics(StatisticsService.Window.ALL))
+                .thenReturn(new StatisticsResponse(Money.ZERO, 0, Collections.emptyList()));
 
         // Act & Assert
         mockMvc.perform(get("/v1/api/transactions/statistics")
@@ -490,14 +739,156 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.data.topReceivers.length()").value(0));
 
         verify(userRepository, times(2)).findByUserName("admin"); // JWT filter + service
-        verify(transactionRepository).findAll();
+        verify(statisticsService).getStatistics(StatisticsService.Window.ALL);
+    }
+
+    @Test
+    void getStatistics_HourWindowIncludesOvercountBound() throws Exception {
+        // Arrange
+        StatisticsResponse statisticsResponse = new StatisticsResponse(Money.ofMajor(900), 4, List.of(
+                new StatisticsResponse.TopReceiverResponse("receiver", "Receiver User", Money.ofMajor(600), 3,
+                        Money.ofMajor(5))));
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+        when(statisticsService.getStatistics(StatisticsService.Window.HOUR)).thenReturn(statisticsResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("window", "hour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalTransactions").value(4))
+                .andExpect(jsonPath("$.data.topReceivers[0].totalReceived").value(600.0))
+                .andExpect(jsonPath("$.data.topReceivers[0].maxOvercount").value(5.0));
+
+        verify(statisticsService, never()).getStatistics(StatisticsService.Window.ALL);
+    }
+
+    @Test
+    void getStatistics_AllTimeOmitsOvercountBound() throws Exception {
+        // Arrange
+        StatisticsResponse statisticsResponse = new StatisticsResponse(Money.ofMajor(600), 3, List.of(
+                new StatisticsResponse.TopReceiverResponse("receiver", "Receiver User", Money.ofMajor(600), 3)));
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+        when(statisticsService.getStatistics(StatisticsService.Window.ALL)).thenReturn(statisticsResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.topReceivers[0].maxOvercount").doesNotExist());
+    }
+
+    @Test
+    void getVolumeSeries_Success() throws Exception {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+        VolumeSeriesResponse series = new VolumeSeriesResponse("day", from, from.plusDays(1),
+                List.of(new VolumeSeriesResponse.Bucket(from, Money.ofMajor(250), 2L)));
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+        when(transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.DAY, from, from.plusDays(1)))
+                .thenReturn(series);
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics/series")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("granularity", "day")
+                .param("from", "2026-10-01T00:00:00")
+                .param("to", "2026-10-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Lấy thống kê theo thời gian thành công"))
+                .andExpect(jsonPath("$.data.granularity").value("day"))
+                .andExpect(jsonPath("$.data.buckets.length()").value(1))
+                .andExpect(jsonPath("$.data.buckets[0].volume").value(250.0))
+                .andExpect(jsonPath("$.data.buckets[0].transferCount").value(2));
+
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getVolumeSeries_UnsupportedGranularity() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics/series")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("granularity", "week"))
+                .andExpect(status().isBadRequest());
+
+        verify(transferVolumeService, never()).getVolumeSeries(any(), any(), any());
+    }
+
+    @Test
+    void getVolumeSeries_WithUserRole() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics/series")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+
+        verify(transferVolumeService, never()).getVolumeSeries(any(), any(), any());
+    }
+
+    @Test
+    void recomputeStatistics_Started() throws Exception {
+        // Arrange
+        LocalDateTime startedAt = LocalDateTime.of(2026, 10, 1, 0, 0);
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+        when(statisticsRecomputeService.start()).thenReturn(new RecomputeProgressResponse(
+                "RUNNING", 3L, 12L, 150000L, 25.0, startedAt, startedAt.plusSeconds(30), null, null));
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/api/transactions/statistics/recompute")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Đã bắt đầu tính lại thống kê"))
+                .andExpect(jsonPath("$.data.status").value("RUNNING"))
+                .andExpect(jsonPath("$.data.chunksDone").value(3))
+                .andExpect(jsonPath("$.data.percentDone").value(25.0));
+
+        verify(statisticsRecomputeService).start();
+    }
+
+    @Test
+    void recomputeStatistics_WithUserRole() throws Exception {
+        // Arrange
+        when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
+
+        // Act & Assert
+        mockMvc.perform(post("/v1/api/transactions/statistics/recompute")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+
+        verify(statisticsRecomputeService, never()).start();
+    }
+
+    @Test
+    void getRecomputeProgress_Success() throws Exception {
+        // Arrange
+        LocalDateTime startedAt = LocalDateTime.of(2026, 10, 1, 0, 0);
+        when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
+        when(statisticsRecomputeService.getProgress()).thenReturn(new RecomputeProgressResponse(
+                "COMPLETED", 12L, 12L, 600000L, 100.0, startedAt, startedAt.plusMinutes(2),
+                startedAt.plusMinutes(2), null));
+
+        // Act & Assert
+        mockMvc.perform(get("/v1/api/transactions/statistics/recompute")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Lấy tiến độ tính lại thống kê thành công"))
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.rowsRead").value(600000));
+
+        verify(statisticsRecomputeService, never()).start();
     }
 
     // ======= VALIDATION TESTS =======
     @Test
     void transfer_InvalidAmount() throws Exception {
         // Arrange
-        transferRequest.setAmount(0.0);
+        transferRequest.setAmount(Money.ZERO);
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
 
         // Act & Assert
@@ -514,7 +905,7 @@ class TransactionControllerTest {
     @Test
     void topUp_InvalidAmount() throws Exception {
         // Arrange
-        topUpRequest.setAmount(-100.0);
+        topUpRequest.setAmount(Money.ofMajor(-100));
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
 
         // Act & Assert
@@ -527,4 +918,12 @@ class TransactionControllerTest {
         verify(userRepository, times(2)).findByUserName("admin"); // JWT filter + service
         verifyNoMoreInteractions(userRepository);
     }
-} 
\ No newline at end of file
+
+    private void stubTransferParties() {
+        when(userRepository.findAccountRefsByUserNameIn(anyList())).thenReturn(List.of(
+                new AccountRef(1L, "user", "Regular User"),
+                new AccountRef(3L, "receiver", "Receiver User")));
+        when(userRepository.findAvailableBalanceForUpdate(1L))
+                .thenReturn(Optional.of(regularUser.getBalance().minorUnits()));
+    }
+}
@@ -1,23 +1,35 @@
 package com.thinhtran.EzPay.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.dto.response.RecipientResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
 import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
 import com.thinhtran.EzPay.security.JwtTokenProvider;
+import com.thinhtran.EzPay.service.RecipientIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +51,12 @@ class UserControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private RecipientIndex recipientIndex;
+
+    @SpyBean
+    private LedgerPostingRepository ledgerPostingRepository;
+
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
@@ -55,7 +73,7 @@ class UserControllerTest {
                 .email("user@example.com")
                 .fullName("Regular User")
                 .password("encoded_password")
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .role(Role.USER)
                 .build();
 
@@ -65,7 +83,7 @@ class UserControllerTest {
                 .email("admin@example.com")
                 .fullName("Admin User")
                 .password("encoded_password")
-                .balance(5000.0)
+                .balance(Money.ofMajor(5000))
                 .role(Role.ADMIN)
                 .build();
 
@@ -151,7 +169,7 @@ class UserControllerTest {
 
     @Test
     void getMe_WithZeroBalance() throws Exception {
-        regularUser.setBalance(0.0);
+        regularUser.setBalance(Money.ZERO);
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
 
         mockMvc.perform(get("/v1/api/users/me")
@@ -221,4 +239,98 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.userName").value("user"));
     }
-} 
\ No newline at end of file
+
+    // ======= SEARCH TESTS =======
+    @Test
+    void searchUsers_MapsRowsAndPushesFilterIntoQuery() throws Exception {
+        when(userRepository.search(eq("%regular%"), eq(Role.ADMIN), eq(PageRequest.of(0, 10))))
+                .thenReturn(List.of(new UserSearchRow(1L, "user", "Regular User", "user@example.com",
+                        "0901234567", Role.USER, Money.ofMajor(1000))));
+
+        mockMvc.perform(get("/v1/api/users/search")
+                .param("q", "  Regular ")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Tìm kiếm người dùng thành công"))
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].userName").value("user"))
+                .andExpect(jsonPath("$.data[0].fullName").value("Regular User"))
+                .andExpect(jsonPath("$.data[0].phone").value("0901234567"))
+                .andExpect(jsonPath("$.data[0].balance").value(1000.0))
+                .andExpect(jsonPath("$.data[0].role").value("USER"));
+
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void searchUsers_ReadsUnsettledBalancesInOneQuery() throws Exception {
+        when(userRepository.search(any(), any(), any())).thenReturn(List.of(
+                new UserSearchRow(1L, "user", "Regular User", "user@example.com", null, Role.USER, Money.ofMajor(1000)),
+                new UserSearchRow(2L, "user2", "Second User", "user2@example.com", null, Role.USER, Money.ofMajor(5))));
+
+        mockMvc.perform(get("/v1/api/users/search")
+                .param("q", "user")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2));
+
+        verify(ledgerPostingRepository).sumUnsettledByAccount(argThat(ids -> ids.containsAll(List.of(1L, 2L))));
+        verify(ledgerPostingRepository, never()).sumUnsettled(anyLong());
+    }
+
+    @Test
+    void searchUsers_ShortTermMatchesInfixWithWildcardsEscaped() throws Exception {
+        when(userRepository.search(any(), any(), any())).thenReturn(List.of());
+
+        mockMvc.perform(get("/v1/api/users/search")
+                .param("q", "a%")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0));
+
+        verify(userRepository).search(eq("%a!%%"), eq(Role.ADMIN), eq(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void searchUsers_BlankTermSkipsQuery() throws Exception {
+        mockMvc.perform(get("/v1/api/users/search")
+                .param("q", "   ")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0));
+
+        verify(userRepository, never()).search(any(), any(), any());
+    }
+
+    // ======= AUTOCOMPLETE TESTS =======
+    @Test
+    void autocomplete_ReturnsSuggestionsWithoutBalances() throws Exception {
+        when(recipientIndex.suggest("tran d", 10)).thenReturn(List.of(
+                new RecipientResponse("tranduc", "Trần Đức", "tranduc@example.com", "0901234567")));
+
+        mockMvc.perform(get("/v1/api/users/autocomplete")
+                .param("q", "tran d")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Gợi ý người nhận thành công"))
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].userName").value("tranduc"))
+                .andExpect(jsonPath("$.data[0].fullName").value("Trần Đức"))
+                .andExpect(jsonPath("$.data[0].email").value("tranduc@example.com"))
+                .andExpect(jsonPath("$.data[0].phone").value("0901234567"))
+                .andExpect(jsonPath("$.data[0].balance").doesNotExist());
+
+        verify(userRepository, never()).search(any(), any(), any());
+    }
+
+    @Test
+    void autocomplete_RejectsLimitOutOfRange() throws Exception {
+        mockMvc.perform(get("/v1/api/users/autocomplete")
+                .param("q", "tran")
+                .param("limit", "51")
+                .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isBadRequest());
+
+        verify(recipientIndex, never()).suggest(any(), anyInt());
+    }
+}
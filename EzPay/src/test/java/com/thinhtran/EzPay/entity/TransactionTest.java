@@ -1,5 +1,6 @@
 package com.thinhtran.EzPay.entity;
 
+import com.thinhtran.EzPay.entity.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -22,7 +23,7 @@ class TransactionTest {
                 .password("password")
                 .fullName("Sender User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
 
         receiver = User.builder()
@@ -32,7 +33,7 @@ class TransactionTest {
                 .password("password")
                 .fullName("Receiver User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .build();
 
         testDateTime = LocalDateTime.now();
@@ -45,7 +46,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("Test transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -55,7 +56,7 @@ class TransactionTest {
         assertEquals(1L, transaction.getId());
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
-        assertEquals(200.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(200), transaction.getAmount());
         assertEquals("Test transaction", transaction.getMessage());
         assertEquals(testDateTime, transaction.getCreatedAt());
     }
@@ -66,7 +67,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message(null)
                 .createdAt(testDateTime)
                 .build();
@@ -75,7 +76,7 @@ class TransactionTest {
         assertNotNull(transaction);
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
-        assertEquals(100.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(100), transaction.getAmount());
         assertNull(transaction.getMessage());
         assertEquals(testDateTime, transaction.getCreatedAt());
     }
@@ -98,14 +99,14 @@ class TransactionTest {
     @Test
     void transactionConstructor_AllArgs() {
         // Arrange & Act
-        Transaction transaction = new Transaction(1L, sender, receiver, 250.0, "All args test", testDateTime);
+        Transaction transaction = new Transaction(1L, sender, receiver, Money.ofMajor(250), "All args test", testDateTime);
 
         // Assert
         assertNotNull(transaction);
         assertEquals(1L, transaction.getId());
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
-        assertEquals(250.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(250), transaction.getAmount());
         assertEquals("All args test", transaction.getMessage());
         assertEquals(testDateTime, transaction.getCreatedAt());
     }
@@ -120,7 +121,7 @@ class TransactionTest {
         transaction.setId(2L);
         transaction.setSender(sender);
         transaction.setReceiver(receiver);
-        transaction.setAmount(300.0);
+        transaction.setAmount(Money.ofMajor(300));
         transaction.setMessage("Updated message");
         transaction.setCreatedAt(newDateTime);
 
@@ -128,7 +129,7 @@ class TransactionTest {
         assertEquals(2L, transaction.getId());
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
-        assertEquals(300.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(300), transaction.getAmount());
         assertEquals("Updated message", transaction.getMessage());
         assertEquals(newDateTime, transaction.getCreatedAt());
     }
@@ -140,7 +141,7 @@ class TransactionTest {
                 .id(3L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(150.0)
+                .amount(Money.ofMajor(150))
                 .message("Getter test")
                 .createdAt(testDateTime)
                 .build();
@@ -149,7 +150,7 @@ class TransactionTest {
         assertEquals(3L, transaction.getId());
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
-        assertEquals(150.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(150), transaction.getAmount());
         assertEquals("Getter test", transaction.getMessage());
         assertEquals(testDateTime, transaction.getCreatedAt());
     }
@@ -161,7 +162,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -170,7 +171,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(receiver)
                 .receiver(sender)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("Transaction 2")
                 .createdAt(testDateTime.plusMinutes(1))
                 .build();
@@ -186,7 +187,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -195,7 +196,7 @@ class TransactionTest {
                 .id(2L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -210,7 +211,7 @@ class TransactionTest {
         Transaction transaction1 = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -218,7 +219,7 @@ class TransactionTest {
         Transaction transaction2 = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -234,7 +235,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Test transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -254,7 +255,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Transaction 1")
                 .createdAt(testDateTime)
                 .build();
@@ -263,7 +264,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(receiver)
                 .receiver(sender)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("Transaction 2")
                 .createdAt(testDateTime.plusMinutes(1))
                 .build();
@@ -279,7 +280,7 @@ class TransactionTest {
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Test transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -301,13 +302,13 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(0.0)
+                .amount(Money.ZERO)
                 .message("Zero amount transaction")
                 .createdAt(testDateTime)
                 .build();
 
         // Assert
-        assertEquals(0.0, transaction.getAmount());
+        assertEquals(Money.ZERO, transaction.getAmount());
     }
 
     @Test
@@ -316,13 +317,13 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(999.99)
+                .amount(Money.parse("999.99"))
                 .message("Positive amount transaction")
                 .createdAt(testDateTime)
                 .build();
 
         // Assert
-        assertEquals(999.99, transaction.getAmount());
+        assertEquals(Money.parse("999.99"), transaction.getAmount());
     }
 
     @Test
@@ -331,13 +332,13 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(-50.0)
+                .amount(Money.ofMajor(-50))
                 .message("Negative amount transaction")
                 .createdAt(testDateTime)
                 .build();
 
         // Assert
-        assertEquals(-50.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(-50), transaction.getAmount());
     }
 
     @Test
@@ -346,13 +347,13 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(999999999.99)
+                .amount(Money.parse("999999999.99"))
                 .message("Large amount transaction")
                 .createdAt(testDateTime)
                 .build();
 
         // Assert
-        assertEquals(999999999.99, transaction.getAmount());
+        assertEquals(Money.parse("999999999.99"), transaction.getAmount());
     }
 
     @Test
@@ -361,13 +362,13 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(0.01)
+                .amount(Money.parse("0.01"))
                 .message("Small decimal amount transaction")
                 .createdAt(testDateTime)
                 .build();
 
         // Assert
-        assertEquals(0.01, transaction.getAmount());
+        assertEquals(Money.parse("0.01"), transaction.getAmount());
     }
 
     @Test
@@ -376,7 +377,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message(null)
                 .createdAt(testDateTime)
                 .build();
@@ -391,7 +392,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("")
                 .createdAt(testDateTime)
                 .build();
@@ -406,7 +407,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Payment for order #12345 - $100.00")
                 .createdAt(testDateTime)
                 .build();
@@ -421,7 +422,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("转账给朋友")
                 .createdAt(testDateTime)
                 .build();
@@ -441,7 +442,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message(longMessage)
                 .createdAt(testDateTime)
                 .build();
@@ -456,7 +457,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(sender)
-                .amount(50.0)
+                .amount(Money.ofMajor(50))
                 .message("Self transfer")
                 .createdAt(testDateTime)
                 .build();
@@ -464,7 +465,7 @@ class TransactionTest {
         // Assert
         assertEquals(sender, transaction.getSender());
         assertEquals(sender, transaction.getReceiver());
-        assertEquals(50.0, transaction.getAmount());
+        assertEquals(Money.ofMajor(50), transaction.getAmount());
         assertEquals("Self transfer", transaction.getMessage());
     }
 
@@ -477,7 +478,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Past transaction")
                 .createdAt(pastDateTime)
                 .build();
@@ -495,7 +496,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Future transaction")
                 .createdAt(futureDateTime)
                 .build();
@@ -510,7 +511,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Null date transaction")
                 .createdAt(null)
                 .build();
@@ -529,14 +530,14 @@ class TransactionTest {
                 .password("password")
                 .fullName("Admin User")
                 .role(Role.ADMIN)
-                .balance(5000.0)
+                .balance(Money.ofMajor(5000))
                 .build();
 
         // Act
         Transaction transaction = Transaction.builder()
                 .sender(adminUser)
                 .receiver(sender)
-                .amount(500.0)
+                .amount(Money.ofMajor(500))
                 .message("Admin to user transfer")
                 .createdAt(testDateTime)
                 .build();
@@ -554,7 +555,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(null)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Null sender transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -570,7 +571,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(null)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Null receiver transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -586,7 +587,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(null)
                 .receiver(null)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Both null transaction")
                 .createdAt(testDateTime)
                 .build();
@@ -602,7 +603,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Relationship test")
                 .createdAt(testDateTime)
                 .build();
@@ -620,7 +621,7 @@ class TransactionTest {
         Transaction transaction = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Immutability test")
                 .createdAt(testDateTime)
                 .build();
@@ -1,5 +1,6 @@
 package com.thinhtran.EzPay.entity;
 
+import com.thinhtran.EzPay.entity.Money;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,7 +17,7 @@ class UserTest {
                 .password("encodedPassword")
                 .fullName("Test User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .phone("123456789")
                 .build();
 
@@ -28,7 +29,7 @@ class UserTest {
         assertEquals("encodedPassword", user.getPassword());
         assertEquals("Test User", user.getFullName());
         assertEquals(Role.USER, user.getRole());
-        assertEquals(1000.0, user.getBalance());
+        assertEquals(Money.ofMajor(1000), user.getBalance());
         assertEquals("123456789", user.getPhone());
     }
 
@@ -49,7 +50,7 @@ class UserTest {
         assertEquals("password", user.getPassword());
         assertEquals("Test User", user.getFullName());
         assertEquals(Role.USER, user.getRole()); // Default role
-        assertEquals(0.0, user.getBalance()); // Default balance
+        assertEquals(Money.ZERO, user.getBalance()); // Default balance
         assertNull(user.getPhone()); // Nullable field
     }
 
@@ -87,14 +88,15 @@ class UserTest {
         assertNull(user.getFullName());
         assertNull(user.getPhone());
         assertEquals(Role.USER, user.getRole()); // Default role
-        assertEquals(0.0, user.getBalance()); // Default balance
+        assertEquals(Money.ZERO, user.getBalance()); // Default balance
     }
 
     @Test
     void userConstructor_AllArgs() {
         // Arrange & Act
         User user = new User(1L, "testuser", "test@example.com", "password", 
-                           "123456789", "Test User", Role.ADMIN, 1500.0);
+                           "123456789", "Test User", Role.ADMIN, Money.ofMajor(1500),
+                           false, null, null, null, null);
 
         // Assert
         assertNotNull(user);
@@ -105,7 +107,7 @@ class UserTest {
         assertEquals("123456789", user.getPhone());
         assertEquals("Test User", user.getFullName());
         assertEquals(Role.ADMIN, user.getRole());
-        assertEquals(1500.0, user.getBalance());
+        assertEquals(Money.ofMajor(1500), user.getBalance());
     }
 
     @Test
@@ -120,7 +122,7 @@ class UserTest {
         user.setPassword("newpassword");
         user.setFullName("New User");
         user.setRole(Role.ADMIN);
-        user.setBalance(2000.0);
+        user.setBalance(Money.ofMajor(2000));
         user.setPhone("987654321");
 
         // Assert
@@ -130,7 +132,7 @@ class UserTest {
         assertEquals("newpassword", user.getPassword());
         assertEquals("New User", user.getFullName());
         assertEquals(Role.ADMIN, user.getRole());
-        assertEquals(2000.0, user.getBalance());
+        assertEquals(Money.ofMajor(2000), user.getBalance());
         assertEquals("987654321", user.getPhone());
     }
 
@@ -144,7 +146,7 @@ class UserTest {
                 .password("getterpassword")
                 .fullName("Getter User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .phone("111222333")
                 .build();
 
@@ -155,7 +157,7 @@ class UserTest {
         assertEquals("getterpassword", user.getPassword());
         assertEquals("Getter User", user.getFullName());
         assertEquals(Role.USER, user.getRole());
-        assertEquals(500.0, user.getBalance());
+        assertEquals(Money.ofMajor(500), user.getBalance());
         assertEquals("111222333", user.getPhone());
     }
 
@@ -269,7 +271,7 @@ class UserTest {
                 .password("password")
                 .fullName("Test User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .phone("123456789")
                 .build();
 
@@ -315,7 +317,7 @@ class UserTest {
         User user = new User();
 
         // Assert
-        assertEquals(0.0, user.getBalance());
+        assertEquals(Money.ZERO, user.getBalance());
     }
 
     @Test
@@ -325,11 +327,11 @@ class UserTest {
                 .userName("testuser")
                 .email("test@example.com")
                 .password("password")
-                .balance(999.99)
+                .balance(Money.parse("999.99"))
                 .build();
 
         // Assert
-        assertEquals(999.99, user.getBalance());
+        assertEquals(Money.parse("999.99"), user.getBalance());
     }
 
     @Test
@@ -339,11 +341,11 @@ class UserTest {
                 .userName("testuser")
                 .email("test@example.com")
                 .password("password")
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
 
         // Assert
-        assertEquals(0.0, user.getBalance());
+        assertEquals(Money.ZERO, user.getBalance());
     }
 
     @Test
@@ -353,11 +355,11 @@ class UserTest {
                 .userName("testuser")
                 .email("test@example.com")
                 .password("password")
-                .balance(-100.0)
+                .balance(Money.ofMajor(-100))
                 .build();
 
         // Assert
-        assertEquals(-100.0, user.getBalance());
+        assertEquals(Money.ofMajor(-100), user.getBalance());
     }
 
     @Test
@@ -490,11 +492,11 @@ class UserTest {
                 .userName("testuser")
                 .email("test@example.com")
                 .password("password")
-                .balance(999999999.99)
+                .balance(Money.parse("999999999.99"))
                 .build();
 
         // Assert
-        assertEquals(999999999.99, user.getBalance());
+        assertEquals(Money.parse("999999999.99"), user.getBalance());
     }
 
     @Test
@@ -504,10 +506,10 @@ class UserTest {
                 .userName("testuser")
                 .email("test@example.com")
                 .password("password")
-                .balance(0.01)
+                .balance(Money.parse("0.01"))
                 .build();
 
         // Assert
-        assertEquals(0.01, user.getBalance());
+        assertEquals(Money.parse("0.01"), user.getBalance());
     }
 } 
\ No newline at end of file
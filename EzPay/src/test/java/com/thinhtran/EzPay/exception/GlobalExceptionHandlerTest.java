@@ -2,6 +2,7 @@ package com.thinhtran.EzPay.exception;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thinhtran.EzPay.dto.response.ApiResponse;
+import com.thinhtran.EzPay.entity.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -83,7 +84,7 @@ class GlobalExceptionHandlerTest {
     @Test
     void handleInsufficientBalanceException() {
         // Arrange
-        InsufficientBalanceException exception = new InsufficientBalanceException(100.0, 200.0);
+        InsufficientBalanceException exception = new InsufficientBalanceException(Money.ofMajor(100), Money.ofMajor(200));
 
         // Act
         ResponseEntity<ApiResponse<Object>> response = globalExceptionHandler.handleInsufficientBalanceException(exception, webRequest);
@@ -0,0 +1,185 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.BatchTransferResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Notification;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A batch transfer locks its accounts with one statement and writes its rows as JDBC batches,
+ * so the statement count does not grow with the number of legs.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-transfer;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ezpay.outbox.relay.enabled=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class BatchTransferIntegrationTest {
+
+    private static final int RECEIVERS = 20;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private Statistics statistics;
+    private User payer;
+
+    @BeforeEach
+    void setUp() {
+        payer = userRepository.save(newUser("payer", Money.ofMajor(100_000)));
+        for (int i = 0; i < RECEIVERS; i++) {
+            userRepository.save(newUser("employee" + i, Money.ZERO));
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transferBatch_MovesMoneyAndReportsEachLeg() {
+        // Arrange
+        List<TransferRequest> legs = payroll(Money.ofMajor(1_000));
+        legs.add(leg("nobody", Money.ofMajor(5)));
+
+        // Act
+        BatchTransferResponse response = transactionService.transferBatch("payer", new BatchTransferRequest(legs));
+
+        // Assert
+        assertEquals(RECEIVERS, response.getSucceeded());
+        assertEquals(1, response.getFailed());
+        assertEquals("User not found: nobody", response.getResults().get(RECEIVERS).getError());
+        assertEquals(Money.ofMajor(80_000), ledgerService.balanceOf(userRepository.findById(payer.getId()).orElseThrow()));
+        assertEquals(Money.ofMajor(1_000), ledgerService.balanceOf(userRepository.findByUserName("employee7").orElseThrow()));
+        assertEquals(RECEIVERS, transactionRepository.count());
+        assertEquals(List.of(TransferBatchCompletedEvent.TYPE, TransferBatchCompletedEvent.NOTIFICATION_TYPE),
+                outboxEventRepository.findAll().stream().map(OutboxEvent::getEventType).toList());
+    }
+
+    @Test
+    void transferBatch_StatementCountIndependentOfLegCount() {
+        // Arrange
+        statistics.clear();
+
+        // Act
+        transactionService.transferBatch("payer", new BatchTransferRequest(payroll(Money.ofMajor(10))));
+
+        // Assert - resolve accounts, lock the payer, transaction insert batch, posting insert batch, plus a
+        // transaction and a posting id sequence fetch whenever a 50-id allocation runs out; the outbox rows
+        // are one JDBC insert, which Hibernate does not count
+        assertTrue(statistics.getPrepareStatementCount() <= 6,
+                "Expected at most 6 statements, got " + statistics.getPrepareStatementCount());
+        assertEquals(RECEIVERS + 2 * RECEIVERS, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void relayedBatch_NotifiesInBulk() {
+        // Arrange
+        transactionService.transferBatch("payer", new BatchTransferRequest(payroll(Money.ofMajor(10))));
+
+        // Act - the statistics and the notification event
+        assertEquals(2, outboxService.relayBatch(10));
+
+        // Assert - one notification per receiver plus a summary for the payer, in a single call
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createAndSendNotifications(notifications.capture());
+        assertEquals(RECEIVERS + 1, notifications.getValue().size());
+        Notification summary = notifications.getValue().get(RECEIVERS);
+        assertEquals(payer.getId(), summary.getUserId());
+        assertEquals("Bạn đã chuyển 200 VND cho 20 người nhận", summary.getMessage());
+    }
+
+    private static List<TransferRequest> payroll(Money amount) {
+        List<TransferRequest> legs = new ArrayList<>();
+        for (int i = 0; i < RECEIVERS; i++) {
+            legs.add(leg("employee" + i, amount));
+        }
+        return legs;
+    }
+
+    private static TransferRequest leg(String receiver, Money amount) {
+        TransferRequest leg = new TransferRequest();
+        leg.setReceiverUsername(receiver);
+        leg.setAmount(amount);
+        return leg;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
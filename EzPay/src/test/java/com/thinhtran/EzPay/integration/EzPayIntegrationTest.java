@@ -9,6 +9,7 @@ import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
 import com.thinhtran.EzPay.dto.response.ApiResponse;
 import com.thinhtran.EzPay.dto.response.AuthResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.repository.UserRepository;
@@ -76,7 +77,7 @@ class EzPayIntegrationTest {
                 .password("encodedPassword")
                 .fullName("Regular User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
 
         adminUser = User.builder()
@@ -86,7 +87,7 @@ class EzPayIntegrationTest {
                 .password("encodedPassword")
                 .fullName("Admin User")
                 .role(Role.ADMIN)
-                .balance(5000.0)
+                .balance(Money.ofMajor(5000))
                 .build();
 
         receiverUser = User.builder()
@@ -96,7 +97,7 @@ class EzPayIntegrationTest {
                 .password("encodedPassword")
                 .fullName("Receiver User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .build();
 
         registerRequest = new RegisterRequest();
@@ -132,7 +133,7 @@ class EzPayIntegrationTest {
                 .password("encodedPassword")
                 .fullName("New User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
         when(userRepository.save(any(User.class))).thenReturn(newUser);
 
@@ -163,7 +164,7 @@ class EzPayIntegrationTest {
         // Step 3: Admin tops up user account
         TopUpRequest topUpRequest = new TopUpRequest();
         topUpRequest.setTargetUsername("newuser");
-        topUpRequest.setAmount(500.0);
+        topUpRequest.setAmount(Money.ofMajor(500));
 
         when(userRepository.findByUserName("admin")).thenReturn(Optional.of(adminUser));
         when(userRepository.findByUserName("newuser")).thenReturn(Optional.of(newUser));
@@ -180,10 +181,10 @@ class EzPayIntegrationTest {
         // Step 4: Perform a transfer
         TransferRequest transferRequest = new TransferRequest();
         transferRequest.setReceiverUsername("receiver");
-        transferRequest.setAmount(200.0);
+        transferRequest.setAmount(Money.ofMajor(200));
         transferRequest.setMessage("Payment for services");
 
-        newUser.setBalance(500.0); // Update balance after top-up
+        newUser.setBalance(Money.ofMajor(500)); // Update balance after top-up
         when(userRepository.findByUserName("newuser")).thenReturn(Optional.of(newUser));
         when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiverUser));
 
@@ -196,8 +197,8 @@ class EzPayIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Chuyển tiền thành công"));
 
         // Verify final balances
-        assertEquals(300.0, newUser.getBalance()); // 500 - 200
-        assertEquals(700.0, receiverUser.getBalance()); // 500 + 200
+        assertEquals(Money.ofMajor(300), newUser.getBalance()); // 500 - 200
+        assertEquals(Money.ofMajor(700), receiverUser.getBalance()); // 500 + 200
     }
 
     @Test
@@ -228,7 +229,7 @@ class EzPayIntegrationTest {
         // Step 3: Perform transfer
         TransferRequest transferRequest = new TransferRequest();
         transferRequest.setReceiverUsername("receiver");
-        transferRequest.setAmount(300.0);
+        transferRequest.setAmount(Money.ofMajor(300));
         transferRequest.setMessage("Monthly payment");
 
         when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiverUser));
@@ -247,11 +248,11 @@ class EzPayIntegrationTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.code").value("SUCCESS"))
-                .andExpect(jsonPath("$.data").isArray());
+                .andExpect(jsonPath("$.data.items").isArray());
 
         // Verify final balances
-        assertEquals(700.0, regularUser.getBalance()); // 1000 - 300
-        assertEquals(800.0, receiverUser.getBalance()); // 500 + 300
+        assertEquals(Money.ofMajor(700), regularUser.getBalance()); // 1000 - 300
+        assertEquals(Money.ofMajor(800), receiverUser.getBalance()); // 500 + 300
     }
 
     // ======= ERROR HANDLING FLOWS =======
@@ -281,7 +282,7 @@ class EzPayIntegrationTest {
 
         TransferRequest transferRequest = new TransferRequest();
         transferRequest.setReceiverUsername("receiver");
-        transferRequest.setAmount(100.0);
+        transferRequest.setAmount(Money.ofMajor(100));
         transferRequest.setMessage("Test");
 
         mockMvc.perform(post("/v1/api/transactions")
@@ -313,7 +314,7 @@ class EzPayIntegrationTest {
         // Step 2: Try to transfer more money than available
         TransferRequest largeTransfer = new TransferRequest();
         largeTransfer.setReceiverUsername("receiver");
-        largeTransfer.setAmount(1500.0); // More than user's 1000.0 balance
+        largeTransfer.setAmount(Money.ofMajor(1500)); // More than user's 1000.0 balance
         largeTransfer.setMessage("Large transfer");
 
         when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiverUser));
@@ -327,7 +328,7 @@ class EzPayIntegrationTest {
         // Step 3: Perform valid transfer within balance
         TransferRequest validTransfer = new TransferRequest();
         validTransfer.setReceiverUsername("receiver");
-        validTransfer.setAmount(500.0);
+        validTransfer.setAmount(Money.ofMajor(500));
         validTransfer.setMessage("Valid transfer");
 
         mockMvc.perform(post("/v1/api/transactions")
@@ -360,7 +361,7 @@ class EzPayIntegrationTest {
         // Step 2: Perform top-up
         TopUpRequest topUpRequest = new TopUpRequest();
         topUpRequest.setTargetUsername("user");
-        topUpRequest.setAmount(1000.0);
+        topUpRequest.setAmount(Money.ofMajor(1000));
 
         when(userRepository.findByUserName("user")).thenReturn(Optional.of(regularUser));
 
@@ -436,7 +437,7 @@ class EzPayIntegrationTest {
         // Step 2: Try to access admin-only top-up endpoint
         TopUpRequest topUpRequest = new TopUpRequest();
         topUpRequest.setTargetUsername("receiver");
-        topUpRequest.setAmount(500.0);
+        topUpRequest.setAmount(Money.ofMajor(500));
 
         mockMvc.perform(post("/v1/api/transactions/top-up")
                 .header("Authorization", "Bearer " + userToken)
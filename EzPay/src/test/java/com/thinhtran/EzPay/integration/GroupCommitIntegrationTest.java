@@ -0,0 +1,201 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.exception.UserNotFoundException;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.GroupCommitService;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transfers queued within the linger window commit in one transaction, and each caller still gets
+ * its own outcome: rejected transfers fail alone and a batch that cannot commit is retried one by one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-commit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.transfer.group-commit.enabled=true",
+        "ezpay.transfer.group-commit.batch-size=8",
+        "ezpay.transfer.group-commit.linger-ms=500",
+        "ezpay.transfer.group-commit.workers=1"
+})
+class GroupCommitIntegrationTest {
+
+    @Autowired
+    private GroupCommitService groupCommitService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice", Money.ofMajor(1000)));
+        bob = userRepository.save(newUser("bob", Money.ofMajor(500)));
+        carol = userRepository.save(newUser("carol", Money.ZERO));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void submit_CommitsQueuedTransfersTogether() throws Exception {
+        // Arrange
+        double commitsBefore = commits();
+
+        // Act - the third debit from alice only fails because the first two are in the same batch
+        List<CompletableFuture<TransactionResponse>> results = List.of(
+                groupCommitService.submit("alice", transferRequest("carol", Money.ofMajor(400), null)),
+                groupCommitService.submit("alice", transferRequest("carol", Money.ofMajor(400), null)),
+                groupCommitService.submit("alice", transferRequest("carol", Money.ofMajor(400), null)),
+                groupCommitService.submit("bob", transferRequest("nobody", Money.ofMajor(10), null)),
+                groupCommitService.submit("carol", transferRequest("bob", Money.ofMajor(700), null)));
+
+        // Assert
+        assertEquals(Money.ofMajor(400), results.get(0).get(5, TimeUnit.SECONDS).getAmount());
+        assertEquals(Money.ofMajor(400), results.get(1).get(5, TimeUnit.SECONDS).getAmount());
+        assertFailedWith(InsufficientBalanceException.class, results.get(2));
+        assertFailedWith(UserNotFoundException.class, results.get(3));
+        assertEquals("bob", results.get(4).get(5, TimeUnit.SECONDS).getReceiverUsername());
+
+        assertEquals(1, commits() - commitsBefore);
+        assertEquals(3, transactionRepository.count());
+        assertEquals(Money.ofMajor(200), balanceOf(alice));
+        assertEquals(Money.ofMajor(1200), balanceOf(bob));
+        assertEquals(Money.ofMajor(100), balanceOf(carol));
+        assertTrue(ledgerService.reconcile().isBalanced());
+    }
+
+    @Test
+    void submit_RetriesFailedBatchOneByOne() throws Exception {
+        // Act - a message too long for its column fails the whole batch at flush
+        CompletableFuture<TransactionResponse> good = groupCommitService.submit(
+                "alice", transferRequest("bob", Money.ofMajor(100), "rent"));
+        CompletableFuture<TransactionResponse> bad = groupCommitService.submit(
+                "alice", transferRequest("bob", Money.ofMajor(100), "x".repeat(300)));
+
+        // Assert
+        assertEquals("rent", good.get(5, TimeUnit.SECONDS).getMessage());
+        assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals(1, transactionRepository.count());
+        assertEquals(Money.ofMajor(900), balanceOf(alice));
+        assertEquals(Money.ofMajor(600), balanceOf(bob));
+    }
+
+    @Test
+    void transfer_RethrowsTheTransfersOwnException() {
+        // Act & Assert
+        assertThrows(InsufficientBalanceException.class,
+                () -> groupCommitService.transfer("carol", transferRequest("bob", Money.ofMajor(1), null)));
+    }
+
+    @Test
+    void transactionServiceTransfer_RejectedInsideCallersTransactionRollsItBack() {
+        // Act - the caller catches the rejection, but the transaction it ran in can no longer commit
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertThrows(UnexpectedRollbackException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(100), null));
+            assertThrows(InsufficientBalanceException.class,
+                    () -> transactionService.transfer("carol", transferRequest("bob", Money.ofMajor(1), null)));
+        }));
+
+        // Assert
+        assertEquals(0, transactionRepository.count());
+        assertEquals(Money.ofMajor(1000), balanceOf(alice));
+    }
+
+    private double commits() {
+        return meterRegistry.counter("ezpay.transfer.group-commit.commits").count();
+    }
+
+    private static void assertFailedWith(Class<? extends Throwable> type, CompletableFuture<?> result) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(type, e.getCause());
+    }
+
+    private Money balanceOf(User user) {
+        return ledgerService.balanceOf(userRepository.findById(user.getId()).orElseThrow());
+    }
+
+    private static TransferRequest transferRequest(String receiver, Money amount, String message) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(amount);
+        request.setMessage(message);
+        return request;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.thinhtran.EzPay.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.HistoryExportService;
+import com.thinhtran.EzPay.service.HistoryExportService.Format;
+import com.thinhtran.EzPay.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports read the history through a streamed cursor and write it out oldest first, in CSV with
+ * quoting for awkward messages or as one JSON object per line, optionally cut to a date range.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-export;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false"
+})
+class HistoryExportIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @Autowired
+    private HistoryExportService historyExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private List<Transaction> transactions;
+
+    @BeforeEach
+    void setUp() {
+        User alice = userRepository.save(newUser("alice"));
+        User bob = userRepository.save(newUser("bob"));
+        User carol = userRepository.save(newUser("carol"));
+        transactions = transactionRepository.saveAll(List.of(
+                transaction(alice, bob, Money.parse("10.50"), "lunch", START),
+                transaction(bob, alice, Money.ofMajor(3), "rent, \"March\"", START.plusDays(1)),
+                transaction(bob, carol, Money.ofMajor(7), "not alice's", START.plusDays(2)),
+                transaction(alice, carol, Money.ofMajor(1), "=HYPERLINK(\"x\")", START.plusDays(3))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void export_WritesCsvOldestFirst() throws Exception {
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = historyExportService.export("alice", Format.CSV, null, null, out);
+
+        // Assert
+        assertEquals(3, rows);
+        assertEquals(List.of(
+                "id,createdAt,senderUsername,receiverUsername,amount,message",
+                transactions.get(0).getId() + ",2025-03-01T09:00,alice,bob,10.50,lunch",
+                transactions.get(1).getId() + ",2025-03-02T09:00,bob,alice,3.00,\"rent, \"\"March\"\"\"",
+                transactions.get(3).getId() + ",2025-03-04T09:00,alice,carol,1.00,\"'=HYPERLINK(\"\"x\"\")\""
+        ), out.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void export_WritesOneJsonObjectPerLine() throws Exception {
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        historyExportService.export("alice", Format.NDJSON, null, null, out);
+
+        // Assert
+        List<String> raw = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertTrue(raw.get(0).contains("\"amount\":10.50"), raw.get(0));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : raw) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertEquals(3, lines.size());
+        assertEquals(transactions.get(0).getId(), lines.get(0).get("id").asLong());
+        assertEquals("bob", lines.get(0).get("receiverUsername").asText());
+        assertEquals("2025-03-01T09:00:00", lines.get(0).get("createdAt").asText());
+        assertEquals("rent, \"March\"", lines.get(1).get("message").asText());
+    }
+
+    @Test
+    void export_AppliesDateRange() throws Exception {
+        // Act - from is inclusive, to exclusive
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = historyExportService.export("alice", Format.CSV, START.plusDays(1), START.plusDays(3), out);
+
+        // Assert
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, rows);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith(transactions.get(1).getId() + ","));
+    }
+
+    private static Transaction transaction(User sender, User receiver, Money amount, String message,
+                                           LocalDateTime createdAt) {
+        return Transaction.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .amount(amount)
+                .message(message)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks a user's history page by page with the continuation token. Transfers are created in groups
+ * sharing one timestamp, like batch legs, so page boundaries fall inside runs of equal createdAt.
+ * Each page must come from a single statement, without loading any entity.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-pagination;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ezpay.outbox.relay.enabled=false"
+})
+class HistoryPaginationIntegrationTest {
+
+    private static final int TRANSFERS = 47;
+    private static final int SAME_INSTANT = 4;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private List<String> expectedNewestFirst;
+
+    @BeforeEach
+    void setUp() {
+        User alice = userRepository.save(newUser("alice"));
+        User bob = userRepository.save(newUser("bob"));
+        User carol = userRepository.save(newUser("carol"));
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        List<Transaction> transactions = new ArrayList<>();
+        expectedNewestFirst = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            boolean outgoing = i % 2 == 0;
+            transactions.add(Transaction.builder()
+                    .sender(outgoing ? alice : bob)
+                    .receiver(outgoing ? bob : alice)
+                    .amount(Money.ofMajor(i + 1))
+                    .message("tx-" + i)
+                    .createdAt(start.plusSeconds(i / SAME_INSTANT))
+                    .build());
+            expectedNewestFirst.add(0, "tx-" + i);
+        }
+        // Not alice's, so never in her history
+        transactions.add(Transaction.builder()
+                .sender(bob).receiver(carol).amount(Money.ofMajor(1)).message("other").createdAt(start).build());
+        transactionRepository.saveAll(transactions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getHistory_WalksEveryTransferOnceNewestFirst() {
+        // Act
+        List<String> seen = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            TransactionPageResponse page = transactionService.getHistory("alice", null, cursor, 10);
+            assertTrue(page.getItems().size() <= 10);
+            page.getItems().stream().map(TransactionResponse::getMessage).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(5, pages);
+        assertEquals(expectedNewestFirst, seen);
+    }
+
+    @Test
+    void getHistory_LastFullPageHasNoCursor() {
+        // Act
+        TransactionPageResponse page = transactionService.getHistory("alice", null, null, TRANSFERS);
+
+        // Assert
+        assertEquals(TRANSFERS, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getHistory_RunsOneStatementPerPage() {
+        // Arrange
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act & Assert - no user lookup and no sender/receiver loading, on the first page or later ones
+        String cursor = null;
+        do {
+            long before = statistics.getPrepareStatementCount();
+            TransactionPageResponse page = transactionService.getHistory("alice", null, cursor, 10);
+            assertEquals(1, statistics.getPrepareStatementCount() - before);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EXPLAINs the history queries: each side of the UNION ALL must be an ordered scan of its composite
+ * index, with no table scan and no sort of the user's whole history. H2 backs every foreign key with
+ * its own single-column index, which PostgreSQL does not, so those constraints are dropped first to
+ * leave the optimizer the same choices it has in production.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-plan;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false"
+})
+class HistoryQueryPlanIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.queryForList("""
+                        SELECT CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+                        WHERE TABLE_NAME = 'TBL_TRANSACTION' AND CONSTRAINT_TYPE = 'FOREIGN KEY'
+                        """, String.class)
+                .forEach(name -> jdbcTemplate.execute("ALTER TABLE tbl_transaction DROP CONSTRAINT " + name));
+        alice = userRepository.save(User.builder()
+                .userName("alice")
+                .email("alice@example.com")
+                .password("password")
+                .fullName("alice user")
+                .role(Role.USER)
+                .balance(Money.ZERO)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void firstPage_ScansBothCompositeIndexesInOrder() {
+        // Act
+        String plan = explain(TransactionRepository.HISTORY_FIRST_PAGE, new MapSqlParameterSource()
+                .addValue("username", alice.getUserName())
+                .addValue("limit", 21));
+
+        // Assert
+        assertUsesCompositeIndexes(plan);
+    }
+
+    @Test
+    void laterPage_SeeksBothCompositeIndexesInOrder() {
+        // Act
+        String plan = explain(TransactionRepository.HISTORY_AFTER, new MapSqlParameterSource()
+                .addValue("username", alice.getUserName())
+                .addValue("createdAt", LocalDateTime.of(2025, 1, 1, 9, 0))
+                .addValue("id", 1_000L)
+                .addValue("limit", 21));
+
+        // Assert
+        assertUsesCompositeIndexes(plan);
+    }
+
+    private String explain(String sql, MapSqlParameterSource parameters) {
+        return namedParameterJdbcTemplate.queryForObject("EXPLAIN " + sql, parameters, String.class);
+    }
+
+    private static void assertUsesCompositeIndexes(String plan) {
+        assertTrue(plan.contains("IDX_TRANSACTION_SENDER_CREATED"), plan);
+        assertTrue(plan.contains("IDX_TRANSACTION_RECEIVER_CREATED"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertEquals(2, plan.split("index sorted", -1).length - 1, plan);
+    }
+}
@@ -0,0 +1,185 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.IdempotencyRecordRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.IdempotencyService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays of an idempotent transfer are answered from the LRU or, once evicted, from the
+ * idempotency table, and never reach the user or transaction tables.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotent-transfer;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.idempotency.cache-size=1",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class IdempotentTransferIntegrationTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    // The LRU outlives the rows deleted after each test, so every test uses its own keys
+    private Statistics statistics;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice", Money.ofMajor(1_000)));
+        userRepository.save(newUser("bob", Money.ofMajor(1_000)));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void replay_FromCacheIssuesNoStatements() {
+        // Arrange
+        TransactionResponse first = transfer("cached-key", Money.ofMajor(100));
+        statistics.clear();
+
+        // Act
+        TransactionResponse replayed = transfer("cached-key", Money.ofMajor(100));
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(first, replayed);
+        assertEquals(1, transactionRepository.count());
+        assertEquals(Money.ofMajor(900), ledgerService.balanceOf(userRepository.findById(alice.getId()).orElseThrow()));
+    }
+
+    @Test
+    void replay_AfterEvictionReadsOnlyTheIdempotencyTable() {
+        // Arrange - the cache holds one entry, so the second key evicts the first
+        TransactionResponse first = transfer("evicted-key", Money.ofMajor(100));
+        transfer("evicting-key", Money.ofMajor(50));
+        statistics.clear();
+
+        // Act
+        TransactionResponse replayed = transfer("evicted-key", Money.ofMajor(100));
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(first, replayed);
+        assertEquals(2, transactionRepository.count());
+        assertEquals(Money.ofMajor(850), ledgerService.balanceOf(userRepository.findById(alice.getId()).orElseThrow()));
+    }
+
+    @Test
+    void concurrentDuplicates_TransferOnce() throws Exception {
+        // Arrange
+        int clients = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<TransactionResponse>> retries = IntStream.range(0, clients)
+                .<Callable<TransactionResponse>>mapToObj(i -> () -> {
+                    start.await();
+                    return transfer("retried-key", Money.ofMajor(100));
+                })
+                .toList();
+
+        // Act
+        List<Future<TransactionResponse>> results = retries.stream().map(executor::submit).toList();
+        start.countDown();
+        executor.shutdown();
+
+        // Assert
+        TransactionResponse first = results.get(0).get();
+        for (Future<TransactionResponse> result : results) {
+            assertEquals(first, result.get());
+        }
+        assertEquals(1, transactionRepository.count());
+        assertEquals(Money.ofMajor(900), ledgerService.balanceOf(userRepository.findById(alice.getId()).orElseThrow()));
+    }
+
+    private TransactionResponse transfer(String idempotencyKey, Money amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername("bob");
+        request.setAmount(amount);
+        return idempotencyService.execute("alice", idempotencyKey, "bob\n" + amount.minorUnits(),
+                TransactionResponse.class, () -> transactionService.transfer("alice", request));
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,276 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TopUpRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.ReconciliationReport;
+import com.thinhtran.EzPay.entity.BalanceShard;
+import com.thinhtran.EzPay.entity.LedgerPosting;
+import com.thinhtran.EzPay.entity.LedgerSnapshot;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.PostingType;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.BalanceShardRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.LedgerSnapshotRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transfers and top-ups append postings instead of updating balances: the receiver's row is never
+ * written, snapshots fold postings into settled balances without changing any available balance,
+ * and reconciliation catches transfers whose postings do not net to zero.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.ledger.snapshot-cron=-",
+        "ezpay.ledger.reconciliation-cron=-"
+})
+class LedgerIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private LedgerSnapshotRepository ledgerSnapshotRepository;
+
+    @Autowired
+    private BalanceShardRepository balanceShardRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice", Money.ofMajor(1000)));
+        bob = userRepository.save(newUser("bob", Money.ofMajor(500)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerPostingRepository.deleteAll();
+        ledgerSnapshotRepository.deleteAll();
+        balanceShardRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    // ======= POSTING TESTS =======
+    @Test
+    void transfer_AppendsDebitAndCreditWithoutWritingTheReceiver() {
+        // Act
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+
+        // Assert
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+        List<LedgerPosting> postings = ledgerPostingRepository.findByTransactionId(transactionId).stream()
+                .sorted(Comparator.comparing(LedgerPosting::getAmount))
+                .toList();
+        assertEquals(2, postings.size());
+        assertEquals(PostingType.TRANSFER_DEBIT, postings.get(0).getType());
+        assertEquals(alice.getId(), postings.get(0).getAccountId());
+        assertEquals(Money.ofMajor(-200), postings.get(0).getAmount());
+        assertEquals(PostingType.TRANSFER_CREDIT, postings.get(1).getType());
+        assertEquals(bob.getId(), postings.get(1).getAccountId());
+        assertEquals(Money.ofMajor(200), postings.get(1).getAmount());
+
+        assertEquals(Money.ofMajor(500), userRepository.findBalanceById(bob.getId()).orElseThrow()); // settled
+        assertEquals(Money.ofMajor(700), balanceOf(bob));
+        assertEquals(Money.ofMajor(800), balanceOf(alice));
+    }
+
+    @Test
+    void transfer_SpendsUnsettledCredits() {
+        // Arrange - bob's 500 settled plus 200 unsettled
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+
+        // Act
+        transactionService.transfer("bob", transferRequest("alice", Money.ofMajor(700)));
+
+        // Assert
+        assertEquals(Money.ZERO, balanceOf(bob));
+        assertEquals(Money.ofMajor(1500), balanceOf(alice));
+    }
+
+    @Test
+    void topUp_AppendsSingleCredit() {
+        // Act
+        transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(250)));
+
+        // Assert
+        List<LedgerPosting> postings = ledgerPostingRepository.findAll();
+        assertEquals(1, postings.size());
+        assertEquals(PostingType.TOP_UP, postings.get(0).getType());
+        assertNull(postings.get(0).getTransactionId());
+        assertEquals(Money.ofMajor(750), balanceOf(bob));
+    }
+
+    // ======= SNAPSHOT TESTS =======
+    @Test
+    void snapshot_FoldsPostingsIntoSettledBalances() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+        transactionService.transfer("bob", transferRequest("alice", Money.ofMajor(50)));
+        transactionService.topUp(new TopUpRequest("alice", Money.ofMajor(100)));
+
+        // Act
+        int settled = ledgerService.snapshot();
+
+        // Assert
+        assertEquals(2, settled);
+        assertEquals(Money.ofMajor(950), userRepository.findBalanceById(alice.getId()).orElseThrow());
+        assertEquals(Money.ofMajor(650), userRepository.findBalanceById(bob.getId()).orElseThrow());
+        assertEquals(Money.ofMajor(950), balanceOf(alice));
+        assertEquals(Money.ofMajor(650), balanceOf(bob));
+        assertEquals(0, ledgerPostingRepository.sumUnsettled(alice.getId()));
+        assertEquals(5, ledgerSnapshotRepository.findAll().get(0).getPostingCount());
+        assertEquals(0, ledgerService.snapshot());
+    }
+
+    // ======= RECONCILIATION TESTS =======
+    @Test
+    void reconcile_PassesForTransfers() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+        transactionService.transfer("bob", transferRequest("alice", Money.ofMajor(50)));
+        transactionService.topUp(new TopUpRequest("alice", Money.ofMajor(100)));
+
+        // Act
+        ReconciliationReport report = ledgerService.reconcile();
+
+        // Assert
+        assertTrue(report.isBalanced());
+        assertEquals(2, report.getTransfersChecked());
+        assertEquals(Money.ZERO, report.getTransferPostingTotal());
+    }
+
+    @Test
+    void reconcile_DetectsUnbalancedTransfer() {
+        // Arrange - a transfer whose credit leg went missing
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+        ledgerPostingRepository.save(LedgerPosting.builder()
+                .accountId(alice.getId())
+                .transactionId(999_999L)
+                .type(PostingType.TRANSFER_DEBIT)
+                .amount(Money.ofMajor(-10))
+                .build());
+
+        // Act
+        ReconciliationReport report = ledgerService.reconcile();
+
+        // Assert
+        assertFalse(report.isBalanced());
+        assertEquals(List.of(999_999L), report.getUnbalancedTransactionIds());
+        assertEquals(Money.ofMajor(-10), report.getTransferPostingTotal());
+    }
+
+    // ======= HOT ACCOUNT TESTS =======
+    @Test
+    void hotAccount_AppliesCreditsToShards() {
+        // Arrange
+        ledgerService.enableHotAccount(bob.getId(), 4);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(10)));
+        }
+        transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(100)));
+
+        // Assert - credits sit in the shards, not in bob's row or his unsettled postings
+        List<BalanceShard> shards = balanceShardRepository.findByAccountId(bob.getId());
+        assertEquals(4, shards.size());
+        assertEquals(30_000, shards.stream().mapToLong(shard -> shard.getBalance().minorUnits()).sum());
+        assertEquals(Money.ofMajor(500), userRepository.findBalanceById(bob.getId()).orElseThrow());
+        assertEquals(0, ledgerPostingRepository.sumUnsettled(bob.getId()));
+        assertEquals(Money.ofMajor(800), balanceOf(bob));
+        assertEquals(Money.ofMajor(800), ledgerService.balancesOf(List.of(userRepository.findById(bob.getId()).orElseThrow()))
+                .get(bob.getId()));
+        assertTrue(ledgerPostingRepository.findAll().stream()
+                .filter(posting -> posting.getShardNo() != null)
+                .allMatch(posting -> posting.getSnapshotId() == LedgerSnapshot.APPLIED_TO_SHARD));
+    }
+
+    @Test
+    void hotAccount_DebitsAggregateShards() {
+        // Arrange - bob's 500 settled plus 300 across his shards
+        ledgerService.enableHotAccount(bob.getId(), 4);
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(300)));
+
+        // Act
+        transactionService.transfer("bob", transferRequest("alice", Money.ofMajor(800)));
+        ledgerService.snapshot();
+
+        // Assert
+        assertEquals(Money.ZERO, balanceOf(bob));
+        assertEquals(Money.ofMajor(1500), balanceOf(alice));
+        assertTrue(ledgerService.reconcile().isBalanced());
+    }
+
+    @Test
+    void enableHotAccount_OnlyAddsShards() {
+        // Act
+        ledgerService.enableHotAccount(bob.getId(), 4);
+        ledgerService.enableHotAccount(bob.getId(), 2);
+        ledgerService.enableHotAccount(bob.getId(), 6);
+
+        // Assert
+        assertEquals(6, balanceShardRepository.findByAccountId(bob.getId()).size());
+    }
+
+    private Money balanceOf(User user) {
+        return ledgerService.balanceOf(userRepository.findById(user.getId()).orElseThrow());
+    }
+
+    private static TransferRequest transferRequest(String receiver, Money amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
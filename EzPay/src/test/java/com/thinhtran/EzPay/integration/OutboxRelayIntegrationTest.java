@@ -0,0 +1,385 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.event.OutboxEventHandler;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.util.AfterCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outbox rows are written with the transfer and relayed a claimed batch per transaction, one savepoint per
+ * event. The scheduled relay is disabled so each test drives {@link OutboxService#relayBatch(int)} itself,
+ * standing in for relays on several nodes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.outbox.max-attempts=2",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class OutboxRelayIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private ProbeHandler probeHandler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        probeHandler.committed.clear();
+        userRepository.save(newUser("alice", Money.ofMajor(1_000)));
+        userRepository.save(newUser("bob", Money.ofMajor(1_000)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    // ======= OUTBOX WRITE TESTS =======
+    @Test
+    void transfer_WritesOutboxEventWithTransaction() {
+        // Act
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(100)));
+
+        // Assert
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertEquals(List.of(TransferCompletedEvent.TYPE, TransferCompletedEvent.NOTIFICATION_TYPE),
+                events.stream().map(OutboxEvent::getEventType).toList());
+        for (OutboxEvent event : events) {
+            assertEquals(transactionId, event.getAggregateId());
+            assertNull(event.getPublishedAt());
+            assertEquals(0, event.getAttempts());
+            assertTrue(event.getPayload().contains("\"amount\":100.00"));
+        }
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void transfer_RolledBackWritesNoOutboxEvent() {
+        // Act
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(5_000))));
+
+        // Assert
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    // ======= RELAY TESTS =======
+    @Test
+    void relayBatch_DispatchesAndMarksPublished() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(100)));
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+
+        // Act
+        int published = outboxService.relayBatch(10);
+
+        // Assert - the statistics and the notification event
+        assertEquals(2, published);
+        assertEquals(0, outboxService.countPending());
+        assertTrue(outboxService.oldestPendingAge().isEmpty());
+        verify(notificationService).createAndSendNotification(
+                anyLong(), eq(NotificationType.TRANSFER_SENT), anyString(), anyString(), eq(transactionId));
+        verify(notificationService).createAndSendNotification(
+                anyLong(), eq(NotificationType.TRANSFER_RECEIVED), anyString(), anyString(), eq(transactionId));
+        assertEquals(0, outboxService.relayBatch(10));
+    }
+
+    @Test
+    void relayBatch_FailingHandlerIsRetriedThenParked() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(100)));
+        doThrow(new RuntimeException("websocket down"))
+                .when(notificationService).createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+
+        // Act - two failures exhaust ezpay.outbox.max-attempts=2; the statistics event goes through at once
+        assertEquals(1, outboxService.relayBatch(10));
+        assertEquals(0, outboxService.relayBatch(10));
+        assertEquals(0, outboxService.relayBatch(10));
+
+        // Assert
+        OutboxEvent event = notificationEvent(transactionRepository.findAll().get(0).getId());
+        assertEquals(2, event.getAttempts());
+        assertEquals("websocket down", event.getLastError());
+        assertNull(event.getPublishedAt());
+        assertEquals(1, outboxService.countPending());
+        verify(notificationService, times(2))
+                .createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void relayBatch_FailingEventLeavesTheOthersPublishedAndNotRepeated() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(1)));
+        }
+        List<Long> transactionIds = outboxEventRepository.findAll().stream()
+                .map(OutboxEvent::getAggregateId).distinct().toList();
+        Long failing = transactionIds.get(1);
+        doThrow(new RuntimeException("websocket down")).when(notificationService)
+                .createAndSendNotification(anyLong(), any(), anyString(), anyString(), eq(failing));
+
+        // Act - every statistics event and the other two notification events
+        assertEquals(5, outboxService.relayBatch(10));
+        assertEquals(0, outboxService.relayBatch(10));
+
+        // Assert
+        assertEquals(1, outboxService.countPending());
+        for (Long transactionId : List.of(transactionIds.get(0), transactionIds.get(2))) {
+            verify(notificationService).createAndSendNotification(
+                    anyLong(), eq(NotificationType.TRANSFER_SENT), anyString(), anyString(), eq(transactionId));
+        }
+        OutboxEvent parked = notificationEvent(failing);
+        assertEquals(2, parked.getAttempts());
+        assertNull(parked.getPublishedAt());
+    }
+
+    @Test
+    void relayBatch_FailingEventRollsBackOnlyItsOwnWritesAndAfterCommitWork() {
+        // Arrange
+        appendProbes(new Probe("first", false, false), new Probe("failing", true, false), new Probe("last", false, false));
+
+        // Act
+        assertEquals(2, outboxService.relayBatch(10));
+
+        // Assert
+        assertEquals(List.of("first", "last"), writtenProbes());
+        assertEquals(List.of("first", "last"), probeHandler.committed);
+        OutboxEvent failing = probeEvent("failing");
+        assertEquals(1, failing.getAttempts());
+        assertEquals("probe failing failed", failing.getLastError());
+        assertNull(failing.getPublishedAt());
+    }
+
+    @Test
+    void relayBatch_FailureThatDoomsTheTransactionRelaysTheOthersAgain() {
+        // Arrange - a failure inside a transactional call marks the whole relay transaction rollback-only
+        appendProbes(new Probe("first", false, false), new Probe("poisoned", false, true), new Probe("last", false, false));
+
+        // Act
+        assertEquals(2, outboxService.relayBatch(10));
+
+        // Assert
+        assertEquals(List.of("first", "last"), writtenProbes());
+        assertEquals(List.of("first", "last"), probeHandler.committed);
+        OutboxEvent poisoned = probeEvent("poisoned");
+        assertEquals(1, poisoned.getAttempts());
+        assertNull(poisoned.getPublishedAt());
+        assertEquals(2, outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType().equals(ProbeHandler.TYPE) && event.getPublishedAt() != null)
+                .count());
+    }
+
+    @Test
+    void concurrentRelays_DispatchEachEventExactlyOnce() throws Exception {
+        // Arrange
+        int transfers = 40;
+        for (int i = 0; i < transfers; i++) {
+            transactionService.transfer(i % 2 == 0 ? "alice" : "bob",
+                    transferRequest(i % 2 == 0 ? "bob" : "alice", Money.ofMajor(1)));
+        }
+        Map<Long, Integer> deliveries = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            if (invocation.getArgument(1) == NotificationType.TRANSFER_SENT) {
+                deliveries.merge(invocation.getArgument(4), 1, Integer::sum);
+            }
+            Thread.sleep(5);
+            return null;
+        }).when(notificationService).createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+
+        int relays = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(relays);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int r = 0; r < relays; r++) {
+            executor.submit(() -> {
+                start.await();
+                try {
+                    while (outboxService.relayBatch(5) > 0 || outboxService.countPending() > 0) {
+                        Thread.onSpinWait();
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+                return null;
+            });
+        }
+
+        // Act
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Relays did not drain the outbox in time");
+
+        // Assert
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+        assertEquals(transfers, deliveries.size());
+        deliveries.forEach((transactionId, count) ->
+                assertEquals(1, count, "Transaction " + transactionId + " notified " + count + " times"));
+        assertEquals(0, outboxService.countPending());
+    }
+
+    private OutboxEvent notificationEvent(Long transactionId) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType().equals(TransferCompletedEvent.NOTIFICATION_TYPE)
+                        && event.getAggregateId().equals(transactionId))
+                .findFirst().orElseThrow();
+    }
+
+    private void appendProbes(Probe... probes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Probe probe : probes) {
+                outboxService.append(ProbeHandler.TYPE, 0L, probe);
+            }
+        });
+    }
+
+    private List<String> writtenProbes() {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType().equals(ProbeHandler.WRITTEN_TYPE))
+                .map(OutboxEvent::getPayload)
+                .toList();
+    }
+
+    private OutboxEvent probeEvent(String name) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getEventType().equals(ProbeHandler.TYPE)
+                        && event.getPayload().contains("\"" + name + "\""))
+                .findFirst().orElseThrow();
+    }
+
+    private static TransferRequest transferRequest(String receiver, Money amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+
+    record Probe(String name, boolean fail, boolean poison) {
+    }
+
+    /**
+     * Writes a row and defers work to after commit for each probe, then fails as the probe asks: with a
+     * plain exception, or from inside a transactional call, which leaves the transaction rollback-only
+     */
+    @TestConfiguration
+    static class ProbeHandler implements OutboxEventHandler<Probe> {
+
+        static final String TYPE = "PROBE";
+        static final String WRITTEN_TYPE = "PROBE_WRITTEN";
+
+        final List<String> committed = new CopyOnWriteArrayList<>();
+
+        @Autowired
+        private OutboxEventRepository outboxEventRepository;
+
+        @Override
+        public String eventType() {
+            return TYPE;
+        }
+
+        @Override
+        public Class<Probe> payloadType() {
+            return Probe.class;
+        }
+
+        @Override
+        public void handle(Probe probe) {
+            outboxEventRepository.save(written(probe.name()));
+            AfterCommit.run(() -> committed.add(probe.name()));
+            if (probe.fail()) {
+                throw new IllegalStateException("probe " + probe.name() + " failed");
+            }
+            if (probe.poison()) {
+                // The payload column is NOT NULL
+                outboxEventRepository.save(written(null));
+            }
+        }
+
+        private static OutboxEvent written(String payload) {
+            return OutboxEvent.builder().eventType(WRITTEN_TYPE).aggregateId(0L).payload(payload).build();
+        }
+    }
+}
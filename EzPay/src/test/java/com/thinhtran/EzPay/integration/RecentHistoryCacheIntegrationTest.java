@@ -0,0 +1,272 @@
+package com.thinhtran.EzPay.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
+import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.OutboxEvent;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.RecentHistoryCache;
+import com.thinhtran.EzPay.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * First history pages are answered from the per-user cache once loaded, committed transfers show
+ * up in both parties' cached pages without a reload, and a rolled-back transfer never does. Transfers
+ * made through another node reach the cached pages once their statistics events are relayed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recent-history-cache;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.history.cache.enabled=true",
+        "ezpay.history.cache.capacity=5",
+        "ezpay.history.cache.sync-interval-ms=3600000"
+})
+class RecentHistoryCacheIntegrationTest {
+
+    // The cache outlives each test's users, so every test gets fresh names
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecentHistoryCache recentHistoryCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        int run = RUN.incrementAndGet();
+        alice = userRepository.save(newUser("alice" + run)).getUserName();
+        bob = userRepository.save(newUser("bob" + run)).getUserName();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getHistory_ServesRepeatedFirstPagesFromCache() {
+        // Arrange
+        transactionService.transfer(alice, transferRequest(bob, 10, "first"));
+        double missesBefore = misses();
+        double hitsBefore = hits();
+
+        // Act
+        TransactionPageResponse loaded = transactionService.getHistory(alice, null, null, 5);
+        TransactionPageResponse cached = transactionService.getHistory(alice, null, null, 5);
+
+        // Assert
+        assertEquals(1, misses() - missesBefore);
+        assertEquals(1, hits() - hitsBefore);
+        assertEquals(messages(loaded), messages(cached));
+        assertEquals(List.of("first"), messages(cached));
+    }
+
+    @Test
+    void transfer_UpdatesBothPartiesCachedPages() {
+        // Arrange
+        transactionService.transfer(alice, transferRequest(bob, 10, "first"));
+        transactionService.getHistory(alice, null, null, 5);
+        transactionService.getHistory(bob, null, null, 5);
+        double missesBefore = misses();
+
+        // Act
+        transactionService.transfer(bob, transferRequest(alice, 3, "second"));
+        transactionService.transferBatch(alice, batchRequest(transferRequest(bob, 1, "third")));
+
+        // Assert
+        assertEquals(List.of("third", "second", "first"), messages(transactionService.getHistory(alice, null, null, 5)));
+        assertEquals(List.of("third", "second", "first"), messages(transactionService.getHistory(bob, null, null, 5)));
+        assertEquals(0, misses() - missesBefore);
+    }
+
+    @Test
+    void transfer_RolledBackIsNeverCached() {
+        // Arrange
+        transactionService.getHistory(alice, null, null, 5);
+
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.transfer(alice, transferRequest(bob, 10, "rolled back"));
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertTrue(transactionService.getHistory(alice, null, null, 5).getItems().isEmpty());
+        assertTrue(transactionService.getHistory(bob, null, null, 5).getItems().isEmpty());
+    }
+
+    @Test
+    void getHistory_CachedPageKeepsContinuationCursor() {
+        // Arrange - more transfers than the cache keeps per user
+        for (int i = 0; i < 4; i++) {
+            transactionService.transfer(alice, transferRequest(bob, 1, "tx-" + i));
+        }
+        transactionService.getHistory(alice, null, null, 5);
+        for (int i = 4; i < 8; i++) {
+            transactionService.transfer(alice, transferRequest(bob, 1, "tx-" + i));
+        }
+
+        // Act
+        TransactionPageResponse first = transactionService.getHistory(alice, null, null, 5);
+        TransactionPageResponse second = transactionService.getHistory(alice, null, first.getNextCursor(), 5);
+
+        // Assert
+        assertEquals(List.of("tx-7", "tx-6", "tx-5", "tx-4", "tx-3"), messages(first));
+        assertEquals(List.of("tx-2", "tx-1", "tx-0"), messages(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void applyRelayedTransfers_DropsPagesMissingTransfersOfOtherNodes() throws Exception {
+        // Arrange - written straight to the tables, as a transfer through another node is
+        transactionService.getHistory(alice, null, null, 5);
+        transactionService.getHistory(bob, null, null, 5);
+        User sender = userRepository.findByUserName(alice).orElseThrow();
+        User receiver = userRepository.findByUserName(bob).orElseThrow();
+        Transaction transfer = transactionRepository.save(Transaction.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .amount(Money.ofMajor(10))
+                .message("other node")
+                .createdAt(LocalDateTime.now())
+                .build());
+        relayed(new TransferCompletedEvent(transfer.getId(), sender.getId(), sender.getFullName(), receiver.getId(),
+                receiver.getFullName(), transfer.getAmount(), transfer.getCreatedAt(), alice, bob));
+        assertTrue(transactionService.getHistory(alice, null, null, 5).getItems().isEmpty());
+
+        // Act
+        recentHistoryCache.applyRelayedTransfers();
+
+        // Assert
+        assertEquals(List.of("other node"), messages(transactionService.getHistory(alice, null, null, 5)));
+        assertEquals(List.of("other node"), messages(transactionService.getHistory(bob, null, null, 5)));
+    }
+
+    @Test
+    void applyRelayedTransfers_KeepsPagesThatShowTheTransfer() {
+        // Arrange
+        transactionService.getHistory(alice, null, null, 5);
+        transactionService.getHistory(bob, null, null, 5);
+        transactionService.transfer(alice, transferRequest(bob, 10, "this node"));
+        outboxEventRepository.findAll().forEach(event -> {
+            event.setPublishedAt(LocalDateTime.now());
+            outboxEventRepository.save(event);
+        });
+        double missesBefore = misses();
+
+        // Act
+        recentHistoryCache.applyRelayedTransfers();
+
+        // Assert
+        assertEquals(List.of("this node"), messages(transactionService.getHistory(alice, null, null, 5)));
+        assertEquals(List.of("this node"), messages(transactionService.getHistory(bob, null, null, 5)));
+        assertEquals(0, misses() - missesBefore);
+    }
+
+    private void relayed(TransferCompletedEvent event) throws Exception {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(TransferCompletedEvent.TYPE)
+                .aggregateId(event.transactionId())
+                .payload(objectMapper.writeValueAsString(event))
+                .publishedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private double hits() {
+        return meterRegistry.counter("ezpay.history.cache.hits").count();
+    }
+
+    private double misses() {
+        return meterRegistry.counter("ezpay.history.cache.misses").count();
+    }
+
+    private static List<String> messages(TransactionPageResponse page) {
+        return page.getItems().stream().map(TransactionResponse::getMessage).toList();
+    }
+
+    private static BatchTransferRequest batchRequest(TransferRequest... legs) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(legs));
+        return request;
+    }
+
+    private static TransferRequest transferRequest(String receiver, long amount, String message) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(Money.ofMajor(amount));
+        request.setMessage(message);
+        return request;
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.RegisterRequest;
+import com.thinhtran.EzPay.dto.request.UpdateProfileRequest;
+import com.thinhtran.EzPay.dto.response.RecipientResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.AuthService;
+import com.thinhtran.EzPay.service.EmailService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.RecipientIndex;
+import com.thinhtran.EzPay.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The recipient index is answered from memory, so these tests check that every way a user changes
+ * reaches it: registration, profile edits once committed, and the rebuild for rows written elsewhere.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recipient-index;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.recipients.index.delta-limit=4"
+})
+class RecipientIndexIntegrationTest {
+
+    @Autowired
+    private RecipientIndex recipientIndex;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        register("tranduc", "Trần Đức Thịnh", "tranduc@example.com", "0901234567");
+        register("nguyenan", "Nguyễn Văn An", "an.nguyen@example.com", "0912345678");
+        userRepository.save(User.builder()
+                .userName("admin")
+                .email("admin@example.com")
+                .password("password")
+                .fullName("Trần Quản Trị")
+                .role(Role.ADMIN)
+                .balance(Money.ZERO)
+                .build());
+        recipientIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        recipientIndex.rebuild();
+    }
+
+    @Test
+    void suggest_MatchesAccentFoldedNamesUserNamesEmailsAndPhones() {
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("Trần", 10)));
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("duc th", 10)));
+        assertEquals(List.of("nguyenan"), userNames(recipientIndex.suggest("van", 10)));
+        assertEquals(List.of("nguyenan"), userNames(recipientIndex.suggest("AN.NG", 10)));
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("090", 10)));
+        assertTrue(recipientIndex.suggest("quan tri", 10).isEmpty(), "Admins are not suggested");
+
+        RecipientResponse suggestion = recipientIndex.suggest("tranduc", 10).get(0);
+        assertEquals("Trần Đức Thịnh", suggestion.getFullName());
+        assertEquals("tranduc@example.com", suggestion.getEmail());
+        assertEquals("0901234567", suggestion.getPhone());
+    }
+
+    @Test
+    void register_IsSuggestedWithoutRebuild() {
+        register("lethu", "Lê Thị Thu", "thu@example.com", "0933333333");
+
+        assertEquals(List.of("lethu"), userNames(recipientIndex.suggest("le thi", 10)));
+    }
+
+    @Test
+    void updateProfile_ReplacesTheOldName() {
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setFullName("Phạm Minh Khoa");
+        request.setEmail("khoa@example.com");
+
+        userService.updateProfile("tranduc", request);
+
+        assertTrue(recipientIndex.suggest("thinh", 10).isEmpty());
+        assertTrue(recipientIndex.suggest("tranduc@", 10).isEmpty());
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("pham minh", 10)));
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("khoa@", 10)));
+    }
+
+    @Test
+    void updateProfile_RolledBackLeavesTheIndexUnchanged() {
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setFullName("Phạm Minh Khoa");
+        request.setEmail("khoa@example.com");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.updateProfile("tranduc", request);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(recipientIndex.suggest("pham", 10).isEmpty());
+        assertEquals(List.of("tranduc"), userNames(recipientIndex.suggest("thinh", 10)));
+    }
+
+    @Test
+    void rebuild_PicksUpUsersWrittenElsewhere() {
+        jdbcTemplate.update("INSERT INTO tbl_user (user_name, email, password, phone, full_name, role, balance, "
+                + "email_verified) VALUES ('hoangvu', 'vu@example.com', 'password', '0977777777', 'Hoàng Vũ', "
+                + "'USER', 0, false)");
+        jdbcTemplate.update("UPDATE tbl_user SET full_name = 'Đặng Văn An' WHERE user_name = 'nguyenan'");
+        assertTrue(recipientIndex.suggest("hoang", 10).isEmpty());
+
+        recipientIndex.rebuild();
+
+        assertEquals(List.of("hoangvu"), userNames(recipientIndex.suggest("hoang", 10)));
+        assertEquals(List.of("nguyenan"), userNames(recipientIndex.suggest("dang", 10)));
+        assertTrue(recipientIndex.suggest("nguyen van", 10).isEmpty());
+    }
+
+    private void register(String userName, String fullName, String email, String phone) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUserName(userName);
+        request.setFullName(fullName);
+        request.setEmail(email);
+        request.setPhone(phone);
+        request.setPassword("Password1");
+        authService.register(request);
+    }
+
+    private static List<String> userNames(List<RecipientResponse> suggestions) {
+        return suggestions.stream().map(RecipientResponse::getUserName).toList();
+    }
+}
@@ -0,0 +1,220 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.SpendingSummaryResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.repository.UserMonthlyCounterpartyRepository;
+import com.thinhtran.EzPay.repository.UserMonthlySummaryRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.SpendingSummaryService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Monthly summaries are rollups added to by the outbox relay. The scheduled relay is disabled so each
+ * test decides when events are relayed; the cache stays on, so every read after a relay also checks
+ * that the relay commit evicted what it changed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:spending-summary;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false"
+})
+class SpendingSummaryIntegrationTest {
+
+    @Autowired
+    private SpendingSummaryService spendingSummaryService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private UserMonthlySummaryRepository userMonthlySummaryRepository;
+
+    @Autowired
+    private UserMonthlyCounterpartyRepository userMonthlyCounterpartyRepository;
+
+    @Autowired
+    private StatisticsTotalRepository statisticsTotalRepository;
+
+    @Autowired
+    private ReceiverStatisticsRepository receiverStatisticsRepository;
+
+    @Autowired
+    private TransferVolumeRepository transferVolumeRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice"));
+        bob = userRepository.save(newUser("bob"));
+        userRepository.save(newUser("carol"));
+        statisticsService.seedIfAbsent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userMonthlySummaryRepository.deleteAll();
+        userMonthlyCounterpartyRepository.deleteAll();
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getMonthlySummary_AddsTransfersOnceRelayed() {
+        // Arrange
+        YearMonth month = YearMonth.now();
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("bob", 50)));
+        transactionService.transfer("bob", transferRequest("alice", 30));
+        assertEquals(Money.ZERO, spendingSummaryService.getMonthlySummary(alice.getId(), month).getTotalSent());
+
+        // Act
+        outboxService.relayBatch(100);
+        SpendingSummaryResponse summary = spendingSummaryService.getMonthlySummary(alice.getId(), month);
+
+        // Assert
+        assertEquals(month.toString(), summary.getMonth());
+        assertEquals(Money.ofMajor(550), summary.getTotalSent());
+        assertEquals(3, summary.getSentCount());
+        assertEquals(Money.ofMajor(30), summary.getTotalReceived());
+        assertEquals(1, summary.getReceivedCount());
+        assertEquals(List.of("carol", "bob"), summary.getTopCounterparties().stream()
+                .map(SpendingSummaryResponse.CounterpartyResponse::getUsername).toList());
+        SpendingSummaryResponse.CounterpartyResponse withBob = summary.getTopCounterparties().get(1);
+        assertEquals(Money.ofMajor(250), withBob.getSent());
+        assertEquals(Money.ofMajor(30), withBob.getReceived());
+        assertEquals(3, withBob.getTransferCount());
+    }
+
+    @Test
+    void getMonthlySummary_EvictsCachedMonthOnRelay() {
+        // Arrange
+        YearMonth month = YearMonth.now();
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        assertEquals(Money.ofMajor(200), spendingSummaryService.getMonthlySummary(bob.getId(), month).getTotalReceived());
+
+        // Act
+        transactionService.transfer("alice", transferRequest("bob", 25));
+        SpendingSummaryResponse beforeRelay = spendingSummaryService.getMonthlySummary(bob.getId(), month);
+        outboxService.relayBatch(100);
+        SpendingSummaryResponse afterRelay = spendingSummaryService.getMonthlySummary(bob.getId(), month);
+
+        // Assert
+        assertEquals(Money.ofMajor(200), beforeRelay.getTotalReceived());
+        assertEquals(Money.ofMajor(225), afterRelay.getTotalReceived());
+        assertEquals(2, afterRelay.getReceivedCount());
+    }
+
+    @Test
+    void seedIfAbsent_RebuildsMonthsFromHistoryLeavingPendingTransfers() {
+        // Arrange - one relayed transfer moved to last month, then the rollups are lost; one still pending
+        YearMonth month = YearMonth.now();
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        jdbcTemplate.update("UPDATE tbl_transaction SET created_at = DATEADD(MONTH, -1, created_at)");
+        userMonthlySummaryRepository.deleteAll();
+        userMonthlyCounterpartyRepository.deleteAll();
+        transactionService.transfer("alice", transferRequest("bob", 30));
+
+        // Act
+        assertTrue(statisticsService.seedIfAbsent());
+        SpendingSummaryResponse seeded = spendingSummaryService.getMonthlySummary(alice.getId(), month);
+        SpendingSummaryResponse lastMonth = spendingSummaryService.getMonthlySummary(alice.getId(), month.minusMonths(1));
+        outboxService.relayBatch(100);
+        SpendingSummaryResponse relayed = spendingSummaryService.getMonthlySummary(alice.getId(), month);
+
+        // Assert
+        assertEquals(Money.ZERO, seeded.getTotalSent());
+        assertEquals(0, seeded.getSentCount());
+        assertTrue(seeded.getTopCounterparties().isEmpty());
+        assertEquals(Money.ofMajor(200), lastMonth.getTotalSent());
+        assertEquals("bob", lastMonth.getTopCounterparties().get(0).getUsername());
+        assertEquals(Money.ofMajor(30), relayed.getTotalSent());
+        assertEquals(1, relayed.getSentCount());
+        assertFalse(statisticsService.seedIfAbsent());
+    }
+
+    private static BatchTransferRequest batchRequest(TransferRequest... legs) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(legs));
+        return request;
+    }
+
+    private static TransferRequest transferRequest(String receiver, long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(Money.ofMajor(amount));
+        return request;
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
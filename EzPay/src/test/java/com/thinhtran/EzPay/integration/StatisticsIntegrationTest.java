@@ -0,0 +1,326 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.StatisticsTotal;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.service.TransferVolumeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Statistics are running totals added to as the outbox relays transfer events. The scheduled relay
+ * is disabled so each test decides when events are relayed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statistics;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false"
+})
+class StatisticsIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private TransferVolumeService transferVolumeService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private StatisticsTotalRepository statisticsTotalRepository;
+
+    @Autowired
+    private ReceiverStatisticsRepository receiverStatisticsRepository;
+
+    @Autowired
+    private TransferVolumeRepository transferVolumeRepository;
+
+    @SpyBean
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(newUser("alice"));
+        userRepository.save(newUser("bob"));
+        userRepository.save(newUser("carol"));
+        statisticsService.seedIfAbsent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getStatistics_CountsTransfersOnceRelayed() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("carol", 150)));
+        transactionService.transfer("bob", transferRequest("carol", 50));
+        assertEquals(0, statisticsService.getStatistics().getTotalTransactions());
+
+        // Act
+        outboxService.relayBatch(100);
+        StatisticsResponse statistics = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals(Money.ofMajor(700), statistics.getTotalTransferred());
+        assertEquals(4, statistics.getTotalTransactions());
+        assertEquals(2, statistics.getTopReceivers().size());
+        StatisticsResponse.TopReceiverResponse top = statistics.getTopReceivers().get(0);
+        assertEquals("carol", top.getUsername());
+        assertEquals("carol user", top.getFullName());
+        assertEquals(Money.ofMajor(500), top.getTotalReceived());
+        assertEquals(3, top.getTransactionCount());
+        assertEquals("bob", statistics.getTopReceivers().get(1).getUsername());
+        assertEquals(Money.ofMajor(200), statistics.getTopReceivers().get(1).getTotalReceived());
+    }
+
+    @Test
+    void getStatistics_CountsTransfersWhoseNotificationsFail() {
+        // Arrange
+        doThrow(new RuntimeException("websocket down")).when(notificationService)
+                .createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+        transactionService.transfer("alice", transferRequest("bob", 200));
+
+        // Act - the notification event fails on every relay while the statistics event is counted once
+        outboxService.relayBatch(100);
+        outboxService.relayBatch(100);
+        StatisticsResponse statistics = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals(Money.ofMajor(200), statistics.getTotalTransferred());
+        assertEquals(1, statistics.getTotalTransactions());
+        assertEquals(1, outboxService.countPending());
+    }
+
+    @Test
+    void seedIfAbsent_LeavesPendingTransfersToTheRelay() {
+        // Arrange - one transfer already relayed before the totals existed, one still waiting
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transactionService.transfer("alice", transferRequest("bob", 30));
+
+        // Act
+        assertTrue(statisticsService.seedIfAbsent());
+        StatisticsResponse seeded = statisticsService.getStatistics();
+        outboxService.relayBatch(100);
+        StatisticsResponse relayed = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals(Money.ofMajor(200), seeded.getTotalTransferred());
+        assertEquals(1, seeded.getTotalTransactions());
+        assertEquals(Money.ofMajor(230), relayed.getTotalTransferred());
+        assertEquals(2, relayed.getTotalTransactions());
+        assertEquals(Money.ofMajor(230), relayed.getTopReceivers().get(0).getTotalReceived());
+        assertFalse(statisticsService.seedIfAbsent());
+    }
+
+    @Test
+    void seedIfAbsent_TransferCommittedWhileSeedingIsCountedOnce() {
+        // Arrange - the second transfer commits between the seed's aggregation of the table and its read of
+        // the pending events
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        Answer<?> repository = mockingDetails(outboxEventRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean transferred = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (transferred.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> transactionService.transfer("alice", transferRequest("bob", 40)))
+                        .get(30, TimeUnit.SECONDS);
+            }
+            return repository.answer(invocation);
+        }).when(outboxEventRepository).findRelayable(anyInt(), anyList());
+
+        // Act
+        assertTrue(statisticsService.seedIfAbsent());
+        outboxService.relayBatch(100);
+        StatisticsResponse statistics = statisticsService.getStatistics();
+
+        // Assert
+        assertTrue(transferred.get());
+        assertEquals(Money.ofMajor(240), statistics.getTotalTransferred());
+        assertEquals(2, statistics.getTotalTransactions());
+        assertEquals(Money.ofMajor(240), statistics.getTopReceivers().get(0).getTotalReceived());
+        assertEquals(Money.ofMajor(240), totalVolume(transferVolumeService.getVolumeSeries(
+                TransferVolumeService.Granularity.DAY, null, null)));
+    }
+
+    @Test
+    void aggregateFromTransactions_RanksReceiversInTheDatabase() {
+        // Arrange - not relayed, so only the table knows about these transfers
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("carol", 150)));
+
+        // Act
+        StatisticsResponse statistics = statisticsService.aggregateFromTransactions();
+
+        // Assert
+        assertEquals(Money.ofMajor(650), statistics.getTotalTransferred());
+        assertEquals(3, statistics.getTotalTransactions());
+        assertEquals(List.of("carol", "bob"), statistics.getTopReceivers().stream()
+                .map(StatisticsResponse.TopReceiverResponse::getUsername).toList());
+        assertEquals(Money.ofMajor(450), statistics.getTopReceivers().get(0).getTotalReceived());
+        assertEquals(2, statistics.getTopReceivers().get(0).getTransactionCount());
+    }
+
+    @Test
+    void getStatistics_AggregatesTableWhenNotSeeded() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+
+        // Act
+        StatisticsResponse statistics = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals(Money.ofMajor(200), statistics.getTotalTransferred());
+        assertEquals(1, statistics.getTotalTransactions());
+        assertFalse(statisticsTotalRepository.existsById(StatisticsTotal.GLOBAL));
+    }
+
+    @Test
+    void getVolumeSeries_BucketsRelayedTransfersByHourAndDay() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("carol", 150)));
+        outboxService.relayBatch(100);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Act
+        VolumeSeriesResponse hourly = transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.HOUR, null, null);
+        VolumeSeriesResponse daily = transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.DAY,
+                now.minusDays(6), now);
+
+        // Assert - the ranges are rounded out to whole buckets, and empty buckets are zero
+        assertEquals(25, hourly.getBuckets().size());
+        assertEquals(hourly.getTo().minusHours(25), hourly.getFrom());
+        assertEquals(7, daily.getBuckets().size());
+        assertEquals(now.truncatedTo(ChronoUnit.DAYS).minusDays(6), daily.getFrom());
+        assertEquals(now.truncatedTo(ChronoUnit.DAYS).plusDays(1), daily.getTo());
+        assertEquals(Money.ofMajor(650), totalVolume(hourly));
+        assertEquals(Money.ofMajor(650), totalVolume(daily));
+        assertEquals(3, daily.getBuckets().get(6).getTransferCount());
+        assertEquals(Money.ZERO, daily.getBuckets().get(0).getVolume());
+    }
+
+    @Test
+    void seedIfAbsent_RebuildsHourlyVolumeLeavingPendingTransfers() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        transactionService.transfer("alice", transferRequest("bob", 30));
+
+        // Act
+        statisticsService.seedIfAbsent();
+        VolumeSeriesResponse seeded = transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.DAY, null, null);
+        outboxService.relayBatch(100);
+        VolumeSeriesResponse relayed = transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.DAY, null, null);
+
+        // Assert
+        assertEquals(Money.ofMajor(200), totalVolume(seeded));
+        assertEquals(Money.ofMajor(230), totalVolume(relayed));
+    }
+
+    private static Money totalVolume(VolumeSeriesResponse series) {
+        return Money.ofMinor(series.getBuckets().stream().mapToLong(bucket -> bucket.getVolume().minorUnits()).sum());
+    }
+
+    private static BatchTransferRequest batchRequest(TransferRequest... legs) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(legs));
+        return request;
+    }
+
+    private static TransferRequest transferRequest(String receiver, long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(Money.ofMajor(amount));
+        return request;
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
@@ -0,0 +1,234 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.RecomputeProgressResponse;
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.VolumeSeriesResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.StatisticsTotal;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsRecomputeRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.StatisticsRecomputeService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.service.TransferVolumeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The recompute job rebuilds drifted statistics from tbl_transaction. Chunks of two ids read by two
+ * threads and checkpointed after every chunk, so even a handful of transfers spans several waves.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statistics-recompute;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.statistics.recompute.chunk-size=2",
+        "ezpay.statistics.recompute.parallelism=2",
+        "ezpay.statistics.recompute.chunks-per-checkpoint=1",
+        "ezpay.statistics.recompute.grace-ms=0"
+})
+class StatisticsRecomputeIntegrationTest {
+
+    @Autowired
+    private StatisticsRecomputeService statisticsRecomputeService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private TransferVolumeService transferVolumeService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private StatisticsRecomputeRepository statisticsRecomputeRepository;
+
+    @Autowired
+    private StatisticsTotalRepository statisticsTotalRepository;
+
+    @Autowired
+    private ReceiverStatisticsRepository receiverStatisticsRepository;
+
+    @Autowired
+    private TransferVolumeRepository transferVolumeRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(newUser("alice"));
+        userRepository.save(newUser("bob"));
+        userRepository.save(newUser("carol"));
+        statisticsService.seedIfAbsent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statisticsRecomputeRepository.deleteAll();
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void recompute_RepairsDriftedStatisticsLeavingPendingTransfersToTheRelay() {
+        // Arrange - relayed transfers, then drift, then one transfer the relay has not seen yet
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("carol", 150)));
+        outboxService.relayBatch(100);
+        receiverStatisticsRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        jdbcTemplate.update("UPDATE tbl_statistics_total SET total_transferred = 1, transfer_count = 99");
+        transactionService.transfer("bob", transferRequest("carol", 50));
+
+        // Act
+        RecomputeProgressResponse progress = statisticsRecomputeService.recompute();
+        StatisticsResponse recomputed = statisticsService.getStatistics();
+        VolumeSeriesResponse recomputedSeries = transferVolumeService.getVolumeSeries(TransferVolumeService.Granularity.DAY, null, null);
+        outboxService.relayBatch(100);
+        StatisticsResponse relayed = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals("COMPLETED", progress.getStatus());
+        assertEquals(progress.getChunkCount(), progress.getChunksDone());
+        assertTrue(progress.getChunkCount() > 1);
+        assertEquals(4, progress.getRowsRead());
+        assertEquals(100.0, progress.getPercentDone());
+        assertNotNull(progress.getFinishedAt());
+
+        assertEquals(Money.ofMajor(650), recomputed.getTotalTransferred());
+        assertEquals(3, recomputed.getTotalTransactions());
+        assertEquals(List.of("carol", "bob"), recomputed.getTopReceivers().stream()
+                .map(StatisticsResponse.TopReceiverResponse::getUsername).toList());
+        assertEquals(Money.ofMajor(450), recomputed.getTopReceivers().get(0).getTotalReceived());
+        assertEquals(Money.ofMajor(650), totalVolume(recomputedSeries));
+
+        assertEquals(Money.ofMajor(700), relayed.getTotalTransferred());
+        assertEquals(4, relayed.getTotalTransactions());
+        assertEquals(Money.ofMajor(500), relayed.getTopReceivers().get(0).getTotalReceived());
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tbl_statistics_recompute_receiver", Long.class));
+    }
+
+    @Test
+    void recompute_StartsOverOnceCompleted() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        statisticsRecomputeService.recompute();
+        transactionService.transfer("alice", transferRequest("carol", 30));
+        outboxService.relayBatch(100);
+        jdbcTemplate.update("UPDATE tbl_receiver_statistics SET total_received = 0");
+
+        // Act
+        RecomputeProgressResponse progress = statisticsRecomputeService.recompute();
+        StatisticsResponse statistics = statisticsService.getStatistics();
+
+        // Assert
+        assertEquals(2, progress.getRowsRead());
+        assertEquals(Money.ofMajor(230), statistics.getTotalTransferred());
+        assertEquals(Money.ofMajor(200), statistics.getTopReceivers().get(0).getTotalReceived());
+        assertEquals(Money.ofMajor(30), statistics.getTopReceivers().get(1).getTotalReceived());
+    }
+
+    @Test
+    void recompute_FailsWhileAnotherNodeRunsIt() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        statisticsRecomputeService.recompute();
+        jdbcTemplate.update("UPDATE tbl_statistics_recompute SET status = 'RUNNING', owner_id = 'other-node', "
+                + "heartbeat_at = ?", LocalDateTime.now());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> statisticsRecomputeService.recompute());
+        assertEquals("RUNNING", statisticsRecomputeService.getProgress().getStatus());
+        assertEquals(Money.ofMajor(200), statisticsTotalRepository.findById(StatisticsTotal.GLOBAL)
+                .orElseThrow().getTotalTransferred());
+    }
+
+    @Test
+    void getProgress_IsEmptyBeforeAnyRun() {
+        RecomputeProgressResponse progress = statisticsRecomputeService.getProgress();
+
+        assertNull(progress.getStatus());
+        assertEquals(0.0, progress.getPercentDone());
+    }
+
+    private static Money totalVolume(VolumeSeriesResponse series) {
+        return Money.ofMinor(series.getBuckets().stream().mapToLong(bucket -> bucket.getVolume().minorUnits()).sum());
+    }
+
+    private static BatchTransferRequest batchRequest(TransferRequest... legs) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(legs));
+        return request;
+    }
+
+    private static TransferRequest transferRequest(String receiver, long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(Money.ofMajor(amount));
+        return request;
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
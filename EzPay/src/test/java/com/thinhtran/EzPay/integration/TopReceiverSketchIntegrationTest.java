@@ -0,0 +1,208 @@
+package com.thinhtran.EzPay.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.OutboxEventRepository;
+import com.thinhtran.EzPay.repository.ReceiverStatisticsRepository;
+import com.thinhtran.EzPay.repository.StatisticsTotalRepository;
+import com.thinhtran.EzPay.repository.TopReceiverSnapshotRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.TransferVolumeRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.service.TopReceiverSketch;
+import com.thinhtran.EzPay.service.TransactionService;
+import com.thinhtran.EzPay.service.impl.TopReceiverSketchImpl;
+import com.thinhtran.EzPay.util.SpaceSaving;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hour and day windows rank receivers from the summaries the relay feeds after it commits. The
+ * summaries and their snapshots outlive each test, so totals are compared before and after; receivers
+ * of earlier tests were deleted and drop out of the ranking.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:top-receivers;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "ezpay.outbox.relay.enabled=false",
+        "ezpay.statistics.sketch.node-id=node-a"
+})
+class TopReceiverSketchIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private TopReceiverSketch topReceiverSketch;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TopReceiverSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private StatisticsTotalRepository statisticsTotalRepository;
+
+    @Autowired
+    private ReceiverStatisticsRepository receiverStatisticsRepository;
+
+    @Autowired
+    private TransferVolumeRepository transferVolumeRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(newUser("alice"));
+        userRepository.save(newUser("bob"));
+        userRepository.save(newUser("carol"));
+        statisticsService.seedIfAbsent();
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiverStatisticsRepository.deleteAll();
+        statisticsTotalRepository.deleteAll();
+        transferVolumeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getStatistics_RanksReceiversOfTheLastHourAndDay() {
+        // Arrange
+        StatisticsResponse before = statisticsService.getStatistics(StatisticsService.Window.HOUR);
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        transactionService.transferBatch("alice", batchRequest(transferRequest("carol", 300), transferRequest("carol", 150)));
+
+        // Act
+        StatisticsResponse unrelayed = statisticsService.getStatistics(StatisticsService.Window.HOUR);
+        outboxService.relayBatch(100);
+        StatisticsResponse hour = statisticsService.getStatistics(StatisticsService.Window.HOUR);
+        StatisticsResponse day = statisticsService.getStatistics(StatisticsService.Window.DAY);
+
+        // Assert - far below capacity, so the estimates are exact
+        assertEquals(before.getTotalTransactions(), unrelayed.getTotalTransactions());
+        assertEquals(before.getTotalTransactions() + 3, hour.getTotalTransactions());
+        assertEquals(before.getTotalTransferred().plus(Money.ofMajor(650)), hour.getTotalTransferred());
+        for (StatisticsResponse window : List.of(hour, day)) {
+            assertEquals(List.of("carol", "bob"), window.getTopReceivers().stream()
+                    .map(StatisticsResponse.TopReceiverResponse::getUsername).toList());
+            StatisticsResponse.TopReceiverResponse top = window.getTopReceivers().get(0);
+            assertEquals(Money.ofMajor(450), top.getTotalReceived());
+            assertEquals(2, top.getTransactionCount());
+            assertEquals(Money.ZERO, top.getMaxOvercount());
+        }
+    }
+
+    @Test
+    void snapshot_LetsARestartedNodeResumeItsSummaries() {
+        // Arrange
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        SpaceSaving live = topReceiverSketch.summarize(StatisticsService.Window.DAY);
+
+        // Act
+        topReceiverSketch.snapshot();
+        TopReceiverSketchImpl restarted = newSketch("node-a");
+        restarted.restore();
+
+        // Assert
+        assertFalse(snapshotRepository.findAll().isEmpty());
+        SpaceSaving restored = restarted.summarize(StatisticsService.Window.DAY);
+        assertEquals(live.totalWeight(), restored.totalWeight());
+        assertEquals(live.totalCount(), restored.totalCount());
+        assertEquals(live.top(10), restored.top(10));
+    }
+
+    @Test
+    void summarize_MergesOtherNodesSnapshots() {
+        // Arrange - relayed here, then read from another node that has relayed nothing
+        transactionService.transfer("alice", transferRequest("bob", 200));
+        outboxService.relayBatch(100);
+        SpaceSaving local = topReceiverSketch.summarize(StatisticsService.Window.HOUR);
+        topReceiverSketch.snapshot();
+
+        // Act
+        SpaceSaving seenByOtherNode = newSketch("node-b").summarize(StatisticsService.Window.HOUR);
+
+        // Assert
+        assertEquals(local.totalWeight(), seenByOtherNode.totalWeight());
+        assertEquals(local.top(10), seenByOtherNode.top(10));
+    }
+
+    private TopReceiverSketchImpl newSketch(String nodeId) {
+        return new TopReceiverSketchImpl(snapshotRepository, objectMapper, transactionManager, 1000, nodeId);
+    }
+
+    private static BatchTransferRequest batchRequest(TransferRequest... legs) {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(legs));
+        return request;
+    }
+
+    private static TransferRequest transferRequest(String receiver, long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(Money.ofMajor(amount));
+        return request;
+    }
+
+    private static User newUser(String userName) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(Money.ofMajor(1000))
+                .build();
+    }
+}
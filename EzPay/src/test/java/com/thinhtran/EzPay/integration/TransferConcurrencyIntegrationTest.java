@@ -0,0 +1,157 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.Transaction;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test for the transfer engine: many threads move money between a handful of hot accounts
+ * and the total balance must be conserved exactly.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class TransferConcurrencyIntegrationTest {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final Money INITIAL_BALANCE = Money.ofMajor(10_000);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private List<User> accounts;
+
+    @BeforeEach
+    void setUp() {
+        accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(userRepository.save(User.builder()
+                    .userName("hot" + i)
+                    .email("hot" + i + "@example.com")
+                    .password("password")
+                    .fullName("Hot Account " + i)
+                    .role(Role.USER)
+                    .balance(INITIAL_BALANCE)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentTransfers_ConserveTotalBalance() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    TransferRequest request = new TransferRequest();
+                    request.setReceiverUsername("hot" + to);
+                    request.setAmount(Money.ofMajor(1 + random.nextInt(500)));
+                    try {
+                        transactionService.transfer("hot" + from, request);
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        // Act
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Transfers did not finish in time");
+
+        // Assert
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, succeeded.get() + rejected.get());
+
+        Map<Long, Money> balances = ledgerService.balancesOf(
+                userRepository.findAllById(accounts.stream().map(User::getId).toList()));
+        long total = balances.values().stream().mapToLong(Money::minorUnits).sum();
+        assertEquals(ACCOUNTS * INITIAL_BALANCE.minorUnits(), total);
+        balances.forEach((id, balance) -> assertFalse(balance.isNegative(), "Negative balance for account " + id));
+
+        // Every balance must equal its starting value plus the committed transfer rows
+        List<Transaction> transactions = transactionRepository.findAll();
+        assertEquals(succeeded.get(), transactions.size());
+        Map<Long, Money> net = transactions.stream().collect(Collectors.toMap(
+                tx -> tx.getReceiver().getId(), Transaction::getAmount, Money::plus));
+        transactions.forEach(tx -> net.merge(tx.getSender().getId(), tx.getAmount().negate(), Money::plus));
+        balances.forEach((id, balance) -> assertEquals(INITIAL_BALANCE.plus(net.getOrDefault(id, Money.ZERO)),
+                balance, "Ledger mismatch for account " + id));
+        assertTrue(ledgerService.reconcile().isBalanced());
+    }
+}
@@ -0,0 +1,146 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Transfers publish an event and notifications are sent after commit on the notification executor,
+ * so slow notification I/O stays out of the transfer latency and rolled-back transfers stay silent.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-notifications;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type=WARN",
+        "logging.level.com.thinhtran.EzPay=INFO"
+})
+class TransferNotificationIntegrationTest {
+
+    private static final long NOTIFICATION_DELAY_MS = 50;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private List<User> accounts;
+
+    @BeforeEach
+    void setUp() {
+        // Simulate the notification row insert, STOMP push and unread count query
+        doAnswer(invocation -> {
+            Thread.sleep(NOTIFICATION_DELAY_MS);
+            return null;
+        }).when(notificationService).createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+
+        accounts = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            accounts.add(userRepository.save(User.builder()
+                    .userName("notify" + i)
+                    .email("notify" + i + "@example.com")
+                    .password("password")
+                    .fullName("Notify User " + i)
+                    .role(Role.USER)
+                    .balance(Money.ofMajor(1_000_000))
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transfer_NotifiesBothPartiesAfterCommit() {
+        // Act
+        transactionService.transfer("notify0", transferRequest("notify1", Money.ofMajor(100)));
+
+        // Assert
+        Long transactionId = transactionRepository.findAll().get(0).getId();
+        verify(notificationService, timeout(5_000)).createAndSendNotification(
+                eq(accounts.get(0).getId()), eq(NotificationType.TRANSFER_SENT), anyString(), anyString(), eq(transactionId));
+        verify(notificationService, timeout(5_000)).createAndSendNotification(
+                eq(accounts.get(1).getId()), eq(NotificationType.TRANSFER_RECEIVED), anyString(), anyString(), eq(transactionId));
+    }
+
+    @Test
+    void transfer_RolledBackSendsNoNotifications() {
+        // Act
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.transfer("notify0", transferRequest("notify1", Money.ofMajor(2_000_000))));
+
+        // Assert
+        verify(notificationService, after(500).never())
+                .createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void transfer_ReturnsBeforeNotificationsComplete() {
+        // Arrange: notifications block until released, so a transfer that waited for them could not return
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        doAnswer(invocation -> {
+            release.await(30, TimeUnit.SECONDS);
+            completed.incrementAndGet();
+            return null;
+        }).when(notificationService).createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+
+        // Act
+        transactionService.transfer("notify0", transferRequest("notify1", Money.ofMajor(10)));
+
+        // Assert
+        assertEquals(0, completed.get(), "Transfer waited for notification work");
+        release.countDown();
+        verify(notificationService, timeout(30_000).times(2))
+                .createAndSendNotification(anyLong(), any(), anyString(), anyString(), anyLong());
+    }
+
+    private static TransferRequest transferRequest(String receiver, Money amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(amount);
+        return request;
+    }
+}
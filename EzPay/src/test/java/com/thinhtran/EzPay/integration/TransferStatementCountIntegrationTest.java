@@ -0,0 +1,164 @@
+package com.thinhtran.EzPay.integration;
+
+import com.thinhtran.EzPay.dto.request.TopUpRequest;
+import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.entity.Money;
+import com.thinhtran.EzPay.entity.Role;
+import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.exception.InsufficientBalanceException;
+import com.thinhtran.EzPay.exception.ValidationException;
+import com.thinhtran.EzPay.repository.LedgerPostingRepository;
+import com.thinhtran.EzPay.repository.TransactionRepository;
+import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.NotificationService;
+import com.thinhtran.EzPay.service.TransactionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements issued by the transfer and top-up paths, which lock only the debited
+ * account and append ledger postings instead of updating balances. The outbox relay is disabled
+ * so its polling does not show up in the counts.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-statements;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ezpay.outbox.relay.enabled=false"
+})
+class TransferStatementCountIntegrationTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerPostingRepository ledgerPostingRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private Statistics statistics;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(newUser("alice", Money.ofMajor(1000)));
+        bob = userRepository.save(newUser("bob", Money.ofMajor(500)));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerPostingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transfer_UsesFiveStatements() {
+        // Arrange - warm up the transaction id sequence: the pooled optimizer's first fetch only covers one id
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(1)));
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(1)));
+        statistics.clear();
+
+        // Act
+        transactionService.transfer("alice", transferRequest("bob", Money.ofMajor(200)));
+
+        // Assert - resolve both parties, lock the sender's balance, insert the transaction and the batched
+        // debit and credit postings; the statistics and notification outbox rows are one JDBC insert, which
+        // Hibernate does not count
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(Money.ofMajor(798), balanceOf(alice));
+        assertEquals(Money.ofMajor(702), balanceOf(bob));
+    }
+
+    @Test
+    void transfer_InsufficientBalanceWritesNothing() {
+        // Act
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.transfer("bob", transferRequest("alice", Money.ofMajor(600))));
+
+        // Assert
+        assertEquals(Money.ofMajor(1000), balanceOf(alice));
+        assertEquals(Money.ofMajor(500), balanceOf(bob));
+        assertEquals(0, transactionRepository.count());
+        assertEquals(0, ledgerPostingRepository.count());
+    }
+
+    @Test
+    void topUp_UsesThreeStatements() {
+        // Arrange - warm up the posting id sequence, as for transfers
+        transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(1)));
+        transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(1)));
+        statistics.clear();
+
+        // Act
+        transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(248)));
+
+        // Assert - resolve the target id, lock its balance, insert the posting
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(Money.ofMajor(750), balanceOf(bob));
+    }
+
+    @Test
+    void topUp_RejectsCreditAboveMaximumBalance() {
+        // Arrange
+        bob.setBalance(Money.ofMajor(999_999_000));
+        userRepository.save(bob);
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> transactionService.topUp(new TopUpRequest("bob", Money.ofMajor(5_000))));
+        assertEquals(Money.ofMajor(999_999_000), balanceOf(bob));
+    }
+
+    private Money balanceOf(User user) {
+        return ledgerService.balanceOf(userRepository.findById(user.getId()).orElseThrow());
+    }
+
+    private static TransferRequest transferRequest(String receiver, Money amount) {
+        TransferRequest request = new TransferRequest();
+        request.setReceiverUsername(receiver);
+        request.setAmount(amount);
+        return request;
+    }
+
+    private static User newUser(String userName, Money balance) {
+        return User.builder()
+                .userName(userName)
+                .email(userName + "@example.com")
+                .password("password")
+                .fullName(userName + " user")
+                .role(Role.USER)
+                .balance(balance)
+                .build();
+    }
+}
@@ -1,8 +1,12 @@
 package com.thinhtran.EzPay.repository;
 
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.Transaction;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.util.HistoryCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +16,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -47,7 +52,7 @@ class TransactionRepositoryTest {
                 .password("password")
                 .fullName("Sender User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
 
         receiver = User.builder()
@@ -56,7 +61,7 @@ class TransactionRepositoryTest {
                 .password("password")
                 .fullName("Receiver User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .build();
 
         thirdUser = User.builder()
@@ -65,7 +70,7 @@ class TransactionRepositoryTest {
                 .password("password")
                 .fullName("Third User")
                 .role(Role.USER)
-                .balance(300.0)
+                .balance(Money.ofMajor(300))
                 .build();
 
         // Persist users first
@@ -76,7 +81,7 @@ class TransactionRepositoryTest {
         transaction1 = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("First transaction")
                 .createdAt(LocalDateTime.now().minusDays(3))
                 .build();
@@ -84,7 +89,7 @@ class TransactionRepositoryTest {
         transaction2 = Transaction.builder()
                 .sender(receiver)
                 .receiver(sender)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Second transaction")
                 .createdAt(LocalDateTime.now().minusDays(2))
                 .build();
@@ -92,21 +97,21 @@ class TransactionRepositoryTest {
         transaction3 = Transaction.builder()
                 .sender(thirdUser)
                 .receiver(receiver)
-                .amount(50.0)
+                .amount(Money.ofMajor(50))
                 .message("Third transaction")
                 .createdAt(LocalDateTime.now().minusDays(1))
                 .build();
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_SenderTransactions() {
+    void findHistoryFirstPage_SenderTransactions() {
         // Arrange
         entityManager.persistAndFlush(transaction1);
         entityManager.persistAndFlush(transaction2);
         entityManager.persistAndFlush(transaction3);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(sender.getUserName(), 100);
 
         // Assert
         assertEquals(2, result.size());
@@ -116,24 +121,24 @@ class TransactionRepositoryTest {
         
         // Check that both transactions involve the sender
         assertTrue(result.stream().allMatch(t -> 
-            t.getSender().equals(sender) || t.getReceiver().equals(sender)));
+            t.getSenderUsername().equals(sender.getUserName()) || t.getReceiverUsername().equals(sender.getUserName())));
         
         // Verify specific transactions
         assertTrue(result.stream().anyMatch(t -> 
-            t.getSender().equals(sender) && t.getReceiver().equals(receiver) && t.getAmount().equals(200.0)));
+            t.getSenderUsername().equals(sender.getUserName()) && t.getReceiverUsername().equals(receiver.getUserName()) && Money.ofMinor(t.getAmount()).equals(Money.ofMajor(200))));
         assertTrue(result.stream().anyMatch(t -> 
-            t.getSender().equals(receiver) && t.getReceiver().equals(sender) && t.getAmount().equals(100.0)));
+            t.getSenderUsername().equals(receiver.getUserName()) && t.getReceiverUsername().equals(sender.getUserName()) && Money.ofMinor(t.getAmount()).equals(Money.ofMajor(100))));
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_ReceiverTransactions() {
+    void findHistoryFirstPage_ReceiverTransactions() {
         // Arrange
         entityManager.persistAndFlush(transaction1);
         entityManager.persistAndFlush(transaction2);
         entityManager.persistAndFlush(transaction3);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(receiver, receiver);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(receiver.getUserName(), 100);
 
         // Assert
         assertEquals(3, result.size());
@@ -146,11 +151,11 @@ class TransactionRepositoryTest {
         
         // Check that all transactions involve the receiver
         assertTrue(result.stream().allMatch(t -> 
-            t.getSender().equals(receiver) || t.getReceiver().equals(receiver)));
+            t.getSenderUsername().equals(receiver.getUserName()) || t.getReceiverUsername().equals(receiver.getUserName())));
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_NoTransactions() {
+    void findHistoryFirstPage_NoTransactions() {
         // Arrange
         entityManager.persistAndFlush(transaction1);
         entityManager.persistAndFlush(transaction2);
@@ -162,27 +167,26 @@ class TransactionRepositoryTest {
                 .password("password")
                 .fullName("No Transactions User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
         userWithNoTransactions = entityManager.persistAndFlush(userWithNoTransactions);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(
-            userWithNoTransactions, userWithNoTransactions);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(userWithNoTransactions.getUserName(), 100);
 
         // Assert
         assertTrue(result.isEmpty());
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_SameDateTime() {
+    void findHistoryFirstPage_SameDateTime() {
         // Arrange
-        LocalDateTime sameTime = LocalDateTime.now();
+        LocalDateTime sameTime = LocalDateTime.now().withNano(0);
         
         Transaction tx1 = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(100.0)
+                .amount(Money.ofMajor(100))
                 .message("Same time tx1")
                 .createdAt(sameTime)
                 .build();
@@ -190,7 +194,7 @@ class TransactionRepositoryTest {
         Transaction tx2 = Transaction.builder()
                 .sender(receiver)
                 .receiver(sender)
-                .amount(50.0)
+                .amount(Money.ofMajor(50))
                 .message("Same time tx2")
                 .createdAt(sameTime)
                 .build();
@@ -199,21 +203,125 @@ class TransactionRepositoryTest {
         entityManager.persistAndFlush(tx2);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(sender.getUserName(), 100);
 
         // Assert
         assertEquals(2, result.size());
         assertEquals(sameTime, result.get(0).getCreatedAt());
         assertEquals(sameTime, result.get(1).getCreatedAt());
+        assertTrue(result.get(0).getId() > result.get(1).getId());
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_NullMessage() {
+    void findHistoryAfter_SeeksPastCursorRow() {
+        // Arrange - two transfers share the cursor's timestamp
+        LocalDateTime sameTime = LocalDateTime.of(2025, 7, 14, 10, 0);
+        Transaction older = entityManager.persistAndFlush(Transaction.builder()
+                .sender(sender).receiver(receiver).amount(Money.ofMajor(1)).createdAt(sameTime.minusHours(1)).build());
+        Transaction tied = entityManager.persistAndFlush(Transaction.builder()
+                .sender(sender).receiver(receiver).amount(Money.ofMajor(2)).createdAt(sameTime).build());
+        Transaction cursorRow = entityManager.persistAndFlush(Transaction.builder()
+                .sender(receiver).receiver(sender).amount(Money.ofMajor(3)).createdAt(sameTime).build());
+        entityManager.persistAndFlush(Transaction.builder()
+                .sender(sender).receiver(receiver).amount(Money.ofMajor(4)).createdAt(sameTime.plusHours(1)).build());
+
+        // Act
+        List<HistoryRow> result = transactionRepository.findHistoryAfter(
+                sender.getUserName(), cursorRow.getCreatedAt(), cursorRow.getId(), 10);
+
+        // Assert
+        assertEquals(List.of(tied.getId(), older.getId()), result.stream().map(HistoryRow::getId).toList());
+    }
+
+    @Test
+    void findHistoryFirstPage_LimitsRows() {
+        // Arrange
+        entityManager.persistAndFlush(transaction1);
+        entityManager.persistAndFlush(transaction2);
+        entityManager.persistAndFlush(transaction3);
+
+        // Act
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(receiver.getUserName(), 2);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(List.of(transaction3.getId(), transaction2.getId()), result.stream().map(HistoryRow::getId).toList());
+    }
+
+    @Test
+    void findHistory_FiltersByDirection() {
+        // Arrange
+        entityManager.persistAndFlush(transaction1);
+        entityManager.persistAndFlush(transaction2);
+        entityManager.persistAndFlush(transaction3);
+
+        // Act
+        List<HistoryRow> sent = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().direction(HistoryFilter.Direction.SENT).build(), null, 10);
+        List<HistoryRow> received = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().direction(HistoryFilter.Direction.RECEIVED).build(), null, 10);
+
+        // Assert
+        assertEquals(List.of(transaction2.getId()), sent.stream().map(HistoryRow::getId).toList());
+        assertEquals(List.of(transaction3.getId(), transaction1.getId()), received.stream().map(HistoryRow::getId).toList());
+        assertEquals("third", received.get(0).getSenderUsername());
+        assertEquals(Money.ofMajor(50), Money.ofMinor(received.get(0).getAmount()));
+    }
+
+    @Test
+    void findHistory_FiltersByCounterpartyAmountAndDate() {
+        // Arrange
+        entityManager.persistAndFlush(transaction1);
+        entityManager.persistAndFlush(transaction2);
+        entityManager.persistAndFlush(transaction3);
+
+        // Act
+        List<HistoryRow> withSender = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().counterparty("sender").build(), null, 10);
+        List<HistoryRow> midSized = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().minAmount(Money.ofMajor(50)).maxAmount(Money.ofMajor(100)).build(), null, 10);
+        List<HistoryRow> recent = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().from(seconds(transaction2)).to(seconds(transaction3)).build(), null, 10);
+        List<HistoryRow> unknown = transactionRepository.findHistory(receiver.getUserName(),
+                HistoryFilter.builder().counterparty("nobody").build(), null, 10);
+
+        // Assert
+        assertEquals(List.of(transaction2.getId(), transaction1.getId()), withSender.stream().map(HistoryRow::getId).toList());
+        assertEquals(List.of(transaction3.getId(), transaction2.getId()), midSized.stream().map(HistoryRow::getId).toList());
+        assertEquals(List.of(transaction2.getId()), recent.stream().map(HistoryRow::getId).toList());
+        assertTrue(unknown.isEmpty());
+    }
+
+    @Test
+    void findHistory_SeeksPastCursorAndLimits() {
+        // Arrange
+        entityManager.persistAndFlush(transaction1);
+        entityManager.persistAndFlush(transaction2);
+        entityManager.persistAndFlush(transaction3);
+        HistoryFilter filter = HistoryFilter.builder().minAmount(Money.ofMajor(1)).build();
+
+        // Act
+        List<HistoryRow> first = transactionRepository.findHistory(receiver.getUserName(), filter, null, 1);
+        List<HistoryRow> rest = transactionRepository.findHistory(receiver.getUserName(), filter,
+                new HistoryCursor(seconds(transaction3), transaction3.getId()), 10);
+
+        // Assert
+        assertEquals(List.of(transaction3.getId()), first.stream().map(HistoryRow::getId).toList());
+        assertEquals(List.of(transaction2.getId(), transaction1.getId()), rest.stream().map(HistoryRow::getId).toList());
+    }
+
+    // The column keeps fewer fraction digits than LocalDateTime.now(), so compare on whole seconds
+    private static LocalDateTime seconds(Transaction transaction) {
+        return transaction.getCreatedAt().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    void findHistoryFirstPage_NullMessage() {
         // Arrange
         Transaction txWithNullMessage = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(150.0)
+                .amount(Money.ofMajor(150))
                 .message(null)
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -221,21 +329,21 @@ class TransactionRepositoryTest {
         entityManager.persistAndFlush(txWithNullMessage);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(sender.getUserName(), 100);
 
         // Assert
         assertEquals(1, result.size());
         assertNull(result.get(0).getMessage());
-        assertEquals(150.0, result.get(0).getAmount());
+        assertEquals(Money.ofMajor(150), Money.ofMinor(result.get(0).getAmount()));
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_ZeroAmount() {
+    void findHistoryFirstPage_ZeroAmount() {
         // Arrange
         Transaction txWithZeroAmount = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(0.0)
+                .amount(Money.ZERO)
                 .message("Zero amount transaction")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -243,11 +351,11 @@ class TransactionRepositoryTest {
         entityManager.persistAndFlush(txWithZeroAmount);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(sender.getUserName(), 100);
 
         // Assert
         assertEquals(1, result.size());
-        assertEquals(0.0, result.get(0).getAmount());
+        assertEquals(Money.ZERO, Money.ofMinor(result.get(0).getAmount()));
         assertEquals("Zero amount transaction", result.get(0).getMessage());
     }
 
@@ -260,7 +368,7 @@ class TransactionRepositoryTest {
         assertNotNull(savedTransaction.getId());
         assertEquals(sender, savedTransaction.getSender());
         assertEquals(receiver, savedTransaction.getReceiver());
-        assertEquals(200.0, savedTransaction.getAmount());
+        assertEquals(Money.ofMajor(200), savedTransaction.getAmount());
         assertEquals("First transaction", savedTransaction.getMessage());
         assertNotNull(savedTransaction.getCreatedAt());
     }
@@ -276,7 +384,7 @@ class TransactionRepositoryTest {
         // Assert
         assertNotNull(savedTransaction.getId());
         assertNull(savedTransaction.getMessage());
-        assertEquals(200.0, savedTransaction.getAmount());
+        assertEquals(Money.ofMajor(200), savedTransaction.getAmount());
     }
 
     @Test
@@ -290,7 +398,7 @@ class TransactionRepositoryTest {
         // Assert
         assertNotNull(savedTransaction.getId());
         assertEquals("", savedTransaction.getMessage());
-        assertEquals(200.0, savedTransaction.getAmount());
+        assertEquals(Money.ofMajor(200), savedTransaction.getAmount());
     }
 
     @Test
@@ -306,7 +414,7 @@ class TransactionRepositoryTest {
         assertEquals(savedTransaction.getId(), result.get().getId());
         assertEquals(sender, result.get().getSender());
         assertEquals(receiver, result.get().getReceiver());
-        assertEquals(200.0, result.get().getAmount());
+        assertEquals(Money.ofMajor(200), result.get().getAmount());
     }
 
     @Test
@@ -330,9 +438,9 @@ class TransactionRepositoryTest {
 
         // Assert
         assertEquals(3, result.size());
-        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(200.0)));
-        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(100.0)));
-        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(50.0)));
+        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(Money.ofMajor(200))));
+        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(Money.ofMajor(100))));
+        assertTrue(result.stream().anyMatch(t -> t.getAmount().equals(Money.ofMajor(50))));
     }
 
     @Test
@@ -406,7 +514,7 @@ class TransactionRepositoryTest {
         Transaction selfTransfer = Transaction.builder()
                 .sender(sender)
                 .receiver(sender) // Same user
-                .amount(50.0)
+                .amount(Money.ofMajor(50))
                 .message("Self transfer")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -418,17 +526,17 @@ class TransactionRepositoryTest {
         assertNotNull(savedTransaction.getId());
         assertEquals(sender, savedTransaction.getSender());
         assertEquals(sender, savedTransaction.getReceiver());
-        assertEquals(50.0, savedTransaction.getAmount());
+        assertEquals(Money.ofMajor(50), savedTransaction.getAmount());
         assertEquals("Self transfer", savedTransaction.getMessage());
     }
 
     @Test
-    void findBySenderOrReceiverOrderByCreatedAtDesc_SelfTransfer() {
+    void findHistoryFirstPage_SelfTransfer() {
         // Arrange
         Transaction selfTransfer = Transaction.builder()
                 .sender(sender)
                 .receiver(sender)
-                .amount(50.0)
+                .amount(Money.ofMajor(50))
                 .message("Self transfer")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -436,13 +544,13 @@ class TransactionRepositoryTest {
         entityManager.persistAndFlush(selfTransfer);
 
         // Act
-        List<Transaction> result = transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        List<HistoryRow> result = transactionRepository.findHistoryFirstPage(sender.getUserName(), 100);
 
         // Assert
         assertEquals(1, result.size());
-        assertEquals(sender, result.get(0).getSender());
-        assertEquals(sender, result.get(0).getReceiver());
-        assertEquals(50.0, result.get(0).getAmount());
+        assertEquals("sender", result.get(0).getSenderUsername());
+        assertEquals("sender", result.get(0).getReceiverUsername());
+        assertEquals(Money.ofMajor(50), Money.ofMinor(result.get(0).getAmount()));
     }
 
     @Test
@@ -451,7 +559,7 @@ class TransactionRepositoryTest {
         Transaction largeAmountTx = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(999999.99)
+                .amount(Money.parse("999999.99"))
                 .message("Large amount")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -461,7 +569,7 @@ class TransactionRepositoryTest {
 
         // Assert
         assertNotNull(savedTransaction.getId());
-        assertEquals(999999.99, savedTransaction.getAmount());
+        assertEquals(Money.parse("999999.99"), savedTransaction.getAmount());
         assertEquals("Large amount", savedTransaction.getMessage());
     }
 
@@ -471,7 +579,7 @@ class TransactionRepositoryTest {
         Transaction smallAmountTx = Transaction.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .amount(0.01)
+                .amount(Money.parse("0.01"))
                 .message("Small amount")
                 .createdAt(LocalDateTime.now())
                 .build();
@@ -481,7 +589,7 @@ class TransactionRepositoryTest {
 
         // Assert
         assertNotNull(savedTransaction.getId());
-        assertEquals(0.01, savedTransaction.getAmount());
+        assertEquals(Money.parse("0.01"), savedTransaction.getAmount());
         assertEquals("Small amount", savedTransaction.getMessage());
     }
 } 
\ No newline at end of file
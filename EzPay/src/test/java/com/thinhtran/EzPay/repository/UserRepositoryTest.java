@@ -1,15 +1,19 @@
 package com.thinhtran.EzPay.repository;
 
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.repository.projection.UserSearchRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,7 +44,7 @@ class UserRepositoryTest {
                 .password("encodedPassword1")
                 .fullName("Test User 1")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .phone("123456789")
                 .build();
 
@@ -50,7 +54,7 @@ class UserRepositoryTest {
                 .password("encodedPassword2")
                 .fullName("Test User 2")
                 .role(Role.ADMIN)
-                .balance(2000.0)
+                .balance(Money.ofMajor(2000))
                 .phone("987654321")
                 .build();
     }
@@ -69,7 +73,7 @@ class UserRepositoryTest {
         assertEquals("test1@example.com", result.get().getEmail());
         assertEquals("Test User 1", result.get().getFullName());
         assertEquals(Role.USER, result.get().getRole());
-        assertEquals(1000.0, result.get().getBalance());
+        assertEquals(Money.ofMajor(1000), result.get().getBalance());
         assertEquals("123456789", result.get().getPhone());
     }
 
@@ -206,7 +210,7 @@ class UserRepositoryTest {
         assertEquals("test1@example.com", savedUser.getEmail());
         assertEquals("Test User 1", savedUser.getFullName());
         assertEquals(Role.USER, savedUser.getRole());
-        assertEquals(1000.0, savedUser.getBalance());
+        assertEquals(Money.ofMajor(1000), savedUser.getBalance());
         assertEquals("123456789", savedUser.getPhone());
     }
 
@@ -219,7 +223,7 @@ class UserRepositoryTest {
                 .password("password")
                 .fullName(null)
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .phone(null)
                 .build();
 
@@ -232,7 +236,7 @@ class UserRepositoryTest {
         assertEquals("null@example.com", savedUser.getEmail());
         assertNull(savedUser.getFullName());
         assertEquals(Role.USER, savedUser.getRole());
-        assertEquals(0.0, savedUser.getBalance());
+        assertEquals(Money.ZERO, savedUser.getBalance());
         assertNull(savedUser.getPhone());
     }
 
@@ -255,7 +259,7 @@ class UserRepositoryTest {
         assertEquals("default@example.com", savedUser.getEmail());
         assertEquals("Default User", savedUser.getFullName());
         assertEquals(Role.USER, savedUser.getRole()); // Default role
-        assertEquals(0.0, savedUser.getBalance()); // Default balance
+        assertEquals(Money.ZERO, savedUser.getBalance()); // Default balance
     }
 
     @Test
@@ -265,12 +269,12 @@ class UserRepositoryTest {
         Long userId = savedUser.getId();
 
         // Act
-        savedUser.setBalance(1500.0);
+        savedUser.setBalance(Money.ofMajor(1500));
         User updatedUser = userRepository.save(savedUser);
 
         // Assert
         assertEquals(userId, updatedUser.getId());
-        assertEquals(1500.0, updatedUser.getBalance());
+        assertEquals(Money.ofMajor(1500), updatedUser.getBalance());
     }
 
     @Test
@@ -367,7 +371,7 @@ class UserRepositoryTest {
                 .password("password")
                 .fullName("Different User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
 
         // Act & Assert
@@ -388,7 +392,7 @@ class UserRepositoryTest {
                 .password("password")
                 .fullName("Different User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
 
         // Act & Assert
@@ -407,7 +411,7 @@ class UserRepositoryTest {
                 .password("password")
                 .fullName("No Phone User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .phone(null)
                 .build();
 
@@ -433,4 +437,67 @@ class UserRepositoryTest {
         assertEquals(Role.USER, savedUser1.getRole());
         assertEquals(Role.ADMIN, savedUser2.getRole());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void search_MatchesLowerCasedColumnsAndExcludesRole() {
+        // Arrange
+        entityManager.persistAndFlush(testUser1);
+        entityManager.persistAndFlush(testUser2);
+
+        // Act
+        List<UserSearchRow> byName = userRepository.search("%test user%", Role.ADMIN, PageRequest.of(0, 10));
+        List<UserSearchRow> byPhone = userRepository.search("1234%", Role.ADMIN, PageRequest.of(0, 10));
+        List<UserSearchRow> admins = userRepository.search("%987%", Role.ADMIN, PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(1, byName.size());
+        UserSearchRow row = byName.get(0);
+        assertEquals(testUser1.getId(), row.id());
+        assertEquals("testuser1", row.userName());
+        assertEquals("Test User 1", row.fullName());
+        assertEquals("test1@example.com", row.email());
+        assertEquals("123456789", row.phone());
+        assertEquals(Role.USER, row.role());
+        assertEquals(Money.ofMajor(1000), row.balance());
+        assertEquals(1, byPhone.size());
+        assertTrue(admins.isEmpty());
+    }
+
+    @Test
+    void search_TreatsEscapedWildcardsLiterally() {
+        // Arrange
+        testUser1.setUserName("under_score");
+        testUser2.setUserName("underXscore");
+        testUser2.setRole(Role.USER);
+        entityManager.persistAndFlush(testUser1);
+        entityManager.persistAndFlush(testUser2);
+
+        // Act
+        List<UserSearchRow> result = userRepository.search("%under!_s%", Role.ADMIN, PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("under_score", result.get(0).userName());
+    }
+
+    @Test
+    void search_StopsAtPageSize() {
+        // Arrange
+        for (int i = 0; i < 15; i++) {
+            entityManager.persist(User.builder()
+                    .userName("many" + i)
+                    .email("many" + i + "@example.com")
+                    .password("password")
+                    .fullName("Many " + i)
+                    .role(Role.USER)
+                    .build());
+        }
+        entityManager.flush();
+
+        // Act
+        List<UserSearchRow> result = userRepository.search("many%", Role.ADMIN, PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(10, result.size());
+    }
+}
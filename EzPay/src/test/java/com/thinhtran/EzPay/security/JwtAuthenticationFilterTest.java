@@ -1,5 +1,6 @@
 package com.thinhtran.EzPay.security;
 
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.repository.UserRepository;
@@ -60,7 +61,7 @@ class JwtAuthenticationFilterTest {
                 .password("password")
                 .fullName("Test User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
     }
 
@@ -430,7 +431,7 @@ class JwtAuthenticationFilterTest {
                 .password("password")
                 .fullName("Admin User")
                 .role(Role.ADMIN)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
 
         String validToken = "valid_token";
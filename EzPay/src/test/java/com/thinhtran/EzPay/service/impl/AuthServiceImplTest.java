@@ -8,6 +8,7 @@ import com.thinhtran.EzPay.dto.request.RegisterRequest;
 import com.thinhtran.EzPay.dto.response.AuthResponse;
 import com.thinhtran.EzPay.dto.response.OTPResponse;
 import com.thinhtran.EzPay.dto.response.OTPVerifyResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.User;
 import com.thinhtran.EzPay.exception.AuthenticationException;
@@ -16,6 +17,7 @@ import com.thinhtran.EzPay.exception.UserNotFoundException;
 import com.thinhtran.EzPay.exception.ValidationException;
 import com.thinhtran.EzPay.repository.UserRepository;
 import com.thinhtran.EzPay.security.JwtTokenProvider;
+import com.thinhtran.EzPay.service.RecipientIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,6 +48,9 @@ class AuthServiceImplTest {
     @Mock
     private JwtTokenProvider jwtProvider;
 
+    @Mock
+    private RecipientIndex recipientIndex;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -86,7 +91,7 @@ class AuthServiceImplTest {
                 .password("encodedPassword")
                 .fullName("Test User")
                 .role(Role.USER)
-                .balance(0.0)
+                .balance(Money.ZERO)
                 .build();
     }
 
@@ -163,7 +168,7 @@ class AuthServiceImplTest {
             user.getPassword().equals("encodedPassword") &&
             user.getFullName().equals("Test User") &&
             user.getRole().equals(Role.USER) &&
-            user.getBalance().equals(0.0)
+            user.getBalance().equals(Money.ZERO)
         ));
     }
 
@@ -0,0 +1,87 @@
+package com.thinhtran.EzPay.service.impl;
+
+import com.thinhtran.EzPay.entity.Notification;
+import com.thinhtran.EzPay.entity.NotificationType;
+import com.thinhtran.EzPay.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceImplTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private NotificationServiceImpl notificationService;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void createAndSendNotification_PushesOnlyAfterCommit() {
+        // Arrange
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(notificationRepository.countUnreadByUserId(7L)).thenReturn(3L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        notificationService.createAndSendNotification(7L, NotificationType.TRANSFER_RECEIVED, "Nhận tiền", "100 VND", 1L);
+
+        // Assert - nothing reaches the client while the transaction can still roll back
+        verifyNoInteractions(messagingTemplate);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(messagingTemplate).convertAndSendToUser(eq("7"), eq("/queue/notifications"), any(Notification.class));
+        verify(messagingTemplate).convertAndSendToUser("7", "/queue/unread-count", 3L);
+    }
+
+    @Test
+    void createAndSendNotification_RolledBackPushesNothing() {
+        // Arrange
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        notificationService.createAndSendNotification(7L, NotificationType.TRANSFER_SENT, "Chuyển tiền", "100 VND", 1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+    }
+
+    @Test
+    void markAsRead_OutsideTransactionPushesAtOnce() {
+        // Arrange
+        Notification notification = Notification.builder().id(5L).userId(7L).isRead(false).build();
+        when(notificationRepository.findById(5L)).thenReturn(Optional.of(notification));
+        when(notificationRepository.countUnreadByUserId(7L)).thenReturn(0L);
+
+        // Act
+        notificationService.markAsRead(5L, 7L);
+
+        // Assert
+        verify(messagingTemplate).convertAndSendToUser("7", "/queue/unread-count", 0L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.thinhtran.EzPay.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionPartitionServiceImpl partitionService;
+
+    @BeforeEach
+    void setUp() {
+        partitionService = new TransactionPartitionServiceImpl(jdbcTemplate, transactionManager, 3, 0, true);
+    }
+
+    @Test
+    void createPartitions_CreatesOnlyMissingMonths() {
+        // Arrange
+        attached("tbl_transaction_p2026_10", "tbl_transaction_p2026_11");
+
+        // Act
+        List<String> created = partitionService.createPartitions(YearMonth.of(2026, 10), YearMonth.of(2027, 1));
+
+        // Assert
+        assertEquals(List.of("tbl_transaction_p2026_12", "tbl_transaction_p2027_01"), created);
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS tbl_transaction_p2026_12 PARTITION OF tbl_transaction"
+                + " FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS tbl_transaction_p2027_01 PARTITION OF tbl_transaction"
+                + " FOR VALUES FROM ('2027-01-01') TO ('2027-02-01')");
+        verify(jdbcTemplate, times(2)).execute(startsWith("CREATE TABLE"));
+    }
+
+    @Test
+    void detachPartitionsBefore_ArchivesOlderMonthsOnly() {
+        // Arrange - names that are not monthly partitions are ignored
+        attached("tbl_transaction_p2026_09", "tbl_transaction_p2026_07", "tbl_transaction_p2026_08",
+                "tbl_transaction_default");
+
+        // Act
+        List<String> archived = partitionService.detachPartitionsBefore(YearMonth.of(2026, 9));
+
+        // Assert
+        assertEquals(List.of("tbl_transaction_archive_2026_07", "tbl_transaction_archive_2026_08"), archived);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE tbl_transaction DETACH PARTITION tbl_transaction_p2026_07");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE tbl_transaction_p2026_07 RENAME TO tbl_transaction_archive_2026_07");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE tbl_transaction DETACH PARTITION tbl_transaction_p2026_08");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE tbl_transaction_p2026_08 RENAME TO tbl_transaction_archive_2026_08");
+        verify(jdbcTemplate, never()).execute(contains("tbl_transaction_p2026_09"));
+    }
+
+    @Test
+    void convertToPartitioned_DoesNothingWhenAlreadyPartitioned() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any())).thenReturn(1);
+
+        // Act
+        partitionService.convertToPartitioned();
+
+        // Assert
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void convertToPartitioned_LeavesTableToTheNodeThatConvertedItWhileWaitingForTheLock() {
+        // Arrange - plain before the lock, partitioned once another node has released it
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any())).thenReturn(0, 1);
+
+        // Act
+        partitionService.convertToPartitioned();
+
+        // Assert
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).query(eq("SELECT pg_advisory_xact_lock(?)"), any(RowCallbackHandler.class), anyLong());
+        inOrder.verify(jdbcTemplate).queryForObject(anyString(), eq(Integer.class), any());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void attached(String... partitions) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenReturn(List.of(partitions));
+    }
+}
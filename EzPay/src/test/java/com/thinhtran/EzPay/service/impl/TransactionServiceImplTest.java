@@ -1,32 +1,54 @@
 package com.thinhtran.EzPay.service.impl;
 
+import com.thinhtran.EzPay.dto.request.BatchTransferRequest;
+import com.thinhtran.EzPay.dto.request.HistoryFilter;
 import com.thinhtran.EzPay.dto.request.TopUpRequest;
 import com.thinhtran.EzPay.dto.request.TransferRequest;
+import com.thinhtran.EzPay.dto.response.BatchTransferResponse;
 import com.thinhtran.EzPay.dto.response.StatisticsResponse;
+import com.thinhtran.EzPay.dto.response.TransactionPageResponse;
 import com.thinhtran.EzPay.dto.response.TransactionResponse;
+import com.thinhtran.EzPay.entity.Money;
 import com.thinhtran.EzPay.entity.Role;
 import com.thinhtran.EzPay.entity.Transaction;
 import com.thinhtran.EzPay.entity.User;
+import com.thinhtran.EzPay.event.TransferBatchCompletedEvent;
+import com.thinhtran.EzPay.event.TransferCompletedEvent;
 import com.thinhtran.EzPay.exception.InsufficientBalanceException;
 import com.thinhtran.EzPay.exception.UserNotFoundException;
 import com.thinhtran.EzPay.exception.ValidationException;
 import com.thinhtran.EzPay.repository.TransactionRepository;
 import com.thinhtran.EzPay.repository.UserRepository;
+import com.thinhtran.EzPay.repository.projection.AccountRef;
+import com.thinhtran.EzPay.repository.projection.HistoryRow;
+import com.thinhtran.EzPay.service.LedgerService;
+import com.thinhtran.EzPay.service.OutboxService;
+import com.thinhtran.EzPay.service.RecentHistoryCache;
+import com.thinhtran.EzPay.service.StatisticsService;
+import com.thinhtran.EzPay.util.HistoryCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -39,6 +61,21 @@ class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RecentHistoryCache recentHistoryCache;
+
+    @Mock
+    private StatisticsService statisticsService;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -58,7 +95,7 @@ class TransactionServiceImplTest {
                 .password("password")
                 .fullName("Sender User")
                 .role(Role.USER)
-                .balance(1000.0)
+                .balance(Money.ofMajor(1000))
                 .build();
 
         receiver = User.builder()
@@ -68,7 +105,7 @@ class TransactionServiceImplTest {
                 .password("password")
                 .fullName("Receiver User")
                 .role(Role.USER)
-                .balance(500.0)
+                .balance(Money.ofMajor(500))
                 .build();
 
         targetUser = User.builder()
@@ -78,75 +115,110 @@ class TransactionServiceImplTest {
                 .password("password")
                 .fullName("Target User")
                 .role(Role.USER)
-                .balance(100.0)
+                .balance(Money.ofMajor(100))
                 .build();
 
         transferRequest = new TransferRequest();
         transferRequest.setReceiverUsername("receiver");
-        transferRequest.setAmount(200.0);
+        transferRequest.setAmount(Money.ofMajor(200));
         transferRequest.setMessage("Test transfer");
 
         topUpRequest = new TopUpRequest();
         topUpRequest.setTargetUsername("target");
-        topUpRequest.setAmount(500.0);
+        topUpRequest.setAmount(Money.ofMajor(500));
 
         testTransaction = Transaction.builder()
                 .id(1L)
                 .sender(sender)
                 .receiver(receiver)
-                .amount(200.0)
+                .amount(Money.ofMajor(200))
                 .message("Test transfer")
                 .createdAt(LocalDateTime.now())
                 .build();
+
+        // The cache always misses and loads through the repository
+        lenient().when(recentHistoryCache.firstPage(anyString(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<IntFunction<List<HistoryRow>>>getArgument(2)
+                        .apply(invocation.getArgument(1)));
     }
 
     // ======= TRANSFER TESTS =======
     @Test
     void transfer_Success() {
         // Arrange
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        stubTransferParties();
         when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
 
         // Act
         transactionService.transfer("sender", transferRequest);
 
         // Assert
-        assertEquals(800.0, sender.getBalance()); // 1000 - 200
-        assertEquals(700.0, receiver.getBalance()); // 500 + 200
-        
-        verify(userRepository).findByUserName("sender");
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("sender", "receiver"));
+        verify(ledgerService).lockAvailableBalance(1L);
+        verify(ledgerService, never()).lockAvailableBalance(2L);
         verify(transactionRepository).save(any(Transaction.class));
-        verify(userRepository).save(sender);
-        verify(userRepository).save(receiver);
+        verify(ledgerService).postTransfers(List.of(testTransaction));
+        verify(userRepository, never()).findByUserName(anyString());
+        verify(userRepository, never()).save(any(User.class));
+
+        ArgumentCaptor<TransferCompletedEvent> event = ArgumentCaptor.forClass(TransferCompletedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        verify(outboxService).append(List.of(TransferCompletedEvent.TYPE, TransferCompletedEvent.NOTIFICATION_TYPE),
+                1L, event.getValue());
+        assertEquals(1L, event.getValue().transactionId());
+        assertEquals(1L, event.getValue().senderId());
+        assertEquals(2L, event.getValue().receiverId());
+        assertEquals("Receiver User", event.getValue().receiverFullName());
+        assertEquals(Money.ofMajor(200), event.getValue().amount());
+
+        ArgumentCaptor<HistoryRow> cached = ArgumentCaptor.forClass(HistoryRow.class);
+        verify(recentHistoryCache).recordAfterCommit(cached.capture());
+        assertEquals(1L, cached.getValue().getId());
+        assertEquals("sender", cached.getValue().getSenderUsername());
+        assertEquals("receiver", cached.getValue().getReceiverUsername());
+        assertEquals(20_000L, cached.getValue().getAmount());
+    }
+
+    @Test
+    void transfer_LocksOnlyTheSender() {
+        // Arrange - the receiver's balance is never read or locked, credits are appended postings
+        stubTransferParties();
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
+
+        // Act
+        transactionService.transfer("sender", transferRequest);
+
+        // Assert
+        var inOrder = inOrder(ledgerService, transactionRepository);
+        inOrder.verify(ledgerService).lockAvailableBalance(1L);
+        inOrder.verify(transactionRepository).save(any(Transaction.class));
+        inOrder.verify(ledgerService).postTransfers(List.of(testTransaction));
+        verifyNoMoreInteractions(ledgerService);
     }
 
     @Test
     void transfer_InsufficientBalance() {
         // Arrange
-        transferRequest.setAmount(1500.0); // More than sender's balance of 1000
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        transferRequest.setAmount(Money.ofMajor(1500)); // More than sender's balance of 1000
+        stubTransferParties();
 
         // Act & Assert
         InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class, () -> {
             transactionService.transfer("sender", transferRequest);
         });
 
-        assertEquals("Số dư không đủ. Số dư hiện tại: 1000,00, Số tiền cần: 1500,00", exception.getMessage());
-        assertEquals(1000.0, sender.getBalance()); // Balance unchanged
-        assertEquals(500.0, receiver.getBalance()); // Balance unchanged
+        assertEquals("Số dư không đủ. Số dư hiện tại: 1000.00, Số tiền cần: 1500.00", exception.getMessage());
         
-        verify(userRepository).findByUserName("sender");
-        verify(userRepository).findByUserName("receiver");
-        verifyNoInteractions(transactionRepository);
+        verify(ledgerService).lockAvailableBalance(1L);
+        verify(ledgerService, never()).postTransfers(anyList());
+        verifyNoInteractions(transactionRepository, outboxService, eventPublisher);
     }
 
     @Test
     void transfer_SenderNotFound() {
         // Arrange
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.empty());
+        when(userRepository.findAccountRefsByUserNameIn(anyList()))
+                .thenReturn(List.of(new AccountRef(2L, "receiver", "Receiver User")));
 
         // Act & Assert
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> {
@@ -154,7 +226,7 @@ class TransactionServiceImplTest {
         });
 
         assertEquals("User not found: sender", exception.getMessage());
-        verify(userRepository).findByUserName("sender");
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("sender", "receiver"));
         verifyNoMoreInteractions(userRepository);
         verifyNoInteractions(transactionRepository);
     }
@@ -162,8 +234,8 @@ class TransactionServiceImplTest {
     @Test
     void transfer_ReceiverNotFound() {
         // Arrange
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.empty());
+        when(userRepository.findAccountRefsByUserNameIn(anyList()))
+                .thenReturn(List.of(new AccountRef(1L, "sender", "Sender User")));
 
         // Act & Assert
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> {
@@ -171,15 +243,15 @@ class TransactionServiceImplTest {
         });
 
         assertEquals("User not found: receiver", exception.getMessage());
-        verify(userRepository).findByUserName("sender");
-        verify(userRepository).findByUserName("receiver");
+        verify(userRepository).findAccountRefsByUserNameIn(List.of("sender", "receiver"));
+        verifyNoMoreInteractions(userRepository);
         verifyNoInteractions(transactionRepository);
     }
 
     @Test
     void transfer_ZeroAmount() {
         // Arrange
-        transferRequest.setAmount(0.0);
+        transferRequest.setAmount(Money.ZERO);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -193,7 +265,7 @@ class TransactionServiceImplTest {
     @Test
     void transfer_NegativeAmount() {
         // Arrange
-        transferRequest.setAmount(-100.0);
+        transferRequest.setAmount(Money.ofMajor(-100));
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -222,7 +294,8 @@ class TransactionServiceImplTest {
     void transfer_SelfTransfer() {
         // Arrange
         transferRequest.setReceiverUsername("sender"); // Same as sender
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
+        when(userRepository.findAccountRefsByUserNameIn(anyList()))
+                .thenReturn(List.of(new AccountRef(1L, "sender", "Sender User")));
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -230,35 +303,29 @@ class TransactionServiceImplTest {
         });
 
         assertEquals("Cannot transfer to yourself", exception.getMessage());
-        verify(userRepository, times(2)).findByUserName("sender"); // Called twice - sender and receiver
-        verifyNoInteractions(transactionRepository);
+        verifyNoInteractions(ledgerService, transactionRepository);
     }
 
     @Test
     void transfer_ExactBalance() {
         // Arrange
-        transferRequest.setAmount(1000.0); // Exact balance
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        transferRequest.setAmount(Money.ofMajor(1000)); // Exact balance
+        stubTransferParties();
         when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
 
         // Act
         transactionService.transfer("sender", transferRequest);
 
         // Assert
-        assertEquals(0.0, sender.getBalance()); // 1000 - 1000
-        assertEquals(1500.0, receiver.getBalance()); // 500 + 1000
-        
         verify(transactionRepository).save(any(Transaction.class));
-        verify(userRepository).save(sender);
-        verify(userRepository).save(receiver);
+        verify(ledgerService).postTransfers(List.of(testTransaction));
     }
 
     @Test
     void transfer_SavesTransactionWithCorrectData() {
         // Arrange
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(userRepository.findByUserName("receiver")).thenReturn(Optional.of(receiver));
+        stubTransferParties();
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(testTransaction);
 
         // Act
         transactionService.transfer("sender", transferRequest);
@@ -267,42 +334,98 @@ class TransactionServiceImplTest {
         verify(transactionRepository).save(argThat(transaction -> 
             transaction.getSender().equals(sender) &&
             transaction.getReceiver().equals(receiver) &&
-            transaction.getAmount().equals(200.0) &&
+            transaction.getAmount().equals(Money.ofMajor(200)) &&
             transaction.getMessage().equals("Test transfer") &&
             transaction.getCreatedAt() != null
         ));
     }
 
-    // ======= GET HISTORY TESTS =======
+    // ======= BATCH TRANSFER TESTS =======
     @Test
-    void getHistory_Success() {
+    void transferBatch_AppliesValidLegsAndReportsFailedOnes() {
         // Arrange
-        Transaction transaction1 = Transaction.builder()
-                .id(1L)
-                .sender(sender)
-                .receiver(receiver)
-                .amount(200.0)
-                .message("First transfer")
-                .createdAt(LocalDateTime.now().minusDays(1))
-                .build();
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                leg("receiver", Money.ofMajor(300)),
+                leg("ghost", Money.ofMajor(10)),
+                leg("target", Money.ofMajor(800)), // only 700 left after the first leg
+                leg("target", Money.ofMajor(200))));
+        stubBatchParties(sender, receiver, targetUser);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            for (int i = 0; i < transactions.size(); i++) {
+                transactions.get(i).setId(100L + i);
+            }
+            return transactions;
+        });
 
-        Transaction transaction2 = Transaction.builder()
-                .id(2L)
-                .sender(receiver)
-                .receiver(sender)
-                .amount(100.0)
-                .message("Second transfer")
-                .createdAt(LocalDateTime.now())
-                .build();
+        // Act
+        BatchTransferResponse response = transactionService.transferBatch("sender", request);
 
-        List<Transaction> transactions = Arrays.asList(transaction1, transaction2);
-        
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender))
-                .thenReturn(transactions);
+        // Assert
+        assertEquals(2, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals(Money.ofMajor(500), response.getTotalTransferred());
+        assertEquals(100L, response.getResults().get(0).getTransactionId());
+        assertEquals("User not found: ghost", response.getResults().get(1).getError());
+        assertEquals("Số dư không đủ. Số dư hiện tại: 700.00, Số tiền cần: 800.00", response.getResults().get(2).getError());
+        assertTrue(response.getResults().get(3).getSuccess());
+        assertEquals(101L, response.getResults().get(3).getTransactionId());
+
+        verify(userRepository).findAccountRefsByUserNameIn(Set.of("sender", "receiver", "ghost", "target"));
+        verify(ledgerService).lockAvailableBalance(1L);
+        ArgumentCaptor<List<Transaction>> posted = ArgumentCaptor.forClass(List.class);
+        verify(ledgerService).postTransfers(posted.capture());
+        assertEquals(List.of(Money.ofMajor(300), Money.ofMajor(200)),
+                posted.getValue().stream().map(Transaction::getAmount).toList());
+        verify(outboxService).append(eq(List.of(TransferBatchCompletedEvent.TYPE, TransferBatchCompletedEvent.NOTIFICATION_TYPE)),
+                eq(1L), any(TransferBatchCompletedEvent.class));
+        verify(eventPublisher).publishEvent(any(TransferBatchCompletedEvent.class));
+    }
+
+    @Test
+    void transferBatch_AllLegsFailedWritesNothing() {
+        // Arrange
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                leg("sender", Money.ofMajor(10)),
+                leg("receiver", Money.ofMajor(5_000))));
+        stubBatchParties(sender, receiver);
 
         // Act
-        List<TransactionResponse> result = transactionService.getHistory("sender");
+        BatchTransferResponse response = transactionService.transferBatch("sender", request);
+
+        // Assert
+        assertEquals(0, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals("Cannot transfer to yourself", response.getResults().get(0).getError());
+        verify(ledgerService, never()).postTransfers(anyList());
+        verifyNoInteractions(transactionRepository, outboxService, eventPublisher);
+    }
+
+    @Test
+    void transferBatch_SenderNotFound() {
+        // Arrange
+        BatchTransferRequest request = new BatchTransferRequest(List.of(leg("receiver", Money.ofMajor(10))));
+        when(userRepository.findAccountRefsByUserNameIn(anyCollection()))
+                .thenReturn(List.of(new AccountRef(2L, "receiver", "Receiver User")));
+
+        // Act & Assert
+        assertThrows(UserNotFoundException.class, () -> transactionService.transferBatch("sender", request));
+        verifyNoInteractions(ledgerService, transactionRepository, outboxService, eventPublisher);
+    }
+
+    // ======= GET HISTORY TESTS =======
+    @Test
+    void getHistory_Success() {
+        // Arrange
+        List<HistoryRow> rows = Arrays.asList(
+                historyRow(2L, "sender", "receiver", Money.ofMajor(200), "First transfer", LocalDateTime.now()),
+                historyRow(1L, "receiver", "sender", Money.ofMajor(100), "Second transfer",
+                        LocalDateTime.now().minusDays(1)));
+        when(transactionRepository.findHistoryFirstPage("sender", 21)).thenReturn(rows);
+
+        // Act
+        TransactionPageResponse page = transactionService.getHistory("sender", null, null, null);
+        List<TransactionResponse> result = page.getItems();
 
         // Assert
         assertNotNull(result);
@@ -311,72 +434,63 @@ class TransactionServiceImplTest {
         TransactionResponse firstResponse = result.get(0);
         assertEquals("sender", firstResponse.getSenderUsername());
         assertEquals("receiver", firstResponse.getReceiverUsername());
-        assertEquals(200.0, firstResponse.getAmount());
+        assertEquals(Money.ofMajor(200), firstResponse.getAmount());
         assertEquals("First transfer", firstResponse.getMessage());
         assertNotNull(firstResponse.getCreatedAt());
         
         TransactionResponse secondResponse = result.get(1);
         assertEquals("receiver", secondResponse.getSenderUsername());
         assertEquals("sender", secondResponse.getReceiverUsername());
-        assertEquals(100.0, secondResponse.getAmount());
+        assertEquals(Money.ofMajor(100), secondResponse.getAmount());
         assertEquals("Second transfer", secondResponse.getMessage());
         assertNotNull(secondResponse.getCreatedAt());
         
-        verify(userRepository).findByUserName("sender");
-        verify(transactionRepository).findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        assertNull(page.getNextCursor());
+        verify(transactionRepository).findHistoryFirstPage("sender", 21);
+        verifyNoInteractions(userRepository); // a non-empty page proves the user exists
     }
 
     @Test
     void getHistory_UserNotFound() {
         // Arrange
-        when(userRepository.findByUserName("nonexistent")).thenReturn(Optional.empty());
+        when(transactionRepository.findHistoryFirstPage("nonexistent", 21)).thenReturn(Collections.emptyList());
+        when(userRepository.existsByUserName("nonexistent")).thenReturn(false);
 
         // Act & Assert
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> {
-            transactionService.getHistory("nonexistent");
+            transactionService.getHistory("nonexistent", null, null, null);
         });
 
         assertEquals("User not found: nonexistent", exception.getMessage());
-        verify(userRepository).findByUserName("nonexistent");
-        verifyNoInteractions(transactionRepository);
+        verify(userRepository).existsByUserName("nonexistent");
     }
 
     @Test
     void getHistory_EmptyHistory() {
         // Arrange
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender))
-                .thenReturn(Collections.emptyList());
+        when(transactionRepository.findHistoryFirstPage("sender", 21)).thenReturn(Collections.emptyList());
+        when(userRepository.existsByUserName("sender")).thenReturn(true);
 
         // Act
-        List<TransactionResponse> result = transactionService.getHistory("sender");
+        TransactionPageResponse result = transactionService.getHistory("sender", null, null, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(0, result.size());
+        assertEquals(0, result.getItems().size());
+        assertNull(result.getNextCursor());
         
-        verify(userRepository).findByUserName("sender");
-        verify(transactionRepository).findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender);
+        verify(userRepository).existsByUserName("sender");
+        verify(transactionRepository).findHistoryFirstPage("sender", 21);
     }
 
     @Test
     void getHistory_HandlesNullMessage() {
         // Arrange
-        Transaction transactionWithNullMessage = Transaction.builder()
-                .id(1L)
-                .sender(sender)
-                .receiver(receiver)
-                .amount(200.0)
-                .message(null)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        when(userRepository.findByUserName("sender")).thenReturn(Optional.of(sender));
-        when(transactionRepository.findBySenderOrReceiverOrderByCreatedAtDesc(sender, sender))
-                .thenReturn(Arrays.asList(transactionWithNullMessage));
+        HistoryRow row = historyRow(1L, "sender", "receiver", Money.ofMajor(200), null, LocalDateTime.now());
+        when(transactionRepository.findHistoryFirstPage("sender", 21)).thenReturn(List.of(row));
 
         // Act
-        List<TransactionResponse> result = transactionService.getHistory("sender");
+        List<TransactionResponse> result = transactionService.getHistory("sender", null, null, null).getItems();
 
         // Assert
         assertNotNull(result);
@@ -384,25 +498,142 @@ class TransactionServiceImplTest {
         assertNull(result.get(0).getMessage());
     }
 
+    @Test
+    void getHistory_ReturnsCursorWhenMoreRowsExist() {
+        // Arrange - one row more than the page means there is a next page
+        LocalDateTime createdAt = LocalDateTime.of(2025, 7, 14, 10, 0);
+        List<HistoryRow> rows = List.of(
+                historyRow(3L, createdAt),
+                historyRow(2L, createdAt),
+                historyRow(1L, createdAt.minusMinutes(1)));
+        when(transactionRepository.findHistoryFirstPage("sender", 3)).thenReturn(rows);
+
+        // Act
+        TransactionPageResponse page = transactionService.getHistory("sender", null, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertEquals(new HistoryCursor(createdAt, 2L), HistoryCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getHistory_ContinuesAfterCursor() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2025, 7, 14, 10, 0);
+        String cursor = new HistoryCursor(createdAt, 2L).encode();
+        HistoryRow row = historyRow(1L, createdAt.minusMinutes(1));
+        when(transactionRepository.findHistoryAfter("sender", createdAt, 2L, 3)).thenReturn(List.of(row));
+
+        // Act
+        TransactionPageResponse page = transactionService.getHistory("sender", null, cursor, 2);
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(transactionRepository, never()).findHistoryFirstPage(anyString(), anyInt());
+    }
+
+    @Test
+    void getHistory_CapsPageSize() {
+        // Arrange
+        HistoryRow row = historyRow(1L, LocalDateTime.now());
+        when(transactionRepository.findHistoryFirstPage("sender", 101)).thenReturn(List.of(row));
+
+        // Act
+        transactionService.getHistory("sender", null, null, 10_000);
+
+        // Assert
+        verify(transactionRepository).findHistoryFirstPage("sender", 101);
+    }
+
+    @Test
+    void getHistory_RejectsInvalidPageSizeAndCursor() {
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> transactionService.getHistory("sender", null, null, 0));
+        assertThrows(ValidationException.class, () -> transactionService.getHistory("sender", null, "not-a-cursor", null));
+        verifyNoInteractions(transactionRepository, userRepository);
+    }
+
+    @Test
+    void getHistory_FilteredUsesCriteriaQuery() {
+        // Arrange
+        HistoryFilter filter = HistoryFilter.builder()
+                .direction(HistoryFilter.Direction.SENT)
+                .minAmount(Money.ofMajor(5))
+                .build();
+        HistoryRow row = historyRow(1L, LocalDateTime.now());
+        when(transactionRepository.findHistory("sender", filter, null, 21)).thenReturn(List.of(row));
+
+        // Act
+        TransactionPageResponse page = transactionService.getHistory("sender", filter, null, null);
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        verify(transactionRepository, never()).findHistoryFirstPage(anyString(), anyInt());
+    }
+
+    @Test
+    void getHistory_EmptyFilterUsesUnfilteredQuery() {
+        // Arrange
+        when(transactionRepository.findHistoryFirstPage("sender", 21)).thenReturn(List.of());
+        when(userRepository.existsByUserName("sender")).thenReturn(true);
+
+        // Act
+        transactionService.getHistory("sender", new HistoryFilter(), null, null);
+
+        // Assert
+        verify(transactionRepository, never()).findHistory(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getHistory_RejectsInvertedFilterRanges() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        HistoryFilter dates = HistoryFilter.builder().from(now).to(now).build();
+        HistoryFilter amounts = HistoryFilter.builder().minAmount(Money.ofMajor(10)).maxAmount(Money.ofMajor(1)).build();
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> transactionService.getHistory("sender", dates, null, null));
+        assertThrows(ValidationException.class, () -> transactionService.getHistory("sender", amounts, null, null));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private static HistoryRow historyRow(Long id, LocalDateTime createdAt) {
+        return historyRow(id, "sender", "receiver", Money.ofMajor(10), null, createdAt);
+    }
+
+    private static HistoryRow historyRow(Long id, String senderUsername, String receiverUsername, Money amount,
+                                         String message, LocalDateTime createdAt) {
+        HistoryRow row = mock(HistoryRow.class);
+        lenient().when(row.getId()).thenReturn(id);
+        lenient().when(row.getSenderUsername()).thenReturn(senderUsername);
+        lenient().when(row.getReceiverUsername()).thenReturn(receiverUsername);
+        lenient().when(row.getAmount()).thenReturn(amount.minorUnits());
+        lenient().when(row.getMessage()).thenReturn(message);
+        lenient().when(row.getCreatedAt()).thenReturn(createdAt);
+        return row;
+    }
+
     // ======= TOP UP TESTS =======
     @Test
     void topUp_Success() {
         // Arrange
-        when(userRepository.findByUserName("target")).thenReturn(Optional.of(targetUser));
+        stubTopUpTarget();
 
         // Act
         transactionService.topUp(topUpRequest);
 
         // Assert
-        assertEquals(600.0, targetUser.getBalance()); // 100 + 500
-        verify(userRepository).findByUserName("target");
-        verify(userRepository).save(targetUser);
+        verify(userRepository).findIdByUserName("target");
+        verify(ledgerService).lockAvailableBalance(3L);
+        verify(ledgerService).postTopUp(3L, Money.ofMajor(500));
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void topUp_UserNotFound() {
         // Arrange
-        when(userRepository.findByUserName("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.findIdByUserName("nonexistent")).thenReturn(Optional.empty());
         topUpRequest.setTargetUsername("nonexistent");
 
         // Act & Assert
@@ -411,8 +642,8 @@ class TransactionServiceImplTest {
         });
 
         assertEquals("User not found: nonexistent", exception.getMessage());
-        verify(userRepository).findByUserName("nonexistent");
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository).findIdByUserName("nonexistent");
+        verifyNoInteractions(ledgerService);
     }
 
     @Test
@@ -432,7 +663,7 @@ class TransactionServiceImplTest {
     @Test
     void topUp_ZeroAmount() {
         // Arrange
-        topUpRequest.setAmount(0.0);
+        topUpRequest.setAmount(Money.ZERO);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -446,7 +677,7 @@ class TransactionServiceImplTest {
     @Test
     void topUp_NegativeAmount() {
         // Arrange
-        topUpRequest.setAmount(-100.0);
+        topUpRequest.setAmount(Money.ofMajor(-100));
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -460,25 +691,23 @@ class TransactionServiceImplTest {
     @Test
     void topUp_ExceedsMaximumTopUpAmount() {
         // Arrange
-        topUpRequest.setAmount(15_000_000.0); // Exceeds 10 million limit
-        when(userRepository.findByUserName("target")).thenReturn(Optional.of(targetUser));
+        topUpRequest.setAmount(Money.ofMajor(15_000_000)); // Exceeds 10 million limit
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
             transactionService.topUp(topUpRequest);
         });
 
-        assertEquals("Top-up amount exceeds maximum limit of 1.0E7", exception.getMessage());
-        verify(userRepository).findByUserName("target");
-        verifyNoInteractions(transactionRepository);
+        assertEquals("Top-up amount exceeds maximum limit of 10000000.00", exception.getMessage());
+        verifyNoInteractions(userRepository, transactionRepository);
     }
 
     @Test
     void topUp_ExceedsMaximumBalance() {
         // Arrange
-        targetUser.setBalance(999_999_999.0); // Very high existing balance
-        topUpRequest.setAmount(1000.0); // This would exceed max balance
-        when(userRepository.findByUserName("target")).thenReturn(Optional.of(targetUser));
+        topUpRequest.setAmount(Money.ofMajor(1000)); // This would exceed max balance
+        stubTopUpTarget();
+        when(ledgerService.lockAvailableBalance(3L)).thenReturn(Money.parse("999999000.00"));
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -486,165 +715,66 @@ class TransactionServiceImplTest {
         });
 
         assertEquals("Top-up would exceed maximum account balance limit", exception.getMessage());
-        verify(userRepository).findByUserName("target");
-        verify(userRepository, never()).save(any(User.class));
+        verify(ledgerService, never()).postTopUp(any(), any());
     }
 
     @Test
     void topUp_MaximumAllowedAmount() {
         // Arrange
-        topUpRequest.setAmount(10_000_000.0); // Maximum allowed
-        when(userRepository.findByUserName("target")).thenReturn(Optional.of(targetUser));
+        topUpRequest.setAmount(Money.ofMajor(10_000_000)); // Maximum allowed
+        stubTopUpTarget();
 
         // Act
         transactionService.topUp(topUpRequest);
 
         // Assert
-        assertEquals(10_000_100.0, targetUser.getBalance()); // 100 + 10,000,000
-        verify(userRepository).findByUserName("target");
-        verify(userRepository).save(targetUser);
+        verify(ledgerService).postTopUp(3L, Money.ofMajor(10_000_000));
     }
 
     // ======= STATISTICS TESTS =======
     @Test
-    void getStatistics_Success() {
+    void getStatistics_ReadsRunningTotals() {
         // Arrange
-        Transaction transaction1 = Transaction.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(200.0)
-                .build();
-
-        Transaction transaction2 = Transaction.builder()
-                .sender(receiver)
-                .receiver(targetUser)
-                .amount(300.0)
-                .build();
-
-        Transaction transaction3 = Transaction.builder()
-                .sender(sender)
-                .receiver(targetUser)
-                .amount(150.0)
-                .build();
-
-        List<Transaction> allTransactions = Arrays.asList(transaction1, transaction2, transaction3);
-        when(transactionRepository.findAll()).thenReturn(allTransactions);
+        StatisticsResponse totals = new StatisticsResponse(Money.ofMajor(650), 3, List.of(
+                new StatisticsResponse.TopReceiverResponse("target", "Target User", Money.ofMajor(450), 2)));
+        when(statisticsService.getStatistics()).thenReturn(totals);
 
         // Act
         StatisticsResponse result = transactionService.getStatistics();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(650.0, result.getTotalTransferred()); // 200 + 300 + 150
-        assertEquals(3, result.getTotalTransactions());
-        
-        assertNotNull(result.getTopReceivers());
-        assertEquals(2, result.getTopReceivers().size());
-        
-        // Check top receiver (target should be first with 450.0 total)
-        StatisticsResponse.TopReceiverResponse topReceiver = result.getTopReceivers().get(0);
-        assertEquals("target", topReceiver.getUsername());
-        assertEquals("Target User", topReceiver.getFullName());
-        assertEquals(450.0, topReceiver.getTotalReceived()); // 300 + 150
-        assertEquals(2, topReceiver.getTransactionCount());
-        
-        // Check second receiver
-        StatisticsResponse.TopReceiverResponse secondReceiver = result.getTopReceivers().get(1);
-        assertEquals("receiver", secondReceiver.getUsername());
-        assertEquals("Receiver User", secondReceiver.getFullName());
-        assertEquals(200.0, secondReceiver.getTotalReceived());
-        assertEquals(1, secondReceiver.getTransactionCount());
-
-        verify(transactionRepository).findAll();
+        assertSame(totals, result);
+        verify(transactionRepository, never()).findAll();
     }
 
-    @Test
-    void getStatistics_EmptyTransactions() {
-        // Arrange
-        when(transactionRepository.findAll()).thenReturn(Collections.emptyList());
-
-        // Act
-        StatisticsResponse result = transactionService.getStatistics();
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(0.0, result.getTotalTransferred());
-        assertEquals(0, result.getTotalTransactions());
-        assertNotNull(result.getTopReceivers());
-        assertEquals(0, result.getTopReceivers().size());
-
-        verify(transactionRepository).findAll();
+    private static TransferRequest leg(String receiverUsername, Money amount) {
+        TransferRequest leg = new TransferRequest();
+        leg.setReceiverUsername(receiverUsername);
+        leg.setAmount(amount);
+        return leg;
     }
 
-    @Test
-    void getStatistics_SingleTransaction() {
-        // Arrange
-        Transaction singleTransaction = Transaction.builder()
-                .sender(sender)
-                .receiver(receiver)
-                .amount(500.0)
-                .build();
-
-        when(transactionRepository.findAll()).thenReturn(Arrays.asList(singleTransaction));
-
-        // Act
-        StatisticsResponse result = transactionService.getStatistics();
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(500.0, result.getTotalTransferred());
-        assertEquals(1, result.getTotalTransactions());
-        
-        assertNotNull(result.getTopReceivers());
-        assertEquals(1, result.getTopReceivers().size());
-        
-        StatisticsResponse.TopReceiverResponse topReceiver = result.getTopReceivers().get(0);
-        assertEquals("receiver", topReceiver.getUsername());
-        assertEquals("Receiver User", topReceiver.getFullName());
-        assertEquals(500.0, topReceiver.getTotalReceived());
-        assertEquals(1, topReceiver.getTransactionCount());
-
-        verify(transactionRepository).findAll();
+    private void stubTransferParties() {
+        when(userRepository.findAccountRefsByUserNameIn(anyList())).thenReturn(List.of(
+                new AccountRef(sender.getId(), "sender", "Sender User"),
+                new AccountRef(receiver.getId(), "receiver", "Receiver User")));
+        lenient().when(userRepository.getReferenceById(sender.getId())).thenReturn(sender);
+        lenient().when(userRepository.getReferenceById(receiver.getId())).thenReturn(receiver);
+        lenient().when(ledgerService.lockAvailableBalance(sender.getId())).thenReturn(sender.getBalance());
     }
 
-    @Test
-    void getStatistics_LimitsTopReceiversToTen() {
-        // Arrange - Create 15 different receivers
-        List<Transaction> transactions = Arrays.asList();
-        List<Transaction> mutableTransactions = new java.util.ArrayList<>(transactions);
-        
-        for (int i = 1; i <= 15; i++) {
-            User receiver = User.builder()
-                    .id((long) (i + 10))
-                    .userName("receiver" + i)
-                    .fullName("Receiver " + i)
-                    .build();
-                    
-            Transaction transaction = Transaction.builder()
-                    .sender(sender)
-                    .receiver(receiver)
-                    .amount((double) i * 100) // Different amounts for sorting
-                    .build();
-                    
-            mutableTransactions.add(transaction);
+    private void stubBatchParties(User... users) {
+        when(userRepository.findAccountRefsByUserNameIn(anyCollection())).thenReturn(Arrays.stream(users)
+                .map(user -> new AccountRef(user.getId(), user.getUserName(), user.getFullName()))
+                .toList());
+        for (User user : users) {
+            lenient().when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         }
-        
-        when(transactionRepository.findAll()).thenReturn(mutableTransactions);
-
-        // Act
-        StatisticsResponse result = transactionService.getStatistics();
-
-        // Assert
-        assertNotNull(result);
-        assertEquals(15, result.getTotalTransactions());
-        assertNotNull(result.getTopReceivers());
-        assertEquals(10, result.getTopReceivers().size()); // Limited to 10
-        
-        // Check that they are sorted by total received (descending)
-        StatisticsResponse.TopReceiverResponse firstReceiver = result.getTopReceivers().get(0);
-        StatisticsResponse.TopReceiverResponse lastReceiver = result.getTopReceivers().get(9);
-        assertTrue(firstReceiver.getTotalReceived() >= lastReceiver.getTotalReceived());
+        when(ledgerService.lockAvailableBalance(sender.getId())).thenReturn(sender.getBalance());
+    }
 
-        verify(transactionRepository).findAll();
+    private void stubTopUpTarget() {
+        when(userRepository.findIdByUserName("target")).thenReturn(Optional.of(targetUser.getId()));
+        lenient().when(ledgerService.lockAvailableBalance(targetUser.getId())).thenReturn(targetUser.getBalance());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.thinhtran.EzPay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSumMapTest {
+
+    @Test
+    void add_SumsAndCountsPerKey() {
+        // Arrange
+        LongSumMap totals = new LongSumMap();
+
+        // Act
+        totals.add(7, 100);
+        totals.add(7, 25);
+        totals.add(-3, 40);
+        totals.add(7, -5, -1);
+
+        // Assert
+        assertEquals(2, totals.size());
+        assertEquals(120, totals.sum(7));
+        assertEquals(1, totals.count(7));
+        assertEquals(40, totals.sum(-3));
+        assertEquals(0, totals.sum(8));
+        assertEquals(0, totals.count(8));
+    }
+
+    @Test
+    void add_KeepsEveryKeyAcrossGrowth() {
+        // Arrange
+        LongSumMap totals = new LongSumMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(20_000);
+            long amount = random.nextInt(1_000);
+            totals.add(key, amount);
+            expected.merge(key, amount, Long::sum);
+        }
+
+        // Assert
+        assertEquals(expected.size(), totals.size());
+        expected.forEach((key, sum) -> assertEquals(sum, totals.sum(key)));
+    }
+
+    @Test
+    void addAll_MergesSumsAndCounts() {
+        // Arrange
+        LongSumMap left = new LongSumMap();
+        left.add(1, 10);
+        left.add(2, 20);
+        LongSumMap right = new LongSumMap();
+        right.add(2, 5);
+        right.add(2, 5);
+        right.add(3, 30);
+
+        // Act
+        left.addAll(right);
+
+        // Assert
+        assertEquals(3, left.size());
+        assertEquals(30, left.sum(2));
+        assertEquals(3, left.count(2));
+        assertEquals(30, left.sum(3));
+        long[] visited = new long[3];
+        left.forEach((key, sum, count) -> {
+            visited[0]++;
+            visited[1] += sum;
+            visited[2] += count;
+        });
+        assertArrayEquals(new long[]{3, 70, 5}, visited);
+    }
+
+    @Test
+    void add_RejectsReservedKey() {
+        LongSumMap totals = new LongSumMap();
+
+        assertThrows(IllegalArgumentException.class, () -> totals.add(Long.MIN_VALUE, 1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.thinhtran.EzPay.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void put_EvictsLeastRecentlyUsedEntryWhenFull() {
+        // Arrange
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a"); // "b" is now the least recently used
+
+        // Act
+        cache.put("c", 3);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+    }
+
+    @Test
+    void put_ReplacesExistingValueWithoutEviction() {
+        // Arrange
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Act
+        cache.put("a", 10);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.get("a"));
+        assertEquals(2, cache.get("b"));
+    }
+
+    @Test
+    void remove_DropsEntry() {
+        // Arrange
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+
+        // Act
+        cache.remove("a");
+
+        // Assert
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, Integer>(0));
+    }
+
+    @Test
+    void clear_RemovesEveryEntry() {
+        // Arrange
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Act
+        cache.clear();
+
+        // Assert
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+}
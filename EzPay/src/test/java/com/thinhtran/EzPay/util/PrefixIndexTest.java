@@ -0,0 +1,130 @@
+package com.thinhtran.EzPay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    private static PrefixIndex<Person> index(int deltaLimit) {
+        return new PrefixIndex<>(Person::id, person -> new String[]{person.name(), person.phone()}, deltaLimit);
+    }
+
+    @Test
+    void search_MatchesTheStartOfEveryWordInShortestFirstOrder() {
+        // Arrange
+        PrefixIndex<Person> index = index(100);
+        index.putAll(List.of(
+                new Person(1, "nguyen van anh", "0901000001"),
+                new Person(2, "tran thi an", "0902000002"),
+                new Person(3, "le anh tuan", "0903000003")));
+
+        // Act & Assert
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search("an", 10)));
+        assertEquals(List.of(1L), ids(index.search("van a", 10)));
+        assertEquals(List.of(3L), ids(index.search("0903", 10)));
+        assertTrue(index.search("guyen", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    void search_ListsEachValueOnceAndStopsAtLimit() {
+        // Arrange
+        PrefixIndex<Person> index = index(100);
+        index.put(new Person(1, "anh anh", "0901"));
+        index.put(new Person(2, "anhdao", "0902"));
+        index.put(new Person(3, "anh thu", "0903"));
+
+        // Act
+        List<Person> all = index.search("anh", 10);
+        List<Person> first = index.search("anh", 2);
+
+        // Assert
+        assertEquals(3, all.size());
+        assertEquals(List.of(1L, 3L), ids(first));
+    }
+
+    @Test
+    void put_ReplacesTheValueWithTheSameId() {
+        // Arrange
+        PrefixIndex<Person> index = index(100);
+        index.put(new Person(1, "old name", "0901"));
+
+        // Act
+        index.put(new Person(1, "new name", "0901"));
+
+        // Assert
+        assertEquals(1, index.size());
+        assertTrue(index.search("old", 10).isEmpty());
+        assertEquals("new name", index.search("new", 10).get(0).name());
+        assertEquals(1, index.search("name", 10).size());
+    }
+
+    @Test
+    void remove_HidesTheValue() {
+        // Arrange
+        PrefixIndex<Person> index = index(100);
+        index.put(new Person(1, "binh", "0901"));
+        index.put(new Person(2, "bich", "0902"));
+
+        // Act
+        index.remove(1);
+        index.remove(42);
+
+        // Assert
+        assertEquals(1, index.size());
+        assertEquals(List.of(2L), ids(index.search("bi", 10)));
+    }
+
+    @Test
+    void put_KeepsResultsAcrossDeltaMerges() {
+        // Arrange: a delta of four entries merges after every second value
+        PrefixIndex<Person> index = index(4);
+        List<Long> expected = new ArrayList<>();
+
+        // Act
+        for (long id = 0; id < 200; id++) {
+            index.put(new Person(id, String.format("user%03d", id), "09" + id));
+            if (id % 3 == 0) {
+                index.put(new Person(id, String.format("renamed%03d", id), "09" + id));
+            } else {
+                expected.add(id);
+            }
+        }
+
+        // Assert
+        assertEquals(200, index.size());
+        assertEquals(expected, ids(index.search("user", 500)));
+        assertEquals(67, index.search("renamed", 500).size());
+        assertEquals(List.of(42L), ids(index.search("renamed042", 10)));
+    }
+
+    @Test
+    void search_SkipsRemovedValuesBeforeTheyAreMerged() {
+        // Arrange
+        PrefixIndex<Person> index = index(1000);
+        for (long id = 0; id < 50; id++) {
+            index.put(new Person(id, "khanh " + id, "09" + id));
+        }
+
+        // Act
+        for (long id = 0; id < 50; id += 2) {
+            index.remove(id);
+        }
+
+        // Assert
+        List<Person> found = index.search("khanh", 100);
+        assertEquals(25, found.size());
+        assertTrue(found.stream().allMatch(person -> person.id() % 2 == 1));
+    }
+
+    private static List<Long> ids(List<Person> people) {
+        return people.stream().map(Person::id).toList();
+    }
+
+    private record Person(long id, String name, String phone) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.thinhtran.EzPay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void add_IsExactWhileKeysFitInCapacity() {
+        // Arrange
+        SpaceSaving summary = new SpaceSaving(3);
+
+        // Act
+        summary.add(1, 100);
+        summary.add(2, 50);
+        summary.add(1, 20);
+
+        // Assert
+        assertEquals(List.of(new SpaceSaving.Estimate(1, 120, 0, 2), new SpaceSaving.Estimate(2, 50, 0, 1)),
+                summary.top(10));
+        assertEquals(0, summary.maxError());
+        assertEquals(170, summary.totalWeight());
+        assertEquals(3, summary.totalCount());
+    }
+
+    @Test
+    void add_NewKeyTakesOverLightestCounter() {
+        // Arrange
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 100);
+        summary.add(2, 10);
+
+        // Act
+        summary.add(3, 5);
+
+        // Assert - key 3 inherits key 2's weight as error
+        assertEquals(List.of(new SpaceSaving.Estimate(1, 100, 0, 1), new SpaceSaving.Estimate(3, 15, 10, 1)),
+                summary.top(2));
+        assertEquals(15, summary.maxError());
+    }
+
+    @Test
+    void add_EstimatesStayWithinBoundOnSkewedStream() {
+        // Arrange
+        int capacity = 50;
+        SpaceSaving summary = new SpaceSaving(capacity);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act - a few heavy receivers among many light ones
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(10) < 3 ? random.nextInt(5) : 5 + random.nextInt(10_000);
+            long weight = 1 + random.nextInt(1_000);
+            summary.add(key, weight);
+            exact.merge(key, weight, Long::sum);
+        }
+
+        // Assert
+        long bound = summary.totalWeight() / capacity;
+        assertTrue(summary.maxError() <= bound);
+        for (SpaceSaving.Estimate estimate : summary.estimates()) {
+            long real = exact.get(estimate.key());
+            assertTrue(estimate.weight() >= real);
+            assertTrue(estimate.guaranteedWeight() <= real);
+            assertTrue(estimate.error() <= bound);
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L),
+                summary.top(5).stream().map(SpaceSaving.Estimate::key).sorted().toList());
+    }
+
+    @Test
+    void merge_BoundsKeysMissingFromAPart() {
+        // Arrange
+        SpaceSaving first = new SpaceSaving(2);
+        first.add(1, 100);
+        first.add(2, 10);
+        first.add(3, 5); // full: key 2 is dropped, maxError 15
+        SpaceSaving second = new SpaceSaving(2);
+        second.add(2, 40);
+
+        // Act
+        SpaceSaving merged = SpaceSaving.merge(2, List.of(first, second));
+
+        // Assert - key 2 may have weighed up to 15 in the first part
+        assertEquals(List.of(new SpaceSaving.Estimate(1, 100, 0, 1), new SpaceSaving.Estimate(2, 55, 15, 1)),
+                merged.top(2));
+        assertEquals(155, merged.totalWeight());
+        assertEquals(4, merged.totalCount());
+        assertTrue(merged.maxError() >= 15);
+    }
+
+    @Test
+    void restore_RoundTripsEstimates() {
+        // Arrange
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 100);
+        summary.add(2, 10);
+        summary.add(3, 5);
+
+        // Act
+        SpaceSaving restored = SpaceSaving.restore(2, summary.totalWeight(), summary.totalCount(),
+                summary.maxError(), summary.estimates());
+        restored.add(3, 1);
+
+        // Assert
+        assertEquals(List.of(new SpaceSaving.Estimate(1, 100, 0, 1), new SpaceSaving.Estimate(3, 16, 10, 2)),
+                restored.top(2));
+        assertEquals(116, restored.totalWeight());
+    }
+}
@@ -0,0 +1,31 @@
+package com.thinhtran.EzPay.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextFoldingTest {
+
+    @Test
+    void fold_DropsVietnameseAccentsAndCase() {
+        assertEquals("tran duc thinh", TextFolding.fold("Trần Đức Thịnh"));
+        assertEquals("nguyen thi huong", TextFolding.fold("NGUYỄN THỊ HƯƠNG"));
+        assertEquals("do quoc dung", TextFolding.fold("đỗ quốc dũng"));
+    }
+
+    @Test
+    void fold_CollapsesWhitespace() {
+        assertEquals("le van an", TextFolding.fold("  Lê\tVăn   An "));
+    }
+
+    @Test
+    void fold_LeavesDigitsAndSymbols() {
+        assertEquals("0901234567", TextFolding.fold("0901234567"));
+        assertEquals("thinh.tran@example.com", TextFolding.fold("Thinh.Tran@Example.com"));
+    }
+
+    @Test
+    void fold_TreatsNullAsEmpty() {
+        assertEquals("", TextFolding.fold(null));
+    }
+}
@@ -4,7 +4,7 @@ import { useAuth } from '../contexts/AuthContext';
 import { transactionService } from '../services/transactionService';
 import { authService } from '../services/authService';
 import { userService } from '../services/userService';
-import { User } from '../types';
+import { Recipient } from '../types';
 import { ArrowLeftIcon, ShieldCheckIcon } from '@heroicons/react/24/outline';
 
 interface TransferFormData {
@@ -27,8 +27,8 @@ const Transfer: React.FC = () => {
   
   // User search states
   const [searchTerm, setSearchTerm] = useState('');
-  const [searchResults, setSearchResults] = useState<User[]>([]);
-  const [selectedUser, setSelectedUser] = useState<User | null>(null);
+  const [searchResults, setSearchResults] = useState<Recipient[]>([]);
+  const [selectedUser, setSelectedUser] = useState<Recipient | null>(null);
   const [showSearchResults, setShowSearchResults] = useState(false);
   const [searchLoading, setSearchLoading] = useState(false);
 
@@ -41,7 +41,7 @@ const Transfer: React.FC = () => {
       if (searchTerm.trim() && searchTerm.length >= 2) {
         setSearchLoading(true);
         try {
-          const results = await userService.searchUsers(searchTerm);
+          const results = await userService.autocompleteRecipients(searchTerm);
           setSearchResults(results);
           setShowSearchResults(true);
         } catch (err) {
@@ -88,7 +88,7 @@ const Transfer: React.FC = () => {
     }
   };
 
-  const handleUserSelect = (selectedUser: User) => {
+  const handleUserSelect = (selectedUser: Recipient) => {
     setSelectedUser(selectedUser);
     setFormData({ ...formData, receiverUsername: selectedUser.userName });
     setSearchTerm('');
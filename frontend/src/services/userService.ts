@@ -1,5 +1,5 @@
 import api from './api';
-import { User } from '../types';
+import { Recipient, User } from '../types';
 
 export const userService = {
   getProfile: async (): Promise<User> => {
@@ -21,4 +21,9 @@ export const userService = {
     const response = await api.get(`/users/search?q=${encodeURIComponent(searchTerm)}`);
     return response.data.data; // Access the data field within the ApiResponse
   },
+
+  autocompleteRecipients: async (searchTerm: string): Promise<Recipient[]> => {
+    const response = await api.get(`/users/autocomplete?q=${encodeURIComponent(searchTerm)}`);
+    return response.data.data; // Access the data field within the ApiResponse
+  },
 }; 
\ No newline at end of file
@@ -8,6 +8,8 @@ export interface User {
   role?: 'USER' | 'ADMIN';
 }
 
+export type Recipient = Pick<User, 'userName' | 'fullName' | 'email' | 'phone'>;
+
 export interface LoginRequest {
   userName: string;
   password: string;